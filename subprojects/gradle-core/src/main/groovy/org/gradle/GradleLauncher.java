@@ -136,7 +136,7 @@ public class GradleLauncher {
         // Switching it off shouldn't be strictly necessary as StandardOutput capturing should
         // always be closed. But as we expose this functionality to the builds, we can't
         // guarantee this.
-        StandardOutputLogging.off();
+        StandardOutputLogging.reset();
         removeOutputListeners();
         return buildResult;
     }
@@ -80,6 +80,10 @@ public class StartParameter {
     private boolean launchGUI;
     private boolean dryRun;
     private boolean noOpt;
+    private int parallelThreadCount;
+    private boolean snapshotDirectories;
+    private boolean outputCacheEnabled;
+    private boolean profile;
 
     /**
      * Creates a {@code StartParameter} with default values. This is roughly equivalent to running Gradle on the
@@ -119,6 +123,10 @@ public class StartParameter {
         startParameter.showVersion = showVersion;
         startParameter.dryRun = dryRun;
         startParameter.noOpt = noOpt;
+        startParameter.parallelThreadCount = parallelThreadCount;
+        startParameter.snapshotDirectories = snapshotDirectories;
+        startParameter.outputCacheEnabled = outputCacheEnabled;
+        startParameter.profile = profile;
         return startParameter;
     }
 
@@ -422,6 +430,85 @@ public class StartParameter {
         this.noOpt = noOpt;
     }
 
+    /**
+     * Returns the number of worker threads to use to execute independent tasks concurrently. A value of 1 or less
+     * means the tasks are executed one at a time.
+     *
+     * @return The number of worker threads.
+     */
+    public int getParallelThreadCount() {
+        return parallelThreadCount;
+    }
+
+    /**
+     * Sets the number of worker threads to use to execute independent tasks concurrently. Use 0 to execute the tasks
+     * one at a time.
+     *
+     * @param parallelThreadCount The number of worker threads.
+     */
+    public void setParallelThreadCount(int parallelThreadCount) {
+        this.parallelThreadCount = parallelThreadCount;
+    }
+
+    /**
+     * Returns true if directory listings should be cached between walks of a file tree, and between builds.
+     *
+     * @return true if directory listings should be cached.
+     */
+    public boolean isSnapshotDirectories() {
+        return snapshotDirectories;
+    }
+
+    /**
+     * Specifies whether directory listings should be cached between walks of a file tree, and between builds. A cached
+     * listing is used for as long as the modification time of the directory is unchanged.
+     *
+     * @param snapshotDirectories true if directory listings should be cached.
+     */
+    public void setSnapshotDirectories(boolean snapshotDirectories) {
+        this.snapshotDirectories = snapshotDirectories;
+    }
+
+    /**
+     * Returns true if the outputs of tasks should be stored in a local cache, and restored from it instead of executing
+     * a task.
+     *
+     * @return true if the local output cache should be used.
+     */
+    public boolean isOutputCacheEnabled() {
+        return outputCacheEnabled;
+    }
+
+    /**
+     * Specifies whether the outputs of tasks should be stored in a local cache, and restored from it instead of
+     * executing a task. Outputs are restored when the task type, the input files, and the output file paths match
+     * those of an earlier execution.
+     *
+     * @param outputCacheEnabled true if the local output cache should be used.
+     */
+    public void setOutputCacheEnabled(boolean outputCacheEnabled) {
+        this.outputCacheEnabled = outputCacheEnabled;
+    }
+
+    /**
+     * Returns true if the build should be profiled. When true, the time spent configuring each project and executing
+     * each task is recorded, and a report is written to the build directory of the root project.
+     *
+     * @return true if the build should be profiled.
+     */
+    public boolean isProfile() {
+        return profile;
+    }
+
+    /**
+     * Specifies whether the build should be profiled.
+     *
+     * @param profile true if the build should be profiled.
+     */
+    public void setProfile(boolean profile) {
+        this.profile = profile;
+    }
+
     /**
      * Sets the settings file to use for the build. Use null to use the default settings file.
      *
@@ -550,6 +637,10 @@ public class StartParameter {
                 ", launchGUI=" + launchGUI +
                 ", dryRun=" + dryRun +
                 ", noOpt=" + noOpt +
+                ", parallelThreadCount=" + parallelThreadCount +
+                ", snapshotDirectories=" + snapshotDirectories +
+                ", outputCacheEnabled=" + outputCacheEnabled +
+                ", profile=" + profile +
                 '}';
     }
 }
\ No newline at end of file
@@ -89,6 +89,22 @@ public interface CopyProcessingSpec extends ContentFilterable {
      */
     CopyProcessingSpec setDirMode(int mode);
 
+    /**
+     * Returns the name of the charset used to read and write the content of files which are filtered. Defaults to the
+     * platform default charset.
+     *
+     * @return The charset name.
+     */
+    String getFilteringCharset();
+
+    /**
+     * Sets the name of the charset used to read and write the content of files which are filtered.
+     *
+     * @param charset The charset name.
+     * @return this
+     */
+    CopyProcessingSpec setFilteringCharset(String charset);
+
     /**
      * Adds an action to be applied to each file as it about to be copied into its destination. The action can change
      * the destination path of the file, filter the contents of the file, or exclude the file from the result entirely.
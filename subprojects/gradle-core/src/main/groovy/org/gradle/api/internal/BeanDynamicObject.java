@@ -17,16 +17,23 @@ package org.gradle.api.internal;
 
 import groovy.lang.*;
 import org.codehaus.groovy.runtime.InvokerInvocationException;
+import org.codehaus.groovy.runtime.MetaClassHelper;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.lang.ref.SoftReference;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A {@link DynamicObject} which uses groovy reflection to provide access to the properties and methods of a bean.
+ *
+ * <p>The properties and methods found for a given name are cached per meta-class, and shared by all beans which use
+ * the same meta-class. Only plain {@link MetaClassImpl} meta-classes are cached, as other meta-classes, such as an
+ * {@link ExpandoMetaClass}, can have properties and methods added to them.</p>
  */
 public class BeanDynamicObject extends AbstractDynamicObject {
+    private static final Object NO_MATCH = new Object();
+    private static final Map<MetaClass, SoftReference<MetaClassLookups>> LOOKUPS
+            = new WeakHashMap<MetaClass, SoftReference<MetaClassLookups>>();
     private final Object bean;
     private final boolean includeProperties;
 
@@ -61,9 +68,38 @@ public class BeanDynamicObject extends AbstractDynamicObject {
         }
     }
 
+    private static MetaClassLookups getLookups(MetaClass metaClass) {
+        if (metaClass.getClass() != MetaClassImpl.class) {
+            return null;
+        }
+        synchronized (LOOKUPS) {
+            SoftReference<MetaClassLookups> reference = LOOKUPS.get(metaClass);
+            MetaClassLookups lookups = reference == null ? null : reference.get();
+            if (lookups == null) {
+                lookups = new MetaClassLookups();
+                LOOKUPS.put(metaClass, new SoftReference<MetaClassLookups>(lookups));
+            }
+            return lookups;
+        }
+    }
+
+    private MetaProperty lookupProperty(MetaClass metaClass, String name) {
+        MetaClassLookups lookups = getLookups(metaClass);
+        if (lookups == null) {
+            return metaClass.hasProperty(bean, name);
+        }
+        Object property = lookups.properties.get(name);
+        if (property == null) {
+            MetaProperty metaProperty = metaClass.hasProperty(bean, name);
+            property = metaProperty == null ? NO_MATCH : metaProperty;
+            lookups.properties.put(name, property);
+        }
+        return property == NO_MATCH ? null : (MetaProperty) property;
+    }
+
     @Override
     public boolean hasProperty(String name) {
-        return includeProperties && getMetaClass().hasProperty(bean, name) != null;
+        return includeProperties && lookupProperty(getMetaClass(), name) != null;
     }
 
     @Override
@@ -72,7 +108,7 @@ public class BeanDynamicObject extends AbstractDynamicObject {
             throw propertyMissingException(name);
         }
 
-        MetaProperty property = getMetaClass().hasProperty(bean, name);
+        MetaProperty property = lookupProperty(getMetaClass(), name);
         if (property == null) {
             throw propertyMissingException(name);
         }
@@ -98,7 +134,7 @@ public class BeanDynamicObject extends AbstractDynamicObject {
         }
 
         MetaClass metaClass = getMetaClass();
-        MetaProperty property = metaClass.hasProperty(bean, name);
+        MetaProperty property = lookupProperty(metaClass, name);
         if (property == null) {
             throw propertyMissingException(name);
         }
@@ -148,12 +184,38 @@ public class BeanDynamicObject extends AbstractDynamicObject {
 
     @Override
     public boolean hasMethod(String name, Object... arguments) {
-        return !getMetaClass().respondsTo(bean, name, arguments).isEmpty();
+        MetaClass metaClass = getMetaClass();
+        MetaClassLookups lookups = getLookups(metaClass);
+        if (lookups == null) {
+            return !metaClass.respondsTo(bean, name, arguments).isEmpty();
+        }
+        MethodKey key = new MethodKey(name, arguments);
+        Boolean respondsTo = lookups.respondsTo.get(key);
+        if (respondsTo == null) {
+            respondsTo = !metaClass.respondsTo(bean, name, arguments).isEmpty();
+            lookups.respondsTo.put(key, respondsTo);
+        }
+        return respondsTo;
+    }
+
+    private MetaMethod lookupMethod(MetaClass metaClass, String name, Object[] arguments) {
+        MetaClassLookups lookups = getLookups(metaClass);
+        if (lookups == null) {
+            return metaClass.getMetaMethod(name, arguments);
+        }
+        MethodKey key = new MethodKey(name, arguments);
+        Object method = lookups.methods.get(key);
+        if (method == null) {
+            MetaMethod metaMethod = metaClass.getMetaMethod(name, arguments);
+            method = metaMethod == null ? NO_MATCH : metaMethod;
+            lookups.methods.put(key, method);
+        }
+        return method == NO_MATCH ? null : (MetaMethod) method;
     }
 
     @Override
     public Object invokeMethod(String name, Object... arguments) throws MissingMethodException {
-        MetaMethod method = getMetaClass().getMetaMethod(name, arguments);
+        MetaMethod method = lookupMethod(getMetaClass(), name, arguments);
         if (method == null) {
             throw methodMissingException(name, arguments);
         }
@@ -167,4 +229,34 @@ public class BeanDynamicObject extends AbstractDynamicObject {
             throw e;
         }
     }
+
+    private static class MetaClassLookups {
+        private final Map<String, Object> properties = new ConcurrentHashMap<String, Object>();
+        private final Map<MethodKey, Object> methods = new ConcurrentHashMap<MethodKey, Object>();
+        private final Map<MethodKey, Boolean> respondsTo = new ConcurrentHashMap<MethodKey, Boolean>();
+    }
+
+    private static class MethodKey {
+        private final String name;
+        private final Class[] argumentTypes;
+
+        private MethodKey(String name, Object[] arguments) {
+            this.name = name;
+            this.argumentTypes = MetaClassHelper.convertToTypeArray(arguments);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof MethodKey)) {
+                return false;
+            }
+            MethodKey other = (MethodKey) o;
+            return name.equals(other.name) && Arrays.equals(argumentTypes, other.argumentTypes);
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode() ^ Arrays.hashCode(argumentTypes);
+        }
+    }
 }
@@ -15,34 +15,55 @@
  */
 package org.gradle.api.internal.changedetection;
 
+import org.apache.commons.collections.map.LRUMap;
 import org.gradle.cache.CacheRepository;
 import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.cache.Serializer;
 
 import java.io.*;
 import java.util.Collections;
+import java.util.Map;
 
-public class CachingHasher implements Hasher {
+/**
+ * A {@link Hasher} which caches the hashes of files, keyed by file length and timestamp. Recently used hashes are
+ * kept in memory in front of the persistent cache. This hasher is thread-safe.
+ */
+public class CachingHasher extends AbstractHasher {
+    public static final int DEFAULT_IN_MEMORY_ENTRIES = 10000;
     private final PersistentIndexedCache<File, FileInfo> cache;
+    private final Map<File, FileInfo> recentlyUsed;
     private final Hasher hasher;
-    private long timestamp;
 
     public CachingHasher(Hasher hasher, CacheRepository cacheRepository) {
+        this(hasher, cacheRepository, DEFAULT_IN_MEMORY_ENTRIES);
+    }
+
+    public CachingHasher(Hasher hasher, CacheRepository cacheRepository, int inMemoryEntries) {
         this.hasher = hasher;
-        cache = cacheRepository.getIndexedGlobalCache("fileHashes", Collections.EMPTY_MAP, new FileInfoSerializer());
+        recentlyUsed = Collections.synchronizedMap(new LRUMap(inMemoryEntries));
+        cache = cacheRepository.getIndexedGlobalCache("fileHashes", Collections.EMPTY_MAP, new FileInfoSerializer(),
+                true);
     }
 
     public byte[] hash(File file) {
-        FileInfo info = cache.get(file);
-
         long length = file.length();
-        timestamp = file.lastModified();
-        if (info != null && length == info.length && timestamp == info.timestamp) {
+        long timestamp = file.lastModified();
+
+        FileInfo info = recentlyUsed.get(file);
+        if (info != null && info.isUpToDate(length, timestamp)) {
+            return info.hash;
+        }
+
+        info = cache.get(file);
+        if (info != null && info.isUpToDate(length, timestamp)) {
+            recentlyUsed.put(file, info);
             return info.hash;
         }
 
         byte[] hash = hasher.hash(file);
-        cache.put(file, new FileInfo(hash, length, timestamp));
+        info = new FileInfo(hash, length, timestamp);
+        recentlyUsed.put(file, info);
+        cache.put(file, info);
         return hash;
     }
 
@@ -56,6 +77,10 @@ public class CachingHasher implements Hasher {
             this.length = length;
             this.timestamp = timestamp;
         }
+
+        private boolean isUpToDate(long length, long timestamp) {
+            return length == this.length && timestamp == this.timestamp;
+        }
     }
 
     private static class FileInfoSerializer implements Serializer<FileInfo> {
@@ -15,12 +15,66 @@
  */
 package org.gradle.api.internal.changedetection;
 
-import org.gradle.util.HashUtil;
+import org.gradle.api.UncheckedIOException;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Calculates the MD5 hash of a file. Reads the file through a {@link FileChannel} into a direct buffer, and reuses
+ * the buffer and the digest for each file hashed by a given thread.
+ */
+public class DefaultHasher extends AbstractHasher {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private final ThreadLocal<HashState> state = new ThreadLocal<HashState>() {
+        @Override
+        protected HashState initialValue() {
+            return new HashState();
+        }
+    };
 
-public class DefaultHasher implements Hasher {
     public byte[] hash(File file) {
-        return HashUtil.createHash(file);
+        HashState hashState = state.get();
+        MessageDigest digest = hashState.digest;
+        ByteBuffer buffer = hashState.buffer;
+        digest.reset();
+        try {
+            FileInputStream instr = new FileInputStream(file);
+            try {
+                FileChannel channel = instr.getChannel();
+                while (true) {
+                    buffer.clear();
+                    int nread = channel.read(buffer);
+                    if (nread < 0) {
+                        break;
+                    }
+                    buffer.flip();
+                    digest.update(buffer);
+                }
+            } finally {
+                instr.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return digest.digest();
+    }
+
+    private static class HashState {
+        private final MessageDigest digest;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        private HashState() {
+            try {
+                digest = MessageDigest.getInstance("MD5");
+            } catch (NoSuchAlgorithmException e) {
+                throw new RuntimeException(e);
+            }
+        }
     }
-}
\ No newline at end of file
+}
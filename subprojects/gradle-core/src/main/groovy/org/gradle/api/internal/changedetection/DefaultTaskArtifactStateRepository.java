@@ -15,14 +15,20 @@
  */
 package org.gradle.api.internal.changedetection;
 
+import org.apache.commons.io.output.NullOutputStream;
+import org.gradle.api.UncheckedIOException;
 import org.gradle.api.internal.TaskInternal;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.cache.CacheRepository;
 import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.cache.Serializer;
 
-import java.io.File;
-import java.io.Serializable;
+import java.io.*;
+import java.math.BigInteger;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
 
 public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepository {
@@ -32,7 +38,8 @@ public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepo
     private static final byte MISSING = 3;
     private final CacheRepository repository;
     private final Hasher hasher;
-    private PersistentIndexedCache<File, OutputGenerators> cache;
+    private PersistentIndexedCache<TaskKey, TaskInfo> taskHistory;
+    private PersistentIndexedCache<File, OutputOwners> outputOwners;
 
     public DefaultTaskArtifactStateRepository(CacheRepository repository, Hasher hasher) {
         this.repository = repository;
@@ -40,9 +47,7 @@ public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepo
     }
 
     public TaskArtifactState getStateFor(final TaskInternal task) {
-        if (cache == null) {
-            loadTasks(task);
-        }
+        loadTasks(task);
 
         final TaskKey key = new TaskKey(task);
         final TaskInfo thisExecution = getThisExecution(task);
@@ -67,22 +72,28 @@ public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepo
             }
 
             public void invalidate() {
-                for (File file : thisExecution.outputFiles.keySet()) {
-                    OutputGenerators generators = cache.get(file);
-                    generators.remove(key);
-                    cache.put(file, generators);
-                }
+                removeHistory(key);
             }
 
             public void update() {
+                if (thisExecution.outputFiles.isEmpty()) {
+                    return;
+                }
+                Map<File, OutputFileInfo> beforeExecution = new HashMap<File, OutputFileInfo>(thisExecution.outputFiles);
                 thisExecution.snapshotOutputFiles();
-                TaskExecution taskInfo = thisExecution;
-                for (Map.Entry<File, OutputFileInfo> entry : thisExecution.outputFiles.entrySet()) {
-                    OutputGenerators generators = cache.get(entry.getKey());
-                    generators.update(entry.getValue(), key, taskInfo);
-                    cache.put(entry.getKey(), generators);
-                    taskInfo = new TaskInfoToken();
+
+                updateHistory(key, beforeExecution, thisExecution);
+            }
+
+            public String getCacheKey() {
+                for (File outputFile : thisExecution.outputFiles.keySet()) {
+                    OutputOwners owners = outputOwners.get(outputFile);
+                    if (owners != null && !owners.isOwnedBy(key)) {
+                        // Some other task also generates this output file
+                        return null;
+                    }
                 }
+                return thisExecution.getCacheKey(key);
             }
         };
     }
@@ -92,38 +103,66 @@ public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepo
     }
 
     private TaskExecution getLastExecution(TaskKey key, TaskInfo thisExecution) {
-        TaskExecution taskInfo = null;
-        List<String> outOfDateMessages = new ArrayList<String>();
-        for (File outputFile : thisExecution.outputFiles.keySet()) {
-            OutputGenerators generators = cache.get(outputFile);
-            if (generators == null) {
-                cache.put(outputFile, new OutputGenerators());
-                outOfDateMessages.add(String.format("No history is available for %s.", outputFile));
-                continue;
-            }
-            if (generators.invalidate(outputFile)) {
-                cache.put(outputFile, generators);
-            }
-            TaskExecution lastExecution = generators.get(key);
-            if (lastExecution == null) {
-                outOfDateMessages.add(String.format("Task did not produce %s.", outputFile));
-                continue;
-            }
-            if (lastExecution instanceof TaskInfo) {
-                taskInfo = lastExecution;
-            }
+        if (thisExecution.outputFiles.isEmpty()) {
+            return new EmptyTaskInfo();
         }
-        if (!outOfDateMessages.isEmpty()) {
-            return new EmptyTaskInfo(outOfDateMessages);
+        TaskInfo lastExecution = taskHistory.get(key);
+        if (lastExecution == null) {
+            return new EmptyTaskInfo(Arrays.asList(String.format("No history is available for %s.", key)));
         }
-        if (taskInfo == null) {
-            return new EmptyTaskInfo();
+        return lastExecution;
+    }
+
+    private synchronized void loadTasks(TaskInternal task) {
+        if (taskHistory != null) {
+            return;
         }
-        return taskInfo;
+        taskHistory = repository.getIndexedCacheFor(task.getProject().getGradle(), "taskArtifacts",
+                Collections.EMPTY_MAP, new TaskHistorySerializer());
+        outputOwners = repository.getIndexedCacheFor(task.getProject().getGradle(), "outputFileOwners",
+                Collections.EMPTY_MAP, new OutputOwnersSerializer());
     }
 
-    private void loadTasks(TaskInternal task) {
-        cache = repository.getIndexedCacheFor(task.getProject().getGradle(), "taskArtifacts", Collections.EMPTY_MAP);
+    private synchronized void removeHistory(TaskKey key) {
+        taskHistory.remove(key);
+    }
+
+    /**
+     * Records the given execution of a task, and updates the owners of its output files. Tasks may be executed in
+     * parallel, and the owner index and the records of displaced tasks are read and then rewritten, so one update is
+     * applied at a time.
+     */
+    private synchronized void updateHistory(TaskKey key, Map<File, OutputFileInfo> beforeExecution,
+                                            TaskInfo thisExecution) {
+        Map<TaskKey, TaskInfo> displacedTasks = new HashMap<TaskKey, TaskInfo>();
+        List<TaskKey> displaced = new ArrayList<TaskKey>();
+        for (Map.Entry<File, OutputFileInfo> entry : thisExecution.outputFiles.entrySet()) {
+            File outputFile = entry.getKey();
+            OutputOwners owners = outputOwners.get(outputFile);
+            if (owners == null) {
+                owners = new OutputOwners();
+            }
+            displaced.clear();
+            if (owners.update(key, beforeExecution.get(outputFile), entry.getValue(), displaced)) {
+                outputOwners.put(outputFile, owners);
+            }
+            for (TaskKey displacedKey : displaced) {
+                TaskInfo displacedTask = displacedTasks.get(displacedKey);
+                if (displacedTask == null && !displacedTasks.containsKey(displacedKey)) {
+                    displacedTask = taskHistory.get(displacedKey);
+                    displacedTasks.put(displacedKey, displacedTask);
+                }
+                if (displacedTask != null) {
+                    displacedTask.outputReplaced(outputFile);
+                }
+            }
+        }
+        for (Map.Entry<TaskKey, TaskInfo> entry : displacedTasks.entrySet()) {
+            if (entry.getValue() != null) {
+                taskHistory.put(entry.getKey(), entry.getValue());
+            }
+        }
+        taskHistory.put(key, thisExecution);
     }
 
     private static byte type(File file) {
@@ -136,43 +175,43 @@ public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepo
         }
     }
 
-    private static class OutputGenerators implements Serializable {
-        private final Map<TaskKey, TaskExecution> generators = new HashMap<TaskKey, TaskExecution>();
+    /**
+     * The side index entry for an output file: the tasks which generated the file, and the state of the file when it
+     * was last generated. A file is owned by the last task which generated it, whereas a directory is shared by all the
+     * tasks which generated it, until it is changed by something else.
+     */
+    private static class OutputOwners {
+        private final Set<TaskKey> owners = new HashSet<TaskKey>();
         private OutputFileInfo fileInfo;
 
-        public TaskExecution remove(TaskKey task) {
-            return generators.remove(task);
-        }
-
-        public void add(TaskKey key, TaskExecution info) {
-            generators.put(key, info);
-        }
-
-        public void replace(TaskKey key, TaskExecution info) {
-            generators.clear();
-            generators.put(key, info);
-        }
-
-        public TaskExecution get(TaskKey key) {
-            return generators.get(key);
-        }
-
-        public boolean invalidate(File outputFile) {
-            if (fileInfo != null && !fileInfo.isUpToDate(outputFile)) {
-                generators.clear();
-                return true;
+        /**
+         * Records that the given task has generated this output file. Adds the tasks whose output has been replaced to
+         * the given collection.
+         *
+         * @return true if this entry has changed.
+         */
+        public boolean update(TaskKey key, OutputFileInfo beforeExecution, OutputFileInfo afterExecution,
+                              Collection<TaskKey> displaced) {
+            boolean changed = fileInfo != null && !fileInfo.isUpToDate(beforeExecution);
+            if (changed || afterExecution.type == FILE) {
+                for (TaskKey owner : owners) {
+                    if (!owner.equals(key)) {
+                        displaced.add(owner);
+                    }
+                }
+                owners.clear();
             }
-            return false;
+            boolean modified = owners.add(key) || !displaced.isEmpty() || fileInfo == null
+                    || !fileInfo.equals(afterExecution);
+            fileInfo = afterExecution;
+            return modified;
         }
 
-        public void update(OutputFileInfo outputFile, TaskKey key, TaskExecution thisExecution) {
-            fileInfo = outputFile;
-            if (fileInfo.type == FILE) {
-                replace(key, thisExecution);
-            }
-            else {
-                add(key, thisExecution);
-            }
+        /**
+         * Returns true if this output file is generated by the given task only.
+         */
+        public boolean isOwnedBy(TaskKey key) {
+            return owners.isEmpty() || owners.size() == 1 && owners.contains(key);
         }
     }
 
@@ -185,6 +224,11 @@ public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepo
             type = task.getClass().getName();
         }
 
+        private TaskKey(String type, String path) {
+            this.type = type;
+            this.path = path;
+        }
+
         @Override
         public boolean equals(Object o) {
             if (o == this) {
@@ -198,6 +242,11 @@ public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepo
         public int hashCode() {
             return type.hashCode() ^ path.hashCode();
         }
+
+        @Override
+        public String toString() {
+            return String.format("task '%s' (%s)", path, type);
+        }
     }
 
     private interface TaskExecution {
@@ -215,22 +264,35 @@ public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepo
         }
     }
 
-    private static class TaskInfoToken implements Serializable, TaskExecution {
-    }
-
     private static class TaskInfo implements Serializable, TaskExecution {
         private final Map<String, InputFileInfo> inputFiles = new HashMap<String, InputFileInfo>();
         private final Map<File, OutputFileInfo> outputFiles = new HashMap<File, OutputFileInfo>();
         private boolean acceptInputs;
 
+        private TaskInfo(boolean acceptInputs) {
+            this.acceptInputs = acceptInputs;
+        }
+
         public TaskInfo(TaskInternal task, Hasher hasher) {
             acceptInputs = task.getInputs().getHasInputFiles();
+            Map<File, Byte> types = new LinkedHashMap<File, Byte>();
+            List<File> regularFiles = new ArrayList<File>();
             for (File file : task.getInputs().getFiles()) {
-                inputFiles.put(file.getAbsolutePath(), new InputFileInfo(file, hasher));
+                byte type = type(file);
+                types.put(file, type);
+                if (type == FILE) {
+                    regularFiles.add(file);
+                }
+            }
+            Map<File, byte[]> hashes = hasher.hash(regularFiles);
+            for (Map.Entry<File, Byte> entry : types.entrySet()) {
+                File file = entry.getKey();
+                inputFiles.put(file.getAbsolutePath(), new InputFileInfo(entry.getValue(), hashes.get(file)));
             }
             for (File file : task.getOutputs().getFiles()) {
                 outputFiles.put(file, null);
             }
+            snapshotOutputFiles();
         }
 
         public void snapshotOutputFiles() {
@@ -239,6 +301,54 @@ public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepo
             }
         }
 
+        /**
+         * Calculates a hash of the type of the task, the paths and contents of its input files, and the paths of its
+         * output files. Returns null when the task has no input files, or when any of its input files is a directory,
+         * as the contents of a directory are not hashed.
+         */
+        public String getCacheKey(TaskKey key) {
+            if (!acceptInputs || outputFiles.isEmpty()) {
+                return null;
+            }
+            MessageDigest digest;
+            try {
+                digest = MessageDigest.getInstance("MD5");
+            } catch (NoSuchAlgorithmException e) {
+                throw new RuntimeException(e);
+            }
+            DataOutputStream output = new DataOutputStream(new DigestOutputStream(new NullOutputStream(), digest));
+            try {
+                output.writeUTF(key.type);
+                output.writeInt(inputFiles.size());
+                for (String path : new TreeSet<String>(inputFiles.keySet())) {
+                    InputFileInfo inputFile = inputFiles.get(path);
+                    if (inputFile.type == DIR) {
+                        return null;
+                    }
+                    output.writeUTF(path);
+                    output.writeByte(inputFile.type);
+                    output.write(inputFile.hash == null ? new byte[0] : inputFile.hash);
+                }
+                output.writeInt(outputFiles.size());
+                for (File file : new TreeSet<File>(outputFiles.keySet())) {
+                    output.writeUTF(file.getAbsolutePath());
+                }
+                output.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return new BigInteger(1, digest.digest()).toString(16);
+        }
+
+        /**
+         * Marks the given output file as no longer generated by this task.
+         */
+        public void outputReplaced(File file) {
+            if (outputFiles.containsKey(file)) {
+                outputFiles.put(file, null);
+            }
+        }
+
         public List<String> isSameAs(TaskExecution last) {
             if (last instanceof EmptyTaskInfo) {
                 EmptyTaskInfo emptyTaskInfo = (EmptyTaskInfo) last;
@@ -258,7 +368,10 @@ public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepo
             for (Map.Entry<File, OutputFileInfo> entry : lastExecution.outputFiles.entrySet()) {
                 File file = entry.getKey();
                 OutputFileInfo lastOutputFile = entry.getValue();
-                if (!lastOutputFile.isUpToDate(file)) {
+                if (lastOutputFile == null) {
+                    return Arrays.asList(String.format("Task did not produce %s.", file));
+                }
+                if (!lastOutputFile.isUpToDate(outputFiles.get(file))) {
                     return Arrays.asList(String.format("Output file %s has changed.", file));
                 }
             }
@@ -289,18 +402,22 @@ public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepo
             empty = type == DIR && file.list().length == 0;
         }
 
-        public boolean isUpToDate(File file) {
+        private OutputFileInfo(byte type, boolean empty) {
+            this.type = type;
+            this.empty = empty;
+        }
+
+        public boolean isUpToDate(OutputFileInfo current) {
             if (type == MISSING) {
                 // Was missing, don't care whether it exists or not
                 return true;
             }
 
-            byte newType = type(file);
             if (type == FILE) {
                 // Was a file, must still be a file
-                return newType == FILE;
+                return current.type == FILE;
             }
-            if (newType != DIR) {
+            if (current.type != DIR) {
                 // Was a dir, must stull be a dir
                 return false;
             }
@@ -311,7 +428,24 @@ public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepo
             }
 
             // Was not empty, must still be not empty
-            return file.list().length != 0;
+            return !current.empty;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) {
+                return true;
+            }
+            if (o == null || o.getClass() != getClass()) {
+                return false;
+            }
+            OutputFileInfo other = (OutputFileInfo) o;
+            return other.type == type && other.empty == empty;
+        }
+
+        @Override
+        public int hashCode() {
+            return type ^ (empty ? 1 : 0);
         }
     }
 
@@ -319,14 +453,9 @@ public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepo
         private final byte type;
         private final byte[] hash;
 
-        private InputFileInfo(File file, Hasher hasher) {
-            type = type(file);
-            if (type == FILE) {
-                hash = hasher.hash(file);
-            }
-            else {
-                hash = null;
-            }
+        private InputFileInfo(byte type, byte[] hash) {
+            this.type = type;
+            this.hash = hash;
         }
 
         public boolean isUpToDate(InputFileInfo lastInputFile) {
@@ -339,4 +468,157 @@ public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepo
             return true;
         }
     }
+
+    /**
+     * A compact binary format for the task history. Paths are written relative to a table of parent directories which
+     * is built up as the value is written, and hashes are written as raw bytes. Values are prefixed with a format
+     * version, and values written using some other version are discarded.
+     */
+    private static class TaskHistorySerializer implements Serializer<TaskInfo> {
+        private static final byte VERSION = 2;
+
+        public TaskInfo read(InputStream instr) throws Exception {
+            DataInputStream input = new DataInputStream(instr);
+            if (input.readByte() != VERSION) {
+                return null;
+            }
+            PathReader paths = new PathReader(input);
+            TaskInfo taskInfo = new TaskInfo(input.readBoolean());
+            int inputCount = input.readInt();
+            for (int i = 0; i < inputCount; i++) {
+                String path = paths.read();
+                byte type = input.readByte();
+                byte[] hash = null;
+                int hashLength = input.readUnsignedByte();
+                if (hashLength > 0) {
+                    hash = new byte[hashLength - 1];
+                    input.readFully(hash);
+                }
+                taskInfo.inputFiles.put(path, new InputFileInfo(type, hash));
+            }
+            int outputCount = input.readInt();
+            for (int i = 0; i < outputCount; i++) {
+                File file = new File(paths.read());
+                OutputFileInfo fileInfo = input.readBoolean() ? readOutputFileInfo(input) : null;
+                taskInfo.outputFiles.put(file, fileInfo);
+            }
+            return taskInfo;
+        }
+
+        public void write(OutputStream outstr, TaskInfo taskInfo) throws Exception {
+            DataOutputStream output = new DataOutputStream(outstr);
+            output.writeByte(VERSION);
+            PathWriter paths = new PathWriter(output);
+            output.writeBoolean(taskInfo.acceptInputs);
+            output.writeInt(taskInfo.inputFiles.size());
+            for (Map.Entry<String, InputFileInfo> entry : taskInfo.inputFiles.entrySet()) {
+                paths.write(entry.getKey());
+                InputFileInfo fileInfo = entry.getValue();
+                output.writeByte(fileInfo.type);
+                if (fileInfo.hash == null) {
+                    output.writeByte(0);
+                } else {
+                    output.writeByte(fileInfo.hash.length + 1);
+                    output.write(fileInfo.hash);
+                }
+            }
+            output.writeInt(taskInfo.outputFiles.size());
+            for (Map.Entry<File, OutputFileInfo> entry : taskInfo.outputFiles.entrySet()) {
+                paths.write(entry.getKey().getPath());
+                output.writeBoolean(entry.getValue() != null);
+                if (entry.getValue() != null) {
+                    writeOutputFileInfo(output, entry.getValue());
+                }
+            }
+            output.flush();
+        }
+    }
+
+    private static class OutputOwnersSerializer implements Serializer<OutputOwners> {
+        private static final byte VERSION = 1;
+
+        public OutputOwners read(InputStream instr) throws Exception {
+            DataInputStream input = new DataInputStream(instr);
+            if (input.readByte() != VERSION) {
+                return null;
+            }
+            OutputOwners owners = new OutputOwners();
+            if (input.readBoolean()) {
+                owners.fileInfo = readOutputFileInfo(input);
+            }
+            int count = input.readInt();
+            for (int i = 0; i < count; i++) {
+                owners.owners.add(new TaskKey(input.readUTF(), input.readUTF()));
+            }
+            return owners;
+        }
+
+        public void write(OutputStream outstr, OutputOwners value) throws Exception {
+            DataOutputStream output = new DataOutputStream(outstr);
+            output.writeByte(VERSION);
+            output.writeBoolean(value.fileInfo != null);
+            if (value.fileInfo != null) {
+                writeOutputFileInfo(output, value.fileInfo);
+            }
+            output.writeInt(value.owners.size());
+            for (TaskKey key : value.owners) {
+                output.writeUTF(key.type);
+                output.writeUTF(key.path);
+            }
+            output.flush();
+        }
+    }
+
+    private static OutputFileInfo readOutputFileInfo(DataInputStream input) throws IOException {
+        return new OutputFileInfo(input.readByte(), input.readBoolean());
+    }
+
+    private static void writeOutputFileInfo(DataOutputStream output, OutputFileInfo fileInfo) throws IOException {
+        output.writeByte(fileInfo.type);
+        output.writeBoolean(fileInfo.empty);
+    }
+
+    private static class PathWriter {
+        private final Map<String, Integer> parents = new HashMap<String, Integer>();
+        private final DataOutputStream output;
+
+        private PathWriter(DataOutputStream output) {
+            this.output = output;
+        }
+
+        public void write(String path) throws IOException {
+            int index = path.lastIndexOf(File.separatorChar) + 1;
+            String parent = path.substring(0, index);
+            Integer parentIndex = parents.get(parent);
+            if (parentIndex == null) {
+                output.writeInt(-1);
+                output.writeUTF(parent);
+                parents.put(parent, parents.size());
+            } else {
+                output.writeInt(parentIndex);
+            }
+            output.writeUTF(path.substring(index));
+        }
+    }
+
+    private static class PathReader {
+        private final List<String> parents = new ArrayList<String>();
+        private final DataInputStream input;
+
+        private PathReader(DataInputStream input) {
+            this.input = input;
+        }
+
+        public String read() throws IOException {
+            int parentIndex = input.readInt();
+            String parent;
+            if (parentIndex < 0) {
+                parent = input.readUTF();
+                parents.add(parent);
+            } else {
+                parent = parents.get(parentIndex);
+            }
+            return parent + input.readUTF();
+        }
+    }
 }
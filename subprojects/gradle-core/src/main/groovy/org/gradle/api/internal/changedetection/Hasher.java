@@ -16,7 +16,16 @@
 package org.gradle.api.internal.changedetection;
 
 import java.io.File;
+import java.util.Collection;
+import java.util.Map;
 
 public interface Hasher {
     byte[] hash(File file);
+
+    /**
+     * Calculates the hashes of the given files, which must be regular files.
+     *
+     * @return a map from file to its hash.
+     */
+    Map<File, byte[]> hash(Collection<File> files);
 }
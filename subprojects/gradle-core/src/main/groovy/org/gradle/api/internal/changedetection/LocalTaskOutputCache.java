@@ -0,0 +1,274 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection;
+
+import org.apache.commons.io.FileUtils;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * A {@link TaskOutputCache} which stores the output files for each key as a zip file in a local directory. The least
+ * recently used entries are discarded when the total size of the entries grows beyond a given size.
+ *
+ * <p>The existing output files are deleted before an entry is restored, including outputs which were missing when the
+ * entry was stored, so that the restored output files are exactly those which the task produced.</p>
+ */
+public class LocalTaskOutputCache implements TaskOutputCache {
+    public static final long DEFAULT_MAX_SIZE = 512L * 1024 * 1024;
+    private static final Logger LOGGER = Logging.getLogger(LocalTaskOutputCache.class);
+    private static final String MANIFEST = "outputs";
+    private static final byte FILE = 0;
+    private static final byte DIR = 1;
+    private static final byte MISSING = 2;
+    private final File cacheDir;
+    private final long maxSize;
+
+    public LocalTaskOutputCache(File cacheDir) {
+        this(cacheDir, DEFAULT_MAX_SIZE);
+    }
+
+    public LocalTaskOutputCache(File cacheDir, long maxSize) {
+        this.cacheDir = cacheDir;
+        this.maxSize = maxSize;
+    }
+
+    public boolean restore(String key, Collection<File> outputFiles) {
+        File entry = entryFor(key);
+        if (!entry.isFile()) {
+            return false;
+        }
+        List<File> outputs = sort(outputFiles);
+        try {
+            ZipFile zipFile = new ZipFile(entry);
+            try {
+                if (!restore(zipFile, outputs)) {
+                    return false;
+                }
+            } finally {
+                zipFile.close();
+            }
+        } catch (IOException e) {
+            LOGGER.warn(String.format("Could not restore output files from %s.", entry), e);
+            entry.delete();
+            return false;
+        }
+        entry.setLastModified(System.currentTimeMillis());
+        return true;
+    }
+
+    private boolean restore(ZipFile zipFile, List<File> outputs) throws IOException {
+        ZipEntry manifestEntry = zipFile.getEntry(MANIFEST);
+        if (manifestEntry == null) {
+            throw new IOException("No manifest found.");
+        }
+        DataInputStream manifest = new DataInputStream(zipFile.getInputStream(manifestEntry));
+        byte[] types;
+        try {
+            if (manifest.readInt() != outputs.size()) {
+                return false;
+            }
+            types = new byte[outputs.size()];
+            manifest.readFully(types);
+        } finally {
+            manifest.close();
+        }
+
+        for (File output : outputs) {
+            if (output.exists()) {
+                FileUtils.forceDelete(output);
+            }
+        }
+        for (int i = 0; i < outputs.size(); i++) {
+            if (types[i] == DIR) {
+                mkdirs(outputs.get(i));
+            }
+        }
+        Enumeration<? extends ZipEntry> entries = zipFile.entries();
+        byte[] buffer = new byte[8192];
+        while (entries.hasMoreElements()) {
+            ZipEntry zipEntry = entries.nextElement();
+            String name = zipEntry.getName();
+            if (name.equals(MANIFEST)) {
+                continue;
+            }
+            int separator = name.indexOf('/');
+            int index = Integer.parseInt(separator < 0 ? name : name.substring(0, separator));
+            File target = outputs.get(index);
+            if (separator >= 0) {
+                target = new File(target, name.substring(separator + 1));
+            }
+            if (zipEntry.isDirectory()) {
+                mkdirs(target);
+            } else {
+                mkdirs(target.getParentFile());
+                InputStream instr = zipFile.getInputStream(zipEntry);
+                try {
+                    OutputStream outstr = new FileOutputStream(target);
+                    try {
+                        copy(instr, outstr, buffer);
+                    } finally {
+                        outstr.close();
+                    }
+                } finally {
+                    instr.close();
+                }
+            }
+        }
+        return true;
+    }
+
+    public void store(String key, Collection<File> outputFiles) {
+        List<File> outputs = sort(outputFiles);
+        File tmpFile = null;
+        try {
+            mkdirs(cacheDir);
+            tmpFile = File.createTempFile("outputs", ".tmp", cacheDir);
+            ZipOutputStream zipStream = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+            try {
+                store(zipStream, outputs);
+            } finally {
+                zipStream.close();
+            }
+            File entry = entryFor(key);
+            entry.delete();
+            if (!tmpFile.renameTo(entry)) {
+                throw new IOException(String.format("Could not rename %s to %s.", tmpFile, entry));
+            }
+        } catch (IOException e) {
+            LOGGER.warn(String.format("Could not store output files in %s.", cacheDir), e);
+            if (tmpFile != null) {
+                tmpFile.delete();
+            }
+            return;
+        }
+        evict();
+    }
+
+    private void store(ZipOutputStream zipStream, List<File> outputs) throws IOException {
+        zipStream.putNextEntry(new ZipEntry(MANIFEST));
+        DataOutputStream manifest = new DataOutputStream(zipStream);
+        manifest.writeInt(outputs.size());
+        for (File output : outputs) {
+            manifest.writeByte(output.isFile() ? FILE : output.isDirectory() ? DIR : MISSING);
+        }
+        manifest.flush();
+        zipStream.closeEntry();
+
+        byte[] buffer = new byte[8192];
+        for (int i = 0; i < outputs.size(); i++) {
+            File output = outputs.get(i);
+            if (output.isFile()) {
+                storeFile(zipStream, String.valueOf(i), output, buffer);
+            } else if (output.isDirectory()) {
+                storeDir(zipStream, i + "/", output, buffer);
+            }
+        }
+    }
+
+    private void storeDir(ZipOutputStream zipStream, String prefix, File dir, byte[] buffer) throws IOException {
+        File[] children = dir.listFiles();
+        if (children == null) {
+            throw new IOException(String.format("Could not list contents of directory %s.", dir));
+        }
+        for (File child : children) {
+            String name = prefix + child.getName();
+            if (child.isFile()) {
+                storeFile(zipStream, name, child, buffer);
+            } else if (child.isDirectory()) {
+                zipStream.putNextEntry(new ZipEntry(name + "/"));
+                zipStream.closeEntry();
+                storeDir(zipStream, name + "/", child, buffer);
+            }
+        }
+    }
+
+    private void storeFile(ZipOutputStream zipStream, String name, File file, byte[] buffer) throws IOException {
+        zipStream.putNextEntry(new ZipEntry(name));
+        InputStream instr = new FileInputStream(file);
+        try {
+            copy(instr, zipStream, buffer);
+        } finally {
+            instr.close();
+        }
+        zipStream.closeEntry();
+    }
+
+    /**
+     * Discards the least recently used entries until the total size of the entries is no more than the maximum size.
+     */
+    private void evict() {
+        File[] entries = cacheDir.listFiles(new FilenameFilter() {
+            public boolean accept(File dir, String name) {
+                return name.endsWith(".zip");
+            }
+        });
+        if (entries == null) {
+            return;
+        }
+        long totalSize = 0;
+        final Map<File, Long> lastUsed = new HashMap<File, Long>();
+        for (File entry : entries) {
+            totalSize += entry.length();
+            lastUsed.put(entry, entry.lastModified());
+        }
+        if (totalSize <= maxSize) {
+            return;
+        }
+        Arrays.sort(entries, new Comparator<File>() {
+            public int compare(File file1, File file2) {
+                return lastUsed.get(file1).compareTo(lastUsed.get(file2));
+            }
+        });
+        for (int i = 0; i < entries.length && totalSize > maxSize; i++) {
+            long length = entries[i].length();
+            if (entries[i].delete()) {
+                totalSize -= length;
+            }
+        }
+    }
+
+    private File entryFor(String key) {
+        return new File(cacheDir, key + ".zip");
+    }
+
+    private static List<File> sort(Collection<File> files) {
+        List<File> sorted = new ArrayList<File>(files);
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    private static void mkdirs(File dir) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException(String.format("Could not create directory %s.", dir));
+        }
+    }
+
+    private static void copy(InputStream instr, OutputStream outstr, byte[] buffer) throws IOException {
+        while (true) {
+            int nread = instr.read(buffer);
+            if (nread < 0) {
+                break;
+            }
+            outstr.write(buffer, 0, nread);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection;
+
+import org.gradle.BuildAdapter;
+import org.gradle.BuildResult;
+import org.gradle.api.UncheckedIOException;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * A {@link Hasher} which calculates the hashes of a collection of files concurrently, using a pool of worker threads.
+ * Concurrent requests for the hash of the same file are calculated once only.
+ *
+ * <p>A pool of worker threads created by this hasher is shut down when the build finishes, or when {@link #stop()} is
+ * called. Files are hashed on the calling thread after that.</p>
+ */
+public class ParallelHasher extends BuildAdapter implements Hasher {
+    private final Hasher hasher;
+    private final Executor executor;
+    private final ExecutorService ownedExecutor;
+    private final ConcurrentMap<File, HashTask> inProgress = new ConcurrentHashMap<File, HashTask>();
+
+    public ParallelHasher(Hasher hasher) {
+        this(hasher, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ParallelHasher(Hasher hasher, int threads) {
+        this(hasher, Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "file hasher");
+                thread.setDaemon(true);
+                return thread;
+            }
+        }), true);
+    }
+
+    public ParallelHasher(Hasher hasher, Executor executor) {
+        this(hasher, executor, false);
+    }
+
+    private ParallelHasher(Hasher hasher, Executor executor, boolean ownsExecutor) {
+        this.hasher = hasher;
+        this.executor = executor;
+        this.ownedExecutor = ownsExecutor ? (ExecutorService) executor : null;
+    }
+
+    @Override
+    public void buildFinished(BuildResult result) {
+        stop();
+    }
+
+    /**
+     * Shuts down the pool of worker threads created by this hasher. Hashes which are being calculated are completed.
+     * An executor passed to this hasher is left running.
+     */
+    public void stop() {
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+
+    public byte[] hash(File file) {
+        HashTask task = new HashTask(file);
+        HashTask existing = inProgress.putIfAbsent(file, task);
+        if (existing == null) {
+            task.run();
+            existing = task;
+        }
+        return getHash(existing);
+    }
+
+    public Map<File, byte[]> hash(Collection<File> files) {
+        Map<File, HashTask> tasks = new LinkedHashMap<File, HashTask>();
+        for (File file : files) {
+            if (tasks.containsKey(file)) {
+                continue;
+            }
+            HashTask task = new HashTask(file);
+            HashTask existing = inProgress.putIfAbsent(file, task);
+            if (existing == null) {
+                try {
+                    executor.execute(task);
+                } catch (RejectedExecutionException e) {
+                    // Stopped - hash on this thread instead
+                    task.run();
+                }
+                existing = task;
+            }
+            tasks.put(file, existing);
+        }
+
+        Map<File, byte[]> hashes = new HashMap<File, byte[]>();
+        for (Map.Entry<File, HashTask> entry : tasks.entrySet()) {
+            hashes.put(entry.getKey(), getHash(entry.getValue()));
+        }
+        return hashes;
+    }
+
+    private byte[] getHash(HashTask task) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return task.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw new UncheckedIOException(String.format("Could not hash %s.", task.file), cause);
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private class HashTask extends FutureTask<byte[]> {
+        private final File file;
+
+        private HashTask(final File file) {
+            super(new Callable<byte[]>() {
+                public byte[] call() {
+                    return hasher.hash(file);
+                }
+            });
+            this.file = file;
+        }
+
+        @Override
+        protected void done() {
+            inProgress.remove(file, this);
+        }
+    }
+}
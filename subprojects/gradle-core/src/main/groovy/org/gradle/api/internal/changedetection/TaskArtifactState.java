@@ -33,4 +33,10 @@ public interface TaskArtifactState {
      * Marks current state as valid.
      */
     void update();
+
+    /**
+     * Returns a key which identifies the outputs which the task generates from its current inputs, for use with a
+     * {@link TaskOutputCache}. Returns null when the outputs of the task cannot be cached.
+     */
+    String getCacheKey();
 }
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2010 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection;
+
+import org.gradle.api.Task;
+
+/**
+ * Receives information about how the up-to-date state of each task was determined.
+ */
+public interface TaskArtifactStateListener {
+    /**
+     * Called when it has been determined whether a task is up-to-date.
+     *
+     * @param task The task.
+     * @param upToDate true if the task is up-to-date.
+     * @param checkTime The time taken to determine whether the task is up-to-date, in milliseconds.
+     */
+    void upToDateChecked(Task task, boolean upToDate, long checkTime);
+
+    /**
+     * Called when the output cache has been searched for the outputs of a task.
+     *
+     * @param task The task.
+     * @param hit true if the outputs were restored from the cache.
+     */
+    void outputCacheChecked(Task task, boolean hit);
+
+    /**
+     * Called once a task has been executed, or skipped.
+     *
+     * @param task The task.
+     * @param hashingTime The time spent calculating the hashes of the files of the task, in milliseconds.
+     */
+    void filesHashed(Task task, long hashingTime);
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection;
+
+import java.io.File;
+import java.util.Collection;
+
+/**
+ * A cache of task outputs, which can be restored in place of executing a task.
+ */
+public interface TaskOutputCache {
+    /**
+     * Restores the output files stored with the given key.
+     *
+     * @return true if the output files were restored, false if there are no output files stored with the given key.
+     */
+    boolean restore(String key, Collection<File> outputFiles);
+
+    /**
+     * Stores the given output files with the given key.
+     */
+    void store(String key, Collection<File> outputFiles);
+}
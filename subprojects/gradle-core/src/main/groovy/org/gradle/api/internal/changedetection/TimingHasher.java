@@ -0,0 +1,62 @@
+/*
+ * Copyright 2010 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * A {@link Hasher} which records the time that each thread has spent waiting for hashes to be calculated.
+ */
+public class TimingHasher implements Hasher {
+    private final Hasher hasher;
+    private final ThreadLocal<long[]> hashingTime = new ThreadLocal<long[]>() {
+        @Override
+        protected long[] initialValue() {
+            return new long[1];
+        }
+    };
+
+    public TimingHasher(Hasher hasher) {
+        this.hasher = hasher;
+    }
+
+    /**
+     * Returns the total time, in milliseconds, which the current thread has spent calculating hashes.
+     */
+    public long getHashingTime() {
+        return hashingTime.get()[0] / 1000000;
+    }
+
+    public byte[] hash(File file) {
+        long start = System.nanoTime();
+        try {
+            return hasher.hash(file);
+        } finally {
+            hashingTime.get()[0] += System.nanoTime() - start;
+        }
+    }
+
+    public Map<File, byte[]> hash(Collection<File> files) {
+        long start = System.nanoTime();
+        try {
+            return hasher.hash(files);
+        } finally {
+            hashingTime.get()[0] += System.nanoTime() - start;
+        }
+    }
+}
@@ -27,6 +27,20 @@ import java.util.concurrent.Callable;
 import groovy.lang.Closure;
 
 public abstract class AbstractFileResolver implements FileResolver {
+    private final DirectorySnapshotCache directorySnapshots;
+
+    protected AbstractFileResolver() {
+        this(null);
+    }
+
+    protected AbstractFileResolver(DirectorySnapshotCache directorySnapshots) {
+        this.directorySnapshots = directorySnapshots;
+    }
+
+    public DirectorySnapshotCache getDirectorySnapshots() {
+        return directorySnapshots;
+    }
+
     public File resolve(Object path) {
         return resolve(path, PathValidation.NONE);
     }
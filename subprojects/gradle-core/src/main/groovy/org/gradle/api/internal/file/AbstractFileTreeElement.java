@@ -21,6 +21,7 @@ import org.gradle.api.UncheckedIOException;
 import org.apache.commons.io.IOUtils;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
 
 public abstract class AbstractFileTreeElement implements FileTreeElement {
     public abstract String getDisplayName();
@@ -38,6 +39,15 @@ public abstract class AbstractFileTreeElement implements FileTreeElement {
         return getRelativePath().getPathString();
     }
 
+    /**
+     * Returns the file whose content is the content of this element, or null when there is no such file, for example
+     * when the content is filtered or is read from an archive. An element with a source file is copied directly from
+     * file to file, and can be copied after the visit which produced it has finished.
+     */
+    public File getSourceFile() {
+        return null;
+    }
+
     public void copyTo(OutputStream outstr) {
         try {
             InputStream inputStream = open();
@@ -72,14 +82,33 @@ public abstract class AbstractFileTreeElement implements FileTreeElement {
     }
 
     private void copyFile(File target) throws IOException {
+        File sourceFile = getSourceFile();
         FileOutputStream outputStream = new FileOutputStream(target);
         try {
-            copyTo(outputStream);
+            if (sourceFile != null) {
+                transfer(sourceFile, outputStream.getChannel());
+            } else {
+                copyTo(outputStream);
+            }
         } finally {
             outputStream.close();
         }
     }
 
+    private static void transfer(File sourceFile, FileChannel target) throws IOException {
+        FileInputStream inputStream = new FileInputStream(sourceFile);
+        try {
+            FileChannel source = inputStream.getChannel();
+            long size = source.size();
+            long position = 0;
+            while (position < size) {
+                position += source.transferTo(position, size - position, target);
+            }
+        } finally {
+            inputStream.close();
+        }
+    }
+
     boolean needsCopy(File dest) {
         if (dest.exists()) {
             if (getLastModified() == dest.lastModified()) {
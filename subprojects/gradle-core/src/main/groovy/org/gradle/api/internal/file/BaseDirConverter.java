@@ -27,6 +27,11 @@ public class BaseDirConverter extends AbstractFileResolver {
     private final File baseDir;
 
     public BaseDirConverter(File baseDir) {
+        this(baseDir, null);
+    }
+
+    public BaseDirConverter(File baseDir, DirectorySnapshotCache directorySnapshots) {
+        super(directorySnapshots);
         this.baseDir = baseDir;
     }
 
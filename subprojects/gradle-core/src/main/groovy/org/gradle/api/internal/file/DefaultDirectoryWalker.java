@@ -39,6 +39,9 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * A file or directory will only be visited if it matches all includes and no
  * excludes.
  *
+ * Directory listings are taken from a {@link DirectorySnapshotCache}, when one is
+ * provided.
+ *
  * @author Steve Appling
  */
 public class DefaultDirectoryWalker implements DirectoryWalker {
@@ -47,10 +50,16 @@ public class DefaultDirectoryWalker implements DirectoryWalker {
     private FileVisitor visitor;
     private Spec<FileTreeElement> spec;
     private boolean depthFirst;
+    private final DirectorySnapshotCache snapshots;
 
     public DefaultDirectoryWalker(FileVisitor visitor) {
+        this(visitor, null);
+    }
+
+    public DefaultDirectoryWalker(FileVisitor visitor, DirectorySnapshotCache snapshots) {
         spec = Specs.satisfyAll();
         this.visitor = visitor;
+        this.snapshots = snapshots;
     }
 
     public DefaultDirectoryWalker match(PatternSet patternSet) {
@@ -87,23 +96,44 @@ public class DefaultDirectoryWalker implements DirectoryWalker {
     }
 
     private void walkDir(File file, RelativePath path, AtomicBoolean stopFlag) {
+        if (snapshots != null) {
+            walkSnapshot(file, path, stopFlag);
+            return;
+        }
         File[] children = file.listFiles();
         List<FileVisitDetailsImpl> dirs = new ArrayList<FileVisitDetailsImpl>();
         for (int i = 0; !stopFlag.get() && i < children.length; i++) {
             File child = children[i];
             boolean isFile = child.isFile();
-            RelativePath childPath = path.append(isFile, child.getName());
-            FileVisitDetailsImpl details = new FileVisitDetailsImpl(child, childPath, stopFlag);
-            if (isAllowed(details)) {
-                if (isFile) {
-                    visitor.visitFile(details);
-                } else {
-                    dirs.add(details);
-                }
+            visitChild(child, isFile, path, dirs, stopFlag);
+        }
+        visitDirs(dirs, stopFlag);
+    }
+
+    private void walkSnapshot(File file, RelativePath path, AtomicBoolean stopFlag) {
+        DirectorySnapshot snapshot = snapshots.snapshot(file);
+        List<FileVisitDetailsImpl> dirs = new ArrayList<FileVisitDetailsImpl>();
+        for (int i = 0; !stopFlag.get() && i < snapshot.size(); i++) {
+            File child = new File(file, snapshot.getName(i));
+            visitChild(child, snapshot.isFile(i), path, dirs, stopFlag);
+        }
+        visitDirs(dirs, stopFlag);
+    }
+
+    private void visitChild(File child, boolean isFile, RelativePath path, List<FileVisitDetailsImpl> dirs,
+                            AtomicBoolean stopFlag) {
+        RelativePath childPath = path.append(isFile, child.getName());
+        FileVisitDetailsImpl details = new FileVisitDetailsImpl(child, childPath, stopFlag);
+        if (isAllowed(details)) {
+            if (isFile) {
+                visitor.visitFile(details);
+            } else {
+                dirs.add(details);
             }
         }
+    }
 
-        // now handle dirs
+    private void visitDirs(List<FileVisitDetailsImpl> dirs, AtomicBoolean stopFlag) {
         for (int i = 0; !stopFlag.get() && i < dirs.size(); i++) {
             FileVisitDetailsImpl dir = dirs.get(i);
             if (depthFirst) {
@@ -34,6 +34,11 @@ public class DefaultFileTreeElement extends AbstractFileTreeElement {
         return file;
     }
 
+    @Override
+    public File getSourceFile() {
+        return file;
+    }
+
     public String getDisplayName() {
         return String.format("file '%s'", file);
     }
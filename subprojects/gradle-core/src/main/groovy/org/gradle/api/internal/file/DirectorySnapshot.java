@@ -0,0 +1,66 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.file;
+
+import java.io.File;
+
+/**
+ * The entries of a directory, as at a given modification time of the directory.
+ */
+public class DirectorySnapshot {
+    private final long lastModified;
+    private final String[] names;
+    private final boolean[] files;
+
+    public DirectorySnapshot(long lastModified, String[] names, boolean[] files) {
+        this.lastModified = lastModified;
+        this.names = names;
+        this.files = files;
+    }
+
+    /**
+     * Lists the given directory.
+     */
+    public static DirectorySnapshot of(File dir, long lastModified) {
+        File[] children = dir.listFiles();
+        if (children == null) {
+            return new DirectorySnapshot(lastModified, new String[0], new boolean[0]);
+        }
+        String[] names = new String[children.length];
+        boolean[] files = new boolean[children.length];
+        for (int i = 0; i < children.length; i++) {
+            names[i] = children[i].getName();
+            files[i] = children[i].isFile();
+        }
+        return new DirectorySnapshot(lastModified, names, files);
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public String getName(int index) {
+        return names[index];
+    }
+
+    public boolean isFile(int index) {
+        return files[index];
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.file;
+
+import org.gradle.cache.CacheRepository;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.cache.Serializer;
+
+import java.io.*;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Caches directory listings, so that a directory tree can be walked without listing every directory and checking the
+ * type of every entry. A listing is reused for as long as the modification time of the directory is unchanged, as
+ * adding, removing or renaming an entry changes the modification time of the directory. Listings are kept in memory
+ * in front of an optional persistent cache. This cache is thread-safe.
+ *
+ * <p>Some file systems record modification times with a resolution as coarse as a couple of seconds, so the listing of
+ * a directory which has changed more recently than this is not kept.</p>
+ */
+public class DirectorySnapshotCache {
+    public static final long DEFAULT_TIMESTAMP_RESOLUTION = 2000;
+    private final ConcurrentMap<File, DirectorySnapshot> snapshots = new ConcurrentHashMap<File, DirectorySnapshot>();
+    private final PersistentIndexedCache<File, DirectorySnapshot> cache;
+    private final long timestampResolution;
+
+    public DirectorySnapshotCache() {
+        this(null, DEFAULT_TIMESTAMP_RESOLUTION);
+    }
+
+    public DirectorySnapshotCache(CacheRepository cacheRepository) {
+        this(cacheRepository.<File, DirectorySnapshot>getIndexedGlobalCache("directorySnapshots",
+                Collections.EMPTY_MAP, new DirectorySnapshotSerializer(), true), DEFAULT_TIMESTAMP_RESOLUTION);
+    }
+
+    DirectorySnapshotCache(PersistentIndexedCache<File, DirectorySnapshot> cache, long timestampResolution) {
+        this.cache = cache;
+        this.timestampResolution = timestampResolution;
+    }
+
+    /**
+     * Returns the entries of the given directory.
+     */
+    public DirectorySnapshot snapshot(File dir) {
+        // Read the timestamp before listing the directory, so that a concurrent change is picked up next time
+        long lastModified = dir.lastModified();
+
+        DirectorySnapshot snapshot = snapshots.get(dir);
+        if (snapshot != null && snapshot.getLastModified() == lastModified) {
+            return snapshot;
+        }
+
+        if (snapshot == null && cache != null) {
+            snapshot = cache.get(dir);
+            if (snapshot != null && snapshot.getLastModified() == lastModified) {
+                snapshots.put(dir, snapshot);
+                return snapshot;
+            }
+        }
+
+        snapshot = DirectorySnapshot.of(dir, lastModified);
+        if (lastModified != 0 && System.currentTimeMillis() - lastModified >= timestampResolution) {
+            snapshots.put(dir, snapshot);
+            if (cache != null) {
+                cache.put(dir, snapshot);
+            }
+        } else {
+            snapshots.remove(dir);
+        }
+        return snapshot;
+    }
+
+    private static class DirectorySnapshotSerializer implements Serializer<DirectorySnapshot> {
+        private static final byte VERSION = 1;
+
+        public DirectorySnapshot read(InputStream instr) throws Exception {
+            DataInputStream input = new DataInputStream(instr);
+            if (input.readByte() != VERSION) {
+                return null;
+            }
+            long lastModified = input.readLong();
+            int count = input.readInt();
+            String[] names = new String[count];
+            boolean[] files = new boolean[count];
+            for (int i = 0; i < count; i++) {
+                names[i] = input.readUTF();
+                files[i] = input.readBoolean();
+            }
+            return new DirectorySnapshot(lastModified, names, files);
+        }
+
+        public void write(OutputStream outstr, DirectorySnapshot value) throws Exception {
+            DataOutputStream output = new DataOutputStream(outstr);
+            output.writeByte(VERSION);
+            output.writeLong(value.getLastModified());
+            output.writeInt(value.size());
+            for (int i = 0; i < value.size(); i++) {
+                output.writeUTF(value.getName(i));
+                output.writeBoolean(value.isFile(i));
+            }
+            output.flush();
+        }
+    }
+}
@@ -29,4 +29,11 @@ public interface FileResolver {
     FileCollection resolveFiles(Object... paths);
 
     FileTree resolveFilesAsTree(Object... paths);
+
+    /**
+     * Returns the cache to use when walking the directories resolved by this resolver.
+     *
+     * @return The cache, or null when directories should be listed directly.
+     */
+    DirectorySnapshotCache getDirectorySnapshots();
 }
@@ -90,7 +90,7 @@ public class FileSet extends AbstractFileTree implements ConfigurableFileTree {
     }
 
     public FileSet visit(FileVisitor visitor) {
-        DefaultDirectoryWalker walker = new DefaultDirectoryWalker(visitor);
+        DefaultDirectoryWalker walker = new DefaultDirectoryWalker(visitor, resolver.getDirectorySnapshots());
         walker.match(patternSet).start(getDir());
         return this;
     }
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2010 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.file.archive;
+
+import org.gradle.api.internal.file.AbstractFileTree;
+import org.gradle.api.internal.file.FileSet;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.util.GFileUtils;
+import org.gradle.util.HashUtil;
+
+import java.io.*;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * A file tree whose content is read from an archive file. The entries of the archive are read directly from the
+ * archive when the tree is visited. The archive is expanded into a temporary directory only when the tree is used as
+ * a set of Ant file sets, or when the file of an entry is requested. The expanded directory is kept across builds, and
+ * the archive is expanded again only when its content changes.
+ */
+public abstract class AbstractArchiveFileTree extends AbstractFileTree {
+    private static final Logger LOGGER = Logging.getLogger(AbstractArchiveFileTree.class);
+    private final File archiveFile;
+    private final File expandDir;
+
+    protected AbstractArchiveFileTree(File archiveFile, File tmpDir) {
+        this.archiveFile = archiveFile;
+        String expandDirName = String.format("%s_%s", archiveFile.getName(), HashUtil.createHash(archiveFile.getAbsolutePath()));
+        this.expandDir = new File(tmpDir, expandDirName);
+    }
+
+    protected File getArchiveFile() {
+        return archiveFile;
+    }
+
+    /**
+     * Returns the directory to expand the archive into.
+     */
+    protected File getExpandDir() {
+        return expandDir;
+    }
+
+    /**
+     * Returns a file next to the expand directory, in which information about the archive can be cached.
+     */
+    protected File getCacheFile(String suffix) {
+        return new File(expandDir.getParentFile(), expandDir.getName() + suffix);
+    }
+
+    @Override
+    protected Collection<FileSet> getAsFileSets() {
+        if (!archiveFile.isFile()) {
+            visitAll();
+            return Collections.emptyList();
+        }
+
+        File markerFile = getCacheFile(".expanded");
+        ArchiveFingerprint fingerprint = ArchiveFingerprint.of(archiveFile);
+        ArchiveFingerprint expanded = expandDir.isDirectory() ? readFingerprint(markerFile) : null;
+        if (!fingerprint.hasSameContentAs(expanded)) {
+            markerFile.delete();
+            GFileUtils.deleteQuietly(expandDir);
+            visitAll();
+            writeFingerprint(markerFile, fingerprint);
+        } else if (!fingerprint.isUnmodifiedSince(expanded)) {
+            writeFingerprint(markerFile, fingerprint);
+        }
+        return Collections.singleton(new FileSet(expandDir, null));
+    }
+
+    /**
+     * Reads the fingerprint of the archive from the given file.
+     *
+     * @return The fingerprint, or null if it could not be read.
+     */
+    protected ArchiveFingerprint readFingerprint(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            try {
+                return ArchiveFingerprint.read(inputStream);
+            } finally {
+                inputStream.close();
+            }
+        } catch (IOException e) {
+            LOGGER.debug(String.format("Could not read %s. Ignoring.", file), e);
+            return null;
+        }
+    }
+
+    private void writeFingerprint(File file, ArchiveFingerprint fingerprint) {
+        try {
+            DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+            try {
+                fingerprint.write(outputStream);
+            } finally {
+                outputStream.close();
+            }
+        } catch (IOException e) {
+            LOGGER.debug(String.format("Could not write %s. Ignoring.", file), e);
+            file.delete();
+        }
+    }
+}
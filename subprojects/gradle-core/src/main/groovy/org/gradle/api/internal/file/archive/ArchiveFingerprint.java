@@ -0,0 +1,90 @@
+/*
+ * Copyright 2010 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.file.archive;
+
+import org.gradle.util.HashUtil;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Identifies the content of an archive file, using its length, last modified time and MD5 hash. The hash is
+ * calculated only when needed, so an archive whose length and last modified time have not changed is not read.
+ */
+public class ArchiveFingerprint {
+    private final File file;
+    private final long length;
+    private final long lastModified;
+    private byte[] hash;
+
+    private ArchiveFingerprint(File file, long length, long lastModified, byte[] hash) {
+        this.file = file;
+        this.length = length;
+        this.lastModified = lastModified;
+        this.hash = hash;
+    }
+
+    public static ArchiveFingerprint of(File file) {
+        return new ArchiveFingerprint(file, file.length(), file.lastModified(), null);
+    }
+
+    public static ArchiveFingerprint read(DataInputStream inputStream) throws IOException {
+        long length = inputStream.readLong();
+        long lastModified = inputStream.readLong();
+        byte[] hash = new byte[inputStream.readInt()];
+        inputStream.readFully(hash);
+        return new ArchiveFingerprint(null, length, lastModified, hash);
+    }
+
+    public void write(DataOutputStream outputStream) throws IOException {
+        outputStream.writeLong(length);
+        outputStream.writeLong(lastModified);
+        byte[] hash = getHash();
+        outputStream.writeInt(hash.length);
+        outputStream.write(hash);
+    }
+
+    /**
+     * Returns true if this archive has the same content as the archive with the given fingerprint. Returns false when
+     * the given fingerprint is null.
+     */
+    public boolean hasSameContentAs(ArchiveFingerprint other) {
+        if (other == null || length != other.length) {
+            return false;
+        }
+        if (lastModified == other.lastModified) {
+            return true;
+        }
+        return Arrays.equals(getHash(), other.getHash());
+    }
+
+    /**
+     * Returns true if this fingerprint has the same last modified time as the given fingerprint.
+     */
+    public boolean isUnmodifiedSince(ArchiveFingerprint other) {
+        return other != null && length == other.length && lastModified == other.lastModified;
+    }
+
+    private byte[] getHash() {
+        if (hash == null) {
+            hash = HashUtil.createHash(file);
+        }
+        return hash;
+    }
+}
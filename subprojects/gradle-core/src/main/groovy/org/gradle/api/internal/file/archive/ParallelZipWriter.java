@@ -0,0 +1,652 @@
+/*
+ * Copyright 2010 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.file.archive;
+
+import org.apache.tools.zip.ZipEntry;
+import org.gradle.api.GradleException;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a ZIP file, deflating the content of file entries on a pool of worker threads. The content of each entry is
+ * compressed into a buffer, and the buffers are appended to the ZIP file in the order that the entries were added,
+ * with the CRC and sizes of the entry in its local header. The mode, time and other attributes of each entry are
+ * written the same way as Ant's {@link org.apache.tools.zip.ZipOutputStream} writes them.
+ *
+ * <p>Content which is supplied by the caller is deflated on the calling thread. An entry whose compressed content
+ * grows larger than the buffer threshold is written directly to the ZIP file, once all the entries added before it
+ * have been written.</p>
+ *
+ * <p>The compressed content of an entry can also be copied from another ZIP file, without inflating it.</p>
+ */
+public class ParallelZipWriter {
+    public static final int DEFAULT_BUFFER_THRESHOLD = 4 * 1024 * 1024;
+    private static final long MAX_PENDING_SIZE = 64L * 1024 * 1024;
+    private static final int MAX_PENDING_ENTRIES_PER_THREAD = 16;
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+    private static final int LOCAL_HEADER_CRC_OFFSET = 14;
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final long MAX_OFFSET = 0xFFFFFFFFL;
+    private static final int MAX_ENTRIES = 0xFFFF;
+    private final File zipFile;
+    private final int threadCount;
+    private final int bufferThreshold;
+    private final FileOutputStream fileOutputStream;
+    private final ArchiveOutputStream outputStream;
+    private final LinkedList<PendingEntry> pending = new LinkedList<PendingEntry>();
+    private final List<WrittenEntry> entries = new ArrayList<WrittenEntry>();
+    private ThreadPoolExecutor executor;
+    private long pendingSize;
+
+    public ParallelZipWriter(File zipFile, int threadCount) throws IOException {
+        this(zipFile, threadCount, DEFAULT_BUFFER_THRESHOLD);
+    }
+
+    ParallelZipWriter(File zipFile, int threadCount, int bufferThreshold) throws IOException {
+        this.zipFile = zipFile;
+        this.threadCount = threadCount;
+        this.bufferThreshold = bufferThreshold;
+        fileOutputStream = new FileOutputStream(zipFile);
+        outputStream = new ArchiveOutputStream(fileOutputStream);
+    }
+
+    /**
+     * Adds a directory entry.
+     *
+     * @param entry The entry.
+     * @param source The source of the entry, used in error messages.
+     */
+    public void addDirectory(ZipEntry entry, Object source) {
+        entry.setMethod(ZipEntry.STORED);
+        entry.setCrc(0);
+        entry.setSize(0);
+        entry.setCompressedSize(0);
+        enqueue(new PendingEntry(entry, source, new ContentBuffer()));
+    }
+
+    /**
+     * Adds a file entry whose content is the content of the given file. The file is read and deflated on a worker
+     * thread.
+     *
+     * @param entry The entry.
+     * @param source The source of the entry, used in error messages.
+     * @param sourceFile The file to read the content from.
+     * @param size The expected size of the content.
+     */
+    public void addFile(final ZipEntry entry, Object source, final File sourceFile, long size) {
+        if (threadCount <= 1 || size > bufferThreshold) {
+            addFile(entry, source, new Content() {
+                public void writeTo(OutputStream outputStream) throws IOException {
+                    copy(sourceFile, outputStream);
+                }
+            });
+            return;
+        }
+
+        entry.setMethod(ZipEntry.DEFLATED);
+        Future<ContentBuffer> content = getExecutor().submit(new Callable<ContentBuffer>() {
+            public ContentBuffer call() throws Exception {
+                EntryOutputStream entryOutputStream = new EntryOutputStream(entry, false);
+                try {
+                    copy(sourceFile, entryOutputStream);
+                    return entryOutputStream.finish();
+                } finally {
+                    entryOutputStream.end();
+                }
+            }
+        });
+        enqueue(new PendingEntry(entry, source, content, size));
+    }
+
+    /**
+     * Adds a file entry whose content is written by the given {@link Content}. The content is written and deflated
+     * on the calling thread.
+     *
+     * @param entry The entry.
+     * @param source The source of the entry, used in error messages.
+     * @param content The content of the entry.
+     */
+    public void addFile(ZipEntry entry, Object source, Content content) {
+        entry.setMethod(ZipEntry.DEFLATED);
+        EntryOutputStream entryOutputStream = new EntryOutputStream(entry, true);
+        try {
+            content.writeTo(entryOutputStream);
+            ContentBuffer buffer = entryOutputStream.finish();
+            if (buffer == null) {
+                entries.add(new WrittenEntry(entry, entryOutputStream.headerOffset));
+            } else {
+                enqueue(new PendingEntry(entry, source, buffer));
+            }
+        } catch (Throwable e) {
+            throw failure(source, e);
+        } finally {
+            entryOutputStream.end();
+        }
+    }
+
+    /**
+     * Adds a file entry whose compressed content is copied from another ZIP file. The method, CRC and sizes of the
+     * entry must already be set.
+     *
+     * @param entry The entry.
+     * @param source The source of the entry, used in error messages.
+     * @param archive The ZIP file to copy the content from.
+     * @param headerOffset The offset of the local header of the entry in the ZIP file.
+     * @return true if the entry was added, false if the ZIP file does not contain an entry at the given offset.
+     */
+    public boolean addCopy(ZipEntry entry, Object source, FileChannel archive, long headerOffset) {
+        long dataOffset;
+        try {
+            ByteBuffer header = ByteBuffer.allocate(LOCAL_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (archive.read(header, headerOffset + header.position()) < 0) {
+                    return false;
+                }
+            }
+            if (header.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+                return false;
+            }
+            int nameLength = header.getShort(26) & 0xFFFF;
+            int extraLength = header.getShort(28) & 0xFFFF;
+            dataOffset = headerOffset + LOCAL_HEADER_SIZE + nameLength + extraLength;
+            if (dataOffset + entry.getCompressedSize() > archive.size()) {
+                return false;
+            }
+        } catch (IOException e) {
+            throw failure(source, e);
+        }
+        enqueue(new PendingEntry(entry, source, archive, dataOffset));
+        return true;
+    }
+
+    /**
+     * Returns the entries which have been written to the ZIP file, in the order they were written.
+     */
+    public List<WrittenEntry> getWrittenEntries() {
+        return entries;
+    }
+
+    /**
+     * Writes the remaining entries and the central directory, and closes the ZIP file.
+     */
+    public void close() throws IOException {
+        try {
+            writePending();
+            writeCentralDirectory();
+            outputStream.flush();
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+                executor = null;
+            }
+            fileOutputStream.close();
+        }
+    }
+
+    /**
+     * Discards the remaining entries and closes the ZIP file without completing it. Used when the ZIP file is
+     * abandoned after a failure.
+     */
+    public void abort() {
+        pending.clear();
+        pendingSize = 0;
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        try {
+            fileOutputStream.close();
+        } catch (IOException e) {
+            // Ignore, as the ZIP file is incomplete anyway
+        }
+    }
+
+    private ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = new ThreadPoolExecutor(threadCount, threadCount, 1, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                        public Thread newThread(Runnable runnable) {
+                            Thread thread = new Thread(runnable, "zip deflater");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            // Let the threads finish when the ZIP file is abandoned
+            executor.allowCoreThreadTimeOut(true);
+        }
+        return executor;
+    }
+
+    private void enqueue(PendingEntry entry) {
+        pending.add(entry);
+        pendingSize += entry.size;
+        while (!pending.isEmpty() && (pending.getFirst().isDone() || pendingSize > MAX_PENDING_SIZE
+                || pending.size() > threadCount * MAX_PENDING_ENTRIES_PER_THREAD)) {
+            writeNext();
+        }
+    }
+
+    private void writePending() {
+        while (!pending.isEmpty()) {
+            writeNext();
+        }
+    }
+
+    private void writeNext() {
+        PendingEntry entry = pending.removeFirst();
+        pendingSize -= entry.size;
+        ContentBuffer content = entry.copyFrom == null ? entry.getContent() : null;
+        try {
+            long offset = outputStream.getPosition();
+            writeLocalHeader(entry.entry);
+            if (content != null) {
+                outputStream.write(content.getBuffer(), 0, content.size());
+            } else {
+                outputStream.transfer(entry.copyFrom, entry.copyOffset, entry.entry.getCompressedSize(),
+                        fileOutputStream.getChannel());
+            }
+            entries.add(new WrittenEntry(entry.entry, offset));
+        } catch (IOException e) {
+            throw failure(entry.source, e);
+        }
+    }
+
+    private void writeLocalHeader(ZipEntry entry) throws IOException {
+        if (outputStream.getPosition() > MAX_OFFSET) {
+            throw new IOException("ZIP file is too large.");
+        }
+        byte[] name = getName(entry);
+        byte[] extra = entry.getLocalFileDataExtra();
+        writeInt(LOCAL_HEADER_SIGNATURE);
+        writeShort(getVersionNeeded(entry));
+        writeShort(0);
+        writeShort(entry.getMethod());
+        writeInt(toDosTime(entry.getTime()));
+        writeInt(entry.getCrc());
+        writeInt(entry.getCompressedSize());
+        writeInt(entry.getSize());
+        writeShort(name.length);
+        writeShort(extra.length);
+        outputStream.write(name);
+        outputStream.write(extra);
+    }
+
+    private void writeCentralDirectory() throws IOException {
+        if (entries.size() > MAX_ENTRIES) {
+            throw new IOException(String.format("ZIP file '%s' contains too many entries.", zipFile));
+        }
+        long start = outputStream.getPosition();
+        for (WrittenEntry writtenEntry : entries) {
+            ZipEntry entry = writtenEntry.entry;
+            byte[] name = getName(entry);
+            byte[] extra = entry.getCentralDirectoryExtra();
+            byte[] comment = entry.getComment() == null ? new byte[0] : entry.getComment().getBytes();
+            writeInt(CENTRAL_HEADER_SIGNATURE);
+            writeShort((entry.getPlatform() << 8) | 20);
+            writeShort(getVersionNeeded(entry));
+            writeShort(0);
+            writeShort(entry.getMethod());
+            writeInt(toDosTime(entry.getTime()));
+            writeInt(entry.getCrc());
+            writeInt(entry.getCompressedSize());
+            writeInt(entry.getSize());
+            writeShort(name.length);
+            writeShort(extra.length);
+            writeShort(comment.length);
+            writeShort(0);
+            writeShort(entry.getInternalAttributes());
+            writeInt(entry.getExternalAttributes());
+            writeInt(writtenEntry.offset);
+            outputStream.write(name);
+            outputStream.write(extra);
+            outputStream.write(comment);
+        }
+        long end = outputStream.getPosition();
+        if (end > MAX_OFFSET) {
+            throw new IOException(String.format("ZIP file '%s' is too large.", zipFile));
+        }
+        writeInt(END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+        writeShort(0);
+        writeShort(0);
+        writeShort(entries.size());
+        writeShort(entries.size());
+        writeInt(end - start);
+        writeInt(start);
+        writeShort(0);
+    }
+
+    private void patchLocalHeader(ZipEntry entry, long headerOffset) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(12);
+        putInt(buffer, entry.getCrc());
+        putInt(buffer, entry.getCompressedSize());
+        putInt(buffer, entry.getSize());
+        buffer.flip();
+        outputStream.flush();
+        FileChannel channel = fileOutputStream.getChannel();
+        long position = headerOffset + LOCAL_HEADER_CRC_OFFSET;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static byte[] getName(ZipEntry entry) {
+        // Uses the platform encoding, as Ant's ZipOutputStream does by default
+        return entry.getName().getBytes();
+    }
+
+    private static int getVersionNeeded(ZipEntry entry) {
+        return entry.getMethod() == ZipEntry.DEFLATED ? 20 : 10;
+    }
+
+    private static long toDosTime(long time) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(time);
+        int year = calendar.get(Calendar.YEAR);
+        if (year < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+        return ((year - 1980) << 25)
+                | ((calendar.get(Calendar.MONTH) + 1) << 21)
+                | (calendar.get(Calendar.DAY_OF_MONTH) << 16)
+                | (calendar.get(Calendar.HOUR_OF_DAY) << 11)
+                | (calendar.get(Calendar.MINUTE) << 5)
+                | (calendar.get(Calendar.SECOND) >> 1);
+    }
+
+    private void writeShort(int value) throws IOException {
+        outputStream.write(value & 0xFF);
+        outputStream.write((value >> 8) & 0xFF);
+    }
+
+    private void writeInt(long value) throws IOException {
+        outputStream.write((int) (value & 0xFF));
+        outputStream.write((int) ((value >> 8) & 0xFF));
+        outputStream.write((int) ((value >> 16) & 0xFF));
+        outputStream.write((int) ((value >> 24) & 0xFF));
+    }
+
+    private static void putInt(ByteBuffer buffer, long value) {
+        buffer.put((byte) (value & 0xFF));
+        buffer.put((byte) ((value >> 8) & 0xFF));
+        buffer.put((byte) ((value >> 16) & 0xFF));
+        buffer.put((byte) ((value >> 24) & 0xFF));
+    }
+
+    private static void copy(File sourceFile, OutputStream outputStream) throws IOException {
+        InputStream inputStream = new FileInputStream(sourceFile);
+        try {
+            byte[] buffer = new byte[8192];
+            int count;
+            while ((count = inputStream.read(buffer)) >= 0) {
+                outputStream.write(buffer, 0, count);
+            }
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    private RuntimeException failure(Object source, Throwable failure) {
+        if (failure instanceof AddEntryException) {
+            return (AddEntryException) failure;
+        }
+        return new AddEntryException(String.format("Could not add %s to ZIP '%s'.", source, zipFile), failure);
+    }
+
+    /**
+     * Writes the content of a file entry.
+     */
+    public interface Content {
+        void writeTo(OutputStream outputStream) throws IOException;
+    }
+
+    private static class AddEntryException extends GradleException {
+        private AddEntryException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    private class PendingEntry {
+        private final ZipEntry entry;
+        private final Object source;
+        private final Future<ContentBuffer> future;
+        private final long size;
+        private final FileChannel copyFrom;
+        private final long copyOffset;
+        private ContentBuffer content;
+
+        private PendingEntry(ZipEntry entry, Object source, ContentBuffer content) {
+            this.entry = entry;
+            this.source = source;
+            this.content = content;
+            this.future = null;
+            this.size = content.size();
+            this.copyFrom = null;
+            this.copyOffset = 0;
+        }
+
+        private PendingEntry(ZipEntry entry, Object source, Future<ContentBuffer> future, long size) {
+            this.entry = entry;
+            this.source = source;
+            this.future = future;
+            this.size = size;
+            this.copyFrom = null;
+            this.copyOffset = 0;
+        }
+
+        private PendingEntry(ZipEntry entry, Object source, FileChannel copyFrom, long copyOffset) {
+            this.entry = entry;
+            this.source = source;
+            this.future = null;
+            this.size = 0;
+            this.copyFrom = copyFrom;
+            this.copyOffset = copyOffset;
+        }
+
+        private boolean isDone() {
+            return content != null || copyFrom != null || future.isDone();
+        }
+
+        private ContentBuffer getContent() {
+            if (content != null) {
+                return content;
+            }
+            boolean interrupted = false;
+            try {
+                while (true) {
+                    try {
+                        content = future.get();
+                        return content;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    } catch (ExecutionException e) {
+                        throw failure(source, e.getCause());
+                    }
+                }
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * An entry which has been written to the ZIP file.
+     */
+    public static class WrittenEntry {
+        private final ZipEntry entry;
+        private final long offset;
+
+        private WrittenEntry(ZipEntry entry, long offset) {
+            this.entry = entry;
+            this.offset = offset;
+        }
+
+        public ZipEntry getEntry() {
+            return entry;
+        }
+
+        /**
+         * Returns the offset of the local header of this entry in the ZIP file.
+         */
+        public long getHeaderOffset() {
+            return offset;
+        }
+    }
+
+    /**
+     * Deflates the content of an entry into a buffer. When streaming is allowed and the buffer grows past the
+     * threshold, the pending entries are written, followed by the local header and the content of this entry.
+     */
+    private class EntryOutputStream extends OutputStream {
+        private final ZipEntry entry;
+        private final boolean mayStream;
+        private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        private final CRC32 crc = new CRC32();
+        private final byte[] deflated = new byte[8192];
+        private final byte[] single = new byte[1];
+        private ContentBuffer buffer = new ContentBuffer();
+        private long size;
+        private long compressedSize;
+        private long headerOffset = -1;
+
+        private EntryOutputStream(ZipEntry entry, boolean mayStream) {
+            this.entry = entry;
+            this.mayStream = mayStream;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            single[0] = (byte) b;
+            write(single, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return;
+            }
+            crc.update(bytes, offset, length);
+            size += length;
+            deflater.setInput(bytes, offset, length);
+            while (!deflater.needsInput()) {
+                deflate();
+            }
+        }
+
+        /**
+         * Finishes the entry. Returns the compressed content, or null when the content has been written to the ZIP
+         * file.
+         */
+        private ContentBuffer finish() throws IOException {
+            deflater.finish();
+            while (!deflater.finished()) {
+                deflate();
+            }
+            entry.setCrc(crc.getValue());
+            entry.setSize(size);
+            entry.setCompressedSize(compressedSize);
+            if (headerOffset >= 0) {
+                patchLocalHeader(entry, headerOffset);
+            }
+            return buffer;
+        }
+
+        private void end() {
+            deflater.end();
+        }
+
+        private void deflate() throws IOException {
+            int count = deflater.deflate(deflated, 0, deflated.length);
+            if (count == 0) {
+                return;
+            }
+            compressedSize += count;
+            if (buffer == null) {
+                outputStream.write(deflated, 0, count);
+                return;
+            }
+            buffer.write(deflated, 0, count);
+            if (mayStream && buffer.size() > bufferThreshold) {
+                startStreaming();
+            }
+        }
+
+        private void startStreaming() throws IOException {
+            writePending();
+            headerOffset = outputStream.getPosition();
+            // The CRC and sizes are filled in once the content has been written
+            entry.setCrc(0);
+            entry.setSize(0);
+            entry.setCompressedSize(0);
+            writeLocalHeader(entry);
+            outputStream.write(buffer.getBuffer(), 0, buffer.size());
+            buffer = null;
+        }
+    }
+
+    private static class ContentBuffer extends ByteArrayOutputStream {
+        private byte[] getBuffer() {
+            return buf;
+        }
+    }
+
+    private static class ArchiveOutputStream extends BufferedOutputStream {
+        private long position;
+
+        private ArchiveOutputStream(OutputStream outputStream) {
+            super(outputStream, 64 * 1024);
+        }
+
+        @Override
+        public synchronized void write(int b) throws IOException {
+            super.write(b);
+            position++;
+        }
+
+        @Override
+        public synchronized void write(byte[] bytes, int offset, int length) throws IOException {
+            super.write(bytes, offset, length);
+            position += length;
+        }
+
+        private long getPosition() {
+            return position;
+        }
+
+        private void transfer(FileChannel source, long offset, long count, FileChannel target) throws IOException {
+            flush();
+            while (count > 0) {
+                long transferred = source.transferTo(offset, count, target);
+                if (transferred <= 0) {
+                    throw new EOFException("Unexpected end of ZIP file.");
+                }
+                offset += transferred;
+                count -= transferred;
+                position += transferred;
+            }
+        }
+    }
+}
@@ -17,46 +17,33 @@ package org.gradle.api.internal.file.archive;
 
 import org.gradle.api.GradleException;
 import org.gradle.api.InvalidUserDataException;
+import org.gradle.api.UncheckedIOException;
 import org.gradle.api.file.FileTree;
 import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.file.FileVisitor;
 import org.gradle.api.file.RelativePath;
-import org.gradle.api.internal.file.AbstractFileTree;
 import org.gradle.api.internal.file.AbstractFileTreeElement;
-import org.gradle.api.internal.file.FileSet;
-import org.gradle.util.GFileUtils;
-import org.gradle.util.HashUtil;
-import org.apache.tools.tar.TarEntry;
-import org.apache.tools.tar.TarInputStream;
-
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.io.InputStream;
-import java.util.Collection;
-import java.util.Collections;
+
+import java.io.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 
-public class TarFileTree extends AbstractFileTree {
+/**
+ * A file tree whose content is read from a TAR file. The content of each entry is read directly from the TAR file,
+ * using a {@link TarIndex} which is built the first time the TAR file is visited, and kept while the TAR file does not
+ * change.
+ */
+public class TarFileTree extends AbstractArchiveFileTree {
     private final File tarFile;
-    private final File tmpDir;
 
     public TarFileTree(File tarFile, File tmpDir) {
+        super(tarFile, tmpDir);
         this.tarFile = tarFile;
-        String expandDirName = String.format("%s_%s", tarFile.getName(), HashUtil.createHash(tarFile.getAbsolutePath()));
-        this.tmpDir = new File(tmpDir, expandDirName);
     }
 
     public String getDisplayName() {
         return String.format("TAR '%s'", tarFile);
     }
 
-    @Override
-    protected Collection<FileSet> getAsFileSets() {
-        visitAll();
-        return tarFile.exists() ? Collections.singleton(new FileSet(tmpDir, null)) : Collections.<FileSet>emptyList();
-    }
-
     public FileTree visit(FileVisitor visitor) {
         if (!tarFile.exists()) {
             return this;
@@ -67,20 +54,15 @@ public class TarFileTree extends AbstractFileTree {
 
         AtomicBoolean stopFlag = new AtomicBoolean();
         try {
-            FileInputStream inputStream = new FileInputStream(tarFile);
-            try {
-                NoCloseTarInputStream tar = new NoCloseTarInputStream(inputStream);
-                TarEntry entry;
-                while (!stopFlag.get() && (entry = tar.getNextEntry()) != null) {
-                    if (entry.isDirectory()) {
-                        visitor.visitDir(new DetailsImpl(entry, tar, stopFlag));
-                    } else {
-                        visitor.visitFile(new DetailsImpl(entry, tar, stopFlag));
-                    }
-
+            for (TarIndex.Entry entry : getIndex().getEntries()) {
+                if (stopFlag.get()) {
+                    break;
+                }
+                if (entry.isDirectory()) {
+                    visitor.visitDir(new DetailsImpl(entry, stopFlag));
+                } else {
+                    visitor.visitFile(new DetailsImpl(entry, stopFlag));
                 }
-            } finally {
-                inputStream.close();
             }
         } catch (Exception e) {
             throw new GradleException(String.format("Could not expand %s.", this), e);
@@ -89,16 +71,26 @@ public class TarFileTree extends AbstractFileTree {
         return this;
     }
 
+    private TarIndex getIndex() throws IOException {
+        File indexFile = getCacheFile(".index");
+        ArchiveFingerprint fingerprint = ArchiveFingerprint.of(tarFile);
+        TarIndex index = TarIndex.read(indexFile, fingerprint);
+        if (index == null) {
+            index = TarIndex.scan(tarFile);
+            if (indexFile.getParentFile().isDirectory() || indexFile.getParentFile().mkdirs()) {
+                index.write(indexFile, fingerprint);
+            }
+        }
+        return index;
+    }
+
     private class DetailsImpl extends AbstractFileTreeElement implements FileVisitDetails {
-        private final TarEntry entry;
-        private final NoCloseTarInputStream tar;
+        private final TarIndex.Entry entry;
         private final AtomicBoolean stopFlag;
         private File file;
-        private boolean read;
 
-        public DetailsImpl(TarEntry entry, NoCloseTarInputStream tar, AtomicBoolean stopFlag) {
+        public DetailsImpl(TarIndex.Entry entry, AtomicBoolean stopFlag) {
             this.entry = entry;
-            this.tar = tar;
             this.stopFlag = stopFlag;
         }
 
@@ -112,14 +104,14 @@ public class TarFileTree extends AbstractFileTree {
 
         public File getFile() {
             if (file == null) {
-                file = new File(tmpDir, entry.getName());
+                file = new File(getExpandDir(), entry.getName());
                 copyTo(file);
             }
             return file;
         }
 
         public long getLastModified() {
-            return entry.getModTime().getTime();
+            return entry.getLastModified();
         }
 
         public boolean isDirectory() {
@@ -131,14 +123,11 @@ public class TarFileTree extends AbstractFileTree {
         }
 
         public InputStream open() {
-            if (read && file != null) {
-                return GFileUtils.openInputStream(file);
-            }
-            if (read || tar.getCurrent() != entry) {
-                throw new UnsupportedOperationException(String.format("The contents of %s has already been read.", this));
+            try {
+                return new EntryInputStream(tarFile, entry.getDataOffset(), entry.getSize());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
-            read = true;
-            return tar;
         }
 
         public RelativePath getRelativePath() {
@@ -146,17 +135,64 @@ public class TarFileTree extends AbstractFileTree {
         }
     }
 
-    private static class NoCloseTarInputStream extends TarInputStream {
-        public NoCloseTarInputStream(InputStream is) {
-            super(is);
+    /**
+     * Reads the content of an entry from the TAR file.
+     */
+    private static class EntryInputStream extends FilterInputStream {
+        private long remaining;
+
+        private EntryInputStream(File tarFile, long offset, long size) throws IOException {
+            super(null);
+            FileInputStream inputStream = new FileInputStream(tarFile);
+            try {
+                inputStream.getChannel().position(offset);
+            } catch (IOException e) {
+                inputStream.close();
+                throw e;
+            }
+            in = new BufferedInputStream(inputStream);
+            remaining = size;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = in.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
         }
 
         @Override
-        public void close() throws IOException {
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int count = in.read(buffer, offset, (int) Math.min(length, remaining));
+            if (count > 0) {
+                remaining -= count;
+            }
+            return count;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
         }
 
-        public TarEntry getCurrent() {
-            return currEntry;
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(in.available(), remaining);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
         }
     }
-}
\ No newline at end of file
+}
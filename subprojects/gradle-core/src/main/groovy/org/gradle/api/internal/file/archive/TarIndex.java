@@ -0,0 +1,237 @@
+/*
+ * Copyright 2010 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.file.archive;
+
+import org.apache.tools.tar.TarEntry;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The entries of a TAR file, with the offset of the content of each entry in the TAR file. The index is built by
+ * reading the header of each entry, seeking past the content, and can be saved to a file and reused while the TAR file
+ * does not change.
+ */
+public class TarIndex {
+    private static final Logger LOGGER = Logging.getLogger(TarIndex.class);
+    private static final int VERSION = 1;
+    private static final int BLOCK_SIZE = 512;
+    private static final int CHECKSUM_OFFSET = 148;
+    private static final int CHECKSUM_LENGTH = 8;
+    private final List<Entry> entries;
+
+    private TarIndex(List<Entry> entries) {
+        this.entries = entries;
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Builds the index of the given TAR file.
+     */
+    public static TarIndex scan(File tarFile) throws IOException {
+        List<Entry> entries = new ArrayList<Entry>();
+        RandomAccessFile file = new RandomAccessFile(tarFile, "r");
+        try {
+            long length = file.length();
+            long position = 0;
+            byte[] header = new byte[BLOCK_SIZE];
+            String longName = null;
+            while (position + BLOCK_SIZE <= length) {
+                file.seek(position);
+                file.readFully(header);
+                if (isEndOfArchive(header)) {
+                    break;
+                }
+                if (!hasValidChecksum(header)) {
+                    throw new IOException(String.format("Entry header at offset %s is not valid.", position));
+                }
+                TarEntry tarEntry = new TarEntry(header);
+                long dataOffset = position + BLOCK_SIZE;
+                long size = tarEntry.getSize();
+                position = dataOffset + (size + BLOCK_SIZE - 1) / BLOCK_SIZE * BLOCK_SIZE;
+                if (position > length) {
+                    throw new IOException(String.format("Content of entry '%s' is truncated.", tarEntry.getName()));
+                }
+
+                if (tarEntry.isGNULongNameEntry()) {
+                    longName = readLongName(file, dataOffset, size);
+                    continue;
+                }
+                if (longName != null) {
+                    tarEntry.setName(longName);
+                    longName = null;
+                }
+                entries.add(new Entry(tarEntry.getName(), tarEntry.isDirectory(), size,
+                        tarEntry.getModTime().getTime(), dataOffset));
+            }
+            if (position + BLOCK_SIZE > length && position != length) {
+                throw new IOException("Unexpected end of TAR file.");
+            }
+        } finally {
+            file.close();
+        }
+        return new TarIndex(entries);
+    }
+
+    /**
+     * Reads the index from the given file.
+     *
+     * @return The index, or null if the file does not exist or was written for a TAR file with different content.
+     */
+    public static TarIndex read(File indexFile, ArchiveFingerprint fingerprint) {
+        if (!indexFile.isFile()) {
+            return null;
+        }
+        try {
+            DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+            try {
+                if (inputStream.readInt() != VERSION) {
+                    return null;
+                }
+                if (!fingerprint.hasSameContentAs(ArchiveFingerprint.read(inputStream))) {
+                    return null;
+                }
+                int count = inputStream.readInt();
+                List<Entry> entries = new ArrayList<Entry>(count);
+                for (int i = 0; i < count; i++) {
+                    entries.add(new Entry(inputStream.readUTF(), inputStream.readBoolean(), inputStream.readLong(),
+                            inputStream.readLong(), inputStream.readLong()));
+                }
+                return new TarIndex(entries);
+            } finally {
+                inputStream.close();
+            }
+        } catch (IOException e) {
+            LOGGER.debug(String.format("Could not read TAR index %s. Ignoring.", indexFile), e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes this index to the given file. Failures are ignored, as the index can be built again.
+     */
+    public void write(File indexFile, ArchiveFingerprint fingerprint) {
+        try {
+            DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(
+                    indexFile)));
+            try {
+                outputStream.writeInt(VERSION);
+                fingerprint.write(outputStream);
+                outputStream.writeInt(entries.size());
+                for (Entry entry : entries) {
+                    outputStream.writeUTF(entry.name);
+                    outputStream.writeBoolean(entry.directory);
+                    outputStream.writeLong(entry.size);
+                    outputStream.writeLong(entry.lastModified);
+                    outputStream.writeLong(entry.dataOffset);
+                }
+            } finally {
+                outputStream.close();
+            }
+        } catch (IOException e) {
+            LOGGER.debug(String.format("Could not write TAR index %s. Ignoring.", indexFile), e);
+            indexFile.delete();
+        }
+    }
+
+    private static boolean isEndOfArchive(byte[] header) {
+        for (byte b : header) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasValidChecksum(byte[] header) {
+        long expected = 0;
+        boolean digits = false;
+        for (int i = CHECKSUM_OFFSET; i < CHECKSUM_OFFSET + CHECKSUM_LENGTH; i++) {
+            byte b = header[i];
+            if (b >= '0' && b <= '7') {
+                expected = expected * 8 + (b - '0');
+                digits = true;
+            } else if (digits || b == 0) {
+                break;
+            }
+        }
+        // Some implementations sum the header as signed bytes
+        long unsigned = 0;
+        long signed = 0;
+        for (int i = 0; i < header.length; i++) {
+            byte b = i >= CHECKSUM_OFFSET && i < CHECKSUM_OFFSET + CHECKSUM_LENGTH ? (byte) ' ' : header[i];
+            unsigned += b & 0xFF;
+            signed += b;
+        }
+        return expected == unsigned || expected == signed;
+    }
+
+    private static String readLongName(RandomAccessFile file, long offset, long size) throws IOException {
+        byte[] name = new byte[(int) size];
+        file.seek(offset);
+        file.readFully(name);
+        int length = name.length;
+        while (length > 0 && name[length - 1] == 0) {
+            length--;
+        }
+        return new String(name, 0, length);
+    }
+
+    public static class Entry {
+        private final String name;
+        private final boolean directory;
+        private final long size;
+        private final long lastModified;
+        private final long dataOffset;
+
+        private Entry(String name, boolean directory, long size, long lastModified, long dataOffset) {
+            this.name = name;
+            this.directory = directory;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.dataOffset = dataOffset;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isDirectory() {
+            return directory;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * Returns the offset of the content of this entry in the TAR file.
+         */
+        public long getDataOffset() {
+            return dataOffset;
+        }
+    }
+}
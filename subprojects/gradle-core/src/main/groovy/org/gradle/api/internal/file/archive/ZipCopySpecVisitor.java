@@ -17,41 +17,105 @@ package org.gradle.api.internal.file.archive;
 
 import org.apache.tools.zip.UnixStat;
 import org.apache.tools.zip.ZipEntry;
-import org.apache.tools.zip.ZipOutputStream;
 import org.gradle.api.GradleException;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.api.file.CopyAction;
 import org.gradle.api.file.FileVisitDetails;
+import org.gradle.api.internal.file.AbstractFileTreeElement;
 import org.gradle.api.internal.file.copy.ArchiveCopyAction;
 import org.gradle.api.internal.file.copy.EmptyCopySpecVisitor;
 import org.gradle.api.internal.file.copy.ReadableCopySpec;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
+/**
+ * Creates a ZIP file. The content of files which are copied directly from a file is deflated concurrently, using a
+ * {@link ParallelZipWriter}. The entries are written in the order they were visited.
+ *
+ * <p>When the action provides an index file, the ZIP file is updated incrementally: the compressed content of each
+ * source file which has not changed since the ZIP file was last created is copied from the previous ZIP file.</p>
+ */
 public class ZipCopySpecVisitor extends EmptyCopySpecVisitor {
-    private ZipOutputStream zipOutStr;
+    private final int threadCount;
+    private final Map<ZipEntry, ZipEntryIndex.Entry> indexEntries = new IdentityHashMap<ZipEntry, ZipEntryIndex.Entry>();
+    private ParallelZipWriter zipWriter;
     private File zipFile;
+    private File tmpFile;
+    private File indexFile;
+    private ZipEntryIndex index;
+    private ZipEntryIndex previousIndex;
+    private RandomAccessFile previousZip;
     private ReadableCopySpec spec;
 
+    public ZipCopySpecVisitor() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param threadCount The number of threads to use to deflate file content. Use 1 to deflate each file as it is
+     * visited.
+     */
+    public ZipCopySpecVisitor(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
     public void startVisit(CopyAction action) {
         ArchiveCopyAction archiveAction = (ArchiveCopyAction) action;
         zipFile = archiveAction.getArchivePath();
+        indexFile = action instanceof ZipCopyAction ? ((ZipCopyAction) action).getIndexFile() : null;
         try {
-            zipOutStr = new ZipOutputStream(zipFile);
+            File target = zipFile;
+            if (indexFile != null) {
+                index = new ZipEntryIndex();
+                previousIndex = ZipEntryIndex.read(indexFile, zipFile);
+                indexFile.delete();
+                if (previousIndex != null) {
+                    previousZip = new RandomAccessFile(zipFile, "r");
+                    tmpFile = new File(zipFile.getParentFile(), zipFile.getName() + ".tmp");
+                    target = tmpFile;
+                }
+            }
+            zipWriter = new ParallelZipWriter(target, threadCount);
         } catch (Exception e) {
+            closePreviousZip();
             throw new GradleException(String.format("Could not create ZIP '%s'.", zipFile), e);
         }
     }
 
     public void endVisit() {
         try {
-            zipOutStr.close();
+            zipWriter.close();
+            if (tmpFile != null) {
+                closePreviousZip();
+                replace(tmpFile, zipFile);
+            }
+            if (index != null) {
+                for (ParallelZipWriter.WrittenEntry writtenEntry : zipWriter.getWrittenEntries()) {
+                    ZipEntryIndex.Entry indexEntry = indexEntries.get(writtenEntry.getEntry());
+                    if (indexEntry != null) {
+                        indexEntry.setWritten(writtenEntry.getEntry(), writtenEntry.getHeaderOffset());
+                    }
+                }
+                index.write(indexFile, zipFile);
+            }
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         } finally {
+            closePreviousZip();
+            if (tmpFile != null) {
+                tmpFile.delete();
+            }
+            indexEntries.clear();
             spec = null;
-            zipOutStr = null;
+            zipWriter = null;
+            tmpFile = null;
+            index = null;
+            previousIndex = null;
         }
     }
 
@@ -61,15 +125,34 @@ public class ZipCopySpecVisitor extends EmptyCopySpecVisitor {
 
     public void visitFile(FileVisitDetails fileDetails) {
         try {
-            ZipEntry archiveEntry = new ZipEntry(fileDetails.getRelativePath().getPathString());
-            archiveEntry.setMethod(ZipEntry.DEFLATED);
-            archiveEntry.setTime(fileDetails.getLastModified());
-            archiveEntry.setUnixMode(UnixStat.FILE_FLAG | spec.getFileMode());
-            zipOutStr.putNextEntry(archiveEntry);
-            fileDetails.copyTo(zipOutStr);
-            zipOutStr.closeEntry();
-        } catch (Exception e) {
-            throw new GradleException(String.format("Could not add %s to ZIP '%s'.", fileDetails, zipFile), e);
+            addFile(fileDetails);
+        } catch (RuntimeException e) {
+            abandonVisit();
+            throw e;
+        }
+    }
+
+    private void addFile(final FileVisitDetails fileDetails) {
+        ZipEntry archiveEntry = new ZipEntry(fileDetails.getRelativePath().getPathString());
+        archiveEntry.setMethod(ZipEntry.DEFLATED);
+        archiveEntry.setTime(fileDetails.getLastModified());
+        archiveEntry.setUnixMode(UnixStat.FILE_FLAG | spec.getFileMode());
+        File sourceFile = getSourceFile(fileDetails);
+        if (sourceFile != null) {
+            long size = fileDetails.getSize();
+            if (index != null) {
+                indexEntries.put(archiveEntry, index.add(sourceFile, size, fileDetails.getLastModified()));
+                if (copyFromPreviousZip(fileDetails, archiveEntry, sourceFile, size)) {
+                    return;
+                }
+            }
+            zipWriter.addFile(archiveEntry, fileDetails, sourceFile, size);
+        } else {
+            zipWriter.addFile(archiveEntry, fileDetails, new ParallelZipWriter.Content() {
+                public void writeTo(OutputStream outputStream) {
+                    fileDetails.copyTo(outputStream);
+                }
+            });
         }
     }
 
@@ -79,14 +162,79 @@ public class ZipCopySpecVisitor extends EmptyCopySpecVisitor {
             ZipEntry archiveEntry = new ZipEntry(dirDetails.getRelativePath().getPathString() + '/');
             archiveEntry.setTime(dirDetails.getLastModified());
             archiveEntry.setUnixMode(UnixStat.DIR_FLAG | spec.getDirMode());
-            zipOutStr.putNextEntry(archiveEntry);
-            zipOutStr.closeEntry();
-        } catch (Exception e) {
-            throw new GradleException(String.format("Could not add %s to ZIP '%s'.", dirDetails, zipFile), e);
+            zipWriter.addDirectory(archiveEntry, dirDetails);
+        } catch (RuntimeException e) {
+            abandonVisit();
+            throw e;
         }
     }
 
     public boolean getDidWork() {
         return true;
     }
+
+    private boolean copyFromPreviousZip(FileVisitDetails fileDetails, ZipEntry archiveEntry, File sourceFile, long size) {
+        if (previousIndex == null) {
+            return false;
+        }
+        ZipEntryIndex.Entry previousEntry = previousIndex.find(sourceFile, size, fileDetails.getLastModified());
+        if (previousEntry == null) {
+            return false;
+        }
+        previousEntry.applyTo(archiveEntry);
+        return zipWriter.addCopy(archiveEntry, fileDetails, previousZip.getChannel(), previousEntry.getHeaderOffset());
+    }
+
+    private void closePreviousZip() {
+        if (previousZip == null) {
+            return;
+        }
+        try {
+            previousZip.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            previousZip = null;
+        }
+    }
+
+    /**
+     * Cleans up when the visit fails, as {@link #endVisit()} is not called in that case. Closes the ZIP file being
+     * written and the previous ZIP file, and deletes the temporary file which was to replace the previous ZIP file.
+     */
+    private void abandonVisit() {
+        if (zipWriter != null) {
+            zipWriter.abort();
+            zipWriter = null;
+        }
+        try {
+            closePreviousZip();
+        } catch (UncheckedIOException e) {
+            // Ignore, in favour of the original failure
+        }
+        if (tmpFile != null) {
+            tmpFile.delete();
+            tmpFile = null;
+        }
+        indexEntries.clear();
+        index = null;
+        previousIndex = null;
+    }
+
+    private static void replace(File source, File target) throws IOException {
+        if (source.renameTo(target)) {
+            return;
+        }
+        // Some platforms do not allow a file to be renamed over an existing file
+        if (!target.delete() || !source.renameTo(target)) {
+            throw new IOException(String.format("Could not rename '%s' to '%s'.", source, target));
+        }
+    }
+
+    private static File getSourceFile(FileVisitDetails fileDetails) {
+        if (fileDetails instanceof AbstractFileTreeElement) {
+            return ((AbstractFileTreeElement) fileDetails).getSourceFile();
+        }
+        return null;
+    }
 }
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2010 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.file.archive;
+
+import org.apache.tools.zip.ZipEntry;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An index of the file entries of a ZIP file whose content was copied from a source file. For each such entry, the
+ * index records the length and last modified time of the source file, and where the compressed content of the entry
+ * is stored in the ZIP file. The index is used to copy the compressed content of unchanged source files from the
+ * previous ZIP file when the ZIP file is created again.
+ *
+ * <p>The index also records the length and last modified time of the ZIP file, and is discarded when the ZIP file
+ * has changed since the index was written.</p>
+ *
+ * <p>The index records when it was created, before any source file was read. A source file modified within the
+ * timestamp resolution of the file system before that time may be modified again without a change to its last
+ * modified time, so its entry is not used.</p>
+ */
+public class ZipEntryIndex {
+    private static final Logger LOGGER = Logging.getLogger(ZipEntryIndex.class);
+    private static final int VERSION = 2;
+    // Files modified this close to the index may be modified again without a change to their timestamp
+    private static final long TIMESTAMP_RESOLUTION = 2000;
+    private final long timestamp;
+    private final Map<String, Entry> entries = new HashMap<String, Entry>();
+    private final List<Entry> added = new ArrayList<Entry>();
+
+    public ZipEntryIndex() {
+        this(System.currentTimeMillis());
+    }
+
+    private ZipEntryIndex(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Reads the index of the given ZIP file.
+     *
+     * @return The index, or null if the index or the ZIP file does not exist, or the ZIP file has changed since the
+     * index was written.
+     */
+    public static ZipEntryIndex read(File indexFile, File zipFile) {
+        if (!indexFile.isFile() || !zipFile.isFile()) {
+            return null;
+        }
+        try {
+            DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+            try {
+                if (inputStream.readInt() != VERSION) {
+                    return null;
+                }
+                if (inputStream.readLong() != zipFile.length() || inputStream.readLong() != zipFile.lastModified()) {
+                    return null;
+                }
+                ZipEntryIndex index = new ZipEntryIndex(inputStream.readLong());
+                int count = inputStream.readInt();
+                for (int i = 0; i < count; i++) {
+                    Entry entry = new Entry(new File(inputStream.readUTF()), inputStream.readLong(),
+                            inputStream.readLong());
+                    entry.method = inputStream.readInt();
+                    entry.crc = inputStream.readLong();
+                    entry.compressedSize = inputStream.readLong();
+                    entry.size = inputStream.readLong();
+                    entry.headerOffset = inputStream.readLong();
+                    index.entries.put(entry.sourceFile.getAbsolutePath(), entry);
+                }
+                return index;
+            } finally {
+                inputStream.close();
+            }
+        } catch (IOException e) {
+            LOGGER.debug(String.format("Could not read index of ZIP '%s'. Ignoring.", zipFile), e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes the entries which have been added to this index, once they have been written to the given ZIP file.
+     */
+    public void write(File indexFile, File zipFile) {
+        List<Entry> written = new ArrayList<Entry>();
+        for (Entry entry : added) {
+            if (entry.headerOffset >= 0) {
+                written.add(entry);
+            }
+        }
+        try {
+            indexFile.getParentFile().mkdirs();
+            DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(
+                    indexFile)));
+            try {
+                outputStream.writeInt(VERSION);
+                outputStream.writeLong(zipFile.length());
+                outputStream.writeLong(zipFile.lastModified());
+                outputStream.writeLong(timestamp);
+                outputStream.writeInt(written.size());
+                for (Entry entry : written) {
+                    outputStream.writeUTF(entry.sourceFile.getAbsolutePath());
+                    outputStream.writeLong(entry.length);
+                    outputStream.writeLong(entry.lastModified);
+                    outputStream.writeInt(entry.method);
+                    outputStream.writeLong(entry.crc);
+                    outputStream.writeLong(entry.compressedSize);
+                    outputStream.writeLong(entry.size);
+                    outputStream.writeLong(entry.headerOffset);
+                }
+            } finally {
+                outputStream.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Could not write index of ZIP '%s'.", zipFile), e);
+        }
+    }
+
+    /**
+     * Locates the entry for the given source file.
+     *
+     * @return The entry, or null when there is no entry for the source file or the source file may have changed.
+     */
+    public Entry find(File sourceFile, long length, long lastModified) {
+        Entry entry = entries.get(sourceFile.getAbsolutePath());
+        if (entry == null || entry.length != length || entry.lastModified != lastModified) {
+            return null;
+        }
+        if (entry.lastModified + TIMESTAMP_RESOLUTION >= timestamp) {
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Adds an entry for the given source file. The entry is written to the index once {@link
+     * Entry#setWritten(ZipEntry, long)} has been called.
+     */
+    public Entry add(File sourceFile, long length, long lastModified) {
+        Entry entry = new Entry(sourceFile, length, lastModified);
+        added.add(entry);
+        return entry;
+    }
+
+    public static class Entry {
+        private final File sourceFile;
+        private final long length;
+        private final long lastModified;
+        private int method;
+        private long crc;
+        private long compressedSize;
+        private long size;
+        private long headerOffset = -1;
+
+        private Entry(File sourceFile, long length, long lastModified) {
+            this.sourceFile = sourceFile;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+
+        public long getHeaderOffset() {
+            return headerOffset;
+        }
+
+        /**
+         * Sets the method, CRC and sizes of the given ZIP entry from this entry.
+         */
+        public void applyTo(ZipEntry entry) {
+            entry.setMethod(method);
+            entry.setCrc(crc);
+            entry.setCompressedSize(compressedSize);
+            entry.setSize(size);
+        }
+
+        /**
+         * Records that the given ZIP entry has been written at the given offset.
+         */
+        public void setWritten(ZipEntry entry, long headerOffset) {
+            method = entry.getMethod();
+            crc = entry.getCrc();
+            compressedSize = entry.getCompressedSize();
+            size = entry.getSize();
+            this.headerOffset = headerOffset;
+        }
+    }
+}
@@ -20,43 +20,34 @@ import org.apache.tools.zip.ZipFile;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.GradleException;
-import org.gradle.api.internal.file.AbstractFileTree;
 import org.gradle.api.internal.file.AbstractFileTreeElement;
-import org.gradle.api.internal.file.FileSet;
 import org.gradle.api.file.FileTree;
 import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.file.FileVisitor;
 import org.gradle.api.file.RelativePath;
-import org.gradle.util.HashUtil;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Enumeration;
-import java.util.Collection;
-import java.util.Collections;
 import java.util.concurrent.atomic.AtomicBoolean;
 
-public class ZipFileTree extends AbstractFileTree {
+/**
+ * A file tree whose content is read from a ZIP file. The entries are located using the central directory of the ZIP
+ * file, and the content of each entry is read directly from the ZIP file.
+ */
+public class ZipFileTree extends AbstractArchiveFileTree {
     private final File zipFile;
-    private final File tmpDir;
 
     public ZipFileTree(File zipFile, File tmpDir) {
+        super(zipFile, tmpDir);
         this.zipFile = zipFile;
-        String expandDirName = String.format("%s_%s", zipFile.getName(), HashUtil.createHash(zipFile.getAbsolutePath()));
-        this.tmpDir = new File(tmpDir, expandDirName);
     }
 
     public String getDisplayName() {
         return String.format("ZIP '%s'", zipFile);
     }
 
-    @Override
-    protected Collection<FileSet> getAsFileSets() {
-        visitAll();
-        return zipFile.exists() ? Collections.singleton(new FileSet(tmpDir, null)) : Collections.<FileSet>emptyList();
-    }
-
     public FileTree visit(FileVisitor visitor) {
         if (!zipFile.exists()) {
             return this;
@@ -111,7 +102,7 @@ public class ZipFileTree extends AbstractFileTree {
 
         public File getFile() {
             if (file == null) {
-                file = new File(tmpDir, entry.getName());
+                file = new File(getExpandDir(), entry.getName());
                 copyTo(file);
             }
             return file;
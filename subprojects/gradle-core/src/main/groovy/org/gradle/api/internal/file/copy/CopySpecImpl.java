@@ -19,6 +19,7 @@ import groovy.lang.Closure;
 import org.apache.tools.zip.UnixStat;
 import org.codehaus.groovy.runtime.DefaultGroovyMethods;
 import org.gradle.api.Action;
+import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.file.*;
 import org.gradle.api.internal.ChainingTransformer;
 import org.gradle.api.internal.file.FileResolver;
@@ -28,6 +29,7 @@ import org.gradle.util.ConfigureUtil;
 
 import java.io.File;
 import java.io.FilterReader;
+import java.nio.charset.Charset;
 import java.util.*;
 
 /**
@@ -44,6 +46,7 @@ public class CopySpecImpl implements CopySpec, ReadableCopySpec {
     private final List<Action<? super FileCopyDetails>> actions = new ArrayList<Action<? super FileCopyDetails>>();
     private Integer dirMode;
     private Integer fileMode;
+    private String filteringCharset;
     private Boolean caseSensitive;
 
     private CopySpecImpl(FileResolver resolver, CopySpecImpl parentSpec, boolean root) {
@@ -312,6 +315,24 @@ public class CopySpecImpl implements CopySpec, ReadableCopySpec {
         return UnixStat.DEFAULT_FILE_PERM;
     }
 
+    public String getFilteringCharset() {
+        if (filteringCharset != null) {
+            return filteringCharset;
+        }
+        if (parentSpec != null) {
+            return parentSpec.getFilteringCharset();
+        }
+        return Charset.defaultCharset().name();
+    }
+
+    public CopyProcessingSpec setFilteringCharset(String charset) {
+        if (!Charset.isSupported(charset)) {
+            throw new InvalidUserDataException(String.format("Charset '%s' is not supported.", charset));
+        }
+        filteringCharset = charset;
+        return this;
+    }
+
     public CopyProcessingSpec setDirMode(int mode) {
         dirMode = mode;
         return this;
@@ -393,6 +414,10 @@ public class CopySpecImpl implements CopySpec, ReadableCopySpec {
             return spec.getDirMode();
         }
 
+        public String getFilteringCharset() {
+            return spec.getFilteringCharset();
+        }
+
         public FileTree getSource() {
             return spec.getSource();
         }
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2010 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.file.copy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * An {@link InputStream} which reads characters from a {@link Reader} and encodes them using a given charset. The
+ * characters are read and encoded a buffer at a time.
+ */
+public class EncodingInputStream extends InputStream {
+    private static final int BUFFER_SIZE = 4096;
+    private final Reader reader;
+    private final CharsetEncoder encoder;
+    private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+    private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE * 2);
+    private boolean endOfInput;
+    private boolean flushed;
+
+    public EncodingInputStream(Reader reader, Charset charset) {
+        this.reader = reader;
+        // Same behaviour as String.getBytes()
+        encoder = charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(
+                CodingErrorAction.REPLACE);
+        chars.flip();
+        bytes.flip();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return bytes.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int count = Math.min(length, bytes.remaining());
+        bytes.get(buffer, offset, count);
+        return count;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return bytes.remaining();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Encodes more characters, if the byte buffer is empty.
+     *
+     * @return false when the end of the stream has been reached.
+     */
+    private boolean fill() throws IOException {
+        while (!bytes.hasRemaining()) {
+            if (flushed) {
+                return false;
+            }
+            bytes.clear();
+            if (!endOfInput) {
+                chars.compact();
+                int count = reader.read(chars.array(), chars.position(), chars.remaining());
+                if (count < 0) {
+                    endOfInput = true;
+                } else {
+                    chars.position(chars.position() + count);
+                }
+                chars.flip();
+            }
+            encoder.encode(chars, bytes, endOfInput);
+            if (endOfInput && !chars.hasRemaining()) {
+                flushed = encoder.flush(bytes).isUnderflow();
+            }
+            bytes.flip();
+        }
+        return true;
+    }
+}
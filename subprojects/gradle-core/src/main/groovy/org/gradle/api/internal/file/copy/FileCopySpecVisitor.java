@@ -15,19 +15,44 @@
  */
 package org.gradle.api.internal.file.copy;
 
+import org.gradle.api.GradleException;
 import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.file.CopyAction;
 import org.gradle.api.file.FileTreeElement;
 import org.gradle.api.file.FileVisitDetails;
+import org.gradle.api.internal.file.AbstractFileTreeElement;
 
 import java.io.File;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.*;
 
 /**
+ * Copies files into a destination directory. Files which can be copied directly from file to file are copied
+ * concurrently, using a bounded pool of worker threads. Other files, such as filtered files or archive entries, are
+ * copied as they are visited. Copies to the same target file are made in the order they were visited.
+ *
  * @author Steve Appling
  */
 public class FileCopySpecVisitor extends EmptyCopySpecVisitor {
+    private static final int QUEUE_SIZE_PER_THREAD = 64;
+    private final int threadCount;
+    private final Map<File, Future<?>> pending = new HashMap<File, Future<?>>();
+    private ThreadPoolExecutor executor;
     private File baseDestDir;
-    private boolean didWork;
+    private volatile boolean didWork;
+
+    public FileCopySpecVisitor() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param threadCount The number of threads to use to copy files. Use 1 to copy each file as it is visited.
+     */
+    public FileCopySpecVisitor(int threadCount) {
+        this.threadCount = threadCount;
+    }
 
     public void startVisit(CopyAction action) {
         baseDestDir = ((FileCopyAction) action).getDestinationDir();
@@ -38,7 +63,26 @@ public class FileCopySpecVisitor extends EmptyCopySpecVisitor {
 
     public void visitFile(FileVisitDetails source) {
         File target = source.getRelativePath().getFile(baseDestDir);
-        copyFile(source, target);
+        waitFor(pending.remove(target));
+        if (threadCount > 1 && isCopiedFromFile(source)) {
+            copyFileConcurrently(source, target);
+        } else {
+            copyFile(source, target);
+        }
+    }
+
+    public void endVisit() {
+        try {
+            for (Future<?> future : pending.values()) {
+                waitFor(future);
+            }
+        } finally {
+            pending.clear();
+            if (executor != null) {
+                executor.shutdown();
+                executor = null;
+            }
+        }
     }
 
     public boolean getDidWork() {
@@ -51,4 +95,72 @@ public class FileCopySpecVisitor extends EmptyCopySpecVisitor {
             didWork = true;
         }
     }
+
+    private static boolean isCopiedFromFile(FileTreeElement source) {
+        return source instanceof AbstractFileTreeElement && ((AbstractFileTreeElement) source).getSourceFile() != null;
+    }
+
+    private void copyFileConcurrently(final FileTreeElement source, final File target) {
+        if (executor == null) {
+            executor = new ThreadPoolExecutor(threadCount, threadCount, 1, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<Runnable>(threadCount * QUEUE_SIZE_PER_THREAD), new ThreadFactory() {
+                        public Thread newThread(Runnable runnable) {
+                            Thread thread = new Thread(runnable, "file copier");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    }, new ThreadPoolExecutor.CallerRunsPolicy());
+            // Let the threads finish when the visit is abandoned
+            executor.allowCoreThreadTimeOut(true);
+        }
+        if (pending.size() >= threadCount * QUEUE_SIZE_PER_THREAD * 2) {
+            removeCompleted();
+        }
+        pending.put(target, executor.submit(new Runnable() {
+            public void run() {
+                copyFile(source, target);
+            }
+        }));
+    }
+
+    private void removeCompleted() {
+        Iterator<Future<?>> iterator = pending.values().iterator();
+        while (iterator.hasNext()) {
+            Future<?> future = iterator.next();
+            if (future.isDone()) {
+                iterator.remove();
+                waitFor(future);
+            }
+        }
+    }
+
+    private void waitFor(Future<?> future) {
+        if (future == null) {
+            return;
+        }
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    future.get();
+                    return;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw new GradleException(cause);
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
 }
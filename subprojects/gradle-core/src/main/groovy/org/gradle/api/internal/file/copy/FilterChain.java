@@ -16,25 +16,70 @@
 package org.gradle.api.internal.file.copy;
 
 import groovy.lang.Closure;
-import org.apache.tools.ant.util.ReaderInputStream;
 import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.Transformer;
+import org.gradle.api.UncheckedIOException;
 import org.gradle.api.internal.ChainingTransformer;
 import org.gradle.util.ReflectionUtil;
 
 import java.io.*;
 import java.lang.reflect.Constructor;
+import java.nio.charset.Charset;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class FilterChain implements Transformer<InputStream> {
+    private static final int BUFFER_SIZE = 8192;
+    private static final Map<Class<?>, Constructor<?>> CONSTRUCTORS = new ConcurrentHashMap<Class<?>, Constructor<?>>();
+    private static final ThreadLocal<char[]> BUFFER = new ThreadLocal<char[]>() {
+        @Override
+        protected char[] initialValue() {
+            return new char[BUFFER_SIZE];
+        }
+    };
     private final ChainingTransformer<Reader> transformers = new ChainingTransformer<Reader>(Reader.class);
+    private final Charset charset;
+
+    /**
+     * Creates a chain which reads and writes content using the platform default charset.
+     */
+    public FilterChain() {
+        this(Charset.defaultCharset());
+    }
+
+    public FilterChain(Charset charset) {
+        this.charset = charset;
+    }
 
     public Reader transform(Reader original) {
         return transformers.transform(original);
     }
 
     public InputStream transform(InputStream original) {
-        return new ReaderInputStream(transform(new InputStreamReader(original)));
+        return new EncodingInputStream(transform(new InputStreamReader(original, charset)), charset);
+    }
+
+    /**
+     * Filters the content of the given stream and writes the result to the given output stream. Closes the input
+     * stream.
+     */
+    public void copy(InputStream original, OutputStream outstr) {
+        try {
+            Reader reader = transform(new InputStreamReader(original, charset));
+            try {
+                Writer writer = new OutputStreamWriter(outstr, charset);
+                char[] buffer = BUFFER.get();
+                int count;
+                while ((count = reader.read(buffer)) >= 0) {
+                    writer.write(buffer, 0, count);
+                }
+                writer.flush();
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     public boolean hasFilters() {
@@ -49,8 +94,7 @@ public class FilterChain implements Transformer<InputStream> {
         transformers.add(new Transformer<Reader>() {
             public Reader transform(Reader original) {
                 try {
-                    Constructor<? extends FilterReader> constructor = filterType.getConstructor(Reader.class);
-                    FilterReader result = constructor.newInstance(original);
+                    FilterReader result = filterType.cast(getConstructor(filterType).newInstance(original));
 
                     if (properties != null) {
                         ReflectionUtil.setFromMap(result, properties);
@@ -70,4 +114,13 @@ public class FilterChain implements Transformer<InputStream> {
             }
         });
     }
+
+    private static Constructor<?> getConstructor(Class<? extends FilterReader> filterType) throws NoSuchMethodException {
+        Constructor<?> constructor = CONSTRUCTORS.get(filterType);
+        if (constructor == null) {
+            constructor = filterType.getConstructor(Reader.class);
+            CONSTRUCTORS.put(filterType, constructor);
+        }
+        return constructor;
+    }
 }
@@ -92,19 +92,21 @@ public class LineFilter extends Reader{
 
     @Override
     public int read(char[] cbuf, int off, int len) throws IOException {
-        for (int i = 0; i < len; i++) {
-            final int c = read();
-            if (c == -1) {
-                if (i == 0) {
-                    return -1;
-                }
-                else {
-                    return i;
-                }
+        int count = 0;
+        while (count < len) {
+            ensureData();
+            if (transformedLine == null) {
+                break;
             }
-            cbuf[off + i] = (char) c;
+            int chars = Math.min(len - count, transformedLine.length() - transformedIndex);
+            transformedLine.getChars(transformedIndex, transformedIndex + chars, cbuf, off + count);
+            transformedIndex += chars;
+            count += chars;
+        }
+        if (count == 0 && len > 0) {
+            return -1;
         }
-        return len;
+        return count;
     }
 
     public void close() throws IOException {
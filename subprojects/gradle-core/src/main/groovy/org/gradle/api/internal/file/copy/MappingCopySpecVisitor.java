@@ -24,6 +24,7 @@ import java.io.File;
 import java.io.FilterReader;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.charset.Charset;
 import java.util.Map;
 
 public class MappingCopySpecVisitor extends DelegatingCopySpecVisitor {
@@ -56,7 +57,7 @@ public class MappingCopySpecVisitor extends DelegatingCopySpecVisitor {
     private static class FileVisitDetailsImpl extends AbstractFileTreeElement implements FileVisitDetails, FileCopyDetails {
         private final FileVisitDetails fileDetails;
         private final ReadableCopySpec spec;
-        private final FilterChain filterChain = new FilterChain();
+        private FilterChain filterChain;
         private RelativePath relativePath;
         private boolean excluded;
 
@@ -89,8 +90,16 @@ public class MappingCopySpecVisitor extends DelegatingCopySpecVisitor {
             return fileDetails.getSize();
         }
 
+        @Override
+        public File getSourceFile() {
+            if (hasFilters() || !(fileDetails instanceof AbstractFileTreeElement)) {
+                return null;
+            }
+            return ((AbstractFileTreeElement) fileDetails).getSourceFile();
+        }
+
         public InputStream open() {
-            if (filterChain.hasFilters()) {
+            if (hasFilters()) {
                 return filterChain.transform(fileDetails.open());
             } else {
                 return fileDetails.open();
@@ -98,15 +107,15 @@ public class MappingCopySpecVisitor extends DelegatingCopySpecVisitor {
         }
 
         public void copyTo(OutputStream outstr) {
-            if (filterChain.hasFilters()) {
-                super.copyTo(outstr);
+            if (hasFilters()) {
+                filterChain.copy(fileDetails.open(), outstr);
             } else {
                 fileDetails.copyTo(outstr);
             }
         }
 
         public boolean copyTo(File target) {
-            if (filterChain.hasFilters()) {
+            if (hasFilters()) {
                 return super.copyTo(target);
             }
             else {
@@ -139,18 +148,29 @@ public class MappingCopySpecVisitor extends DelegatingCopySpecVisitor {
         }
 
         public ContentFilterable filter(Closure closure) {
-            filterChain.add(closure);
+            getFilterChain().add(closure);
             return this;
         }
 
         public ContentFilterable filter(Map<String, ?> map, Class<? extends FilterReader> filterType) {
-            filterChain.add(filterType, map);
+            getFilterChain().add(filterType, map);
             return this;
         }
 
         public ContentFilterable filter(Class<? extends FilterReader> filterType) {
-            filterChain.add(filterType);
+            getFilterChain().add(filterType);
             return this;
         }
+
+        private boolean hasFilters() {
+            return filterChain != null && filterChain.hasFilters();
+        }
+
+        private FilterChain getFilterChain() {
+            if (filterChain == null) {
+                filterChain = new FilterChain(Charset.forName(spec.getFilteringCharset()));
+            }
+            return filterChain;
+        }
     }
 }
@@ -29,6 +29,8 @@ public interface ReadableCopySpec {
 
     int getDirMode();
 
+    String getFilteringCharset();
+
     FileTree getSource();
 
     Collection<? extends ReadableCopySpec> getAllSpecs();
@@ -24,12 +24,21 @@ import org.gradle.api.internal.file.DirectoryWalker;
 import org.gradle.util.GFileUtils;
 
 import java.io.File;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
 
+/**
+ * Deletes the files from the destination directory which were not copied by the delegate visitor. When the action
+ * provides a snapshot file, the paths which were left in the destination directory are recorded in a {@link
+ * SyncSnapshot}. The next sync deletes the paths in the snapshot which were not copied again, and lists only those
+ * directories which have been modified since the snapshot was taken, rather than walking the whole destination
+ * directory.
+ */
 public class SyncCopySpecVisitor extends DelegatingCopySpecVisitor {
-    private final Set<RelativePath> visited = new HashSet<RelativePath>();
+    // Maps each visited path, and each of its parents, to true if it is a directory
+    private final Map<String, Boolean> visited = new HashMap<String, Boolean>();
     private File baseDestDir;
+    private File snapshotFile;
+    private SyncSnapshot snapshot;
     private boolean didWork;
 
     public SyncCopySpecVisitor(CopySpecVisitor visitor) {
@@ -38,23 +47,100 @@ public class SyncCopySpecVisitor extends DelegatingCopySpecVisitor {
 
     public void startVisit(CopyAction action) {
         baseDestDir = ((FileCopyAction) action).getDestinationDir();
+        visited.put("", true);
+        if (action instanceof SyncCopyAction) {
+            snapshotFile = ((SyncCopyAction) action).getSnapshotFile();
+        }
+        if (snapshotFile != null) {
+            snapshot = SyncSnapshot.read(snapshotFile, baseDestDir);
+            // The snapshot is not valid once the destination directory starts to change
+            snapshotFile.delete();
+        }
         getVisitor().startVisit(action);
     }
 
     @Override
     public void visitDir(FileVisitDetails dirDetails) {
-        visited.add(dirDetails.getRelativePath());
+        addVisited(dirDetails.getRelativePath());
         getVisitor().visitDir(dirDetails);
     }
 
     @Override
     public void visitFile(FileVisitDetails fileDetails) {
-        visited.add(fileDetails.getRelativePath());
+        addVisited(fileDetails.getRelativePath());
         getVisitor().visitFile(fileDetails);
     }
 
+    private void addVisited(RelativePath path) {
+        visited.put(path.getPathString(), !path.isFile());
+        for (RelativePath parent = path.getParent(); parent != null; parent = parent.getParent()) {
+            if (visited.put(parent.getPathString(), true) != null) {
+                break;
+            }
+        }
+    }
+
     @Override
     public void endVisit() {
+        if (snapshot != null) {
+            deleteUsingSnapshot();
+        } else {
+            deleteUsingWalk();
+        }
+
+        getVisitor().endVisit();
+
+        if (snapshotFile != null) {
+            SyncSnapshot.write(snapshotFile, baseDestDir, visited);
+        }
+        visited.clear();
+        snapshot = null;
+        snapshotFile = null;
+    }
+
+    private void deleteUsingSnapshot() {
+        for (String path : snapshot.getPaths()) {
+            if (!visited.containsKey(path)) {
+                delete(new File(baseDestDir, path));
+            }
+        }
+
+        // Directories created by this sync were not in the snapshot, so may contain files which were not written by
+        // a sync
+        Set<String> changedDirs = new HashSet<String>(snapshot.getChangedDirs(baseDestDir));
+        for (Map.Entry<String, Boolean> entry : visited.entrySet()) {
+            if (entry.getValue() && !snapshot.getPaths().contains(entry.getKey())) {
+                changedDirs.add(entry.getKey());
+            }
+        }
+        for (String dir : changedDirs) {
+            if (!Boolean.TRUE.equals(visited.get(dir))) {
+                continue;
+            }
+            String[] names = new File(baseDestDir, dir).list();
+            if (names == null) {
+                continue;
+            }
+            for (String name : names) {
+                String path = dir.length() == 0 ? name : dir + '/' + name;
+                if (!visited.containsKey(path)) {
+                    delete(new File(baseDestDir, path));
+                }
+            }
+        }
+    }
+
+    private void delete(File file) {
+        if (file.isDirectory()) {
+            GFileUtils.deleteDirectory(file);
+            didWork = true;
+        } else if (file.exists()) {
+            GFileUtils.deleteQuietly(file);
+            didWork = true;
+        }
+    }
+
+    private void deleteUsingWalk() {
         FileVisitor visitor = new FileVisitor() {
             public void visitDir(FileVisitDetails dirDetails) {
                 maybeDelete(dirDetails, true);
@@ -66,7 +152,7 @@ public class SyncCopySpecVisitor extends DelegatingCopySpecVisitor {
 
             private void maybeDelete(FileVisitDetails fileDetails, boolean isDir) {
                 RelativePath path = fileDetails.getRelativePath();
-                if (!visited.contains(path)) {
+                if (!visited.containsKey(path.getPathString())) {
                     if (isDir) {
                         GFileUtils.deleteDirectory(fileDetails.getFile());
                     } else {
@@ -79,9 +165,6 @@ public class SyncCopySpecVisitor extends DelegatingCopySpecVisitor {
 
         DirectoryWalker walker = new DefaultDirectoryWalker(visitor).depthFirst();
         walker.start(baseDestDir);
-        visited.clear();
-
-        getVisitor().endVisit();
     }
 
     @Override
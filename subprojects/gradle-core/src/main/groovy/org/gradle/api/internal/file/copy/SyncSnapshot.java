@@ -0,0 +1,139 @@
+/*
+ * Copyright 2010 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.file.copy;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * The paths which a {@link SyncCopySpecVisitor} left in its destination directory, along with the last modified time
+ * of each directory. A directory whose last modified time has not changed has had no entries added or removed since
+ * the snapshot was taken, so only the directories which have changed need to be listed to find files which were not
+ * written by the sync.
+ */
+public class SyncSnapshot {
+    private static final Logger LOGGER = Logging.getLogger(SyncSnapshot.class);
+    private static final int VERSION = 1;
+    // Directories modified this close to the snapshot may be modified again without a change to their timestamp
+    private static final long TIMESTAMP_RESOLUTION = 2000;
+    private final Set<String> paths;
+    private final Map<String, Long> dirs;
+    private final long timestamp;
+
+    private SyncSnapshot(Set<String> paths, Map<String, Long> dirs, long timestamp) {
+        this.paths = paths;
+        this.dirs = dirs;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Returns the paths in the destination directory, relative to the destination directory.
+     */
+    public Set<String> getPaths() {
+        return paths;
+    }
+
+    /**
+     * Returns the directories which may have had entries added or removed since this snapshot was taken, relative to
+     * the destination directory. The destination directory itself is represented by an empty string.
+     */
+    public List<String> getChangedDirs(File destDir) {
+        List<String> changed = new ArrayList<String>();
+        for (Map.Entry<String, Long> entry : dirs.entrySet()) {
+            long lastModified = entry.getValue();
+            if (lastModified + TIMESTAMP_RESOLUTION >= timestamp
+                    || new File(destDir, entry.getKey()).lastModified() != lastModified) {
+                changed.add(entry.getKey());
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Reads the snapshot of the given destination directory.
+     *
+     * @return The snapshot, or null if there is no snapshot for the given destination directory.
+     */
+    public static SyncSnapshot read(File snapshotFile, File destDir) {
+        if (!snapshotFile.isFile()) {
+            return null;
+        }
+        try {
+            DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(
+                    snapshotFile)));
+            try {
+                if (inputStream.readInt() != VERSION) {
+                    return null;
+                }
+                if (!inputStream.readUTF().equals(destDir.getAbsolutePath())) {
+                    return null;
+                }
+                long timestamp = inputStream.readLong();
+                int count = inputStream.readInt();
+                Set<String> paths = new HashSet<String>();
+                Map<String, Long> dirs = new HashMap<String, Long>();
+                for (int i = 0; i < count; i++) {
+                    String path = inputStream.readUTF();
+                    if (inputStream.readBoolean()) {
+                        dirs.put(path, inputStream.readLong());
+                    }
+                    paths.add(path);
+                }
+                return new SyncSnapshot(paths, dirs, timestamp);
+            } finally {
+                inputStream.close();
+            }
+        } catch (IOException e) {
+            LOGGER.debug(String.format("Could not read sync snapshot %s. Ignoring.", snapshotFile), e);
+            return null;
+        }
+    }
+
+    /**
+     * Takes a snapshot of the given destination directory, and writes it to the given file.
+     *
+     * @param paths The paths in the destination directory. Maps each path to true if it is a directory.
+     */
+    public static void write(File snapshotFile, File destDir, Map<String, Boolean> paths) {
+        long timestamp = System.currentTimeMillis();
+        try {
+            snapshotFile.getParentFile().mkdirs();
+            DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(
+                    snapshotFile)));
+            try {
+                outputStream.writeInt(VERSION);
+                outputStream.writeUTF(destDir.getAbsolutePath());
+                outputStream.writeLong(timestamp);
+                outputStream.writeInt(paths.size());
+                for (Map.Entry<String, Boolean> entry : paths.entrySet()) {
+                    outputStream.writeUTF(entry.getKey());
+                    outputStream.writeBoolean(entry.getValue());
+                    if (entry.getValue()) {
+                        outputStream.writeLong(new File(destDir, entry.getKey()).lastModified());
+                    }
+                }
+            } finally {
+                outputStream.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Could not write sync snapshot %s.", snapshotFile), e);
+        }
+    }
+}
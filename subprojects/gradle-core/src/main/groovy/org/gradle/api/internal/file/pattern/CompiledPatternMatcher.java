@@ -0,0 +1,211 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.file.pattern;
+
+import org.gradle.api.file.RelativePath;
+import org.gradle.api.specs.Spec;
+
+import java.util.*;
+
+/**
+ * Matches a path against a set of include and exclude patterns in a single pass over the segments of the path. The
+ * patterns are compiled into a tree of steps shared by all the patterns, where literal steps are looked up by name
+ * rather than tried one after another, and a '**' step loops on any segment.
+ *
+ * <p>A path is satisfied when it matches some include pattern, or there are no include patterns, and it matches none
+ * of the exclude patterns. The patterns are interpreted in the same way as by {@link PatternMatcherFactory}: a
+ * directory matches an include pattern if it may contain a matching file, and the pattern '**&#47;name' only matches
+ * files.</p>
+ */
+public class CompiledPatternMatcher implements Spec<RelativePath> {
+    private static final int INCLUDE = 1;
+    private static final int INCLUDE_FILES = 2;
+    private static final int EXCLUDE = 4;
+    private static final int EXCLUDE_FILES = 8;
+    private final boolean caseSensitive;
+    private final boolean hasIncludes;
+    private int nodeCount;
+    private final Node root;
+
+    public CompiledPatternMatcher(boolean caseSensitive, Collection<String> includes, Collection<String> excludes) {
+        this.caseSensitive = caseSensitive;
+        hasIncludes = !includes.isEmpty();
+        root = new Node();
+        for (String include : includes) {
+            add(include, true);
+        }
+        for (String exclude : excludes) {
+            add(exclude, false);
+        }
+    }
+
+    private void add(String pattern, boolean include) {
+        // trailing / or \ assumes **
+        if (pattern.endsWith("/") || pattern.endsWith("\\")) {
+            pattern = pattern + "**";
+        }
+        String[] parts = pattern.length() == 0 ? new String[0] : pattern.split("\\\\|/");
+        boolean filesOnly = parts.length == 2 && parts[0].equals("**") && !parts[1].equals("**");
+
+        Node node = root;
+        node.includeLive |= include;
+        for (String part : parts) {
+            node = node.child(part);
+            node.includeLive |= include;
+        }
+        if (include) {
+            node.accept |= filesOnly ? INCLUDE_FILES : INCLUDE;
+        } else {
+            node.accept |= filesOnly ? EXCLUDE_FILES : EXCLUDE;
+        }
+    }
+
+    public boolean isSatisfiedBy(RelativePath path) {
+        String[] segments = path.getSegments();
+        boolean isFile = path.isFile();
+
+        BitSet seen = new BitSet(nodeCount);
+        List<Node> current = new ArrayList<Node>();
+        root.addTo(current, seen);
+        for (int i = 0; i < segments.length && !current.isEmpty(); i++) {
+            String segment = segments[i];
+            boolean fileSegment = isFile && i == segments.length - 1;
+            String key = caseSensitive ? segment : foldCase(segment);
+            List<Node> next = new ArrayList<Node>();
+            seen.clear();
+            for (int j = 0; j < current.size(); j++) {
+                current.get(j).step(segment, key, fileSegment, next, seen);
+            }
+            current = next;
+        }
+
+        int accept = 0;
+        boolean includeLive = false;
+        for (int i = 0; i < current.size(); i++) {
+            Node node = current.get(i);
+            accept |= node.accept;
+            includeLive |= node.includeLive;
+        }
+
+        boolean included = !hasIncludes || (accept & INCLUDE) != 0 || (isFile && (accept & INCLUDE_FILES) != 0)
+                || (!isFile && includeLive);
+        boolean excluded = (accept & EXCLUDE) != 0 || (isFile && (accept & EXCLUDE_FILES) != 0);
+        return included && !excluded;
+    }
+
+    private static boolean isLiteral(String part) {
+        return part.indexOf('*') < 0 && part.indexOf('?') < 0;
+    }
+
+    /**
+     * Folds ASCII characters only, which is how the regular expressions of a case insensitive {@link
+     * RegExpPatternStep} compare characters.
+     */
+    private static String foldCase(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch >= 'A' && ch <= 'Z') {
+                char[] chars = value.toCharArray();
+                for (int j = i; j < chars.length; j++) {
+                    if (chars[j] >= 'A' && chars[j] <= 'Z') {
+                        chars[j] = (char) (chars[j] + ('a' - 'A'));
+                    }
+                }
+                return new String(chars);
+            }
+        }
+        return value;
+    }
+
+    private class Node {
+        private final int id = nodeCount++;
+        private Map<String, Node> literals;
+        private List<String> wildcardSources;
+        private List<PatternStep> wildcards;
+        private List<Node> wildcardTargets;
+        private Node greedy;
+        private boolean loops;
+        private boolean includeLive;
+        private int accept;
+
+        Node child(String part) {
+            if (part.equals("**")) {
+                if (greedy == null) {
+                    greedy = new Node();
+                    greedy.loops = true;
+                }
+                return greedy;
+            }
+            if (isLiteral(part)) {
+                if (literals == null) {
+                    literals = new HashMap<String, Node>();
+                }
+                String key = caseSensitive ? part : foldCase(part);
+                Node child = literals.get(key);
+                if (child == null) {
+                    child = new Node();
+                    literals.put(key, child);
+                }
+                return child;
+            }
+            if (wildcards == null) {
+                wildcardSources = new ArrayList<String>();
+                wildcards = new ArrayList<PatternStep>();
+                wildcardTargets = new ArrayList<Node>();
+            }
+            int index = wildcardSources.indexOf(part);
+            if (index >= 0) {
+                return wildcardTargets.get(index);
+            }
+            Node child = new Node();
+            wildcardSources.add(part);
+            wildcards.add(PatternStepFactory.getStep(part, false, caseSensitive));
+            wildcardTargets.add(child);
+            return child;
+        }
+
+        /**
+         * Adds this node to the given states, along with the '**' steps which follow it, as these match zero segments.
+         */
+        void addTo(List<Node> states, BitSet seen) {
+            for (Node node = this; node != null; node = node.greedy) {
+                if (!seen.get(node.id)) {
+                    seen.set(node.id);
+                    states.add(node);
+                }
+            }
+        }
+
+        void step(String segment, String key, boolean isFile, List<Node> next, BitSet seen) {
+            if (loops) {
+                addTo(next, seen);
+            }
+            if (literals != null) {
+                Node child = literals.get(key);
+                if (child != null) {
+                    child.addTo(next, seen);
+                }
+            }
+            if (wildcards != null) {
+                for (int i = 0; i < wildcards.size(); i++) {
+                    if (wildcards.get(i).matches(segment, isFile)) {
+                        wildcardTargets.get(i).addTo(next, seen);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -176,9 +176,9 @@ public abstract class AbstractProject implements ProjectInternal {
             depth = parent.getDepth() + 1;
         }
 
-        fileResolver = new BaseDirConverter(getProjectDir());
-
         services = serviceRegistryFactory.createFor(this);
+        fileResolver = new BaseDirConverter(getProjectDir(), gradle.getStartParameter().isSnapshotDirectories()
+                ? services.get(DirectorySnapshotCache.class) : null);
         antBuilderFactory = services.get(AntBuilderFactory.class);
         taskContainer = services.get(TaskContainerInternal.class);
         repositoryHandlerFactory = services.get(RepositoryHandlerFactory.class);
@@ -34,7 +34,13 @@ import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.dependencies
 import org.gradle.api.internal.changedetection.CachingHasher;
 import org.gradle.api.internal.changedetection.DefaultHasher;
 import org.gradle.api.internal.changedetection.DefaultTaskArtifactStateRepository;
+import org.gradle.api.internal.changedetection.LocalTaskOutputCache;
+import org.gradle.api.internal.changedetection.ParallelHasher;
+import org.gradle.api.internal.changedetection.TaskArtifactStateListener;
 import org.gradle.api.internal.changedetection.TaskArtifactStateRepository;
+import org.gradle.api.internal.changedetection.TaskOutputCache;
+import org.gradle.api.internal.changedetection.TimingHasher;
+import org.gradle.api.internal.file.DirectorySnapshotCache;
 import org.gradle.api.internal.tasks.DefaultTaskExecuter;
 import org.gradle.api.internal.tasks.TaskExecuter;
 import org.gradle.api.internal.tasks.SkipTaskExecuter;
@@ -49,6 +55,7 @@ import org.gradle.listener.ListenerManager;
 import org.gradle.listener.DefaultListenerManager;
 import org.gradle.util.WrapUtil;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -60,10 +67,16 @@ public class DefaultServiceRegistryFactory extends AbstractServiceRegistry imple
         this(startParameter, new DefaultListenerManager());
     }
 
-    public DefaultServiceRegistryFactory(final StartParameter startParameter, ListenerManager listenerManager) {
+    public DefaultServiceRegistryFactory(StartParameter startParameter, ListenerManager listenerManager) {
+        this(startParameter, listenerManager, new ScriptClassCache());
+    }
+
+    public DefaultServiceRegistryFactory(final StartParameter startParameter, ListenerManager listenerManager,
+                                         ScriptClassCache scriptClassCache) {
         final Map<String, ModuleDescriptor> clientModuleRegistry = new HashMap<String, ModuleDescriptor>();
 
         add(ListenerManager.class, listenerManager);
+        add(ScriptClassCache.class, scriptClassCache);
         add(ImportsReader.class, new ImportsReader(startParameter.getDefaultImportsFile()));
         add(ClassGenerator.class, new AsmBackedClassGenerator());
         add(StandardOutputRedirector.class, new DefaultStandardOutputRedirector());
@@ -76,7 +89,17 @@ public class DefaultServiceRegistryFactory extends AbstractServiceRegistry imple
                                 new DefaultTaskExecuter(
                                         get(ListenerManager.class).getBroadcaster(TaskActionListener.class)),
                                 get(TaskArtifactStateRepository.class),
-                                startParameter));
+                                startParameter,
+                                startParameter.isOutputCacheEnabled() ? get(TaskOutputCache.class) : null,
+                                get(ListenerManager.class).getBroadcaster(TaskArtifactStateListener.class),
+                                get(TimingHasher.class)));
+            }
+        });
+
+        add(new Service(TaskOutputCache.class) {
+            protected Object create() {
+                return new LocalTaskOutputCache(get(CacheRepository.class).getGlobalCache("taskOutputs",
+                        Collections.EMPTY_MAP).getBaseDir());
             }
         });
 
@@ -88,8 +111,16 @@ public class DefaultServiceRegistryFactory extends AbstractServiceRegistry imple
 
         add(new Service(CacheRepository.class) {
             protected Object create() {
-                return new DefaultCacheRepository(startParameter.getGradleUserHomeDir(),
-                        startParameter.getCacheUsage());
+                DefaultCacheRepository repository = new DefaultCacheRepository(
+                        startParameter.getGradleUserHomeDir(), startParameter.getCacheUsage());
+                get(ListenerManager.class).addListener(repository);
+                return repository;
+            }
+        });
+
+        add(new Service(DirectorySnapshotCache.class) {
+            protected Object create() {
+                return new DirectorySnapshotCache(get(CacheRepository.class));
             }
         });
 
@@ -232,9 +263,18 @@ public class DefaultServiceRegistryFactory extends AbstractServiceRegistry imple
             protected Object create() {
                 return new DefaultTaskArtifactStateRepository(
                         get(CacheRepository.class),
+                        get(TimingHasher.class));
+            }
+        });
+
+        add(new Service(TimingHasher.class) {
+            protected Object create() {
+                ParallelHasher parallelHasher = new ParallelHasher(
                         new CachingHasher(
                                 new DefaultHasher(),
                                 get(CacheRepository.class)));
+                get(ListenerManager.class).addListener(parallelHasher);
+                return new TimingHasher(parallelHasher);
             }
         });
 
@@ -242,7 +282,7 @@ public class DefaultServiceRegistryFactory extends AbstractServiceRegistry imple
             protected Object create() {
                 return new DefaultScriptCompilerFactory(new DefaultScriptCompilationHandler(),
                         startParameter.getCacheUsage(), new DefaultScriptRunnerFactory(new DefaultScriptMetaData()),
-                        get(CacheRepository.class));
+                        get(CacheRepository.class), get(ScriptClassCache.class));
             }
         });
     }
@@ -18,7 +18,10 @@ package org.gradle.api.internal.project;
 import org.gradle.api.execution.TaskExecutionResult;
 import org.gradle.api.internal.TaskInternal;
 import org.gradle.api.internal.changedetection.TaskArtifactState;
+import org.gradle.api.internal.changedetection.TaskArtifactStateListener;
 import org.gradle.api.internal.changedetection.TaskArtifactStateRepository;
+import org.gradle.api.internal.changedetection.TaskOutputCache;
+import org.gradle.api.internal.changedetection.TimingHasher;
 import org.gradle.api.internal.tasks.TaskExecuter;
 import org.gradle.api.internal.tasks.TaskState;
 import org.gradle.StartParameter;
@@ -30,6 +33,9 @@ public class ExecutionShortCircuitTaskExecuter implements TaskExecuter {
     private final TaskExecuter executer;
     private final TaskArtifactStateRepository repository;
     private final StartParameter startParameter;
+    private final TaskOutputCache outputCache;
+    private final TaskArtifactStateListener listener;
+    private final TimingHasher hasher;
     private static final TaskExecutionResult UP_TO_DATE_RESULT = new TaskExecutionResult() {
         public Throwable getFailure() {
             return null;
@@ -42,27 +48,93 @@ public class ExecutionShortCircuitTaskExecuter implements TaskExecuter {
             return "UP-TO-DATE";
         }
     };
+    private static final TaskExecutionResult FROM_CACHE_RESULT = new TaskExecutionResult() {
+        public Throwable getFailure() {
+            return null;
+        }
+
+        public void rethrowFailure() {
+        }
+
+        public String getSkipMessage() {
+            return "FROM-CACHE";
+        }
+    };
 
     public ExecutionShortCircuitTaskExecuter(TaskExecuter executer, TaskArtifactStateRepository repository,
                                              StartParameter startParameter) {
+        this(executer, repository, startParameter, null);
+    }
+
+    /**
+     * Creates an executer which restores the outputs of a task from the given output cache, when they are available,
+     * instead of executing the task. The output cache may be null.
+     */
+    public ExecutionShortCircuitTaskExecuter(TaskExecuter executer, TaskArtifactStateRepository repository,
+                                             StartParameter startParameter, TaskOutputCache outputCache) {
+        this(executer, repository, startParameter, outputCache, null, null);
+    }
+
+    /**
+     * Creates an executer which notifies the given listener how the up-to-date state of each task was determined.
+     * The time spent hashing files is measured using the given hasher. The listener and hasher may be null.
+     */
+    public ExecutionShortCircuitTaskExecuter(TaskExecuter executer, TaskArtifactStateRepository repository,
+                                             StartParameter startParameter, TaskOutputCache outputCache,
+                                             TaskArtifactStateListener listener, TimingHasher hasher) {
         this.executer = executer;
         this.repository = repository;
         this.startParameter = startParameter;
+        this.outputCache = outputCache;
+        this.listener = listener;
+        this.hasher = hasher;
     }
 
     public TaskExecutionResult execute(TaskInternal task, TaskState state) {
+        long hashingTime = hasher == null ? 0 : hasher.getHashingTime();
+        try {
+            return doExecute(task, state);
+        } finally {
+            if (listener != null && hasher != null) {
+                listener.filesHashed(task, hasher.getHashingTime() - hashingTime);
+            }
+        }
+    }
+
+    private TaskExecutionResult doExecute(TaskInternal task, TaskState state) {
         LOGGER.debug("Determining if {} is up-to-date", task);
+        long start = System.currentTimeMillis();
         TaskArtifactState taskArtifactState = repository.getStateFor(task);
-        if (!startParameter.isNoOpt() && taskArtifactState.isUpToDate()) {
+        boolean upToDate = !startParameter.isNoOpt() && taskArtifactState.isUpToDate();
+        if (listener != null) {
+            listener.upToDateChecked(task, upToDate, System.currentTimeMillis() - start);
+        }
+        if (upToDate) {
             LOGGER.debug("{} is up-to-date", task);
             return UP_TO_DATE_RESULT;
         }
         LOGGER.debug("{} is not up-to-date", task);
 
+        String cacheKey = outputCache == null ? null : taskArtifactState.getCacheKey();
         taskArtifactState.invalidate();
+        if (cacheKey != null && !startParameter.isNoOpt()) {
+            boolean restored = outputCache.restore(cacheKey, task.getOutputs().getFiles().getFiles());
+            if (listener != null) {
+                listener.outputCacheChecked(task, restored);
+            }
+            if (restored) {
+                LOGGER.debug("Restored outputs of {} from the output cache", task);
+                taskArtifactState.update();
+                return FROM_CACHE_RESULT;
+            }
+        }
+
         TaskExecutionResult executionResult = executer.execute(task, state);
         if (executionResult.getFailure() == null) {
             taskArtifactState.update();
+            if (cacheKey != null) {
+                outputCache.store(cacheKey, task.getOutputs().getFiles().getFiles());
+            }
         }
         return executionResult;
     }
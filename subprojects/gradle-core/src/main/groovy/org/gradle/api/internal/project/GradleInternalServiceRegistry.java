@@ -74,7 +74,8 @@ public class GradleInternalServiceRegistry extends AbstractServiceRegistry imple
         add(new Service(TaskGraphExecuter.class) {
             @Override
             protected Object create() {
-                return new DefaultTaskGraphExecuter(get(ListenerManager.class));
+                return new DefaultTaskGraphExecuter(get(ListenerManager.class),
+                        gradle.getStartParameter().getParallelThreadCount());
             }
         });
 
@@ -38,4 +38,18 @@ class ImportsReader {
         (projectImportsFiles && projectImportsFiles.isFile() ? projectImportsFiles.text : '')
         importsText
     }
+
+    /**
+     * Returns the files which {@link #getImports(File)} reads for the given root directory.
+     */
+    List<File> getImportsFiles(File rootDir) {
+        List<File> files = []
+        if (defaultImportsFile) {
+            files << defaultImportsFile
+        }
+        if (rootDir) {
+            files << new File(rootDir, StartParameter.IMPORTS_FILE_NAME)
+        }
+        files
+    }
 }
@@ -17,6 +17,8 @@ package org.gradle.api.logging;
 
 import org.gradle.api.InvalidUserDataException;
 
+import java.io.PrintStream;
+
 /**
  * @author Hans Dockter
  */
@@ -25,7 +27,15 @@ public class DefaultStandardOutputCapture implements StandardOutputCapture {
 
     private LogLevel level;
 
-    private StandardOutputState globalState;
+    private boolean started;
+
+    private PrintStream previousOut;
+
+    private PrintStream previousErr;
+
+    private LogLevel previousOutLevel;
+
+    private LogLevel previousErrLevel;
 
     /**
      * Creates and instance with enabled set to false and LogLevel set to null.
@@ -47,7 +57,11 @@ public class DefaultStandardOutputCapture implements StandardOutputCapture {
      * @see StandardOutputCapture#start()
      */
     public DefaultStandardOutputCapture start() {
-        globalState = StandardOutputLogging.getStateSnapshot();
+        previousOut = StandardOutputLogging.getOut();
+        previousErr = StandardOutputLogging.getErr();
+        previousOutLevel = StandardOutputLogging.getOutAdapter().getLevel();
+        previousErrLevel = StandardOutputLogging.getErrAdapter().getLevel();
+        started = true;
         if (enabled) {
             StandardOutputLogging.on(level);
         } else {
@@ -61,10 +75,22 @@ public class DefaultStandardOutputCapture implements StandardOutputCapture {
      */
     public DefaultStandardOutputCapture stop() {
         StandardOutputLogging.flush();
-        StandardOutputLogging.restoreState(globalState);
+        StandardOutputLogging.getOutAdapter().setLevel(previousOutLevel);
+        StandardOutputLogging.getErrAdapter().setLevel(previousErrLevel);
+        StandardOutputLogging.redirect(previousOut, previousErr);
+        previousOut = null;
+        previousErr = null;
+        started = false;
         return this;
     }
 
+    /**
+     * Returns true if this capture has been started and not yet stopped.
+     */
+    public boolean isStarted() {
+        return started;
+    }
+
     /**
      * @see org.gradle.api.logging.StandardOutputCapture#isEnabled() ()
      */
@@ -103,7 +129,6 @@ public class DefaultStandardOutputCapture implements StandardOutputCapture {
         int result;
         result = (enabled ? 1 : 0);
         result = 31 * result + (level != null ? level.hashCode() : 0);
-        result = 31 * result + (globalState != null ? globalState.hashCode() : 0);
         return result;
     }
 }
@@ -16,10 +16,18 @@
 package org.gradle.api.logging;
 
 import org.gradle.logging.StandardOutputLoggingAdapter;
+import org.gradle.logging.ThreadLocalPrintStream;
 
 import java.io.PrintStream;
 
 /**
+ * Redirects System.out and System.err to the Gradle logging. The redirection applies to the current thread and to the
+ * threads it starts while redirected: System.out and System.err are replaced with streams which forward to the stream
+ * chosen by the current thread, so that each thread can redirect its output independently of the others. Once
+ * installed, these streams stay installed when a thread switches its redirection off, as other threads may still be
+ * redirected. Only {@link #reset()} sets System.out and System.err back to the values they had before Gradle has been
+ * started.
+ *
  * @author Hans Dockter
  */
 public class StandardOutputLogging {
@@ -67,6 +75,9 @@ public class StandardOutputLogging {
     public static final PrintStream DEFAULT_OUT = System.out;
     public static final PrintStream DEFAULT_ERR = System.err;
 
+    private static final ThreadLocalPrintStream OUT = new ThreadLocalPrintStream(DEFAULT_OUT);
+    private static final ThreadLocalPrintStream ERR = new ThreadLocalPrintStream(DEFAULT_ERR);
+
     /**
      * Redirects the standard out to the Gradle logging.  The System.out is redirected to specified level.
      * System.err is always redirected to the ERROR level.
@@ -86,7 +97,7 @@ public class StandardOutputLogging {
      */
     public static void onOut(LogLevel outLogLevel) {
         getOutAdapter().setLevel(outLogLevel);
-        System.setOut(OUT_LOGGING_STREAM.get());
+        redirect(OUT_LOGGING_STREAM.get(), getErr());
     }
 
     /**
@@ -96,7 +107,7 @@ public class StandardOutputLogging {
      */
     public static void onErr(LogLevel errLogLevel) {
         getErrAdapter().setLevel(errLogLevel);
-        System.setErr(ERR_LOGGING_STREAM.get());
+        redirect(getOut(), ERR_LOGGING_STREAM.get());
     }
 
     public static void flush() {
@@ -105,42 +116,80 @@ public class StandardOutputLogging {
     }
 
     /**
-     * Sets System.err and System.out to the values they had before Gradle has been started.
+     * Sets System.err and System.out to the values they had before Gradle has been started, for the current thread.
      */
     public static void off() {
         redirect(DEFAULT_OUT, DEFAULT_ERR);
     }
 
     /**
-     * Sets System.out to the values it had before Gradle has been started.
+     * Sets System.out to the value it had before Gradle has been started, for the current thread.
      */
     public static void offOut() {
-        System.setOut(DEFAULT_OUT);
+        redirect(DEFAULT_OUT, getErr());
     }
 
     /**
-     * Sets System.err to the values it had before Gradle has been started.
+     * Sets System.err to the value it had before Gradle has been started, for the current thread.
      */
     public static void offErr() {
-        System.setErr(DEFAULT_ERR);
+        redirect(getOut(), DEFAULT_ERR);
+    }
+
+    /**
+     * Returns true if System.out is redirected to the given level and System.err is redirected to the ERROR level for
+     * the current thread.
+     */
+    public static boolean isOn(LogLevel outLogLevel) {
+        return getOut() == OUT_LOGGING_STREAM.get() && getOutAdapter().getLevel() == outLogLevel
+                && getErr() == ERR_LOGGING_STREAM.get() && getErrAdapter().getLevel() == LogLevel.ERROR;
+    }
+
+    /**
+     * Returns the stream which System.out writes to for the current thread.
+     */
+    public static PrintStream getOut() {
+        return OUT.getTarget();
     }
 
     /**
-     * Returns the current values for System.out and Sytem.err.
+     * Returns the stream which System.err writes to for the current thread.
+     */
+    public static PrintStream getErr() {
+        return ERR.getTarget();
+    }
+
+    /**
+     * Returns the current values for System.out and Sytem.err for the current thread.
      */
     public static StandardOutputState getStateSnapshot() {
-        return new StandardOutputState(System.out, System.err);
+        return new StandardOutputState(getOut(), getErr());
     }
 
     /**
-     * Sets the values for System.out and Sytem.err.
+     * Sets the values for System.out and Sytem.err for the current thread.
      */
     public static void restoreState(StandardOutputState state) {
         redirect(state.getOutStream(), state.getErrStream());
     }
 
-    private static void redirect(PrintStream outStream, PrintStream errStream) {
-        System.setOut(outStream);
-        System.setErr(errStream);
+    /**
+     * Switches the redirection off for the current thread and sets System.out and System.err back to the values they
+     * had before Gradle has been started, for all threads. Should only be used when no other thread is redirected, for
+     * example at the end of a build.
+     */
+    public static void reset() {
+        off();
+        System.setOut(DEFAULT_OUT);
+        System.setErr(DEFAULT_ERR);
+    }
+
+    static void redirect(PrintStream outStream, PrintStream errStream) {
+        OUT.setTarget(outStream);
+        ERR.setTarget(errStream);
+        if (outStream != DEFAULT_OUT || errStream != DEFAULT_ERR) {
+            System.setOut(OUT);
+            System.setErr(ERR);
+        }
     }
 }
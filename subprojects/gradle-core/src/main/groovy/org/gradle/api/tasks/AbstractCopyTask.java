@@ -281,6 +281,21 @@ public abstract class AbstractCopyTask extends ConventionTask implements CopyAct
         return this;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public String getFilteringCharset() {
+        return getRootSpec().getFilteringCharset();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public AbstractCopyTask setFilteringCharset(String charset) {
+        getRootSpec().setFilteringCharset(charset);
+        return this;
+    }
+
     /**
      * {@inheritDoc}
      */
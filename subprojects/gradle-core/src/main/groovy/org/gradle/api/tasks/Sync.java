@@ -19,9 +19,12 @@ import org.gradle.api.internal.file.FileResolver;
 import org.gradle.api.internal.file.copy.CopyActionImpl;
 import org.gradle.api.internal.file.copy.FileCopyActionImpl;
 import org.gradle.api.internal.file.copy.FileCopySpecVisitor;
+import org.gradle.api.internal.file.copy.SyncCopyAction;
 import org.gradle.api.internal.file.copy.SyncCopySpecVisitor;
 import org.gradle.api.internal.project.ProjectInternal;
 
+import java.io.File;
+
 /**
  * Task for synchronizing the contents of a directory.
  */
@@ -30,11 +33,21 @@ public class Sync extends AbstractCopyTask {
 
     public Sync() {
         FileResolver fileResolver = ((ProjectInternal) getProject()).getFileResolver();
-        action = new FileCopyActionImpl(fileResolver, new SyncCopySpecVisitor(new FileCopySpecVisitor()));
+        action = new SyncCopyActionImpl(fileResolver);
     }
 
     @Override
     protected CopyActionImpl getCopyAction() {
         return action;
     }
+
+    private class SyncCopyActionImpl extends FileCopyActionImpl implements SyncCopyAction {
+        public SyncCopyActionImpl(FileResolver fileResolver) {
+            super(fileResolver, new SyncCopySpecVisitor(new FileCopySpecVisitor()));
+        }
+
+        public File getSnapshotFile() {
+            return new File(getProject().getBuildDir(), String.format("tmp/%s/sync.snapshot", Sync.this.getName()));
+        }
+    }
 }
@@ -16,8 +16,8 @@
 package org.gradle.api.tasks.bundling;
 
 import org.gradle.api.internal.file.*;
+import org.gradle.api.internal.file.archive.ZipCopyAction;
 import org.gradle.api.internal.file.archive.ZipCopySpecVisitor;
-import org.gradle.api.internal.file.copy.ArchiveCopyAction;
 import org.gradle.api.internal.file.copy.CopyActionImpl;
 import org.gradle.api.internal.project.ProjectInternal;
 
@@ -29,23 +29,51 @@ import java.io.File;
 public class Zip extends AbstractArchiveTask {
     public static final String ZIP_EXTENSION = "zip";
     private final CopyActionImpl action;
+    private boolean incremental;
 
     public Zip() {
         setExtension(ZIP_EXTENSION);
-        action = new ZipCopyAction(((ProjectInternal) getProject()).getFileResolver());
+        action = new ZipCopyActionImpl(((ProjectInternal) getProject()).getFileResolver());
     }
 
     protected CopyActionImpl getCopyAction() {
         return action;
     }
 
-    private class ZipCopyAction extends CopyActionImpl implements ArchiveCopyAction {
-        public ZipCopyAction(FileResolver fileResolver) {
+    /**
+     * Returns true if this archive is updated incrementally. When true, the compressed content of each source file
+     * which has not changed since the archive was last created is copied from the previous archive, rather than being
+     * compressed again. Defaults to false.
+     *
+     * @return true if this archive is updated incrementally.
+     */
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * Specifies whether this archive should be updated incrementally.
+     *
+     * @param incremental true if this archive should be updated incrementally.
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    private class ZipCopyActionImpl extends CopyActionImpl implements ZipCopyAction {
+        public ZipCopyActionImpl(FileResolver fileResolver) {
             super(fileResolver, new ZipCopySpecVisitor());
         }
 
         public File getArchivePath() {
             return Zip.this.getArchivePath();
         }
+
+        public File getIndexFile() {
+            if (!Zip.this.isIncremental()) {
+                return null;
+            }
+            return new File(getProject().getBuildDir(), String.format("tmp/%s/archive.index", Zip.this.getName()));
+        }
     }
 }
@@ -21,7 +21,7 @@ import org.gradle.util.GUtil
 
 import org.gradle.api.specs.Spec
 import org.gradle.api.specs.Specs
-import org.gradle.api.internal.file.pattern.PatternMatcherFactory
+import org.gradle.api.internal.file.pattern.CompiledPatternMatcher
 import org.gradle.api.specs.AndSpec
 import org.gradle.api.specs.NotSpec
 import org.gradle.api.specs.OrSpec
@@ -88,36 +88,45 @@ class PatternSet implements AntBuilderAware, PatternFilterable {
     }
     
     public Spec<FileTreeElement> getAsSpec() {
-        Spec<FileTreeElement> includeSpec = Specs.satisfyAll()
-
+        Collection<String> allIncludes = includes.collect { it.toString() }
+        Collection<String> allExcludes = (excludes + GLOBAL_EXCLUDES).collect { it.toString() }
         boolean hasIncludes = includes || includeSpecs
+        boolean hasExcludes = allExcludes || excludeSpecs
+
+        if (!includeSpecs && !excludeSpecs) {
+            if (!hasIncludes && !hasExcludes) {
+                return Specs.satisfyAll()
+            }
+            // All the patterns are matched in a single pass
+            return new RelativePathSpec(new CompiledPatternMatcher(caseSensitive, allIncludes, allExcludes))
+        }
+
+        Spec<FileTreeElement> includeSpec = Specs.satisfyAll()
         if (hasIncludes) {
             List<Spec<FileTreeElement>> matchers = new ArrayList<Spec<FileTreeElement>>()
-            for (String include: includes) {
-                matchers.add(new RelativePathSpec(PatternMatcherFactory.getPatternMatcher(true, caseSensitive, include)))
+            if (includes) {
+                matchers.add(new RelativePathSpec(new CompiledPatternMatcher(caseSensitive, allIncludes, [])))
             }
             matchers.addAll(includeSpecs)
             includeSpec = new OrSpec<FileTreeElement>(matchers as Spec[])
         }
 
-        Collection<String> allExcludes = excludes + GLOBAL_EXCLUDES
-        boolean hasExcludes = allExcludes || excludeSpecs
         if (!hasExcludes) {
             return includeSpec
         }
 
         List<Spec<FileTreeElement>> matchers = new ArrayList<Spec<FileTreeElement>>()
-        for (String exclude: allExcludes) {
-            matchers.add(new RelativePathSpec(PatternMatcherFactory.getPatternMatcher(false, caseSensitive, exclude)))
+        if (hasIncludes) {
+            matchers.add(includeSpec)
         }
-        matchers.addAll(excludeSpecs)
-        Spec<FileTreeElement> excludeSpec = new NotSpec<FileTreeElement>(new OrSpec<FileTreeElement>(matchers as Spec[]))
-
-        if (!hasIncludes) {
-            return excludeSpec
+        if (allExcludes) {
+            // Satisfied by those elements which match none of the exclude patterns
+            matchers.add(new RelativePathSpec(new CompiledPatternMatcher(caseSensitive, [], allExcludes)))
         }
-
-        return new AndSpec<FileTreeElement>([includeSpec, excludeSpec] as Spec[])
+        if (excludeSpecs) {
+            matchers.add(new NotSpec<FileTreeElement>(new OrSpec<FileTreeElement>(excludeSpecs as Spec[])))
+        }
+        return matchers.size() == 1 ? matchers[0] : new AndSpec<FileTreeElement>(matchers as Spec[])
     }
 
     public Set<String> getIncludes() {
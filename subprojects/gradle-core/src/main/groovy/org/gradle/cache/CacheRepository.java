@@ -48,6 +48,20 @@ public interface CacheRepository {
      */
     <K, V> PersistentIndexedCache<K, V> getIndexedGlobalCache(String key, Map<String, ?> properties, Serializer<V> serializer);
 
+    /**
+     * Returns the indexed cache with the given key shared by all builds, optionally accessing the cache file through
+     * a memory mapped buffer. Memory mapping is useful for large caches which are read frequently.
+     *
+     * @param key the cache key. Uniquely identifies the cache
+     * @param properties additional properties for the cache. The cache is treated as invalid if any of the properties
+     * do not match the properties used to create the cache.
+     * @param serializer the serializer to use for the values of the cache.
+     * @param memoryMapped true to memory map the cache file.
+     * @return The cache.
+     */
+    <K, V> PersistentIndexedCache<K, V> getIndexedGlobalCache(String key, Map<String, ?> properties,
+                                                              Serializer<V> serializer, boolean memoryMapped);
+
     /**
      * Returns the cache with the given key private to the current build.
      *
@@ -69,4 +83,17 @@ public interface CacheRepository {
      * @return The cache.
      */
     <K, V> PersistentIndexedCache<K, V> getIndexedCacheFor(Object target, String key, Map<String, ?> properties);
+
+    /**
+     * Returns the indexed cache with the given key private to the current build.
+     *
+     * @param target The target domain object which the cache is for. This might be a task, project, or similar.
+     * @param key the cache key. Uniquely identifies the cache
+     * @param properties additional properties for the cache. The cache is treated as invalid if any of the properties
+     * do not match the properties used to create the cache.
+     * @param serializer the serializer to use for the values of the cache.
+     * @return The cache.
+     */
+    <K, V> PersistentIndexedCache<K, V> getIndexedCacheFor(Object target, String key, Map<String, ?> properties,
+                                                           Serializer<V> serializer);
 }
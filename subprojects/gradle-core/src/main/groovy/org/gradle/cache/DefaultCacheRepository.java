@@ -15,6 +15,8 @@
  */
 package org.gradle.cache;
 
+import org.gradle.BuildAdapter;
+import org.gradle.BuildResult;
 import org.gradle.CacheUsage;
 import org.gradle.api.Project;
 import org.gradle.api.invocation.Gradle;
@@ -22,18 +24,50 @@ import org.gradle.cache.btree.BTreePersistentIndexedCache;
 import org.gradle.util.GradleVersion;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
-public class DefaultCacheRepository implements CacheRepository {
+/**
+ * The default {@link CacheRepository}. Indexed caches batch their writes in memory, and are flushed when the build
+ * finishes.
+ */
+public class DefaultCacheRepository extends BuildAdapter implements CacheRepository {
+    public static final int DEFAULT_MAX_DIRTY_BLOCKS = 1000;
     private final GradleVersion version = new GradleVersion();
     private final File globalCacheDir;
     private final File userHomeDir;
     private final CacheUsage cacheUsage;
+    private final int maxDirtyBlocks;
+    private final List<BTreePersistentIndexedCache<?, ?>> indexedCaches = new ArrayList<BTreePersistentIndexedCache<?, ?>>();
 
     public DefaultCacheRepository(File userHomeDir, CacheUsage cacheUsage) {
+        this(userHomeDir, cacheUsage, DEFAULT_MAX_DIRTY_BLOCKS);
+    }
+
+    public DefaultCacheRepository(File userHomeDir, CacheUsage cacheUsage, int maxDirtyBlocks) {
         this.userHomeDir = userHomeDir;
         this.globalCacheDir = new File(this.userHomeDir, String.format("caches/%s", version.getVersion()));
         this.cacheUsage = cacheUsage;
+        this.maxDirtyBlocks = maxDirtyBlocks;
+    }
+
+    @Override
+    public void buildFinished(BuildResult result) {
+        flush();
+    }
+
+    /**
+     * Writes the pending changes of all indexed caches created by this repository.
+     */
+    public void flush() {
+        List<BTreePersistentIndexedCache<?, ?>> caches;
+        synchronized (indexedCaches) {
+            caches = new ArrayList<BTreePersistentIndexedCache<?, ?>>(indexedCaches);
+        }
+        for (BTreePersistentIndexedCache<?, ?> cache : caches) {
+            cache.flush();
+        }
     }
 
     public PersistentCache getCacheFor(Object target, String key, Map<String, ?> properties) {
@@ -47,7 +81,12 @@ public class DefaultCacheRepository implements CacheRepository {
     }
 
     public <K, V> PersistentIndexedCache<K, V> getIndexedCacheFor(Object target, String key, Map<String, ?> properties) {
-        return indexedCache(getCacheFor(target, key, properties), new DefaultSerializer<V>());
+        return getIndexedCacheFor(target, key, properties, new DefaultSerializer<V>());
+    }
+
+    public <K, V> PersistentIndexedCache<K, V> getIndexedCacheFor(Object target, String key, Map<String, ?> properties,
+                                                                  Serializer<V> serializer) {
+        return indexedCache(getCacheFor(target, key, properties), serializer);
     }
 
     public PersistentCache getGlobalCache(String key, Map<String, ?> properties) {
@@ -60,10 +99,25 @@ public class DefaultCacheRepository implements CacheRepository {
 
     public <K, V> PersistentIndexedCache<K, V> getIndexedGlobalCache(String key, Map<String, ?> properties,
                                                                      Serializer<V> serializer) {
-        return indexedCache(getGlobalCache(key, properties), serializer);
+        return getIndexedGlobalCache(key, properties, serializer, false);
+    }
+
+    public <K, V> PersistentIndexedCache<K, V> getIndexedGlobalCache(String key, Map<String, ?> properties,
+                                                                     Serializer<V> serializer, boolean memoryMapped) {
+        return indexedCache(getGlobalCache(key, properties), serializer, memoryMapped);
     }
 
     private <K, V> PersistentIndexedCache<K, V> indexedCache(PersistentCache backingCache, Serializer<V> serializer) {
-        return new BTreePersistentIndexedCache<K,V>(backingCache, serializer);
+        return indexedCache(backingCache, serializer, false);
+    }
+
+    private <K, V> PersistentIndexedCache<K, V> indexedCache(PersistentCache backingCache, Serializer<V> serializer,
+                                                             boolean memoryMapped) {
+        BTreePersistentIndexedCache<K, V> cache = new BTreePersistentIndexedCache<K, V>(backingCache, serializer,
+                (short) 512, 512, maxDirtyBlocks, memoryMapped);
+        synchronized (indexedCaches) {
+            indexedCaches.add(cache);
+        }
+        return cache;
     }
 }
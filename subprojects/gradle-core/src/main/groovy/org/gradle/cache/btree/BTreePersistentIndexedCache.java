@@ -24,12 +24,13 @@ import org.slf4j.LoggerFactory;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 // todo - stream serialised value to file
 // todo - handle hash collisions
 // todo - don't store null links to child blocks in leaf index blocks
 // todo - align block boundaries
-// todo - concurrency control
 // todo - remove the check-sum from each block
 // todo - merge small values into a single data block
 // todo - discard when file corrupt
@@ -44,7 +45,9 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
     private final Serializer<V> serializer;
     private final short maxChildIndexEntries;
     private final int minIndexChildNodes;
+    private final CachingBlockStore cachingStore;
     private final BlockStore store;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
     private HeaderBlock header;
 
     public BTreePersistentIndexedCache(PersistentCache backingCache, Serializer<V> serializer) {
@@ -53,12 +56,34 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
 
     public BTreePersistentIndexedCache(PersistentCache backingCache, Serializer<V> serializer,
                                        short maxChildIndexEntries, int maxFreeListEntries) {
+        this(backingCache, serializer, maxChildIndexEntries, maxFreeListEntries, 0);
+    }
+
+    /**
+     * Creates a cache which holds up to the given number of modified blocks in memory, and writes them to the cache
+     * file when this threshold is exceeded or when {@link #flush()} is called. Use 0 to write each change as it is
+     * made.
+     */
+    public BTreePersistentIndexedCache(PersistentCache backingCache, Serializer<V> serializer,
+                                       short maxChildIndexEntries, int maxFreeListEntries, int maxDirtyBlocks) {
+        this(backingCache, serializer, maxChildIndexEntries, maxFreeListEntries, maxDirtyBlocks, false);
+    }
+
+    /**
+     * Creates a cache which optionally accesses the cache file through a memory mapped buffer. This is useful for
+     * large caches which are read frequently.
+     */
+    public BTreePersistentIndexedCache(PersistentCache backingCache, Serializer<V> serializer,
+                                       short maxChildIndexEntries, int maxFreeListEntries, int maxDirtyBlocks,
+                                       boolean memoryMapped) {
         this.backingCache = backingCache;
         this.serializer = serializer;
         this.maxChildIndexEntries = maxChildIndexEntries;
         this.minIndexChildNodes = maxChildIndexEntries / 2;
         cacheFile = new File(backingCache.getBaseDir(), "cache.bin");
-        BlockStore cachingStore = new CachingBlockStore(new FileBackedBlockStore(cacheFile), IndexBlock.class, FreeListBlockStore.FreeListBlock.class);
+        BlockStore fileStore = memoryMapped ? new MappedFileBlockStore(cacheFile) : new FileBackedBlockStore(cacheFile);
+        cachingStore = new CachingBlockStore(fileStore, maxDirtyBlocks, IndexBlock.class,
+                FreeListBlockStore.FreeListBlock.class);
         store = new FreeListBlockStore(cachingStore, maxFreeListEntries);
         try {
             open();
@@ -110,6 +135,7 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
     }
 
     public V get(K key) {
+        lock.readLock().lock();
         try {
             try {
                 DataBlock block = header.getRoot().get(key);
@@ -118,15 +144,27 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
                 }
                 return null;
             } catch (CorruptedCacheException e) {
-                rebuild();
-                return null;
+                // rebuild below, as the read lock cannot be upgraded
             }
         } catch (Exception e) {
             throw new UncheckedIOException(String.format("Could not read entry '%s' from %s.", key, this), e);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        lock.writeLock().lock();
+        try {
+            rebuild();
+            return null;
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not read entry '%s' from %s.", key, this), e);
+        } finally {
+            lock.writeLock().unlock();
         }
     }
 
     public void put(K key, V value) {
+        lock.writeLock().lock();
         try {
             String keyString = key.toString();
             long hashCode = keyString.hashCode();
@@ -144,13 +182,16 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
                 store.write(block);
                 lookup.indexBlock.put(hashCode, block.getPos());
             }
-            store.flush();
+            cachingStore.maybeFlush();
         } catch (Exception e) {
             throw new UncheckedIOException(String.format("Could not add entry '%s' to %s.", key, this), e);
+        } finally {
+            lock.writeLock().unlock();
         }
     }
 
     public void remove(K key) {
+        lock.writeLock().lock();
         try {
             Lookup lookup = header.getRoot().find(key.toString());
             if (lookup.entry == null) {
@@ -159,9 +200,25 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
             lookup.indexBlock.remove(lookup.entry);
             DataBlock block = store.read(lookup.entry.dataBlock, DataBlock.class);
             store.remove(block);
-            store.flush();
+            cachingStore.maybeFlush();
         } catch (Exception e) {
             throw new UncheckedIOException(String.format("Could not remove entry '%s' from %s.", key, this), e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes any pending changes to the cache file.
+     */
+    public void flush() {
+        lock.writeLock().lock();
+        try {
+            store.flush();
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not flush %s.", this), e);
+        } finally {
+            lock.writeLock().unlock();
         }
     }
 
@@ -174,11 +231,14 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
     }
 
     public void reset() {
+        lock.writeLock().lock();
         try {
             close();
             open();
         } catch (Exception e) {
             throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
         }
     }
 
@@ -194,11 +254,14 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
     }
 
     public void verify() {
+        lock.writeLock().lock();
         try {
             doVerify();
         } catch (Exception e) {
             throw new UncheckedIOException(String.format("Some problems were found when checking the integrity of %s.",
                     this), e);
+        } finally {
+            lock.writeLock().unlock();
         }
     }
 
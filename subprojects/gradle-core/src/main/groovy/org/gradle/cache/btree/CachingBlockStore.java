@@ -19,14 +19,28 @@ import org.apache.commons.collections.map.LRUMap;
 
 import java.util.*;
 
+/**
+ * A {@link BlockStore} which keeps the cacheable blocks it has read in memory. Reads may be made concurrently with each
+ * other, but not concurrently with changes to the store.
+ */
 public class CachingBlockStore implements BlockStore {
     private final BlockStore store;
     private final Map<BlockPointer, BlockPayload> dirty = new LinkedHashMap<BlockPointer, BlockPayload>();
     private final Map<BlockPointer, BlockPayload> indexBlockCache = new LRUMap(100);
     private final Set<Class<?>> cachableTypes = new HashSet<Class<?>>();
+    private final int maxDirtyBlocks;
 
     public CachingBlockStore(BlockStore store, Class<? extends BlockPayload>... cacheableBlockTypes) {
+        this(store, 0, cacheableBlockTypes);
+    }
+
+    /**
+     * Creates a store which holds up to the given number of dirty blocks in memory before writing them to the backing
+     * store. See {@link #maybeFlush()}.
+     */
+    public CachingBlockStore(BlockStore store, int maxDirtyBlocks, Class<? extends BlockPayload>... cacheableBlockTypes) {
         this.store = store;
+        this.maxDirtyBlocks = maxDirtyBlocks;
         cachableTypes.addAll(Arrays.asList(cacheableBlockTypes));
     }
 
@@ -56,6 +70,19 @@ public class CachingBlockStore implements BlockStore {
         store.flush();
     }
 
+    /**
+     * Flushes the dirty blocks to the backing store if there are more than the maximum number of dirty blocks.
+     */
+    public void maybeFlush() {
+        if (dirty.size() > maxDirtyBlocks) {
+            flush();
+        }
+    }
+
+    public int getDirtyBlockCount() {
+        return dirty.size();
+    }
+
     public void attach(BlockPayload block) {
         store.attach(block);
     }
@@ -67,7 +94,10 @@ public class CachingBlockStore implements BlockStore {
     }
 
     public <T extends BlockPayload> T readFirst(Class<T> payloadType) {
-        T block = store.readFirst(payloadType);
+        T block;
+        synchronized (store) {
+            block = store.readFirst(payloadType);
+        }
         maybeCache(block);
         return block;
     }
@@ -77,11 +107,15 @@ public class CachingBlockStore implements BlockStore {
         if (block != null) {
             return block;
         }
-        block = payloadType.cast(indexBlockCache.get(pos));
+        synchronized (indexBlockCache) {
+            block = payloadType.cast(indexBlockCache.get(pos));
+        }
         if (block != null) {
             return block;
         }
-        block = store.read(pos, payloadType);
+        synchronized (store) {
+            block = store.read(pos, payloadType);
+        }
         maybeCache(block);
         return block;
     }
@@ -94,7 +128,9 @@ public class CachingBlockStore implements BlockStore {
 
     private <T extends BlockPayload> void maybeCache(T block) {
         if (cachableTypes.contains(block.getClass())) {
-            indexBlockCache.put(block.getPos(), block);
+            synchronized (indexBlockCache) {
+                indexBlockCache.put(block.getPos(), block);
+            }
         }
     }
 }
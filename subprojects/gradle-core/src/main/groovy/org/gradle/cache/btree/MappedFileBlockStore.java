@@ -0,0 +1,393 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.cache.btree;
+
+import org.gradle.api.UncheckedIOException;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * A {@link BlockStore} which accesses the cache file through memory mapped buffers. Blocks use the same format as
+ * {@link FileBackedBlockStore}, but follow a header which records the used length of the file. The file is mapped in
+ * regions, and a new region is mapped when blocks are added past the end of the last one. The mapped regions extend
+ * the file, so the used length is kept in the header rather than taken from the length of the file. The file is
+ * trimmed back to its used length when the store is closed, where the platform allows it.
+ *
+ * <p>Blocks are copied between the mapped buffer and a reused scratch buffer, so reading or writing a block does not
+ * allocate any streams.</p>
+ */
+public class MappedFileBlockStore implements BlockStore {
+    public static final int DEFAULT_REGION_SIZE = 1024 * 1024;
+    private static final int MAGIC = 0x47434D42;
+    private static final int STORE_HEADER_SIZE = 16;
+    private static final int LENGTH_OFFSET = 8;
+    private final File cacheFile;
+    private final int regionSize;
+    private final CRC32 checksum = new CRC32();
+    private final BlockInputStream blockInputStream = new BlockInputStream();
+    private final DataInputStream inputStream = new DataInputStream(blockInputStream);
+    private final BlockOutputStream blockOutputStream = new BlockOutputStream();
+    private final DataOutputStream outputStream = new DataOutputStream(blockOutputStream);
+    private byte[] scratch = new byte[4096];
+    private RandomAccessFile file;
+    private FileChannel channel;
+    private final List<MappedByteBuffer> regions = new ArrayList<MappedByteBuffer>();
+    private long length;
+    private long nextBlock;
+    private Factory factory;
+
+    public MappedFileBlockStore(File cacheFile) {
+        this(cacheFile, DEFAULT_REGION_SIZE);
+    }
+
+    public MappedFileBlockStore(File cacheFile, int regionSize) {
+        this.cacheFile = cacheFile;
+        this.regionSize = regionSize;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("cache '%s'", cacheFile);
+    }
+
+    public void open(Runnable runnable, Factory factory) {
+        this.factory = factory;
+        try {
+            file = new RandomAccessFile(cacheFile, "rw");
+            channel = file.getChannel();
+            long usedLength = readLength();
+            if (usedLength <= STORE_HEADER_SIZE) {
+                setLength(STORE_HEADER_SIZE);
+                nextBlock = length;
+                runnable.run();
+            } else {
+                length = usedLength;
+                nextBlock = length;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void close() {
+        regions.clear();
+        try {
+            if (file.length() > length) {
+                // Discard the unused tail of the last mapped region
+                file.setLength(length);
+            }
+        } catch (IOException e) {
+            // Ignore - some platforms do not allow a mapped file to be truncated. The header records the used length
+        }
+        try {
+            file.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void clear() {
+        regions.clear();
+        try {
+            file.setLength(0);
+            setLength(STORE_HEADER_SIZE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        nextBlock = length;
+    }
+
+    public void attach(BlockPayload block) {
+        if (block.getBlock() == null) {
+            block.setBlock(new BlockImpl(block));
+        }
+    }
+
+    public void remove(BlockPayload block) {
+        BlockImpl blockImpl = (BlockImpl) block.getBlock();
+        blockImpl.detach();
+    }
+
+    public void flush() {
+        // Changes are written to the mapped buffer, and from there to the file by the operating system
+    }
+
+    public <T extends BlockPayload> T readFirst(Class<T> payloadType) {
+        return read(new BlockPointer(STORE_HEADER_SIZE), payloadType);
+    }
+
+    public <T extends BlockPayload> T read(BlockPointer pos, Class<T> payloadType) {
+        assert !pos.isNull();
+        try {
+            T payload = payloadType.cast(factory.create(payloadType));
+            BlockImpl block = new BlockImpl(payload, pos);
+            block.read();
+            return payload;
+        } catch (CorruptedCacheException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void write(BlockPayload block) {
+        BlockImpl blockImpl = (BlockImpl) block.getBlock();
+        try {
+            blockImpl.write();
+        } catch (CorruptedCacheException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long alloc(long length) {
+        long pos = nextBlock;
+        nextBlock += length;
+        return pos;
+    }
+
+    /**
+     * Reads the used length of the file from the header.
+     *
+     * @return The used length, or 0 when the file does not start with a valid header, in which case its content is
+     * discarded.
+     */
+    private long readLength() throws IOException {
+        long fileLength = file.length();
+        if (fileLength < STORE_HEADER_SIZE) {
+            return 0;
+        }
+        file.seek(0);
+        if (file.readInt() != MAGIC) {
+            return 0;
+        }
+        file.seek(LENGTH_OFFSET);
+        long usedLength = file.readLong();
+        if (usedLength < STORE_HEADER_SIZE || usedLength > fileLength) {
+            return 0;
+        }
+        return usedLength;
+    }
+
+    private void setLength(long length) throws IOException {
+        ensureMapped(length);
+        MappedByteBuffer header = regions.get(0);
+        header.putInt(0, MAGIC);
+        header.putLong(LENGTH_OFFSET, length);
+        this.length = length;
+    }
+
+    /**
+     * Maps regions until the given end of the file is mapped. Regions which are already mapped are kept.
+     */
+    private void ensureMapped(long end) throws IOException {
+        while ((long) regions.size() * regionSize < end) {
+            long offset = (long) regions.size() * regionSize;
+            regions.add(channel.map(FileChannel.MapMode.READ_WRITE, offset, regionSize));
+        }
+    }
+
+    private void put(long pos, byte[] data, int count) {
+        int offset = 0;
+        while (offset < count) {
+            MappedByteBuffer region = regions.get((int) ((pos + offset) / regionSize));
+            int regionOffset = (int) ((pos + offset) % regionSize);
+            int chunk = Math.min(count - offset, regionSize - regionOffset);
+            region.position(regionOffset);
+            region.put(data, offset, chunk);
+            offset += chunk;
+        }
+    }
+
+    private void get(long pos, byte[] data, int count) {
+        int offset = 0;
+        while (offset < count) {
+            MappedByteBuffer region = regions.get((int) ((pos + offset) / regionSize));
+            int regionOffset = (int) ((pos + offset) % regionSize);
+            int chunk = Math.min(count - offset, regionSize - regionOffset);
+            region.position(regionOffset);
+            region.get(data, offset, chunk);
+            offset += chunk;
+        }
+    }
+
+    private byte[] scratch(int size) {
+        if (scratch.length < size) {
+            scratch = new byte[Math.max(size, scratch.length * 2)];
+        }
+        return scratch;
+    }
+
+    private final class BlockImpl extends Block {
+        private static final int HEADER_SIZE = 2 + INT_SIZE;
+        private static final int TAIL_SIZE = LONG_SIZE;
+        static final int BLOCK_MARKER = 0xCC;
+
+        private BlockPointer pos;
+        private int payloadSize;
+
+        private BlockImpl(BlockPayload payload, BlockPointer pos) {
+            this(payload);
+            setPos(pos);
+        }
+
+        public BlockImpl(BlockPayload payload) {
+            super(payload);
+            pos = null;
+            payloadSize = -1;
+        }
+
+        @Override
+        public boolean hasPos() {
+            return pos != null;
+        }
+
+        @Override
+        public BlockPointer getPos() {
+            if (pos == null) {
+                pos = new BlockPointer(alloc(getSize()));
+            }
+            return pos;
+        }
+
+        @Override
+        public void setPos(BlockPointer pos) {
+            assert this.pos == null && !pos.isNull();
+            this.pos = pos;
+        }
+
+        public int getSize() {
+            if (payloadSize < 0) {
+                payloadSize = getPayload().getSize();
+            }
+            return payloadSize + HEADER_SIZE + TAIL_SIZE;
+        }
+
+        @Override
+        public void setSize(int size) {
+            int newPayloadSize = size - HEADER_SIZE - TAIL_SIZE;
+            assert newPayloadSize >= payloadSize;
+            payloadSize = newPayloadSize;
+        }
+
+        public void write() throws Exception {
+            long pos = getPos().getPos();
+            BlockPayload payload = getPayload();
+
+            blockOutputStream.reset();
+
+            // Write header
+            outputStream.writeByte(BLOCK_MARKER);
+            outputStream.writeByte(payload.getType());
+            outputStream.writeInt(payloadSize);
+            long finalSize = pos + HEADER_SIZE + TAIL_SIZE + payloadSize;
+
+            // Write body
+            payload.write(outputStream);
+
+            // Write checksum
+            checksum.reset();
+            checksum.update(blockOutputStream.getBuffer(), 0, blockOutputStream.size());
+            outputStream.writeLong(checksum.getValue());
+
+            // Copy to file. Any padding is left as is
+            ensureMapped(finalSize);
+            put(pos, blockOutputStream.getBuffer(), blockOutputStream.size());
+            if (length < finalSize) {
+                setLength(finalSize);
+            }
+        }
+
+        public void read() throws Exception {
+            long pos = getPos().getPos();
+            assert pos >= 0;
+            if (pos + HEADER_SIZE >= length) {
+                throw blockCorruptedException();
+            }
+            ensureMapped(length);
+
+            BlockPayload payload = getPayload();
+
+            // Read header
+            byte[] data = scratch(HEADER_SIZE);
+            get(pos, data, HEADER_SIZE);
+            blockInputStream.reset(data, 0, HEADER_SIZE);
+            if (inputStream.readByte() != (byte) BLOCK_MARKER) {
+                throw blockCorruptedException();
+            }
+            if (inputStream.readByte() != (byte) payload.getType()) {
+                throw blockCorruptedException();
+            }
+            payloadSize = inputStream.readInt();
+            if (payloadSize < 0 || pos + HEADER_SIZE + TAIL_SIZE + payloadSize > length) {
+                throw blockCorruptedException();
+            }
+
+            // Copy the whole block, then read body
+            int blockSize = HEADER_SIZE + payloadSize + TAIL_SIZE;
+            data = scratch(blockSize);
+            get(pos, data, blockSize);
+            blockInputStream.reset(data, HEADER_SIZE, blockSize);
+            payload.read(inputStream);
+
+            // Read and verify checksum
+            checksum.reset();
+            checksum.update(data, 0, blockInputStream.getPosition());
+            long actualChecksum = checksum.getValue();
+            if (actualChecksum != inputStream.readLong()) {
+                throw blockCorruptedException();
+            }
+        }
+
+        public RuntimeException blockCorruptedException() {
+            return new CorruptedCacheException(String.format("Corrupted %s found in %s.", this,
+                    MappedFileBlockStore.this));
+        }
+    }
+
+    private static class BlockInputStream extends ByteArrayInputStream {
+        private BlockInputStream() {
+            super(new byte[0]);
+        }
+
+        public void reset(byte[] data, int pos, int count) {
+            this.buf = data;
+            this.pos = pos;
+            this.count = count;
+            this.mark = pos;
+        }
+
+        public int getPosition() {
+            return pos;
+        }
+    }
+
+    private static class BlockOutputStream extends ByteArrayOutputStream {
+        private BlockOutputStream() {
+            super(4096);
+        }
+
+        public byte[] getBuffer() {
+            return buf;
+        }
+    }
+}
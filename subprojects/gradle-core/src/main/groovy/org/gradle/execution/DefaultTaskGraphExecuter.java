@@ -18,6 +18,7 @@ package org.gradle.execution;
 
 import groovy.lang.Closure;
 import org.gradle.api.CircularReferenceException;
+import org.gradle.api.GradleException;
 import org.gradle.api.Task;
 import org.gradle.api.execution.TaskExecutionGraphListener;
 import org.gradle.api.execution.TaskExecutionListener;
@@ -28,10 +29,12 @@ import org.gradle.api.specs.Specs;
 import org.gradle.listener.ListenerBroadcast;
 import org.gradle.listener.ListenerManager;
 import org.gradle.util.Clock;
+import org.gradle.util.ThreadUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * @author Hans Dockter
@@ -42,12 +45,22 @@ public class DefaultTaskGraphExecuter implements TaskGraphExecuter {
     private final ListenerBroadcast<TaskExecutionGraphListener> graphListeners;
     private final ListenerBroadcast<TaskExecutionListener> taskListeners;
     private final Set<Task> executionPlan = new LinkedHashSet<Task>();
+    private final int parallelThreadCount;
     private boolean populated;
     private Spec<? super Task> filter = Specs.satisfyAll();
 
     public DefaultTaskGraphExecuter(ListenerManager listenerManager) {
+        this(listenerManager, 0);
+    }
+
+    /**
+     * Creates an executer which runs independent tasks using the given number of worker threads. A thread count of 1
+     * or less executes the tasks one at a time on the calling thread.
+     */
+    public DefaultTaskGraphExecuter(ListenerManager listenerManager, int parallelThreadCount) {
         graphListeners = listenerManager.createAnonymousBroadcaster(TaskExecutionGraphListener.class);
         taskListeners = listenerManager.createAnonymousBroadcaster(TaskExecutionListener.class);
+        this.parallelThreadCount = parallelThreadCount;
     }
 
     public void useFilter(Spec<? super Task> filter) {
@@ -75,7 +88,11 @@ public class DefaultTaskGraphExecuter implements TaskGraphExecuter {
         graphListeners.getSource().graphPopulated(this);
 
         try {
-            doExecute(executionPlan);
+            if (parallelThreadCount > 1) {
+                doExecuteInParallel(executionPlan);
+            } else {
+                doExecute(executionPlan);
+            }
             logger.debug("Timing: Executing the DAG took " + clock.getTime());
         } finally {
             executionPlan.clear();
@@ -169,6 +186,131 @@ public class DefaultTaskGraphExecuter implements TaskGraphExecuter {
         result.rethrowFailure();
     }
 
+    /**
+     * Executes the given tasks using a pool of worker threads. A task is scheduled as soon as all of its dependencies
+     * in the plan have completed, and ready tasks are scheduled in plan order. Once a task fails, no further tasks are
+     * scheduled, the tasks already running are allowed to complete, and the first failure is rethrown.
+     */
+    private void doExecuteInParallel(Collection<? extends Task> tasks) {
+        Map<Task, Set<Task>> waitingOn = new HashMap<Task, Set<Task>>();
+        Map<Task, List<Task>> dependents = new HashMap<Task, List<Task>>();
+        List<Task> ready = new ArrayList<Task>();
+        for (Task task : tasks) {
+            if (task.getExecuted()) {
+                continue;
+            }
+            Set<Task> dependencies = new HashSet<Task>();
+            for (Task dependency : task.getTaskDependencies().getDependencies(task)) {
+                if (tasks.contains(dependency) && !dependency.getExecuted()) {
+                    dependencies.add(dependency);
+                    List<Task> dependentTasks = dependents.get(dependency);
+                    if (dependentTasks == null) {
+                        dependentTasks = new ArrayList<Task>();
+                        dependents.put(dependency, dependentTasks);
+                    }
+                    dependentTasks.add(task);
+                }
+            }
+            if (dependencies.isEmpty()) {
+                ready.add(task);
+            } else {
+                waitingOn.put(task, dependencies);
+            }
+        }
+
+        ExecutorService executorService = Executors.newFixedThreadPool(parallelThreadCount);
+        CompletionService<TaskExecutionResult> completionService
+                = new ExecutorCompletionService<TaskExecutionResult>(executorService);
+        Map<Future<TaskExecutionResult>, Task> running = new HashMap<Future<TaskExecutionResult>, Task>();
+        Throwable failure = null;
+        try {
+            while (true) {
+                if (failure == null) {
+                    for (final Task task : ready) {
+                        running.put(completionService.submit(new Callable<TaskExecutionResult>() {
+                            public TaskExecutionResult call() {
+                                return executeTaskInWorker(task);
+                            }
+                        }), task);
+                    }
+                }
+                ready.clear();
+                if (running.isEmpty()) {
+                    break;
+                }
+
+                Future<TaskExecutionResult> completed = takeCompleted(completionService);
+                Task task = running.remove(completed);
+                Throwable taskFailure = getFailure(completed);
+                if (taskFailure != null) {
+                    if (failure == null) {
+                        failure = taskFailure;
+                    }
+                    continue;
+                }
+
+                List<Task> dependentTasks = dependents.get(task);
+                if (dependentTasks == null) {
+                    continue;
+                }
+                for (Task dependent : dependentTasks) {
+                    Set<Task> dependencies = waitingOn.get(dependent);
+                    dependencies.remove(task);
+                    if (dependencies.isEmpty()) {
+                        waitingOn.remove(dependent);
+                        ready.add(dependent);
+                    }
+                }
+            }
+        } finally {
+            ThreadUtils.shutdown(executorService);
+        }
+
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        if (failure != null) {
+            throw new GradleException("Could not execute the task graph.", failure);
+        }
+    }
+
+    private TaskExecutionResult executeTaskInWorker(Task task) {
+        // Listeners are not required to be thread-safe, so notifications are delivered one at a time
+        synchronized (taskListeners) {
+            taskListeners.getSource().beforeExecute(task);
+        }
+        TaskExecutionResult result = ((TaskInternal) task).execute();
+        synchronized (taskListeners) {
+            taskListeners.getSource().afterExecute(task, result);
+        }
+        result.rethrowFailure();
+        return result;
+    }
+
+    private Future<TaskExecutionResult> takeCompleted(CompletionService<TaskExecutionResult> completionService) {
+        while (true) {
+            try {
+                return completionService.take();
+            } catch (InterruptedException e) {
+                // Ignore - keep waiting for the running tasks to complete
+            }
+        }
+    }
+
+    private Throwable getFailure(Future<TaskExecutionResult> completed) {
+        try {
+            completed.get();
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause();
+        } catch (InterruptedException e) {
+            return e;
+        }
+    }
+
     public boolean hasTask(Task task) {
         assertPopulated();
         return executionPlan.contains(task);
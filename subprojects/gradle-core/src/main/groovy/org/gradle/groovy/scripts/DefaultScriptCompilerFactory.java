@@ -16,6 +16,7 @@
 package org.gradle.groovy.scripts;
 
 import org.gradle.CacheUsage;
+import org.gradle.api.GradleException;
 import org.gradle.cache.CacheRepository;
 import org.gradle.cache.PersistentCache;
 import org.gradle.util.HashUtil;
@@ -32,13 +33,25 @@ public class DefaultScriptCompilerFactory implements ScriptCompilerFactory {
     private final CacheUsage cacheUsage;
     private final CacheRepository cacheRepository;
     private final ScriptRunnerFactory scriptRunnerFactory;
+    private final ScriptClassCache scriptClassCache;
 
     public DefaultScriptCompilerFactory(ScriptCompilationHandler scriptCompilationHandler, CacheUsage cacheUsage,
                                         ScriptRunnerFactory scriptRunnerFactory, CacheRepository cacheRepository) {
+        this(scriptCompilationHandler, cacheUsage, scriptRunnerFactory, cacheRepository, null);
+    }
+
+    /**
+     * Creates a factory which reuses the script classes held by the given {@link ScriptClassCache}, when caching is
+     * on. The script class cache may be null.
+     */
+    public DefaultScriptCompilerFactory(ScriptCompilationHandler scriptCompilationHandler, CacheUsage cacheUsage,
+                                        ScriptRunnerFactory scriptRunnerFactory, CacheRepository cacheRepository,
+                                        ScriptClassCache scriptClassCache) {
         this.scriptCompilationHandler = scriptCompilationHandler;
         this.cacheUsage = cacheUsage;
         this.cacheRepository = cacheRepository;
         this.scriptRunnerFactory = scriptRunnerFactory;
+        this.scriptClassCache = cacheUsage == CacheUsage.ON ? scriptClassCache : null;
     }
 
     public ScriptCompiler createCompiler(ScriptSource source) {
@@ -83,9 +96,21 @@ public class DefaultScriptCompilerFactory implements ScriptCompilerFactory {
         }
 
         private <T extends Script> T loadViaCache(ClassLoader classLoader, Class<T> scriptBaseClass) {
+            String hash;
+            if (scriptClassCache != null) {
+                hash = scriptClassCache.getHash(source);
+                Class<? extends T> scriptClass = scriptClassCache.get(source, hash, classLoader, transformer,
+                        scriptBaseClass);
+                if (scriptClass != null) {
+                    return instantiate(scriptClass);
+                }
+            } else {
+                hash = HashUtil.createHash(source.getText());
+            }
+
             Map<String, Object> properties = new HashMap<String, Object>();
             properties.put("source.filename", source.getFileName());
-            properties.put("source.hash", HashUtil.createHash(source.getText()));
+            properties.put("source.hash", hash);
 
             PersistentCache cache = cacheRepository.getGlobalCache(String.format("scripts/%s", source.getClassName()),
                     properties);
@@ -100,7 +125,19 @@ public class DefaultScriptCompilerFactory implements ScriptCompilerFactory {
                 scriptCompilationHandler.compileScriptToDir(source, classLoader, classesDir, transformer, scriptBaseClass);
                 cache.update();
             }
-            return scriptCompilationHandler.loadScriptFromDir(source, classLoader, classesDir, scriptBaseClass);
+            T script = scriptCompilationHandler.loadScriptFromDir(source, classLoader, classesDir, scriptBaseClass);
+            if (script != null && scriptClassCache != null) {
+                scriptClassCache.put(source, hash, classLoader, transformer, scriptBaseClass, script.getClass());
+            }
+            return script;
+        }
+
+        private <T extends Script> T instantiate(Class<? extends T> scriptClass) {
+            try {
+                return scriptClass.newInstance();
+            } catch (Exception e) {
+                throw new GradleException(e);
+            }
         }
     }
 }
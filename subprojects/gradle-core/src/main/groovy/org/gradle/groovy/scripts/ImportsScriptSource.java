@@ -18,6 +18,7 @@ package org.gradle.groovy.scripts;
 import org.gradle.api.internal.project.ImportsReader;
 
 import java.io.File;
+import java.util.List;
 
 public class ImportsScriptSource implements ScriptSource {
     private final ScriptSource source;
@@ -48,6 +49,13 @@ public class ImportsScriptSource implements ScriptSource {
         return text + imports;
     }
 
+    /**
+     * Returns the files which the imports of this script are read from.
+     */
+    public List<File> getImportsFiles() {
+        return importsReader.getImportsFiles(rootDir);
+    }
+
     public String getClassName() {
         return source.getClassName();
     }
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.groovy.scripts;
+
+import org.gradle.util.HashUtil;
+
+import java.io.File;
+import java.lang.ref.SoftReference;
+import java.net.URLClassLoader;
+import java.util.*;
+
+/**
+ * An in-memory cache of compiled script classes, which is shared by all builds run in the same process. A class is
+ * reused when the script text, the class loader, the transformer and the script base class all match those it was
+ * compiled with. This cache is thread-safe.
+ *
+ * <p>Each build creates its own script class loaders, most of which are {@link URLClassLoader}s with an empty
+ * classpath. Such a class loader delegates every request to its parent, so it is treated as if it were its parent.
+ * Classes are held by soft references, so that they, and their class loaders, can be collected.</p>
+ *
+ * <p>The hash of the text of a script read from files is kept for as long as the length and modification time of the
+ * files are unchanged. Some file systems record modification times with a resolution as coarse as a couple of
+ * seconds, so the hash of a script which has changed more recently than this is not kept.</p>
+ */
+public class ScriptClassCache {
+    public static final long DEFAULT_TIMESTAMP_RESOLUTION = 2000;
+    private final Map<ClassLoader, Map<String, SoftReference<Class<?>>>> classes
+            = new WeakHashMap<ClassLoader, Map<String, SoftReference<Class<?>>>>();
+    private final Map<List<File>, SourceHash> hashes = new HashMap<List<File>, SourceHash>();
+    private final long timestampResolution;
+
+    public ScriptClassCache() {
+        this(DEFAULT_TIMESTAMP_RESOLUTION);
+    }
+
+    ScriptClassCache(long timestampResolution) {
+        this.timestampResolution = timestampResolution;
+    }
+
+    /**
+     * Returns the hash of the text of the given script.
+     */
+    public String getHash(ScriptSource source) {
+        List<File> files = new ArrayList<File>();
+        if (!collectFiles(source, files)) {
+            return HashUtil.createHash(source.getText());
+        }
+
+        long[] stamps = stamp(files);
+        synchronized (hashes) {
+            SourceHash hash = hashes.get(files);
+            if (hash != null && Arrays.equals(hash.stamps, stamps)) {
+                return hash.hash;
+            }
+        }
+
+        String hash = HashUtil.createHash(source.getText());
+        synchronized (hashes) {
+            if (isStable(files, stamps)) {
+                hashes.put(files, new SourceHash(stamps, hash));
+            } else {
+                hashes.remove(files);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Returns the class compiled from the given script, or null if there is no such class in this cache.
+     */
+    public <T extends Script> Class<? extends T> get(ScriptSource source, String hash, ClassLoader classLoader,
+                                                     Transformer transformer, Class<T> scriptBaseClass) {
+        Class<?> scriptClass = null;
+        synchronized (classes) {
+            Map<String, SoftReference<Class<?>>> loaderClasses = classes.get(getEffectiveClassLoader(classLoader));
+            if (loaderClasses != null) {
+                SoftReference<Class<?>> reference = loaderClasses.get(key(source, hash, transformer, scriptBaseClass));
+                scriptClass = reference == null ? null : reference.get();
+            }
+        }
+        if (scriptClass == null || !scriptBaseClass.isAssignableFrom(scriptClass)) {
+            return null;
+        }
+        return scriptClass.asSubclass(scriptBaseClass);
+    }
+
+    /**
+     * Adds a class compiled from the given script to this cache.
+     */
+    public void put(ScriptSource source, String hash, ClassLoader classLoader, Transformer transformer,
+                    Class<? extends Script> scriptBaseClass, Class<?> scriptClass) {
+        synchronized (classes) {
+            ClassLoader effectiveClassLoader = getEffectiveClassLoader(classLoader);
+            Map<String, SoftReference<Class<?>>> loaderClasses = classes.get(effectiveClassLoader);
+            if (loaderClasses == null) {
+                loaderClasses = new HashMap<String, SoftReference<Class<?>>>();
+                classes.put(effectiveClassLoader, loaderClasses);
+            }
+            loaderClasses.put(key(source, hash, transformer, scriptBaseClass), new SoftReference<Class<?>>(scriptClass));
+        }
+    }
+
+    private static String key(ScriptSource source, String hash, Transformer transformer,
+                              Class<? extends Script> scriptBaseClass) {
+        String transformerName = transformer == null ? "NoTransformer" : transformer.getClass().getName();
+        return String.format("%s/%s/%s/%s", source.getClassName(), hash, transformerName, scriptBaseClass.getName());
+    }
+
+    private static ClassLoader getEffectiveClassLoader(ClassLoader classLoader) {
+        ClassLoader current = classLoader;
+        while (current instanceof URLClassLoader && current.getParent() != null
+                && ((URLClassLoader) current).getURLs().length == 0) {
+            current = current.getParent();
+        }
+        return current;
+    }
+
+    private static boolean collectFiles(ScriptSource source, List<File> files) {
+        if (source instanceof FileScriptSource) {
+            files.add(source.getSourceFile());
+            return true;
+        }
+        if (source instanceof StrictScriptSource) {
+            return collectFiles(((StrictScriptSource) source).getSource(), files);
+        }
+        if (source instanceof ImportsScriptSource) {
+            ImportsScriptSource importsSource = (ImportsScriptSource) source;
+            files.addAll(importsSource.getImportsFiles());
+            return collectFiles(importsSource.getSource(), files);
+        }
+        return false;
+    }
+
+    private static long[] stamp(List<File> files) {
+        long[] stamps = new long[files.size() * 2];
+        for (int i = 0; i < files.size(); i++) {
+            File file = files.get(i);
+            stamps[2 * i] = file.lastModified();
+            stamps[2 * i + 1] = file.length();
+        }
+        return stamps;
+    }
+
+    private boolean isStable(List<File> files, long[] stamps) {
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < files.size(); i++) {
+            long lastModified = stamps[2 * i];
+            if (lastModified != 0 && now - lastModified < timestampResolution) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static class SourceHash {
+        private final long[] stamps;
+        private final String hash;
+
+        private SourceHash(long[] stamps, String hash) {
+            this.stamps = stamps;
+            this.hash = hash;
+        }
+    }
+}
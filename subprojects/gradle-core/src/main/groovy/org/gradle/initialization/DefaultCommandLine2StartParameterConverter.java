@@ -72,6 +72,10 @@ public class DefaultCommandLine2StartParameterConverter implements CommandLine2S
     private static final String CACHE = "C";
     private static final String DRY_RUN = "m";
     private static final String NO_OPT = "no-opt";
+    private static final String PARALLEL_THREADS = "parallel-threads";
+    private static final String SNAPSHOT_DIRS = "snapshot-dirs";
+    private static final String OUTPUT_CACHE = "output-cache";
+    private static final String PROFILE = "profile";
     private static final String EXCLUDE_TASK = "x";
     private static final String HELP = "h";
     private static final String GUI = "gui";
@@ -128,6 +132,15 @@ public class DefaultCommandLine2StartParameterConverter implements CommandLine2S
             acceptsAll(WrapUtil.toList(NO_PROJECT_DEPENDENCY_REBUILD, "no-rebuild"),
                     "Do not rebuild project dependencies.");
             acceptsAll(WrapUtil.toList(NO_OPT), "Ignore any task optimization.");
+            acceptsAll(WrapUtil.toList(PARALLEL_THREADS),
+                    "Specifies the number of threads to use to execute independent tasks in parallel.")
+                    .withRequiredArg().ofType(String.class);
+            acceptsAll(WrapUtil.toList(SNAPSHOT_DIRS),
+                    "Cache directory listings, and reuse them while the directory is unchanged.");
+            acceptsAll(WrapUtil.toList(OUTPUT_CACHE),
+                    "Store task outputs in a local cache, and restore them instead of executing a task.");
+            acceptsAll(WrapUtil.toList(PROFILE),
+                    "Profile the build, and write a report of where the time was spent to build/reports/profile.");
             acceptsAll(WrapUtil.toList(EXCLUDE_TASK, "exclude-task"), "Specify a task to be excluded from execution.")
                     .withRequiredArg().ofType(String.class);
             acceptsAll(WrapUtil.toList(HELP, "?", "help"), "Shows this help message");
@@ -311,6 +324,27 @@ public class DefaultCommandLine2StartParameterConverter implements CommandLine2S
             startParameter.setExcludedTaskNames(options.valuesOf(EXCLUDE_TASK));
         }
 
+        if (options.has(PARALLEL_THREADS)) {
+            try {
+                startParameter.setParallelThreadCount(Integer.parseInt(options.argumentOf(PARALLEL_THREADS)));
+            } catch (NumberFormatException e) {
+                throw new CommandLineArgumentException(String.format(
+                        "Error: The --%s option requires a number of threads.", PARALLEL_THREADS));
+            }
+        }
+
+        if (options.has(SNAPSHOT_DIRS)) {
+            startParameter.setSnapshotDirectories(true);
+        }
+
+        if (options.has(OUTPUT_CACHE)) {
+            startParameter.setOutputCacheEnabled(true);
+        }
+
+        if (options.has(PROFILE)) {
+            startParameter.setProfile(true);
+        }
+
         startParameter.setLogLevel(getLogLevel(options));
     }
 
@@ -28,10 +28,12 @@ import org.gradle.api.logging.StandardOutputListener;
 import org.gradle.configuration.BuildConfigurer;
 import org.gradle.configuration.DefaultInitScriptProcessor;
 import org.gradle.configuration.ProjectDependencies2TaskResolver;
+import org.gradle.groovy.scripts.ScriptClassCache;
 import org.gradle.groovy.scripts.ScriptCompilerFactory;
 import org.gradle.invocation.DefaultGradle;
 import org.gradle.listener.DefaultListenerManager;
 import org.gradle.listener.ListenerManager;
+import org.gradle.profile.ProfileListener;
 import org.gradle.util.WrapUtil;
 
 /**
@@ -41,6 +43,7 @@ public class DefaultGradleLauncherFactory implements GradleLauncherFactory {
     private LoggingConfigurer loggingConfigurer;
     private NestedBuildTracker tracker = new NestedBuildTracker();
     private CommandLine2StartParameterConverter commandLine2StartParameterConverter = new DefaultCommandLine2StartParameterConverter();
+    private final ScriptClassCache scriptClassCache = new ScriptClassCache();
 
     public DefaultGradleLauncherFactory() {
         this(new DefaultLoggingConfigurer());
@@ -68,8 +71,12 @@ public class DefaultGradleLauncherFactory implements GradleLauncherFactory {
 
         listenerManager.useLogger(new TaskExecutionLogger(Logging.getLogger(TaskExecutionLogger.class)));
         listenerManager.addListener(tracker);
+        if (startParameter.isProfile()) {
+            listenerManager.addListener(new ProfileListener());
+        }
 
-        ServiceRegistryFactory serviceRegistryFactory = new DefaultServiceRegistryFactory(startParameter, listenerManager);
+        ServiceRegistryFactory serviceRegistryFactory = new DefaultServiceRegistryFactory(startParameter, listenerManager,
+                scriptClassCache);
         ISettingsFinder settingsFinder = new EmbeddedScriptSettingsFinder(
                 new DefaultSettingsFinder(WrapUtil.<ISettingsFileSearchStrategy>toList(
                         new MasterDirSettingsFinderStrategy(),
@@ -22,6 +22,7 @@ import org.gradle.api.GradleScriptException;
 import org.gradle.api.logging.LogLevel;
 import org.gradle.api.logging.StandardOutputListener;
 import org.gradle.api.logging.DefaultStandardOutputCapture;
+import org.gradle.api.logging.StandardOutputLogging;
 import org.gradle.groovy.scripts.ScriptSource;
 import org.gradle.groovy.scripts.Script;
 
@@ -40,6 +41,13 @@ import java.util.Map;
  * @param <T> The listener type.
  */
 public class ListenerBroadcast<T> {
+    private static final ThreadLocal<DefaultStandardOutputCapture> OUTPUT_CAPTURE
+            = new ThreadLocal<DefaultStandardOutputCapture>() {
+        @Override
+        protected DefaultStandardOutputCapture initialValue() {
+            return new DefaultStandardOutputCapture(true, LogLevel.QUIET);
+        }
+    };
     private final T source;
     private final Class<T> type;
     private final Map<Object, InvocationHandler> handlers = new LinkedHashMap<Object, InvocationHandler>();
@@ -145,16 +153,22 @@ public class ListenerBroadcast<T> {
                 return String.format("%s broadcast", type.getSimpleName());
             }
             DefaultStandardOutputCapture standardOutputCapture = null;
-            if (getType() != StandardOutputListener.class) {
-                standardOutputCapture = new DefaultStandardOutputCapture(true, LogLevel.QUIET);
+            if (getType() != StandardOutputListener.class && !StandardOutputLogging.isOn(LogLevel.QUIET)) {
+                standardOutputCapture = OUTPUT_CAPTURE.get();
+                if (standardOutputCapture.isStarted()) {
+                    standardOutputCapture = new DefaultStandardOutputCapture(true, LogLevel.QUIET);
+                }
                 standardOutputCapture.start();
             }
-            logger.invoke(null, method, parameters);
-            for (InvocationHandler handler : handlers.values()) {
-                handler.invoke(null, method, parameters);
-            }
-            if (standardOutputCapture != null) {
-                standardOutputCapture.stop();
+            try {
+                logger.invoke(null, method, parameters);
+                for (InvocationHandler handler : handlers.values()) {
+                    handler.invoke(null, method, parameters);
+                }
+            } finally {
+                if (standardOutputCapture != null) {
+                    standardOutputCapture.stop();
+                }
             }
             return null;
         }
@@ -15,52 +15,129 @@
  */
 package org.gradle.listener.remote;
 
-import org.gradle.listener.ListenerBroadcast;
-
 import java.io.*;
-import java.lang.reflect.Method;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
 
-class RemoteMessage implements Serializable {
-    private String methodName;
-    private Class[] parameters;
-    private Object[] arguments;
+/**
+ * A listener method call sent from a {@link RemoteSender} to a {@link RemoteReceiver}. Messages are sent in batches,
+ * each batch as a frame made up of the length of the frame followed by the serialized messages.
+ */
+class RemoteMessage {
+    private final String methodName;
+    private final String[] parameterTypes;
+    private final Object[] arguments;
 
     public RemoteMessage(Method method, Object[] args) {
         methodName = method.getName();
-        parameters = method.getParameterTypes();
-        arguments = args;
+        Class<?>[] parameters = method.getParameterTypes();
+        parameterTypes = new String[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            parameterTypes[i] = parameters[i].getName();
+        }
+        arguments = args == null ? new Object[0] : args;
     }
 
-    public void send(OutputStream outputSteam) throws IOException {
-        ObjectOutputStream oos = null;
-        try {
-            oos = new ObjectOutputStream(outputSteam);
-            oos.writeObject(this);
-        } finally {
-            if (oos != null) {
-                oos.close();
+    private RemoteMessage(String methodName, String[] parameterTypes, Object[] arguments) {
+        this.methodName = methodName;
+        this.parameterTypes = parameterTypes;
+        this.arguments = arguments;
+    }
+
+    /**
+     * Returns a string which identifies the method to call, for example {@code send(java.lang.String,int)}.
+     */
+    public String getSignature() {
+        StringBuilder builder = new StringBuilder(methodName);
+        builder.append('(');
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (i > 0) {
+                builder.append(',');
             }
+            builder.append(parameterTypes[i]);
         }
+        builder.append(')');
+        return builder.toString();
     }
 
-    public static RemoteMessage receive(InputStream inputSteam) throws IOException, ClassNotFoundException {
-        ObjectInputStream ois = null;
-        try {
-            ois = new ObjectInputStream(inputSteam);
-            return (RemoteMessage) ois.readObject();
-        } finally {
-            if (ois != null) {
-                ois.close();
+    /**
+     * Locates the method of the given type which this message calls.
+     */
+    public Method findMethod(Class<?> type) throws NoSuchMethodException {
+        for (Method method : type.getMethods()) {
+            if (!method.getName().equals(methodName)) {
+                continue;
+            }
+            Class<?>[] parameters = method.getParameterTypes();
+            if (parameters.length != parameterTypes.length) {
+                continue;
+            }
+            boolean matches = true;
+            for (int i = 0; matches && i < parameters.length; i++) {
+                matches = parameters[i].getName().equals(parameterTypes[i]);
+            }
+            if (matches) {
+                return method;
             }
         }
+        throw new NoSuchMethodException(String.format("%s.%s", type.getName(), getSignature()));
     }
 
-    public Object dispatch(ListenerBroadcast<?> broadcaster)
-            throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
-        Class<?> listenerClass = broadcaster.getType();
-        Method method = listenerClass.getMethod(methodName, parameters);
-        return method.invoke(broadcaster.getSource(), arguments);
+    public Object dispatch(Method method, Object target) throws InvocationTargetException, IllegalAccessException {
+        return method.invoke(target, arguments);
     }
-}
 
+    /**
+     * Writes the given messages as a single frame.
+     *
+     * @param messages The messages to write.
+     * @param buffer A buffer to use to serialize the messages. Its content is discarded.
+     * @param outputStream The stream to write the frame to.
+     */
+    public static void writeFrame(List<RemoteMessage> messages, ByteArrayOutputStream buffer,
+                                  DataOutputStream outputStream) throws IOException {
+        buffer.reset();
+        ObjectOutputStream objectStream = new ObjectOutputStream(buffer);
+        objectStream.writeInt(messages.size());
+        for (RemoteMessage message : messages) {
+            objectStream.writeUTF(message.methodName);
+            objectStream.writeInt(message.parameterTypes.length);
+            for (String parameterType : message.parameterTypes) {
+                objectStream.writeUTF(parameterType);
+            }
+            for (Object argument : message.arguments) {
+                objectStream.writeObject(argument);
+            }
+        }
+        objectStream.flush();
+
+        outputStream.writeInt(buffer.size());
+        buffer.writeTo(outputStream);
+        outputStream.flush();
+    }
+
+    /**
+     * Reads the messages of a frame, excluding its length.
+     */
+    public static List<RemoteMessage> readFrame(byte[] data, int offset, int length)
+            throws IOException, ClassNotFoundException {
+        ObjectInputStream objectStream = new ObjectInputStream(new ByteArrayInputStream(data, offset, length));
+        int count = objectStream.readInt();
+        List<RemoteMessage> messages = new ArrayList<RemoteMessage>(count);
+        for (int i = 0; i < count; i++) {
+            String methodName = objectStream.readUTF();
+            String[] parameterTypes = new String[objectStream.readInt()];
+            for (int j = 0; j < parameterTypes.length; j++) {
+                parameterTypes[j] = objectStream.readUTF();
+            }
+            Object[] arguments = new Object[parameterTypes.length];
+            for (int j = 0; j < arguments.length; j++) {
+                arguments[j] = objectStream.readObject();
+            }
+            messages.add(new RemoteMessage(methodName, parameterTypes, arguments));
+        }
+        return messages;
+    }
+}
@@ -17,16 +17,34 @@ package org.gradle.listener.remote;
 
 import org.gradle.listener.ListenerBroadcast;
 
-import java.net.ServerSocket;
-import java.net.Socket;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
 
+/**
+ * Receives listener method calls from any number of {@link RemoteSender}s, and dispatches them to a {@link
+ * ListenerBroadcast}. Each sender uses its own connection. The connections are served by a single thread, which
+ * dispatches the calls from each sender in the order they were made.
+ */
 public class RemoteReceiver  {
+    private static final int INITIAL_BUFFER_SIZE = 8192;
     private final ListenerBroadcast<?> broadcaster;
-    private final ServerSocket serverSocket;
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
     private final Thread receiverThread;
     private final ExceptionListener exceptionListener;
+    private final Map<String, Method> methods = new HashMap<String, Method>();
+    private volatile boolean closed;
 
     public RemoteReceiver(ListenerBroadcast<?> broadcaster) throws IOException {
         this(broadcaster, null);
@@ -35,29 +53,39 @@ public class RemoteReceiver  {
     public RemoteReceiver(ListenerBroadcast<?> broadcaster, ExceptionListener exceptionListener) throws IOException {
         this.broadcaster = broadcaster;
         this.exceptionListener = exceptionListener;
-        serverSocket = new ServerSocket(0);
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.socket().bind(new InetSocketAddress(0));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
         receiverThread = new Thread(new Receiver(), "Remote Receiver Thread");
         receiverThread.start();
     }
 
     public int getBoundPort() {
-        return serverSocket.getLocalPort();
+        return serverChannel.socket().getLocalPort();
     }
 
     public void close() throws IOException {
-        receiverThread.interrupt();
-        serverSocket.close();
+        closed = true;
+        selector.wakeup();
+        try {
+            receiverThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
-    private void processMessage(Socket socket)
+    private void processMessage(RemoteMessage message)
     {
         try {
-            RemoteMessage message = RemoteMessage.receive(socket.getInputStream());
-            message.dispatch(broadcaster);
-        } catch (IOException e) {
-            e.printStackTrace();
-        } catch (ClassNotFoundException e) {
-            e.printStackTrace();
+            String signature = message.getSignature();
+            Method method = methods.get(signature);
+            if (method == null) {
+                method = message.findMethod(broadcaster.getType());
+                methods.put(signature, method);
+            }
+            message.dispatch(method, broadcaster.getSource());
         } catch (NoSuchMethodException e) {
             e.printStackTrace();
         } catch (InvocationTargetException e) {
@@ -72,13 +100,109 @@ public class RemoteReceiver  {
     private class Receiver implements Runnable
     {
         public void run() {
-            while (true) {
-                try {
-                    processMessage(serverSocket.accept());
-                } catch (IOException e) {
-                    break; // let the thread die
+            try {
+                while (!closed) {
+                    selector.select();
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else if (key.isReadable()) {
+                            read(key);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                // let the thread die
+            } finally {
+                closeAll();
+            }
+        }
+
+        private void accept() throws IOException {
+            SocketChannel channel = serverChannel.accept();
+            if (channel != null) {
+                channel.configureBlocking(false);
+                channel.register(selector, SelectionKey.OP_READ, new Connection());
+            }
+        }
+
+        private void read(SelectionKey key) {
+            SocketChannel channel = (SocketChannel) key.channel();
+            Connection connection = (Connection) key.attachment();
+            try {
+                if (!connection.read(channel)) {
+                    key.cancel();
+                    channel.close();
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+                key.cancel();
+                close(channel);
+            } catch (ClassNotFoundException e) {
+                e.printStackTrace();
+                key.cancel();
+                close(channel);
+            }
+        }
+
+        private void closeAll() {
+            for (SelectionKey key : selector.keys()) {
+                close(key.channel());
+            }
+            close(serverChannel);
+            try {
+                selector.close();
+            } catch (IOException e) {
+                // Ignore
+            }
+        }
+
+        private void close(Channel channel) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Ignore
+            }
+        }
+    }
+
+    /**
+     * Collects the frames received from a single sender.
+     */
+    private class Connection {
+        private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+
+        /**
+         * Reads whatever is available from the given channel, and dispatches each complete frame. Returns false when
+         * the end of the stream has been reached.
+         */
+        public boolean read(SocketChannel channel) throws IOException, ClassNotFoundException {
+            int count = channel.read(buffer);
+            buffer.flip();
+            while (buffer.remaining() >= 4) {
+                int length = buffer.getInt(buffer.position());
+                if (buffer.remaining() < 4 + length) {
+                    break;
+                }
+                for (RemoteMessage message : RemoteMessage.readFrame(buffer.array(), buffer.position() + 4, length)) {
+                    processMessage(message);
                 }
+                buffer.position(buffer.position() + 4 + length);
             }
+            buffer.compact();
+            if (buffer.position() >= 4) {
+                int required = 4 + buffer.getInt(0);
+                if (required > buffer.capacity()) {
+                    ByteBuffer newBuffer = ByteBuffer.allocate(Math.max(required, buffer.capacity() * 2));
+                    buffer.flip();
+                    newBuffer.put(buffer);
+                    buffer = newBuffer;
+                }
+            }
+            return count >= 0;
         }
     }
 
@@ -87,4 +211,3 @@ public class RemoteReceiver  {
         public void receiverThrewException(Throwable throwable);
     }
 }
-
@@ -15,40 +15,143 @@
  */
 package org.gradle.listener.remote;
 
-import java.lang.reflect.Proxy;
+import org.gradle.api.UncheckedIOException;
+
+import java.io.*;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.net.Socket;
-import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
-public class RemoteSender<T> {
+/**
+ * Sends listener method calls to a {@link RemoteReceiver}. The calls are sent asynchronously over a single connection,
+ * which is opened when the sender is created. Calls are queued in a bounded queue, and a caller blocks when the queue
+ * is full. Queued calls are sent in batches.
+ *
+ * <p>Any queued calls are sent when the sender is closed, or when the JVM exits.</p>
+ */
+public class RemoteSender<T> implements Closeable {
+    public static final int DEFAULT_QUEUE_CAPACITY = 1000;
+    private static final int MAX_BATCH_SIZE = 100;
+    private static final Object END_OF_STREAM = new Object();
     private final T source;
-    private final Class<T> type;
-    private final int port;
+    private final Socket socket;
+    private final DataOutputStream outputStream;
+    private final BlockingQueue<Object> queue;
+    private final Thread senderThread;
+    private final Thread shutdownHook;
+    private volatile IOException failure;
+    private volatile boolean stopped;
 
     public RemoteSender(Class<T> type, int port) throws IOException {
-        this.type = type;
-        this.port = port;
+        this(type, port, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    public RemoteSender(Class<T> type, int port, int queueCapacity) throws IOException {
+        socket = new Socket((String) null, port);
+        socket.setTcpNoDelay(true);
+        outputStream = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        queue = new ArrayBlockingQueue<Object>(queueCapacity);
         source = type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
                                                   new SenderInvocationHandler()));
+        senderThread = new Thread(new Sender(), "Remote Sender Thread");
+        senderThread.setDaemon(true);
+        senderThread.start();
+        shutdownHook = new Thread(new Runnable() {
+            public void run() {
+                stop();
+            }
+        });
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
     }
 
     public T getSource() {
         return source;
     }
 
+    /**
+     * Sends any queued calls and closes the connection.
+     */
+    public void close() throws IOException {
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // The JVM is exiting - the shutdown hook stops this sender
+        }
+        stop();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private synchronized void stop() {
+        if (stopped) {
+            return;
+        }
+        stopped = true;
+        try {
+            queue.put(END_OF_STREAM);
+            senderThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Ignore
+        }
+    }
+
     private class SenderInvocationHandler implements InvocationHandler {
         public Object invoke(Object target, Method method, Object[] arguments) throws Throwable {
-            Socket socket = new Socket((String)null, port);
-            try {
-                RemoteMessage message = new RemoteMessage(method, arguments);
-                message.send(socket.getOutputStream());
-                return null;
-            } finally {
-                socket.close();
+            if (failure != null) {
+                throw new UncheckedIOException(failure);
+            }
+            if (stopped) {
+                throw new IllegalStateException(String.format("Cannot call %s.%s() as this sender has been closed.",
+                        method.getDeclaringClass().getSimpleName(), method.getName()));
             }
+            queue.put(new RemoteMessage(method, arguments));
+            return null;
         }
     }
 
-}
+    private class Sender implements Runnable {
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
 
+        public void run() {
+            List<Object> batch = new ArrayList<Object>(MAX_BATCH_SIZE);
+            List<RemoteMessage> messages = new ArrayList<RemoteMessage>(MAX_BATCH_SIZE);
+            boolean endOfStream = false;
+            while (!endOfStream) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    break;
+                }
+                queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+                for (Object element : batch) {
+                    if (element == END_OF_STREAM) {
+                        endOfStream = true;
+                    } else {
+                        messages.add((RemoteMessage) element);
+                    }
+                }
+                if (failure == null && !messages.isEmpty()) {
+                    try {
+                        RemoteMessage.writeFrame(messages, buffer, outputStream);
+                    } catch (IOException e) {
+                        // Keep taking calls from the queue, so that callers do not block
+                        failure = e;
+                    }
+                }
+                batch.clear();
+                messages.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2010 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.logging;
+
+import java.io.PrintStream;
+import java.util.Locale;
+
+/**
+ * A {@link PrintStream} which forwards everything written to it to a stream chosen by the current thread. This allows
+ * System.out and System.err to be replaced once, and each thread to then change where its output goes without
+ * replacing them again. A thread which has not chosen a stream writes to the stream of the thread which started it,
+ * so that threads started by a task or a build script write to the same place as the task or script. Threads which
+ * have not chosen a stream and which were not started by such a thread write to the default stream.
+ */
+public class ThreadLocalPrintStream extends PrintStream {
+    private final PrintStream defaultStream;
+    private final ThreadLocal<PrintStream> target = new InheritableThreadLocal<PrintStream>();
+
+    public ThreadLocalPrintStream(PrintStream defaultStream) {
+        super(defaultStream);
+        this.defaultStream = defaultStream;
+    }
+
+    /**
+     * Returns the stream which the current thread writes to.
+     */
+    public PrintStream getTarget() {
+        PrintStream stream = target.get();
+        return stream == null ? defaultStream : stream;
+    }
+
+    /**
+     * Sets the stream which the current thread, and any threads it starts from now on, write to.
+     */
+    public void setTarget(PrintStream stream) {
+        target.set(stream == this || stream == defaultStream ? null : stream);
+    }
+
+    public void flush() {
+        getTarget().flush();
+    }
+
+    public void close() {
+        getTarget().close();
+    }
+
+    public boolean checkError() {
+        return getTarget().checkError();
+    }
+
+    public void write(int b) {
+        getTarget().write(b);
+    }
+
+    public void write(byte[] buf, int off, int len) {
+        getTarget().write(buf, off, len);
+    }
+
+    public void print(boolean b) {
+        getTarget().print(b);
+    }
+
+    public void print(char c) {
+        getTarget().print(c);
+    }
+
+    public void print(int i) {
+        getTarget().print(i);
+    }
+
+    public void print(long l) {
+        getTarget().print(l);
+    }
+
+    public void print(float f) {
+        getTarget().print(f);
+    }
+
+    public void print(double d) {
+        getTarget().print(d);
+    }
+
+    public void print(char[] s) {
+        getTarget().print(s);
+    }
+
+    public void print(String s) {
+        getTarget().print(s);
+    }
+
+    public void print(Object obj) {
+        getTarget().print(obj);
+    }
+
+    public void println() {
+        getTarget().println();
+    }
+
+    public void println(boolean x) {
+        getTarget().println(x);
+    }
+
+    public void println(char x) {
+        getTarget().println(x);
+    }
+
+    public void println(int x) {
+        getTarget().println(x);
+    }
+
+    public void println(long x) {
+        getTarget().println(x);
+    }
+
+    public void println(float x) {
+        getTarget().println(x);
+    }
+
+    public void println(double x) {
+        getTarget().println(x);
+    }
+
+    public void println(char[] x) {
+        getTarget().println(x);
+    }
+
+    public void println(String x) {
+        getTarget().println(x);
+    }
+
+    public void println(Object x) {
+        getTarget().println(x);
+    }
+
+    public PrintStream printf(String format, Object... args) {
+        getTarget().printf(format, args);
+        return this;
+    }
+
+    public PrintStream printf(Locale l, String format, Object... args) {
+        getTarget().printf(l, format, args);
+        return this;
+    }
+
+    public PrintStream format(String format, Object... args) {
+        getTarget().format(format, args);
+        return this;
+    }
+
+    public PrintStream format(Locale l, String format, Object... args) {
+        getTarget().format(l, format, args);
+        return this;
+    }
+
+    public PrintStream append(CharSequence csq) {
+        getTarget().append(csq);
+        return this;
+    }
+
+    public PrintStream append(CharSequence csq, int start, int end) {
+        getTarget().append(csq, start, end);
+        return this;
+    }
+
+    public PrintStream append(char c) {
+        getTarget().append(c);
+        return this;
+    }
+}
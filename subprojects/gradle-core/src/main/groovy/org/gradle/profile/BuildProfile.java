@@ -0,0 +1,253 @@
+/*
+ * Copyright 2010 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.profile;
+
+import java.util.*;
+
+/**
+ * The timings recorded while profiling a build. All times are in milliseconds since the epoch, or 0 when the event has
+ * not happened.
+ */
+public class BuildProfile {
+    private long buildStarted;
+    private long settingsEvaluated;
+    private long projectsLoaded;
+    private long projectsEvaluated;
+    private long buildFinished;
+    private final Map<String, ProjectProfile> projects = new LinkedHashMap<String, ProjectProfile>();
+    private final Map<String, TaskProfile> tasks = new LinkedHashMap<String, TaskProfile>();
+
+    public long getBuildStarted() {
+        return buildStarted;
+    }
+
+    public void setBuildStarted(long buildStarted) {
+        this.buildStarted = buildStarted;
+    }
+
+    public long getSettingsEvaluated() {
+        return settingsEvaluated;
+    }
+
+    public void setSettingsEvaluated(long settingsEvaluated) {
+        this.settingsEvaluated = settingsEvaluated;
+    }
+
+    public long getProjectsLoaded() {
+        return projectsLoaded;
+    }
+
+    public void setProjectsLoaded(long projectsLoaded) {
+        this.projectsLoaded = projectsLoaded;
+    }
+
+    public long getProjectsEvaluated() {
+        return projectsEvaluated;
+    }
+
+    public void setProjectsEvaluated(long projectsEvaluated) {
+        this.projectsEvaluated = projectsEvaluated;
+    }
+
+    public long getBuildFinished() {
+        return buildFinished;
+    }
+
+    public void setBuildFinished(long buildFinished) {
+        this.buildFinished = buildFinished;
+    }
+
+    /**
+     * Returns the profile of the given project, creating it if required.
+     */
+    public ProjectProfile getProject(String path) {
+        ProjectProfile project = projects.get(path);
+        if (project == null) {
+            project = new ProjectProfile(path);
+            projects.put(path, project);
+        }
+        return project;
+    }
+
+    /**
+     * Returns the profiles of the projects, in the order in which they were configured.
+     */
+    public Collection<ProjectProfile> getProjects() {
+        return projects.values();
+    }
+
+    /**
+     * Returns the profile of the given task, creating it if required.
+     */
+    public TaskProfile getTask(String path) {
+        TaskProfile task = tasks.get(path);
+        if (task == null) {
+            task = new TaskProfile(path);
+            tasks.put(path, task);
+        }
+        return task;
+    }
+
+    /**
+     * Returns the profiles of the tasks, in the order in which they started.
+     */
+    public Collection<TaskProfile> getTasks() {
+        return tasks.values();
+    }
+
+    public int getOutputCacheHits() {
+        int count = 0;
+        for (TaskProfile task : tasks.values()) {
+            if (Boolean.TRUE.equals(task.getOutputCacheHit())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int getOutputCacheMisses() {
+        int count = 0;
+        for (TaskProfile task : tasks.values()) {
+            if (Boolean.FALSE.equals(task.getOutputCacheHit())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public static class ProjectProfile {
+        private final String path;
+        private long configurationStarted;
+        private long configurationFinished;
+
+        public ProjectProfile(String path) {
+            this.path = path;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public long getConfigurationStarted() {
+            return configurationStarted;
+        }
+
+        public void setConfigurationStarted(long configurationStarted) {
+            this.configurationStarted = configurationStarted;
+        }
+
+        public long getConfigurationFinished() {
+            return configurationFinished;
+        }
+
+        public void setConfigurationFinished(long configurationFinished) {
+            this.configurationFinished = configurationFinished;
+        }
+
+        public long getConfigurationTime() {
+            return configurationFinished - configurationStarted;
+        }
+    }
+
+    public static class TaskProfile {
+        private final String path;
+        private String thread;
+        private long started;
+        private long finished;
+        private String outcome;
+        private long upToDateCheckTime;
+        private long hashingTime;
+        private Boolean outputCacheHit;
+
+        public TaskProfile(String path) {
+            this.path = path;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * Returns the name of the thread which executed the task.
+         */
+        public String getThread() {
+            return thread;
+        }
+
+        public void setThread(String thread) {
+            this.thread = thread;
+        }
+
+        public long getStarted() {
+            return started;
+        }
+
+        public void setStarted(long started) {
+            this.started = started;
+        }
+
+        public long getFinished() {
+            return finished;
+        }
+
+        public void setFinished(long finished) {
+            this.finished = finished;
+        }
+
+        public long getElapsedTime() {
+            return finished - started;
+        }
+
+        /**
+         * Returns the outcome of the task, such as EXECUTED, FAILED or UP-TO-DATE.
+         */
+        public String getOutcome() {
+            return outcome;
+        }
+
+        public void setOutcome(String outcome) {
+            this.outcome = outcome;
+        }
+
+        public long getUpToDateCheckTime() {
+            return upToDateCheckTime;
+        }
+
+        public void setUpToDateCheckTime(long upToDateCheckTime) {
+            this.upToDateCheckTime = upToDateCheckTime;
+        }
+
+        public long getHashingTime() {
+            return hashingTime;
+        }
+
+        public void setHashingTime(long hashingTime) {
+            this.hashingTime = hashingTime;
+        }
+
+        /**
+         * Returns true if the outputs of the task were restored from the output cache, false if they were not found
+         * in the cache, or null if the cache was not searched.
+         */
+        public Boolean getOutputCacheHit() {
+            return outputCacheHit;
+        }
+
+        public void setOutputCacheHit(Boolean outputCacheHit) {
+            this.outputCacheHit = outputCacheHit;
+        }
+    }
+}
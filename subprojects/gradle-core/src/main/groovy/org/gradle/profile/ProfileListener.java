@@ -0,0 +1,131 @@
+/*
+ * Copyright 2010 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.profile;
+
+import org.gradle.BuildListener;
+import org.gradle.BuildResult;
+import org.gradle.api.Project;
+import org.gradle.api.ProjectEvaluationListener;
+import org.gradle.api.Task;
+import org.gradle.api.execution.TaskExecutionListener;
+import org.gradle.api.execution.TaskExecutionResult;
+import org.gradle.api.initialization.Settings;
+import org.gradle.api.internal.changedetection.TaskArtifactStateListener;
+import org.gradle.api.invocation.Gradle;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.util.TimeProvider;
+import org.gradle.util.TrueTimeProvider;
+
+import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Records the time spent in each stage of the build, configuring each project and executing each task, and writes a
+ * report of the timings to the build directory of the root project when the build finishes. Notifications for tasks
+ * may be received from several threads at once.
+ */
+public class ProfileListener implements BuildListener, ProjectEvaluationListener, TaskExecutionListener,
+        TaskArtifactStateListener {
+    private static final Logger LOGGER = Logging.getLogger(ProfileListener.class);
+    private final BuildProfile profile = new BuildProfile();
+    private final TimeProvider timeProvider;
+    private final ProfileReportRenderer renderer = new ProfileReportRenderer();
+
+    public ProfileListener() {
+        this(new TrueTimeProvider());
+    }
+
+    public ProfileListener(TimeProvider timeProvider) {
+        this.timeProvider = timeProvider;
+        profile.setBuildStarted(timeProvider.getCurrentTime());
+    }
+
+    public BuildProfile getProfile() {
+        return profile;
+    }
+
+    public void buildStarted(Gradle gradle) {
+    }
+
+    public synchronized void settingsEvaluated(Settings settings) {
+        profile.setSettingsEvaluated(timeProvider.getCurrentTime());
+    }
+
+    public synchronized void projectsLoaded(Gradle gradle) {
+        profile.setProjectsLoaded(timeProvider.getCurrentTime());
+    }
+
+    public synchronized void beforeEvaluate(Project project) {
+        profile.getProject(project.getPath()).setConfigurationStarted(timeProvider.getCurrentTime());
+    }
+
+    public synchronized void afterEvaluate(Project project, Throwable failure) {
+        profile.getProject(project.getPath()).setConfigurationFinished(timeProvider.getCurrentTime());
+    }
+
+    public synchronized void projectsEvaluated(Gradle gradle) {
+        profile.setProjectsEvaluated(timeProvider.getCurrentTime());
+    }
+
+    public synchronized void beforeExecute(Task task) {
+        BuildProfile.TaskProfile taskProfile = profile.getTask(task.getPath());
+        taskProfile.setThread(Thread.currentThread().getName());
+        taskProfile.setStarted(timeProvider.getCurrentTime());
+    }
+
+    public synchronized void upToDateChecked(Task task, boolean upToDate, long checkTime) {
+        profile.getTask(task.getPath()).setUpToDateCheckTime(checkTime);
+    }
+
+    public synchronized void outputCacheChecked(Task task, boolean hit) {
+        profile.getTask(task.getPath()).setOutputCacheHit(hit);
+    }
+
+    public synchronized void filesHashed(Task task, long hashingTime) {
+        profile.getTask(task.getPath()).setHashingTime(hashingTime);
+    }
+
+    public synchronized void afterExecute(Task task, TaskExecutionResult result) {
+        BuildProfile.TaskProfile taskProfile = profile.getTask(task.getPath());
+        taskProfile.setFinished(timeProvider.getCurrentTime());
+        if (result.getFailure() != null) {
+            taskProfile.setOutcome("FAILED");
+        } else if (result.getSkipMessage() != null) {
+            taskProfile.setOutcome(result.getSkipMessage());
+        } else {
+            taskProfile.setOutcome("EXECUTED");
+        }
+    }
+
+    public synchronized void buildFinished(BuildResult result) {
+        profile.setBuildFinished(timeProvider.getCurrentTime());
+        Gradle gradle = result.getGradle();
+        if (gradle == null || gradle.getRootProject() == null) {
+            return;
+        }
+
+        File reportDir = new File(gradle.getRootProject().getBuildDir(), "reports/profile");
+        String baseName = "profile-" + new SimpleDateFormat("yyyy-MM-dd-HH-mm-ss").format(new Date(
+                profile.getBuildStarted()));
+        File jsonFile = new File(reportDir, baseName + ".json");
+        File htmlFile = new File(reportDir, baseName + ".html");
+        renderer.writeJson(profile, jsonFile);
+        renderer.writeHtml(profile, htmlFile);
+        LOGGER.lifecycle(String.format("Profile report written to %s", htmlFile));
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2010 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.profile;
+
+import org.gradle.api.UncheckedIOException;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Writes a {@link BuildProfile} as a JSON document, for tools to compare builds, or as an HTML page containing a
+ * summary, the configuration time of each project and a timeline of the task executions. Times in the reports are
+ * in milliseconds, and the start time of each task is relative to the start of the build.
+ */
+public class ProfileReportRenderer {
+    public void writeJson(BuildProfile profile, File file) {
+        PrintWriter writer = open(file);
+        try {
+            writer.println("{");
+            writer.format("  \"buildStarted\": %d,%n", profile.getBuildStarted());
+            writeSummary(profile, writer);
+            writer.println("  \"projects\": [");
+            String separator = "";
+            for (BuildProfile.ProjectProfile project : profile.getProjects()) {
+                writer.print(separator);
+                writer.format("    {\"path\": %s, \"started\": %d, \"configurationTime\": %d}", quote(
+                        project.getPath()), project.getConfigurationStarted() - profile.getBuildStarted(),
+                        project.getConfigurationTime());
+                separator = String.format(",%n");
+            }
+            writer.format("%n  ],%n");
+            writer.println("  \"tasks\": [");
+            separator = "";
+            for (BuildProfile.TaskProfile task : profile.getTasks()) {
+                writer.print(separator);
+                writer.format(
+                        "    {\"path\": %s, \"thread\": %s, \"started\": %d, \"elapsedTime\": %d, \"outcome\": %s, "
+                                + "\"upToDateCheckTime\": %d, \"hashingTime\": %d, \"outputCacheHit\": %s}",
+                        quote(task.getPath()), quote(task.getThread()), task.getStarted() - profile.getBuildStarted(),
+                        task.getElapsedTime(), quote(task.getOutcome()), task.getUpToDateCheckTime(),
+                        task.getHashingTime(), task.getOutputCacheHit());
+                separator = String.format(",%n");
+            }
+            writer.format("%n  ]%n");
+            writer.println("}");
+        } finally {
+            close(writer, file);
+        }
+    }
+
+    public void writeHtml(BuildProfile profile, File file) {
+        long totalTime = Math.max(1, profile.getBuildFinished() - profile.getBuildStarted());
+        PrintWriter writer = open(file);
+        try {
+            writer.println("<html><head><title>Profile report</title><style type=\"text/css\">");
+            writer.println("body { font-family: sans-serif; font-size: 12px; }");
+            writer.println("table { border-collapse: collapse; margin-bottom: 20px; }");
+            writer.println("th, td { border: 1px solid #ccc; padding: 2px 6px; text-align: left; }");
+            writer.println(".numeric { text-align: right; }");
+            writer.println(".timeline { position: relative; width: 400px; }");
+            writer.println(".bar { position: absolute; top: 2px; bottom: 2px; background: #69c; min-width: 1px; }");
+            writer.println("</style></head><body>");
+
+            writer.println("<h2>Summary</h2><table>");
+            writeRow(writer, "Total build time", profile.getBuildFinished() - profile.getBuildStarted());
+            writeRow(writer, "Settings", elapsed(profile.getBuildStarted(), profile.getSettingsEvaluated()));
+            writeRow(writer, "Loading projects", elapsed(profile.getSettingsEvaluated(), profile.getProjectsLoaded()));
+            writeRow(writer, "Configuring projects", elapsed(profile.getProjectsLoaded(),
+                    profile.getProjectsEvaluated()));
+            writeRow(writer, "Executing tasks", elapsed(profile.getProjectsEvaluated(), profile.getBuildFinished()));
+            writeRow(writer, "Up-to-date checks", getTotalUpToDateCheckTime(profile));
+            writeRow(writer, "Hashing", getTotalHashingTime(profile));
+            writer.format("<tr><th>Output cache hits / misses</th><td class=\"numeric\">%d / %d</td></tr>%n",
+                    profile.getOutputCacheHits(), profile.getOutputCacheMisses());
+            writer.println("</table>");
+
+            List<BuildProfile.ProjectProfile> projects = new ArrayList<BuildProfile.ProjectProfile>(
+                    profile.getProjects());
+            Collections.sort(projects, new Comparator<BuildProfile.ProjectProfile>() {
+                public int compare(BuildProfile.ProjectProfile o1, BuildProfile.ProjectProfile o2) {
+                    return Long.valueOf(o2.getConfigurationTime()).compareTo(o1.getConfigurationTime());
+                }
+            });
+            writer.println("<h2>Project configuration</h2><table>");
+            writer.println("<tr><th>Project</th><th>Time (ms)</th></tr>");
+            for (BuildProfile.ProjectProfile project : projects) {
+                writer.format("<tr><td>%s</td><td class=\"numeric\">%d</td></tr>%n", escape(project.getPath()),
+                        project.getConfigurationTime());
+            }
+            writer.println("</table>");
+
+            writer.println("<h2>Task execution</h2><table>");
+            writer.println("<tr><th>Task</th><th>Thread</th><th>Outcome</th><th>Time (ms)</th>"
+                    + "<th>Up-to-date check (ms)</th><th>Hashing (ms)</th><th>Timeline</th></tr>");
+            for (BuildProfile.TaskProfile task : profile.getTasks()) {
+                double left = 100.0 * (task.getStarted() - profile.getBuildStarted()) / totalTime;
+                double width = 100.0 * task.getElapsedTime() / totalTime;
+                writer.format(Locale.US, "<tr><td>%s</td><td>%s</td><td>%s</td><td class=\"numeric\">%d</td>"
+                        + "<td class=\"numeric\">%d</td><td class=\"numeric\">%d</td>"
+                        + "<td class=\"timeline\"><div class=\"bar\" style=\"left: %.2f%%; width: %.2f%%\"></div>"
+                        + "</td></tr>%n", escape(task.getPath()), escape(task.getThread()), escape(task.getOutcome()),
+                        task.getElapsedTime(), task.getUpToDateCheckTime(), task.getHashingTime(), left, width);
+            }
+            writer.println("</table>");
+            writer.println("</body></html>");
+        } finally {
+            close(writer, file);
+        }
+    }
+
+    private void writeSummary(BuildProfile profile, PrintWriter writer) {
+        writer.format("  \"totalTime\": %d,%n", profile.getBuildFinished() - profile.getBuildStarted());
+        writer.format("  \"settingsTime\": %d,%n", elapsed(profile.getBuildStarted(), profile.getSettingsEvaluated()));
+        writer.format("  \"loadingTime\": %d,%n", elapsed(profile.getSettingsEvaluated(),
+                profile.getProjectsLoaded()));
+        writer.format("  \"configurationTime\": %d,%n", elapsed(profile.getProjectsLoaded(),
+                profile.getProjectsEvaluated()));
+        writer.format("  \"executionTime\": %d,%n", elapsed(profile.getProjectsEvaluated(),
+                profile.getBuildFinished()));
+        writer.format("  \"upToDateCheckTime\": %d,%n", getTotalUpToDateCheckTime(profile));
+        writer.format("  \"hashingTime\": %d,%n", getTotalHashingTime(profile));
+        writer.format("  \"outputCacheHits\": %d,%n", profile.getOutputCacheHits());
+        writer.format("  \"outputCacheMisses\": %d,%n", profile.getOutputCacheMisses());
+    }
+
+    private static long elapsed(long start, long end) {
+        return start == 0 || end == 0 ? 0 : end - start;
+    }
+
+    private static long getTotalUpToDateCheckTime(BuildProfile profile) {
+        long total = 0;
+        for (BuildProfile.TaskProfile task : profile.getTasks()) {
+            total += task.getUpToDateCheckTime();
+        }
+        return total;
+    }
+
+    private static long getTotalHashingTime(BuildProfile profile) {
+        long total = 0;
+        for (BuildProfile.TaskProfile task : profile.getTasks()) {
+            total += task.getHashingTime();
+        }
+        return total;
+    }
+
+    private static void writeRow(PrintWriter writer, String name, long time) {
+        writer.format("<tr><th>%s</th><td class=\"numeric\">%d ms</td></tr>%n", name, time);
+    }
+
+    private static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder builder = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch == '"' || ch == '\\') {
+                builder.append('\\').append(ch);
+            } else if (ch < 0x20) {
+                builder.append(String.format("\\u%04x", (int) ch));
+            } else {
+                builder.append(ch);
+            }
+        }
+        return builder.append('"').toString();
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    private static PrintWriter open(File file) {
+        file.getParentFile().mkdirs();
+        try {
+            return new PrintWriter(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8")));
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Could not write profile report '%s'.", file), e);
+        }
+    }
+
+    private static void close(PrintWriter writer, File file) {
+        writer.close();
+        if (writer.checkError()) {
+            throw new UncheckedIOException(String.format("Could not write profile report '%s'.", file));
+        }
+    }
+}
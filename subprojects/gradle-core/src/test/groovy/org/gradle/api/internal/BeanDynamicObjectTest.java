@@ -0,0 +1,62 @@
+/*
+ * Copyright 2010 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal;
+
+import groovy.lang.ExpandoMetaClass;
+import groovy.lang.Script;
+import org.gradle.util.HelperUtil;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+public class BeanDynamicObjectTest {
+    @Test
+    public void beansOfSameClassShareLookups() {
+        BeanDynamicObject first = new BeanDynamicObject(new DynamicObjectHelperTest.Bean());
+        BeanDynamicObject second = new BeanDynamicObject(new DynamicObjectHelperTest.Bean());
+
+        assertTrue(first.hasProperty("readOnlyProperty"));
+        assertFalse(first.hasProperty("unknown"));
+        assertTrue(first.hasMethod("javaMethod", "a", "b"));
+        assertFalse(first.hasMethod("javaMethod", "a"));
+
+        assertTrue(second.hasProperty("readOnlyProperty"));
+        assertFalse(second.hasProperty("unknown"));
+        assertTrue(second.hasMethod("javaMethod", "a", "b"));
+        assertFalse(second.hasMethod("javaMethod", "a"));
+        assertThat(second.invokeMethod("javaMethod", "a", "b"), equalTo((Object) "java:a.b"));
+        assertThat(second.invokeMethod("javaMethod", null, "b"), equalTo((Object) "java:null.b"));
+    }
+
+    @Test
+    public void seesPropertiesAndMethodsAddedWhenMetaClassIsReplaced() {
+        Script script = HelperUtil.createScript("def scriptMethod(a, b) { \"script:$a.$b\" }");
+        BeanDynamicObject object = new BeanDynamicObject(script);
+
+        assertFalse(object.hasProperty("added"));
+        assertTrue(object.hasMethod("scriptMethod", "a", "b"));
+
+        ExpandoMetaClass metaClass = new ExpandoMetaClass(script.getClass(), false);
+        metaClass.registerBeanProperty("added", "value");
+        metaClass.initialize();
+        script.setMetaClass(metaClass);
+
+        assertTrue(object.hasProperty("added"));
+        assertThat(object.getProperty("added"), equalTo((Object) "value"));
+        assertTrue(object.hasMethod("scriptMethod", "a", "b"));
+    }
+}
@@ -50,7 +50,7 @@ public class CachingHasherTest {
     public void setup() {
         context.checking(new Expectations(){{
             one(cacheRepository).getIndexedGlobalCache(with(equalTo("fileHashes")), with(equalTo(Collections.EMPTY_MAP)), with(notNullValue(
-                    Serializer.class)));
+                    Serializer.class)), with(equalTo(true)));
             will(returnValue(cache));
         }});
         hasher = new CachingHasher(delegate, cacheRepository);
@@ -98,6 +98,47 @@ public class CachingHasherTest {
         assertThat(hasher.hash(file), sameInstance(hash));
     }
 
+    @Test
+    public void doesNotLookupPersistentCacheWhenHashIsInMemory() {
+        context.checking(new Expectations() {{
+            one(cache).get(file);
+            will(returnValue(null));
+            one(delegate).hash(file);
+            will(returnValue(hash));
+            one(cache).put(with(equalTo(file)), with(notNullValue(CachingHasher.FileInfo.class)));
+        }});
+
+        assertThat(hasher.hash(file), sameInstance(hash));
+        assertThat(hasher.hash(file), sameInstance(hash));
+    }
+
+    @Test
+    public void hashesFileWhenInMemoryHashIsOutOfDate() {
+        final byte[] newHash = "new hash".getBytes();
+
+        context.checking(new Expectations() {{
+            one(cache).get(file);
+            will(returnValue(null));
+            one(delegate).hash(file);
+            will(returnValue(hash));
+            one(cache).put(with(equalTo(file)), with(notNullValue(CachingHasher.FileInfo.class)));
+        }});
+
+        assertThat(hasher.hash(file), sameInstance(hash));
+
+        file.write("new content");
+
+        context.checking(new Expectations() {{
+            one(cache).get(file);
+            will(returnValue(null));
+            one(delegate).hash(file);
+            will(returnValue(newHash));
+            one(cache).put(with(equalTo(file)), with(notNullValue(CachingHasher.FileInfo.class)));
+        }});
+
+        assertThat(hasher.hash(file), sameInstance(newHash));
+    }
+
     @Test
     public void doesNotHashFileWhenTimestampAndLengthHaveNotChanged() {
         context.checking(new Expectations() {{
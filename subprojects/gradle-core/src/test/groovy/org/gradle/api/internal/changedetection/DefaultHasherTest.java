@@ -0,0 +1,65 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection;
+
+import org.gradle.integtests.TestFile;
+import org.gradle.util.HashUtil;
+import org.gradle.util.TemporaryFolder;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class DefaultHasherTest {
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+    private final DefaultHasher hasher = new DefaultHasher();
+
+    @Test
+    public void calculatesMd5HashOfFile() {
+        TestFile file = tmpDir.file("file").write("some content");
+
+        assertThat(hasher.hash(file), equalTo(HashUtil.createHash(file)));
+    }
+
+    @Test
+    public void calculatesHashOfFileLargerThanBuffer() {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            content.append("line ").append(i).append('\n');
+        }
+        TestFile file = tmpDir.file("file").write(content.toString());
+
+        assertThat(hasher.hash(file), equalTo(HashUtil.createHash(file)));
+    }
+
+    @Test
+    public void calculatesHashOfEmptyFile() {
+        TestFile file = tmpDir.file("file").write("");
+
+        assertThat(hasher.hash(file), equalTo(HashUtil.createHash(file)));
+    }
+
+    @Test
+    public void reusesStateBetweenFiles() {
+        TestFile file1 = tmpDir.file("file1").write("content 1");
+        TestFile file2 = tmpDir.file("file2").write("content 2");
+
+        assertThat(hasher.hash(file1), equalTo(HashUtil.createHash(file1)));
+        assertThat(hasher.hash(file2), equalTo(HashUtil.createHash(file2)));
+        assertThat(hasher.hash(file1), equalTo(HashUtil.createHash(file1)));
+    }
+}
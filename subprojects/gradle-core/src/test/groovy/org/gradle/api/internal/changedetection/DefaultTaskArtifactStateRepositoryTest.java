@@ -23,21 +23,25 @@ import org.gradle.api.tasks.TaskInputs;
 import org.gradle.api.tasks.TaskOutputs;
 import org.gradle.cache.CacheRepository;
 import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.cache.Serializer;
 import org.gradle.integtests.TestFile;
 import org.gradle.util.TemporaryFolder;
 import org.jmock.Expectations;
+import org.jmock.api.Invocation;
 import org.jmock.integration.junit4.JMock;
 import org.jmock.integration.junit4.JUnit4Mockery;
+import org.jmock.lib.action.CustomAction;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
-import java.io.File;
+import java.io.*;
 import java.util.*;
 
 import static java.util.Collections.*;
 import static org.gradle.util.WrapUtil.*;
+import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.*;
 
 @RunWith(JMock.class)
@@ -59,6 +63,8 @@ public class DefaultTaskArtifactStateRepositoryTest {
     private final Set<TestFile> outputFiles = toSet(outputFile, outputDir, emptyOutputDir, missingOutputFile);
     private final Hasher hasher = new DefaultHasher();
     private int counter;
+    private TestIndexedCache historyCache;
+    private TestIndexedCache ownersCache;
     private final DefaultTaskArtifactStateRepository repository = new DefaultTaskArtifactStateRepository(cacheRepository,
             hasher);
 
@@ -315,6 +321,93 @@ public class DefaultTaskArtifactStateRepositoryTest {
         assertFalse(state.isUpToDate());
     }
 
+    @Test
+    public void checksHistoryUsingASingleLookupRegardlessOfTheNumberOfOutputFiles() {
+        writeTaskState();
+        historyCache.lookups = 0;
+        ownersCache.lookups = 0;
+
+        TaskArtifactState state = repository.getStateFor(task());
+        assertTrue(state.isUpToDate());
+        assertThat(historyCache.lookups, equalTo(1));
+        assertThat(ownersCache.lookups, equalTo(0));
+    }
+
+    @Test
+    public void discardsHistoryWrittenInAnUnknownFormat() throws IOException {
+        writeTaskState();
+        ByteArrayOutputStream outstr = new ByteArrayOutputStream();
+        ObjectOutputStream objectStr = new ObjectOutputStream(outstr);
+        objectStr.writeObject("old format");
+        objectStr.close();
+        for (Object key : historyCache.entries.keySet()) {
+            historyCache.entries.put(key, outstr.toByteArray());
+        }
+        for (Object key : ownersCache.entries.keySet()) {
+            ownersCache.entries.put(key, outstr.toByteArray());
+        }
+
+        TaskArtifactState state = repository.getStateFor(task());
+        assertFalse(state.isUpToDate());
+        state.update();
+
+        state = repository.getStateFor(task());
+        assertTrue(state.isUpToDate());
+    }
+
+    @Test
+    public void cacheKeyIsTheSameForTasksWithTheSameTypeInputsAndOutputs() {
+        expectEmptyCacheLocated();
+        TaskInternal task1 = builder().withInputFiles(inputFile, missingInputFile).task();
+        TaskInternal task2 = builder().withPath("other").withInputFiles(inputFile, missingInputFile).task();
+
+        String key = repository.getStateFor(task1).getCacheKey();
+        assertThat(key, notNullValue());
+        assertThat(repository.getStateFor(task2).getCacheKey(), equalTo(key));
+    }
+
+    @Test
+    public void cacheKeyChangesWhenAnyInputFileChanges() {
+        expectEmptyCacheLocated();
+        String key = repository.getStateFor(builder().withInputFiles(inputFile).task()).getCacheKey();
+
+        inputFile.write("new content");
+
+        assertThat(repository.getStateFor(builder().withInputFiles(inputFile).task()).getCacheKey(), not(equalTo(key)));
+    }
+
+    @Test
+    public void cacheKeyChangesWhenTaskTypeOrOutputFilesChange() {
+        expectEmptyCacheLocated();
+        String key = repository.getStateFor(builder().withInputFiles(inputFile).task()).getCacheKey();
+
+        TaskInternal task = builder().withInputFiles(inputFile).withType(TaskSubType.class).task();
+        assertThat(repository.getStateFor(task).getCacheKey(), not(equalTo(key)));
+        task = builder().withInputFiles(inputFile).withOutputFiles(outputFile).task();
+        assertThat(repository.getStateFor(task).getCacheKey(), not(equalTo(key)));
+    }
+
+    @Test
+    public void cacheKeyIsNullWhenAnyInputFileIsADirectory() {
+        expectEmptyCacheLocated();
+        assertThat(repository.getStateFor(task()).getCacheKey(), nullValue());
+    }
+
+    @Test
+    public void cacheKeyIsNullWhenTaskDoesNotAcceptAnyInputs() {
+        expectEmptyCacheLocated();
+        assertThat(repository.getStateFor(builder().doesNotAcceptInput().task()).getCacheKey(), nullValue());
+    }
+
+    @Test
+    public void cacheKeyIsNullWhenSomeOtherTaskGeneratesAnyOutputFile() {
+        TaskInternal task1 = builder().withInputFiles(inputFile).task();
+        TaskInternal task2 = builder().withPath("other").withInputFiles(inputFile).withOutputFiles(outputDir).task();
+        writeTaskState(task1, task2);
+
+        assertThat(repository.getStateFor(task1).getCacheKey(), nullValue());
+    }
+
     private void writeTaskState() {
         writeTaskState(task());
     }
@@ -327,10 +420,23 @@ public class DefaultTaskArtifactStateRepositoryTest {
     }
     
     private void expectEmptyCacheLocated() {
+        historyCache = expectEmptyCacheLocated("taskArtifacts");
+        ownersCache = expectEmptyCacheLocated("outputFileOwners");
+    }
+
+    private TestIndexedCache expectEmptyCacheLocated(final String key) {
+        final TestIndexedCache cache = new TestIndexedCache();
         context.checking(new Expectations(){{
-            one(cacheRepository).getIndexedCacheFor(gradle, "taskArtifacts", EMPTY_MAP);
-            will(returnValue(new TestIndexedCache()));
+            one(cacheRepository).getIndexedCacheFor(with(equalTo(gradle)), with(equalTo(key)), with(equalTo(
+                    EMPTY_MAP)), with(notNullValue(Serializer.class)));
+            will(new CustomAction("create cache") {
+                public Object invoke(Invocation invocation) throws Throwable {
+                    cache.serializer = (Serializer<Object>) invocation.getParameter(3);
+                    return cache;
+                }
+            });
         }});
+        return cache;
     }
 
     private TaskInternal task() {
@@ -407,18 +513,35 @@ public class DefaultTaskArtifactStateRepositoryTest {
     public interface TaskSubType extends TaskInternal {
     }
 
-    public static class TestIndexedCache implements PersistentIndexedCache<File, Object> {
-        Map<File, Object> entries = new HashMap<File, Object>();
-
-        public Object get(File key) {
-            return entries.get(key);
+    public static class TestIndexedCache implements PersistentIndexedCache<Object, Object> {
+        Map<Object, byte[]> entries = new HashMap<Object, byte[]>();
+        Serializer<Object> serializer;
+        int lookups;
+
+        public Object get(Object key) {
+            lookups++;
+            byte[] value = entries.get(key);
+            if (value == null) {
+                return null;
+            }
+            try {
+                return serializer.read(new ByteArrayInputStream(value));
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
         }
 
-        public void put(File key, Object value) {
-            entries.put(key, value);
+        public void put(Object key, Object value) {
+            ByteArrayOutputStream outstr = new ByteArrayOutputStream();
+            try {
+                serializer.write(outstr, value);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+            entries.put(key, outstr.toByteArray());
         }
 
-        public void remove(File key) {
+        public void remove(Object key) {
             entries.remove(key);
         }
     }
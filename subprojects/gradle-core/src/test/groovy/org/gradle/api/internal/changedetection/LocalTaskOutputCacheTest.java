@@ -0,0 +1,126 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection;
+
+import org.gradle.integtests.TestFile;
+import org.gradle.util.TemporaryFolder;
+import org.gradle.util.WrapUtil;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+
+public class LocalTaskOutputCacheTest {
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+    private final TestFile cacheDir = tmpDir.getDir().file("cache");
+    private final TestFile outputDir = tmpDir.dir("output-dir");
+    private final TestFile outputFile = tmpDir.getDir().file("output-file");
+    private final TestFile missingOutputFile = tmpDir.getDir().file("missing-output-file");
+    private final List<File> outputFiles = WrapUtil.<File>toList(outputFile, outputDir, missingOutputFile);
+    private final LocalTaskOutputCache cache = new LocalTaskOutputCache(cacheDir);
+
+    @Test
+    public void restoresNothingWhenNoOutputsStoredForKey() {
+        assertFalse(cache.restore("key", outputFiles));
+    }
+
+    @Test
+    public void restoresStoredOutputFiles() {
+        outputFile.write("file");
+        outputDir.file("a/b.txt").write("b");
+        outputDir.file("empty").createDir();
+        cache.store("key", outputFiles);
+
+        outputFile.delete();
+        outputDir.deleteDir();
+
+        assertTrue(cache.restore("key", outputFiles));
+        outputFile.assertContents(equalTo("file"));
+        outputDir.file("a/b.txt").assertContents(equalTo("b"));
+        outputDir.file("empty").assertIsDir();
+        missingOutputFile.assertDoesNotExist();
+    }
+
+    @Test
+    public void deletesStaleFilesInOutputDirectoryBeforeRestoring() {
+        outputFile.write("file");
+        outputDir.file("a.txt").write("a");
+        cache.store("key", outputFiles);
+
+        outputDir.file("a.txt").write("changed");
+        outputDir.file("stale.txt").write("stale");
+        outputDir.file("stale-dir/b.txt").write("b");
+
+        assertTrue(cache.restore("key", outputFiles));
+        outputDir.file("a.txt").assertContents(equalTo("a"));
+        outputDir.file("stale.txt").assertDoesNotExist();
+        outputDir.file("stale-dir").assertDoesNotExist();
+    }
+
+    @Test
+    public void deletesOutputsWhichWereMissingWhenStored() {
+        outputFile.write("file");
+        cache.store("key", outputFiles);
+
+        missingOutputFile.write("stale");
+        outputDir.file("stale.txt").write("stale");
+
+        assertTrue(cache.restore("key", outputFiles));
+        missingOutputFile.assertDoesNotExist();
+        outputDir.assertIsDir();
+        outputDir.file("stale.txt").assertDoesNotExist();
+    }
+
+    @Test
+    public void doesNotRestoreOutputFilesStoredForADifferentSetOfOutputFiles() {
+        outputFile.write("file");
+        cache.store("key", outputFiles);
+
+        assertFalse(cache.restore("key", WrapUtil.<File>toList(outputFile)));
+    }
+
+    @Test
+    public void discardsEntryWhichCannotBeRead() {
+        outputFile.write("file");
+        cache.store("key", outputFiles);
+        cacheDir.file("key.zip").write("broken");
+
+        assertFalse(cache.restore("key", outputFiles));
+        cacheDir.file("key.zip").assertDoesNotExist();
+    }
+
+    @Test
+    public void discardsLeastRecentlyUsedEntriesWhenCacheGrowsBeyondMaximumSize() {
+        outputFile.write("file");
+        cache.store("key1", outputFiles);
+        long entrySize = cacheDir.file("key1.zip").length();
+        LocalTaskOutputCache cache = new LocalTaskOutputCache(cacheDir, 2 * entrySize);
+
+        cache.store("key2", outputFiles);
+        cacheDir.file("key1.zip").setLastModified(System.currentTimeMillis() - 20000);
+        cacheDir.file("key2.zip").setLastModified(System.currentTimeMillis() - 30000);
+        assertTrue(cache.restore("key2", outputFiles));
+        cache.store("key3", outputFiles);
+
+        cacheDir.file("key1.zip").assertDoesNotExist();
+        cacheDir.file("key2.zip").assertIsFile();
+        cacheDir.file("key3.zip").assertIsFile();
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection;
+
+import org.gradle.util.TemporaryFolder;
+import static org.gradle.util.WrapUtil.*;
+import static org.hamcrest.Matchers.*;
+import org.jmock.Expectations;
+import org.jmock.integration.junit4.JMock;
+import org.jmock.integration.junit4.JUnit4Mockery;
+import static org.junit.Assert.*;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@RunWith(JMock.class)
+public class ParallelHasherTest {
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+    private final JUnit4Mockery context = new JUnit4Mockery();
+    private final Hasher delegate = context.mock(Hasher.class);
+    private final ParallelHasher hasher = new ParallelHasher(delegate, 4);
+
+    @Test
+    public void delegatesSingleFileToHasher() {
+        final File file = tmpDir.file("file").write("content");
+        final byte[] hash = "hash".getBytes();
+
+        context.checking(new Expectations() {{
+            one(delegate).hash(file);
+            will(returnValue(hash));
+        }});
+
+        assertThat(hasher.hash(file), sameInstance(hash));
+    }
+
+    @Test
+    public void hashesEachFileOfCollectionOnce() {
+        final File file1 = tmpDir.file("file1").write("content 1");
+        final File file2 = tmpDir.file("file2").write("content 2");
+        final byte[] hash1 = "hash1".getBytes();
+        final byte[] hash2 = "hash2".getBytes();
+
+        context.checking(new Expectations() {{
+            one(delegate).hash(file1);
+            will(returnValue(hash1));
+            one(delegate).hash(file2);
+            will(returnValue(hash2));
+        }});
+
+        Map<File, byte[]> hashes = hasher.hash(toList(file1, file2, file1));
+        assertThat(hashes.size(), equalTo(2));
+        assertThat(hashes.get(file1), sameInstance(hash1));
+        assertThat(hashes.get(file2), sameInstance(hash2));
+    }
+
+    @Test
+    public void rethrowsHashingFailure() {
+        final File file = tmpDir.getDir().file("missing");
+        final RuntimeException failure = new RuntimeException();
+
+        context.checking(new Expectations() {{
+            one(delegate).hash(file);
+            will(throwException(failure));
+        }});
+
+        try {
+            hasher.hash(toList(file));
+            fail();
+        } catch (RuntimeException e) {
+            assertThat(e, sameInstance(failure));
+        }
+    }
+
+    @Test
+    public void calculatesSameHashesAsDelegate() {
+        DefaultHasher defaultHasher = new DefaultHasher();
+        ParallelHasher hasher = new ParallelHasher(defaultHasher, 4);
+        List<File> files = new ArrayList<File>();
+        for (int i = 0; i < 50; i++) {
+            files.add(tmpDir.file("file" + i).write("content " + i));
+        }
+
+        Map<File, byte[]> hashes = hasher.hash(files);
+
+        assertThat(hashes.size(), equalTo(50));
+        for (File file : files) {
+            assertThat(hashes.get(file), equalTo(defaultHasher.hash(file)));
+        }
+    }
+
+    @Test
+    public void hashesFilesOnCallingThreadWhenBuildHasFinished() {
+        final File file1 = tmpDir.file("file1").write("content 1");
+        final File file2 = tmpDir.file("file2").write("content 2");
+        final byte[] hash1 = "hash1".getBytes();
+        final byte[] hash2 = "hash2".getBytes();
+
+        context.checking(new Expectations() {{
+            one(delegate).hash(file1);
+            will(returnValue(hash1));
+            one(delegate).hash(file2);
+            will(returnValue(hash2));
+        }});
+
+        hasher.buildFinished(null);
+
+        Map<File, byte[]> hashes = hasher.hash(toList(file1, file2));
+        assertThat(hashes.get(file1), sameInstance(hash1));
+        assertThat(hashes.get(file2), sameInstance(hash2));
+    }
+
+    @Test
+    public void leavesProvidedExecutorRunningWhenStopped() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            new ParallelHasher(delegate, executor).stop();
+
+            assertFalse(executor.isShutdown());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2010 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection;
+
+import static org.hamcrest.Matchers.*;
+import org.jmock.Expectations;
+import org.jmock.api.Action;
+import org.jmock.api.Invocation;
+import org.jmock.integration.junit4.JMock;
+import org.jmock.integration.junit4.JUnit4Mockery;
+import static org.junit.Assert.*;
+import org.hamcrest.Description;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicLong;
+
+@RunWith(JMock.class)
+public class TimingHasherTest {
+    private final JUnit4Mockery context = new JUnit4Mockery();
+    private final Hasher delegate = context.mock(Hasher.class);
+    private final TimingHasher hasher = new TimingHasher(delegate);
+
+    @Test
+    public void delegatesToHasher() {
+        final File file = new File("file");
+        final byte[] hash = "hash".getBytes();
+
+        context.checking(new Expectations() {{
+            one(delegate).hash(file);
+            will(returnValue(hash));
+        }});
+
+        assertThat(hasher.hash(file), sameInstance(hash));
+    }
+
+    @Test
+    public void recordsHashingTimeOfCurrentThread() throws InterruptedException {
+        final File file = new File("file");
+
+        context.checking(new Expectations() {{
+            one(delegate).hash(file);
+            will(sleep(100));
+        }});
+
+        assertThat(hasher.getHashingTime(), equalTo(0L));
+        hasher.hash(file);
+        assertThat(hasher.getHashingTime(), greaterThanOrEqualTo(90L));
+
+        final AtomicLong otherThreadTime = new AtomicLong(-1);
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                otherThreadTime.set(hasher.getHashingTime());
+            }
+        };
+        thread.start();
+        thread.join();
+        assertThat(otherThreadTime.get(), equalTo(0L));
+    }
+
+    private Action sleep(final long millis) {
+        return new Action() {
+            public Object invoke(Invocation invocation) throws Throwable {
+                Thread.sleep(millis);
+                return "hash".getBytes();
+            }
+
+            public void describeTo(Description description) {
+                description.appendText("sleep");
+            }
+        };
+    }
+}
@@ -20,6 +20,7 @@ import org.gradle.integtests.TestFile;
 import org.gradle.util.TemporaryFolder;
 import org.gradle.util.GFileUtils;
 import static org.junit.Assert.*;
+import static org.hamcrest.Matchers.equalTo;
 import org.junit.Rule;
 import org.junit.Test;
 
@@ -48,6 +49,27 @@ public class AbstractFileTreeElementTest {
         assertTrue(element.needsCopy(dest));
     }
 
+    @Test public void copiesContentDirectlyFromSourceFile() {
+        TestFile source = tmpDir.getDir().file("src").write("content");
+        TestFile dest = tmpDir.getDir().file("dir/dest");
+
+        TestFileTreeElement element = new TestFileTreeElement(source) {
+            @Override
+            public File getSourceFile() {
+                return getFile();
+            }
+
+            @Override
+            public InputStream open() {
+                throw new UnsupportedOperationException();
+            }
+        };
+
+        assertTrue(element.copyTo(dest));
+        dest.assertContents(equalTo("content"));
+        assertEquals(source.lastModified(), dest.lastModified());
+    }
+
     private class TestFileTreeElement extends AbstractFileTreeElement {
         private final TestFile file;
 
@@ -20,6 +20,8 @@ import org.gradle.api.file.RelativePath;
 import org.gradle.api.internal.file.copy.CopySpecVisitor;
 import org.gradle.api.specs.Spec;
 import org.gradle.api.tasks.util.PatternSet;
+import org.gradle.integtests.TestFile;
+import org.gradle.util.TemporaryFolder;
 import org.hamcrest.BaseMatcher;
 import org.hamcrest.Description;
 import org.hamcrest.Matcher;
@@ -32,6 +34,7 @@ import org.jmock.integration.junit4.JMock;
 import org.jmock.integration.junit4.JUnit4Mockery;
 import org.jmock.lib.legacy.ClassImposteriser;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
@@ -42,6 +45,8 @@ import java.util.List;
 
 @RunWith(JMock.class)
 public class DefaultDirectoryWalkerTest {
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
     private JUnit4Mockery context = new JUnit4Mockery() {{
         setImposteriser(ClassImposteriser.INSTANCE);
     }};
@@ -179,6 +184,23 @@ public class DefaultDirectoryWalkerTest {
         walker.start(root.getMock());
     }
 
+    @Test public void walksDirectoriesUsingSnapshots() {
+        walker = new DefaultDirectoryWalker(visitor, new DirectorySnapshotCache());
+
+        TestFile root = tmpDir.dir("root");
+        root.file("rootFile1").touch();
+        root.file("dir1/dirFile1").touch();
+
+        final Sequence visiting = context.sequence("visiting");
+        context.checking(new Expectations() {{
+            one(visitor).visitFile(with(path("rootFile1"))); inSequence(visiting);
+            one(visitor).visitDir(with(path("dir1"))); inSequence(visiting);
+            one(visitor).visitFile(with(path("dir1/dirFile1"))); inSequence(visiting);
+        }});
+
+        walker.start(root);
+    }
+
     private Action stopVisiting() {
         return new Action() {
             public void describeTo(Description description) {
@@ -209,6 +231,19 @@ public class DefaultDirectoryWalkerTest {
         };
     }
 
+    private Matcher<FileVisitDetails> path(final String path) {
+        return new BaseMatcher<FileVisitDetails>() {
+            public boolean matches(Object o) {
+                FileVisitDetails details = (FileVisitDetails) o;
+                return details.getRelativePath().getPathString().equals(path);
+            }
+
+            public void describeTo(Description description) {
+                description.appendText("details with path ").appendValue(path);
+            }
+        };
+    }
+
     public class MockFile {
         private boolean isFile;
         private String name;
@@ -40,7 +40,8 @@ public class DefaultSourceDirectorySetTest {
 
     @Before
     public void setUp() {
-        resolver = {src -> src instanceof File ? src : new File(testDir, src as String)} as FileResolver
+        resolver = [resolve: {src -> src instanceof File ? src : new File(testDir, src as String)},
+                getDirectorySnapshots: {null}] as FileResolver
         set = new DefaultSourceDirectorySet('<display-name>', resolver)
     }
 
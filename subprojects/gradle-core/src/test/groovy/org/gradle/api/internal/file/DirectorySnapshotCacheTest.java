@@ -0,0 +1,149 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.file;
+
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.integtests.TestFile;
+import org.gradle.util.TemporaryFolder;
+import org.jmock.Expectations;
+import org.jmock.integration.junit4.JMock;
+import org.jmock.integration.junit4.JUnit4Mockery;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+@RunWith(JMock.class)
+public class DirectorySnapshotCacheTest {
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+    private final JUnit4Mockery context = new JUnit4Mockery();
+    private final PersistentIndexedCache<File, DirectorySnapshot> persistentCache = context.mock(PersistentIndexedCache.class);
+    private final DirectorySnapshotCache cache = new DirectorySnapshotCache(persistentCache, 2000);
+    private TestFile dir;
+    private long lastModified;
+
+    @Before
+    public void setUp() {
+        dir = tmpDir.dir("dir");
+        dir.file("file").touch();
+        dir.file("subdir").createDir();
+        lastModified = System.currentTimeMillis() - 10000;
+        dir.setLastModified(lastModified);
+    }
+
+    @Test
+    public void listsDirectory() {
+        context.checking(new Expectations() {{
+            one(persistentCache).get(dir);
+            will(returnValue(null));
+            one(persistentCache).put(with(equalTo((File) dir)), with(notNullValue(DirectorySnapshot.class)));
+        }});
+
+        DirectorySnapshot snapshot = cache.snapshot(dir);
+        assertThat(snapshot.getLastModified(), equalTo(dir.lastModified()));
+        assertThat(snapshot.size(), equalTo(2));
+        int file = snapshot.getName(0).equals("file") ? 0 : 1;
+        assertThat(snapshot.getName(file), equalTo("file"));
+        assertTrue(snapshot.isFile(file));
+        assertThat(snapshot.getName(1 - file), equalTo("subdir"));
+        assertFalse(snapshot.isFile(1 - file));
+    }
+
+    @Test
+    public void reusesListingWhileDirectoryIsUnchanged() {
+        context.checking(new Expectations() {{
+            one(persistentCache).get(dir);
+            will(returnValue(null));
+            one(persistentCache).put(with(equalTo((File) dir)), with(notNullValue(DirectorySnapshot.class)));
+        }});
+
+        DirectorySnapshot snapshot = cache.snapshot(dir);
+        assertThat(cache.snapshot(dir), sameInstance(snapshot));
+    }
+
+    @Test
+    public void relistsDirectoryWhenItHasChanged() {
+        context.checking(new Expectations() {{
+            one(persistentCache).get(dir);
+            will(returnValue(null));
+            exactly(2).of(persistentCache).put(with(equalTo((File) dir)), with(notNullValue(DirectorySnapshot.class)));
+        }});
+
+        cache.snapshot(dir);
+
+        dir.file("other").touch();
+        dir.setLastModified(lastModified + 1000);
+
+        DirectorySnapshot snapshot = cache.snapshot(dir);
+        assertThat(snapshot.size(), equalTo(3));
+    }
+
+    @Test
+    public void usesPersistentListingWhenDirectoryIsUnchanged() {
+        final DirectorySnapshot persistent = new DirectorySnapshot(dir.lastModified(), new String[]{"file"},
+                new boolean[]{true});
+        context.checking(new Expectations() {{
+            one(persistentCache).get(dir);
+            will(returnValue(persistent));
+        }});
+
+        assertThat(cache.snapshot(dir), sameInstance(persistent));
+        assertThat(cache.snapshot(dir), sameInstance(persistent));
+    }
+
+    @Test
+    public void ignoresPersistentListingWhenDirectoryHasChanged() {
+        final DirectorySnapshot persistent = new DirectorySnapshot(lastModified - 1000, new String[]{"file"},
+                new boolean[]{true});
+        context.checking(new Expectations() {{
+            one(persistentCache).get(dir);
+            will(returnValue(persistent));
+            one(persistentCache).put(with(equalTo((File) dir)), with(notNullValue(DirectorySnapshot.class)));
+        }});
+
+        DirectorySnapshot snapshot = cache.snapshot(dir);
+        assertThat(snapshot.size(), equalTo(2));
+    }
+
+    @Test
+    public void doesNotKeepListingOfRecentlyChangedDirectory() {
+        dir.setLastModified(System.currentTimeMillis());
+        context.checking(new Expectations() {{
+            exactly(2).of(persistentCache).get(dir);
+            will(returnValue(null));
+        }});
+
+        DirectorySnapshot snapshot = cache.snapshot(dir);
+        assertThat(cache.snapshot(dir), not(sameInstance(snapshot)));
+    }
+
+    @Test
+    public void listsMissingDirectoryAsEmpty() {
+        final File missing = tmpDir.getDir().file("missing");
+        context.checking(new Expectations() {{
+            one(persistentCache).get(missing);
+            will(returnValue(null));
+        }});
+
+        assertThat(cache.snapshot(missing).size(), equalTo(0));
+    }
+}
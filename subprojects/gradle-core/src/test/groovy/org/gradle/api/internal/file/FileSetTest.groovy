@@ -38,7 +38,7 @@ import org.gradle.api.tasks.util.PatternSet
  */
 class FileSetTest extends AbstractTestForPatternSet {
     FileSet fileSet
-    FileResolver resolver = [resolve: {it as File}] as FileResolver
+    FileResolver resolver = [resolve: {it as File}, getDirectorySnapshots: {null}] as FileResolver
     @Rule public TemporaryFolder tmpDir = new TemporaryFolder();
     File testDir = tmpDir.dir
 
@@ -98,6 +98,23 @@ class FileSetTest extends AbstractTestForPatternSet {
         assertVisits(fileSet, ['subDir/included1', 'subDir2/included2'], ['subDir', 'subDir2'])
     }
 
+    @Test public void testUsesDirectorySnapshotCacheOfResolverToVisitFiles() {
+        File included1 = new File(testDir, 'subDir/included1')
+        included1.parentFile.mkdirs()
+        included1.text = 'some text'
+        long lastModified = System.currentTimeMillis() - 10000
+        [testDir, included1.parentFile].each { it.setLastModified(lastModified) }
+
+        DirectorySnapshotCache snapshots = new DirectorySnapshotCache()
+        fileSet = new FileSet(testDir, [resolve: {it as File}, getDirectorySnapshots: {snapshots}] as FileResolver)
+        assertVisits(fileSet, ['subDir/included1'], ['subDir'])
+
+        // Listing is reused while the modification time of the directory is unchanged
+        new File(testDir, 'subDir/included2').text = 'some text'
+        included1.parentFile.setLastModified(lastModified)
+        assertVisits(fileSet, ['subDir/included1'], ['subDir'])
+    }
+
     @Test public void testCanStopVisitingFiles() {
         File included1 = new File(testDir, 'subDir/included1')
         File included2 = new File(testDir, 'subDir/otherDir/included2')
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2010 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.file.archive;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.tools.zip.UnixStat;
+import org.apache.tools.zip.ZipEntry;
+import org.apache.tools.zip.ZipFile;
+import org.gradle.api.GradleException;
+import org.gradle.integtests.TestFile;
+import org.gradle.util.TemporaryFolder;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+public class ParallelZipWriterTest {
+    @Rule
+    public final TemporaryFolder tmpDir = new TemporaryFolder();
+
+    @Test
+    public void writesEntriesInTheOrderTheyWereAdded() throws IOException {
+        TestFile zipFile = tmpDir.getDir().file("test.zip");
+        ParallelZipWriter writer = new ParallelZipWriter(zipFile, 4);
+
+        writer.addDirectory(entry("dir/", UnixStat.DIR_FLAG | 0755), "dir");
+        for (int i = 0; i < 50; i++) {
+            TestFile source = tmpDir.getDir().file("src" + i).write(content(i));
+            if (i % 2 == 0) {
+                writer.addFile(entry("dir/file" + i, UnixStat.FILE_FLAG | 0644), source, source, source.length());
+            } else {
+                writer.addFile(entry("dir/file" + i, UnixStat.FILE_FLAG | 0644), source, content(content(i)));
+            }
+        }
+        writer.close();
+
+        ZipFile zip = new ZipFile(zipFile);
+        try {
+            List<String> names = new ArrayList<String>();
+            for (Enumeration<?> entries = zip.getEntries(); entries.hasMoreElements();) {
+                names.add(((ZipEntry) entries.nextElement()).getName());
+            }
+            assertThat(names.size(), equalTo(51));
+            assertThat(names.get(0), equalTo("dir/"));
+            assertThat(zip.getEntry("dir/").getUnixMode(), equalTo(UnixStat.DIR_FLAG | 0755));
+            for (int i = 0; i < 50; i++) {
+                ZipEntry entry = zip.getEntry("dir/file" + i);
+                assertThat(names.get(i + 1), equalTo(entry.getName()));
+                assertThat(entry.getUnixMode(), equalTo(UnixStat.FILE_FLAG | 0644));
+                assertThat(entry.getTime(), equalTo(1262304000000L));
+                assertThat(IOUtils.toString(zip.getInputStream(entry)), equalTo(content(i)));
+            }
+        } finally {
+            zip.close();
+        }
+    }
+
+    @Test
+    public void writesLargeEntryDirectlyToZipFile() throws IOException {
+        TestFile zipFile = tmpDir.getDir().file("test.zip");
+        ParallelZipWriter writer = new ParallelZipWriter(zipFile, 4, 16);
+
+        TestFile source = tmpDir.getDir().file("small").write("small");
+        writer.addFile(entry("small", UnixStat.FILE_FLAG | 0644), source, source, source.length());
+        StringBuilder large = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            large.append(content(i));
+        }
+        writer.addFile(entry("large", UnixStat.FILE_FLAG | 0644), "large", content(large.toString()));
+        writer.close();
+
+        TestFile expandDir = tmpDir.getDir().file("expanded");
+        zipFile.unzipTo(expandDir);
+        expandDir.file("small").assertContents(equalTo("small"));
+        expandDir.file("large").assertContents(equalTo(large.toString()));
+    }
+
+    @Test
+    public void wrapsFailureToReadSourceFile() throws IOException {
+        TestFile zipFile = tmpDir.getDir().file("test.zip");
+        ParallelZipWriter writer = new ParallelZipWriter(zipFile, 4);
+
+        TestFile source = tmpDir.getDir().file("missing");
+        writer.addFile(entry("file", UnixStat.FILE_FLAG | 0644), "[missing]", source, 10);
+        try {
+            writer.close();
+            fail();
+        } catch (GradleException e) {
+            assertThat(e.getMessage(), equalTo(String.format("Could not add [missing] to ZIP '%s'.", zipFile)));
+            assertThat(e.getCause(), instanceOf(IOException.class));
+        }
+    }
+
+    private ZipEntry entry(String name, int mode) {
+        ZipEntry entry = new ZipEntry(name);
+        entry.setTime(1262304000000L);
+        entry.setUnixMode(mode);
+        return entry;
+    }
+
+    private String content(int i) {
+        return String.format("contents of file %s", i);
+    }
+
+    private ParallelZipWriter.Content content(final String text) {
+        return new ParallelZipWriter.Content() {
+            public void writeTo(OutputStream outputStream) throws IOException {
+                IOUtils.write(text, outputStream);
+            }
+        };
+    }
+}
@@ -17,6 +17,8 @@ package org.gradle.api.internal.file.archive;
 
 import org.gradle.api.GradleException;
 import org.gradle.api.InvalidUserDataException;
+import org.gradle.api.file.EmptyFileVisitor;
+import org.gradle.api.file.FileVisitDetails;
 import static org.gradle.api.file.FileVisitorUtil.*;
 import static org.gradle.api.tasks.AntBuilderAwareUtil.*;
 import org.gradle.integtests.TestFile;
@@ -27,6 +29,10 @@ import static org.junit.Assert.*;
 import org.junit.Rule;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
 import static java.util.Collections.*;
 
 public class TarFileTreeTest {
@@ -61,6 +67,27 @@ public class TarFileTreeTest {
         assertCanStopVisiting(tree);
     }
 
+    @Test
+    public void canReadContentOfEntriesAfterVisit() {
+        rootDir.file("subdir/file1.txt").write("content 1");
+        rootDir.file("subdir2/file2.txt").write("content 2");
+        rootDir.tarTo(tarFile);
+
+        final List<FileVisitDetails> files = new ArrayList<FileVisitDetails>();
+        tree.visit(new EmptyFileVisitor() {
+            @Override
+            public void visitFile(FileVisitDetails fileDetails) {
+                files.add(fileDetails);
+            }
+        });
+
+        assertThat(files.size(), equalTo(2));
+        for (int i = 0; i < 2; i++) {
+            assertThat(read(files.get(0)), equalTo("content 1"));
+            assertThat(read(files.get(1)), equalTo("content 2"));
+        }
+    }
+
     @Test
     public void isEmptyWhenTarFileDoesNotExist() {
         assertVisits(tree, EMPTY_LIST, EMPTY_LIST);
@@ -91,4 +118,10 @@ public class TarFileTreeTest {
             assertThat(e.getMessage(), equalTo("Could not expand TAR '" + tarFile + "'."));
         }
     }
-}
\ No newline at end of file
+
+    private String read(FileVisitDetails details) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        details.copyTo(outputStream);
+        return outputStream.toString();
+    }
+}
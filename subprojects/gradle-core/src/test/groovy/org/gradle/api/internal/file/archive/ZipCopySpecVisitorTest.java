@@ -19,6 +19,7 @@ import org.apache.commons.io.IOUtils;
 import org.gradle.api.GradleException;
 import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.file.RelativePath;
+import org.gradle.api.internal.file.DefaultFileTreeElement;
 import org.gradle.api.internal.file.copy.ArchiveCopyAction;
 import org.gradle.api.internal.file.copy.ReadableCopySpec;
 import org.gradle.integtests.TestFile;
@@ -36,6 +37,7 @@ import org.junit.Test;
 import org.junit.Before;
 import org.junit.runner.RunWith;
 
+import java.io.File;
 import java.io.OutputStream;
 
 @RunWith(JMock.class)
@@ -81,6 +83,68 @@ public class ZipCopySpecVisitorTest {
         expandDir.file("file2").assertContents(equalTo("contents of file2"));
     }
 
+    @Test
+    public void deflatesContentOfFilesConcurrently() {
+        final TestFile zipFile = tmpDir.getDir().file("test.zip");
+
+        context.checking(new Expectations(){{
+            allowing(copyAction).getArchivePath();
+            will(returnValue(zipFile));
+        }});
+
+        ZipCopySpecVisitor visitor = new ZipCopySpecVisitor(4);
+        visitor.startVisit(copyAction);
+        visitor.visitSpec(copySpec);
+
+        for (int i = 0; i < 20; i++) {
+            TestFile source = tmpDir.getDir().file("src", "file" + i).write(String.format("contents of file%s", i));
+            visitor.visitFile(new FileVisitDetailsImpl(source, RelativePath.parse(true, "dir/file" + i)));
+        }
+
+        visitor.endVisit();
+
+        TestFile expandDir = tmpDir.getDir().file("expanded");
+        zipFile.unzipTo(expandDir);
+        for (int i = 0; i < 20; i++) {
+            expandDir.file("dir/file" + i).assertContents(equalTo(String.format("contents of file%s", i)));
+        }
+    }
+
+    @Test
+    public void updatesZipFileIncrementally() {
+        final TestFile zipFile = tmpDir.getDir().file("test.zip");
+        final TestFile indexFile = tmpDir.getDir().file("tmp/archive.index");
+        final ZipCopyAction incrementalAction = context.mock(ZipCopyAction.class);
+
+        context.checking(new Expectations(){{
+            allowing(incrementalAction).getArchivePath();
+            will(returnValue(zipFile));
+            allowing(incrementalAction).getIndexFile();
+            will(returnValue(indexFile));
+        }});
+
+        TestFile file1 = tmpDir.getDir().file("src/file1").write("contents of file1");
+        TestFile file2 = tmpDir.getDir().file("src/file2").write("contents of file2");
+        TestFile file3 = tmpDir.getDir().file("src/file3").write("contents of file3");
+        // Files modified just before the ZIP file is created are not reused
+        file1.setLastModified(System.currentTimeMillis() - 10000);
+
+        createZip(incrementalAction, file1, file2, file3);
+        indexFile.assertIsFile();
+
+        file2.write("new contents of file2");
+        TestFile file4 = tmpDir.getDir().file("src/file4").write("contents of file4");
+
+        createZip(incrementalAction, file1, file2, file4);
+
+        TestFile expandDir = tmpDir.getDir().file("expanded");
+        zipFile.unzipTo(expandDir);
+        expandDir.assertHasDescendants("dir/file1", "dir/file2", "dir/file4");
+        expandDir.file("dir/file1").assertContents(equalTo("contents of file1"));
+        expandDir.file("dir/file2").assertContents(equalTo("new contents of file2"));
+        expandDir.file("dir/file4").assertContents(equalTo("contents of file4"));
+    }
+
     @Test
     public void wrapsFailureToOpenOutputFile() {
         final TestFile zipFile = tmpDir.dir("test.zip");
@@ -120,6 +184,50 @@ public class ZipCopySpecVisitorTest {
         }
     }
 
+    @Test
+    public void deletesTemporaryFileAndKeepsPreviousZipFileWhenUpdateFails() {
+        final TestFile zipFile = tmpDir.getDir().file("test.zip");
+        final TestFile indexFile = tmpDir.getDir().file("tmp/archive.index");
+        final ZipCopyAction incrementalAction = context.mock(ZipCopyAction.class);
+
+        context.checking(new Expectations(){{
+            allowing(incrementalAction).getArchivePath();
+            will(returnValue(zipFile));
+            allowing(incrementalAction).getIndexFile();
+            will(returnValue(indexFile));
+        }});
+
+        TestFile file1 = tmpDir.getDir().file("src/file1").write("contents of file1");
+        file1.setLastModified(System.currentTimeMillis() - 10000);
+        createZip(incrementalAction, file1);
+
+        ZipCopySpecVisitor visitor = new ZipCopySpecVisitor(4);
+        visitor.startVisit(incrementalAction);
+        visitor.visitSpec(copySpec);
+        visitor.visitFile(new FileVisitDetailsImpl(file1, RelativePath.parse(true, "dir/file1")));
+        try {
+            visitor.visitFile(brokenFile("dir/file2", new RuntimeException("broken")));
+            fail();
+        } catch (GradleException e) {
+            // Expected
+        }
+
+        tmpDir.getDir().file("test.zip.tmp").assertDoesNotExist();
+        TestFile expandDir = tmpDir.getDir().file("expanded");
+        zipFile.unzipTo(expandDir);
+        expandDir.assertHasDescendants("dir/file1");
+    }
+
+    private void createZip(ZipCopyAction action, TestFile... files) {
+        ZipCopySpecVisitor visitor = new ZipCopySpecVisitor(4);
+        visitor.startVisit(action);
+        visitor.visitSpec(copySpec);
+        for (TestFile file : files) {
+            visitor.visitFile(new FileVisitDetailsImpl(file, RelativePath.parse(true, "dir/" + file.getName())));
+        }
+        visitor.endVisit();
+    }
+
     private FileVisitDetails file(final String path) {
         final FileVisitDetails details = context.mock(FileVisitDetails.class, path);
 
@@ -185,4 +293,14 @@ public class ZipCopySpecVisitorTest {
 
         return details;
     }
+
+    private static class FileVisitDetailsImpl extends DefaultFileTreeElement implements FileVisitDetails {
+        private FileVisitDetailsImpl(File file, RelativePath relativePath) {
+            super(file, relativePath);
+        }
+
+        public void stopVisiting() {
+            throw new UnsupportedOperationException();
+        }
+    }
 }
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2010 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.file.archive;
+
+import org.apache.tools.zip.ZipEntry;
+import org.gradle.integtests.TestFile;
+import org.gradle.util.TemporaryFolder;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+public class ZipEntryIndexTest {
+    @Rule
+    public final TemporaryFolder tmpDir = new TemporaryFolder();
+    private TestFile zipFile;
+    private TestFile indexFile;
+    private TestFile sourceFile;
+
+    @Before
+    public void setUp() {
+        zipFile = tmpDir.getDir().file("test.zip");
+        indexFile = tmpDir.getDir().file("tmp/archive.index");
+        sourceFile = tmpDir.getDir().file("source");
+    }
+
+    @Test
+    public void readsEntriesWhichHaveBeenWritten() {
+        zipFile.write("zip");
+        ZipEntryIndex index = new ZipEntryIndex();
+        ZipEntry zipEntry = new ZipEntry("entry");
+        zipEntry.setMethod(ZipEntry.DEFLATED);
+        zipEntry.setCrc(123);
+        zipEntry.setCompressedSize(4);
+        zipEntry.setSize(5);
+        index.add(sourceFile, 5, 1000).setWritten(zipEntry, 12);
+        index.add(tmpDir.getDir().file("other"), 6, 1000);
+        index.write(indexFile, zipFile);
+
+        ZipEntryIndex readIndex = ZipEntryIndex.read(indexFile, zipFile);
+        assertThat(readIndex, notNullValue());
+        assertThat(readIndex.find(tmpDir.getDir().file("other"), 6, 1000), nullValue());
+
+        ZipEntryIndex.Entry entry = readIndex.find(sourceFile, 5, 1000);
+        assertThat(entry.getHeaderOffset(), equalTo(12L));
+        ZipEntry copy = new ZipEntry("copy");
+        entry.applyTo(copy);
+        assertThat(copy.getMethod(), equalTo(ZipEntry.DEFLATED));
+        assertThat(copy.getCrc(), equalTo(123L));
+        assertThat(copy.getCompressedSize(), equalTo(4L));
+        assertThat(copy.getSize(), equalTo(5L));
+    }
+
+    @Test
+    public void doesNotFindEntryWhenSourceFileHasChanged() {
+        zipFile.write("zip");
+        ZipEntryIndex index = new ZipEntryIndex();
+        index.add(sourceFile, 5, 1000).setWritten(new ZipEntry("entry"), 0);
+        index.write(indexFile, zipFile);
+
+        ZipEntryIndex readIndex = ZipEntryIndex.read(indexFile, zipFile);
+        assertThat(readIndex.find(sourceFile, 6, 1000), nullValue());
+        assertThat(readIndex.find(sourceFile, 5, 2000), nullValue());
+    }
+
+    @Test
+    public void doesNotFindEntryWhenSourceFileWasModifiedJustBeforeIndexWasCreated() {
+        zipFile.write("zip");
+        long lastModified = System.currentTimeMillis() - 500;
+        ZipEntryIndex index = new ZipEntryIndex();
+        index.add(sourceFile, 5, lastModified).setWritten(new ZipEntry("entry"), 0);
+        index.write(indexFile, zipFile);
+
+        ZipEntryIndex readIndex = ZipEntryIndex.read(indexFile, zipFile);
+        assertThat(readIndex.find(sourceFile, 5, lastModified), nullValue());
+    }
+
+    @Test
+    public void discardsIndexWhenZipFileHasChanged() {
+        zipFile.write("zip");
+        new ZipEntryIndex().write(indexFile, zipFile);
+        assertThat(ZipEntryIndex.read(indexFile, zipFile), notNullValue());
+
+        zipFile.write("changed");
+        assertThat(ZipEntryIndex.read(indexFile, zipFile), nullValue());
+
+        zipFile.delete();
+        assertThat(ZipEntryIndex.read(indexFile, zipFile), nullValue());
+    }
+}
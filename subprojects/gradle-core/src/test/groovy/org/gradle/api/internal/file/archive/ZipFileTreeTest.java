@@ -26,6 +26,9 @@ import static org.gradle.api.tasks.AntBuilderAwareUtil.*;
 import static org.gradle.api.file.FileVisitorUtil.*;
 import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.GradleException;
+import org.gradle.api.internal.file.FileSet;
+
+import java.util.Collection;
 
 import static java.util.Collections.*;
 
@@ -61,6 +64,29 @@ public class ZipFileTreeTest {
         assertCanStopVisiting(tree);
     }
 
+    @Test
+    public void expandsZipFileAgainOnlyWhenItsContentChanges() {
+        rootDir.file("subdir/file1.txt").write("content");
+        rootDir.zipTo(zipFile);
+
+        Collection<FileSet> fileSets = tree.getAsFileSets();
+        assertThat(fileSets.size(), equalTo(1));
+        TestFile dir = new TestFile(fileSets.iterator().next().getDir());
+        dir.assertHasDescendants("subdir/file1.txt");
+
+        dir.file("subdir/file1.txt").delete();
+        tree.getAsFileSets();
+        dir.file("subdir/file1.txt").assertDoesNotExist();
+
+        rootDir.file("subdir/file1.txt").delete();
+        rootDir.file("subdir/file2.txt").write("new content");
+        zipFile.delete();
+        rootDir.zipTo(zipFile);
+
+        tree.getAsFileSets();
+        dir.assertHasDescendants("subdir/file2.txt");
+    }
+
     @Test
     public void isEmptyWhenZipFileDoesNotExist() {
         assertVisits(tree, EMPTY_LIST, EMPTY_LIST);
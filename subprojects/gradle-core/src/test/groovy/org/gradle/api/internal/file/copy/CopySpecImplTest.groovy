@@ -33,6 +33,8 @@ import org.gradle.api.tasks.util.PatternSet
 import org.gradle.api.file.FileTree
 import org.gradle.api.Action
 import org.gradle.api.internal.file.FileResolver
+import org.gradle.api.InvalidUserDataException
+import java.nio.charset.Charset
 
 @RunWith(JMock)
 public class CopySpecImplTest {
@@ -270,6 +272,21 @@ public class CopySpecImplTest {
         org.junit.Assert.assertEquals(0x2, child.dirMode)
     }
 
+    @Test public void testDefaultFilteringCharset() {
+        assertThat(spec.filteringCharset, equalTo(Charset.defaultCharset().name()))
+    }
+
+    @Test public void testInheritsFilteringCharsetFromParent() {
+        spec.filteringCharset = 'UTF-16'
+
+        CopySpecImpl child = spec.from('src') { }
+        assertThat(child.filteringCharset, equalTo('UTF-16'))
+    }
+
+    @Test(expected = InvalidUserDataException) public void testCannotUseUnsupportedFilteringCharset() {
+        spec.filteringCharset = 'not-a-charset'
+    }
+
     @Test public void testHasNoSourceByDefault() {
         assertFalse(spec.hasSource())
     }
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2010 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.file.copy;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+public class EncodingInputStreamTest {
+    private final Charset charset = Charset.forName("UTF-8");
+
+    @Test
+    public void encodesEmptyReader() throws IOException {
+        InputStream inputStream = new EncodingInputStream(new StringReader(""), charset);
+        assertThat(inputStream.read(), equalTo(-1));
+    }
+
+    @Test
+    public void encodesCharactersWhichSpanBuffers() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            builder.append("a\u00e9\u20ac\ud834\udd1e");
+        }
+        String content = builder.toString();
+
+        InputStream inputStream = new EncodingInputStream(new StringReader(content), charset);
+        assertThat(IOUtils.toByteArray(inputStream), equalTo(content.getBytes("UTF-8")));
+    }
+
+    @Test
+    public void canReadOneByteAtATime() throws IOException {
+        String content = "content \u00e9";
+
+        InputStream inputStream = new EncodingInputStream(new StringReader(content), charset);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        int b;
+        while ((b = inputStream.read()) >= 0) {
+            outputStream.write(b);
+        }
+        assertThat(outputStream.toByteArray(), equalTo(content.getBytes("UTF-8")));
+    }
+}
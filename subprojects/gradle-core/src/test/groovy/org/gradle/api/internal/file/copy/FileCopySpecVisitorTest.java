@@ -19,6 +19,7 @@ package org.gradle.api.internal.file.copy;
 import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.file.RelativePath;
+import org.gradle.api.internal.file.DefaultFileTreeElement;
 import org.gradle.integtests.TestFile;
 import org.gradle.util.TemporaryFolder;
 import org.jmock.Expectations;
@@ -64,6 +65,41 @@ public class FileCopySpecVisitorTest {
         visitor.visitFile(file(new RelativePath(true, "subdir", "anotherfile.txt"), new File(destDir, "subdir/anotherfile.txt")));
     }
 
+    @Test
+    public void copiesFilesConcurrently() {
+        FileCopySpecVisitor visitor = new FileCopySpecVisitor(4);
+        visitor.startVisit(action(destDir));
+
+        for (int i = 0; i < 100; i++) {
+            RelativePath path = new RelativePath(true, "dir" + i % 10, "file" + i + ".txt");
+            TestFile source = new TestFile(path.getFile(sourceDir)).write("content " + i);
+            visitor.visitFile(new FileVisitDetailsImpl(source, path));
+        }
+
+        visitor.endVisit();
+
+        assertTrue(visitor.getDidWork());
+        for (int i = 0; i < 100; i++) {
+            new TestFile(destDir, "dir" + i % 10, "file" + i + ".txt").assertContents(equalTo("content " + i));
+        }
+    }
+
+    @Test
+    public void copiesToTheSameTargetInVisitOrder() {
+        FileCopySpecVisitor visitor = new FileCopySpecVisitor(4);
+        visitor.startVisit(action(destDir));
+
+        for (int i = 0; i < 20; i++) {
+            TestFile source = sourceDir.file("source" + i + ".txt").write("content " + i);
+            assertTrue(source.setLastModified(source.lastModified() - i * 2000));
+            visitor.visitFile(new FileVisitDetailsImpl(source, new RelativePath(true, "target.txt")));
+        }
+
+        visitor.endVisit();
+
+        new TestFile(destDir, "target.txt").assertContents(equalTo("content 19"));
+    }
+
     @Test
     public void testThrowsExceptionWhenNoDestinationSet() {
         try {
@@ -99,4 +135,14 @@ public class FileCopySpecVisitorTest {
         }});
         return details;
     }
+
+    private static class FileVisitDetailsImpl extends DefaultFileTreeElement implements FileVisitDetails {
+        private FileVisitDetailsImpl(File file, RelativePath relativePath) {
+            super(file, relativePath);
+        }
+
+        public void stopVisiting() {
+            throw new UnsupportedOperationException();
+        }
+    }
 }
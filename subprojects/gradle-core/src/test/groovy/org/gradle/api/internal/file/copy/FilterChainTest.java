@@ -15,12 +15,12 @@
  */
 package org.gradle.api.internal.file.copy;
 
+import org.apache.commons.io.IOUtils;
 import org.gradle.util.HelperUtil;
 import org.junit.Test;
 
-import java.io.FilterReader;
-import java.io.Reader;
-import java.io.StringReader;
+import java.io.*;
+import java.nio.charset.Charset;
 
 import static org.gradle.util.WrapUtil.*;
 import static org.hamcrest.Matchers.*;
@@ -61,6 +61,27 @@ public class FilterChainTest {
         assertThat(transformedReader, instanceOf(LineFilter.class));
     }
 
+    @Test
+    public void usesCharsetToReadAndWriteStream() throws IOException {
+        FilterChain filterChain = new FilterChain(Charset.forName("UTF-8"));
+        filterChain.add(TestFilterReader.class);
+        byte[] content = "content \u00e9\u20ac\ud834\udd1e".getBytes("UTF-8");
+
+        InputStream transformed = filterChain.transform(new ByteArrayInputStream(content));
+        assertThat(IOUtils.toByteArray(transformed), equalTo(content));
+    }
+
+    @Test
+    public void canCopyFilteredStreamToOutputStream() throws IOException {
+        FilterChain filterChain = new FilterChain(Charset.forName("ISO-8859-1"));
+        filterChain.add(TestFilterReader.class);
+        byte[] content = "content \u00e9".getBytes("ISO-8859-1");
+
+        ByteArrayOutputStream outstr = new ByteArrayOutputStream();
+        filterChain.copy(new ByteArrayInputStream(content), outstr);
+        assertThat(outstr.toByteArray(), equalTo(content));
+    }
+
     public static class TestFilterReader extends FilterReader {
         String property;
 
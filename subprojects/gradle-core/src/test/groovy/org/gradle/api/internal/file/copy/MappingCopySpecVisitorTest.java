@@ -36,6 +36,8 @@ import org.junit.runner.RunWith;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
 
 import static org.gradle.util.Matchers.*;
 import static org.gradle.util.WrapUtil.*;
@@ -182,6 +184,8 @@ public class MappingCopySpecVisitorTest {
         final FileCopyDetails mappedDetails = expectActionExecutedWhenFileVisited();
 
         context.checking(new Expectations() {{
+            allowing(spec).getFilteringCharset();
+            will(returnValue(Charset.defaultCharset().name()));
             one(details).open();
             will(returnValue(new ByteArrayInputStream("content".getBytes())));
         }});
@@ -198,6 +202,8 @@ public class MappingCopySpecVisitorTest {
         final FileCopyDetails mappedDetails = expectActionExecutedWhenFileVisited();
 
         context.checking(new Expectations() {{
+            allowing(spec).getFilteringCharset();
+            will(returnValue(Charset.defaultCharset().name()));
             one(details).open();
             will(returnValue(new ByteArrayInputStream("content".getBytes())));
             one(details).isDirectory();
@@ -213,6 +219,25 @@ public class MappingCopySpecVisitorTest {
         destDir.assertContents(equalTo("PREFIX: content"));
     }
 
+    @Test
+    public void copyActionFiltersContentUsingCharsetOfSpec() throws UnsupportedEncodingException {
+        final FileCopyDetails mappedDetails = expectActionExecutedWhenFileVisited();
+        final String content = "caf\u00e9 na\u00efve \u00fcber";
+
+        context.checking(new Expectations() {{
+            allowing(spec).getFilteringCharset();
+            will(returnValue("ISO-8859-1"));
+            one(details).open();
+            will(returnValue(new ByteArrayInputStream(content.getBytes("ISO-8859-1"))));
+        }});
+
+        mappedDetails.filter(HelperUtil.toClosure("{ 'PREFIX: ' + it } "));
+
+        ByteArrayOutputStream outstr = new ByteArrayOutputStream();
+        mappedDetails.copyTo(outstr);
+        assertThat(new String(outstr.toByteArray(), "ISO-8859-1"), equalTo("PREFIX: " + content));
+    }
+
     @Test
     public void wrappedFileElementDelegatesToSourceForRemainingMethods() {
         final FileVisitDetails mappedDetails = expectSpecAndFileVisited();
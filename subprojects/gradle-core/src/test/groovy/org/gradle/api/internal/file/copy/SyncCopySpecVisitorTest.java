@@ -114,6 +114,107 @@ public class SyncCopySpecVisitorTest {
         assertTrue(visitor.getDidWork());
     }
 
+    @Test
+    public void deletesFilesWhichWereNotCopiedSinceLastSync() {
+        TestFile destDir = tmpDir.dir("dest");
+        TestFile snapshotFile = tmpDir.file("sync.snapshot");
+        destDir.file("subdir/included.txt").createFile();
+        destDir.file("subdir/removed.txt").createFile();
+        destDir.file("removed/removed.txt").createFile();
+        SyncCopyAction action = action(destDir, snapshotFile);
+        FileVisitDetails subdir = dir("subdir");
+        FileVisitDetails included = file("subdir/included.txt");
+
+        visitor.startVisit(action);
+        visitor.visitDir(subdir);
+        visitor.visitFile(included);
+        visitor.visitFile(file("subdir/removed.txt"));
+        visitor.visitDir(dir("removed"));
+        visitor.visitFile(file("removed/removed.txt"));
+        visitor.endVisit();
+
+        snapshotFile.assertIsFile();
+
+        visitor.startVisit(action);
+        visitor.visitDir(subdir);
+        visitor.visitFile(included);
+        visitor.endVisit();
+
+        destDir.assertHasDescendants("subdir/included.txt");
+        assertTrue(visitor.getDidWork());
+    }
+
+    @Test
+    public void deletesExtraFilesAddedToDestinationDirectorySinceLastSync() {
+        TestFile destDir = tmpDir.dir("dest");
+        TestFile snapshotFile = tmpDir.file("sync.snapshot");
+        destDir.file("subdir/included.txt").createFile();
+        setLastModified(destDir, destDir.file("subdir"));
+        SyncCopyAction action = action(destDir, snapshotFile);
+        FileVisitDetails subdir = dir("subdir");
+        FileVisitDetails included = file("subdir/included.txt");
+
+        visitor.startVisit(action);
+        visitor.visitDir(subdir);
+        visitor.visitFile(included);
+        visitor.endVisit();
+
+        destDir.file("subdir/extra.txt").createFile();
+        destDir.file("extra/extra.txt").createFile();
+
+        visitor.startVisit(action);
+        visitor.visitDir(subdir);
+        visitor.visitFile(included);
+        visitor.endVisit();
+
+        destDir.assertHasDescendants("subdir/included.txt");
+    }
+
+    @Test
+    public void doesNotListDirectoriesWhichHaveNotChangedSinceLastSync() {
+        TestFile destDir = tmpDir.dir("dest");
+        TestFile snapshotFile = tmpDir.file("sync.snapshot");
+        destDir.file("subdir/included.txt").createFile();
+        setLastModified(destDir, destDir.file("subdir"));
+        SyncCopyAction action = action(destDir, snapshotFile);
+        FileVisitDetails subdir = dir("subdir");
+        FileVisitDetails included = file("subdir/included.txt");
+
+        visitor.startVisit(action);
+        visitor.visitDir(subdir);
+        visitor.visitFile(included);
+        visitor.endVisit();
+
+        destDir.file("subdir/unseen.txt").createFile();
+        setLastModified(destDir, destDir.file("subdir"));
+
+        visitor.startVisit(action);
+        visitor.visitDir(subdir);
+        visitor.visitFile(included);
+        visitor.endVisit();
+
+        destDir.assertHasDescendants("subdir/included.txt", "subdir/unseen.txt");
+    }
+
+    private void setLastModified(File... dirs) {
+        for (File dir : dirs) {
+            assertTrue(dir.setLastModified(1000000000000L));
+        }
+    }
+
+    private SyncCopyAction action(final File destDir, final File snapshotFile) {
+        final SyncCopyAction action = context.mock(SyncCopyAction.class);
+
+        context.checking(new Expectations() {{
+            allowing(action).getDestinationDir();
+            will(returnValue(destDir));
+            allowing(action).getSnapshotFile();
+            will(returnValue(snapshotFile));
+        }});
+
+        return action;
+    }
+
     private FileCopyAction action(final File destDir) {
         final FileCopyAction action = context.mock(FileCopyAction.class);
 
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.file.pattern;
+
+import org.gradle.api.file.RelativePath;
+import org.gradle.api.specs.Spec;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class CompiledPatternMatcherTest {
+    private static final Collection<String> NONE = Collections.emptyList();
+
+    @Test public void testLiterals() {
+        Spec<RelativePath> matcher = includes("a/b", "a/c");
+        assertTrue(matcher.isSatisfiedBy(new RelativePath(true, "a", "b")));
+        assertTrue(matcher.isSatisfiedBy(new RelativePath(true, "a", "c")));
+        assertFalse(matcher.isSatisfiedBy(new RelativePath(true, "a", "d")));
+        assertFalse(matcher.isSatisfiedBy(new RelativePath(true, "a")));
+        assertFalse(matcher.isSatisfiedBy(new RelativePath(true, "a", "b", "c")));
+    }
+
+    @Test public void testWildCards() {
+        Spec<RelativePath> matcher = includes("*", "b/any??ing");
+        assertTrue(matcher.isSatisfiedBy(new RelativePath(true, "anything")));
+        assertTrue(matcher.isSatisfiedBy(new RelativePath(true, "b", "anything")));
+        assertFalse(matcher.isSatisfiedBy(new RelativePath(true, "c", "anything")));
+    }
+
+    @Test public void testGreedy() {
+        Spec<RelativePath> matcher = includes("a/**/c/d");
+        assertTrue(matcher.isSatisfiedBy(new RelativePath(true, "a", "c", "d")));
+        assertTrue(matcher.isSatisfiedBy(new RelativePath(true, "a", "b", "c", "e", "c", "d")));
+        assertFalse(matcher.isSatisfiedBy(new RelativePath(true, "a", "b", "c", "e")));
+
+        matcher = includes("**/b/*");
+        assertTrue(matcher.isSatisfiedBy(new RelativePath(true, "x", "b", "b", "y")));
+        assertTrue(matcher.isSatisfiedBy(new RelativePath(true, "b", "b", "b", "b")));
+        assertFalse(matcher.isSatisfiedBy(new RelativePath(true, "b", "b", "b", "b", "c", "d")));
+
+        matcher = includes("src/main/");
+        assertTrue(matcher.isSatisfiedBy(new RelativePath(true, "src", "main", "groovy", "org")));
+        assertFalse(matcher.isSatisfiedBy(new RelativePath(true, "src", "test", "groovy", "org")));
+    }
+
+    @Test public void testPartials() {
+        Spec<RelativePath> matcher = includes("a/b/c");
+        assertTrue(matcher.isSatisfiedBy(new RelativePath(false, "a", "b")));
+        assertFalse(matcher.isSatisfiedBy(new RelativePath(true, "a", "b")));
+        assertFalse(matcher.isSatisfiedBy(new RelativePath(false, "a", "c")));
+
+        matcher = excludes("a/b/c");
+        assertTrue(matcher.isSatisfiedBy(new RelativePath(false, "a", "b")));
+        assertFalse(matcher.isSatisfiedBy(new RelativePath(true, "a", "b", "c")));
+    }
+
+    @Test public void testNameOnlyPatternMatchesFilesOnly() {
+        Spec<RelativePath> matcher = excludes("**/CVS");
+        assertFalse(matcher.isSatisfiedBy(new RelativePath(true, "a", "CVS")));
+        assertTrue(matcher.isSatisfiedBy(new RelativePath(false, "a", "CVS")));
+
+        matcher = excludes("**/CVS/**");
+        assertFalse(matcher.isSatisfiedBy(new RelativePath(false, "a", "CVS")));
+        assertFalse(matcher.isSatisfiedBy(new RelativePath(true, "a", "CVS", "Entries")));
+    }
+
+    @Test public void testIncludesAndExcludes() {
+        Spec<RelativePath> matcher = new CompiledPatternMatcher(true, Arrays.asList("org/**/*.java"), Arrays.asList(
+                "**/internal/**"));
+        assertTrue(matcher.isSatisfiedBy(new RelativePath(true, "org", "gradle", "Thing.java")));
+        assertFalse(matcher.isSatisfiedBy(new RelativePath(true, "org", "gradle", "internal", "Thing.java")));
+        assertFalse(matcher.isSatisfiedBy(new RelativePath(true, "org", "gradle", "Thing.groovy")));
+        assertTrue(matcher.isSatisfiedBy(new RelativePath(false, "org", "gradle")));
+        assertFalse(matcher.isSatisfiedBy(new RelativePath(false, "org", "gradle", "internal")));
+    }
+
+    @Test public void testEmpty() {
+        Spec<RelativePath> matcher = new CompiledPatternMatcher(true, NONE, NONE);
+        assertTrue(matcher.isSatisfiedBy(new RelativePath(true, "a")));
+
+        matcher = includes("");
+        assertTrue(matcher.isSatisfiedBy(new RelativePath(true)));
+        assertFalse(matcher.isSatisfiedBy(new RelativePath(true, "a")));
+        assertFalse(matcher.isSatisfiedBy(new RelativePath(false, "a")));
+    }
+
+    @Test public void testCase() {
+        Spec<RelativePath> matcher = includes("a/b*");
+        assertFalse(matcher.isSatisfiedBy(new RelativePath(true, "A", "B")));
+
+        matcher = new CompiledPatternMatcher(false, Arrays.asList("a/b*"), NONE);
+        assertTrue(matcher.isSatisfiedBy(new RelativePath(true, "a", "b")));
+        assertTrue(matcher.isSatisfiedBy(new RelativePath(true, "A", "Bc")));
+    }
+
+    @Test public void matchesTheSamePathsAsTheMatchersOfEachPattern() {
+        String[] patterns = {"a", "a/b", "*", "**", "**/**", "a/**", "**/c", "**/b/*", "a/**/c", "a/**/c/**/e",
+                "a/b/", "?/b", "**/*.java", "a/**/**/d"};
+        RelativePath[] paths = {
+                new RelativePath(true, "a"), new RelativePath(false, "a"), new RelativePath(true, "a", "b"),
+                new RelativePath(false, "a", "b"), new RelativePath(true, "a", "b", "c"),
+                new RelativePath(false, "a", "x", "c"), new RelativePath(true, "a", "b", "c", "d", "e"),
+                new RelativePath(true, "x", "b", "y"), new RelativePath(true, "x", "Thing.java"),
+                new RelativePath(false, "x", "y", "z"), new RelativePath(true, "a", "c", "d")};
+        for (String pattern : patterns) {
+            for (boolean include : new boolean[]{true, false}) {
+                Spec<RelativePath> expected = PatternMatcherFactory.getPatternMatcher(include, true, pattern);
+                Spec<RelativePath> actual = include ? includes(pattern) : excludes(pattern);
+                for (RelativePath path : paths) {
+                    boolean matches = expected.isSatisfiedBy(path);
+                    assertEquals(String.format("%s %s", pattern, path), include ? matches : !matches,
+                            actual.isSatisfiedBy(path));
+                }
+            }
+        }
+    }
+
+    private Spec<RelativePath> includes(String... patterns) {
+        return new CompiledPatternMatcher(true, Arrays.asList(patterns), NONE);
+    }
+
+    private Spec<RelativePath> excludes(String... patterns) {
+        return new CompiledPatternMatcher(true, NONE, Arrays.asList(patterns));
+    }
+}
@@ -183,6 +183,9 @@ class DefaultProjectTest {
         }
 
         build = context.mock(GradleInternal)
+        context.checking {
+            allowing(build).getStartParameter(); will(returnValue(parameter))
+        }
 
         rootDir = new File("/path/root").absoluteFile
         project = new DefaultProject('root', null, rootDir, new File(rootDir, TEST_BUILD_FILE_NAME), script,
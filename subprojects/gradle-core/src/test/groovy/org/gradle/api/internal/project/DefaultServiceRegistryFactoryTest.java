@@ -23,9 +23,17 @@ import org.gradle.api.internal.GradleInternal;
 import org.gradle.api.internal.artifacts.dsl.DefaultPublishArtifactFactory;
 import org.gradle.api.internal.artifacts.dsl.DefaultRepositoryHandlerFactory;
 import org.gradle.api.internal.artifacts.dsl.PublishArtifactFactory;
+import org.gradle.api.internal.file.DirectorySnapshotCache;
+import org.gradle.api.internal.changedetection.TaskArtifactStateListener;
+import org.gradle.api.internal.changedetection.ParallelHasher;
 import org.gradle.api.internal.tasks.SkipTaskExecuter;
+import org.gradle.api.internal.changedetection.LocalTaskOutputCache;
+import org.gradle.api.internal.changedetection.TaskOutputCache;
 import org.gradle.api.internal.tasks.TaskExecuter;
+import org.gradle.cache.CacheRepository;
+import org.gradle.cache.DefaultCacheRepository;
 import org.gradle.groovy.scripts.DefaultScriptCompilerFactory;
+import org.gradle.groovy.scripts.ScriptClassCache;
 import org.gradle.groovy.scripts.ScriptCompilerFactory;
 import org.gradle.listener.ListenerBroadcast;
 import org.gradle.listener.ListenerManager;
@@ -52,6 +60,10 @@ public class DefaultServiceRegistryFactoryTest {
     @Before
     public void setUp() {
         startParameter.setGradleUserHomeDir(tmpDir.getDir());
+        context.checking(new Expectations() {{
+            allowing(listenerManager).addListener(with(instanceOf(DefaultCacheRepository.class)));
+            allowing(listenerManager).addListener(with(instanceOf(ParallelHasher.class)));
+        }});
     }
     
     @Test
@@ -106,6 +118,8 @@ public class DefaultServiceRegistryFactoryTest {
             will(returnValue(new ListenerBroadcast<TaskActionListener>(TaskActionListener.class)));
             allowing(listenerManager).getBroadcaster(TaskActionListener.class);
             will(returnValue(context.mock(TaskActionListener.class)));
+            allowing(listenerManager).getBroadcaster(TaskArtifactStateListener.class);
+            will(returnValue(context.mock(TaskArtifactStateListener.class)));
         }});
 
         assertThat(factory.get(TaskExecuter.class), instanceOf(SkipTaskExecuter.class));
@@ -119,9 +133,41 @@ public class DefaultServiceRegistryFactoryTest {
                 RepositoryHandlerFactory.class)));
     }
 
+    @Test
+    public void providesACacheRepository() {
+        assertThat(factory.get(CacheRepository.class), instanceOf(DefaultCacheRepository.class));
+        assertThat(factory.get(CacheRepository.class), sameInstance(factory.get(CacheRepository.class)));
+    }
+
+    @Test
+    public void providesADirectorySnapshotCache() {
+        assertThat(factory.get(DirectorySnapshotCache.class), instanceOf(DirectorySnapshotCache.class));
+        assertThat(factory.get(DirectorySnapshotCache.class), sameInstance(factory.get(DirectorySnapshotCache.class)));
+    }
+
+    @Test
+    public void providesATaskOutputCache() {
+        assertThat(factory.get(TaskOutputCache.class), instanceOf(LocalTaskOutputCache.class));
+        assertThat(factory.get(TaskOutputCache.class), sameInstance(factory.get(TaskOutputCache.class)));
+    }
+
     @Test
     public void providesAScriptCompilerFactory() {
         assertThat(factory.get(ScriptCompilerFactory.class), instanceOf(DefaultScriptCompilerFactory.class));
         assertThat(factory.get(ScriptCompilerFactory.class), sameInstance(factory.get(ScriptCompilerFactory.class)));
     }
+
+    @Test
+    public void providesAScriptClassCache() {
+        assertThat(factory.get(ScriptClassCache.class), instanceOf(ScriptClassCache.class));
+        assertThat(factory.get(ScriptClassCache.class), sameInstance(factory.get(ScriptClassCache.class)));
+    }
+
+    @Test
+    public void usesSuppliedScriptClassCache() {
+        ScriptClassCache scriptClassCache = new ScriptClassCache();
+        DefaultServiceRegistryFactory factory = new DefaultServiceRegistryFactory(startParameter, listenerManager,
+                scriptClassCache);
+        assertThat(factory.get(ScriptClassCache.class), sameInstance(scriptClassCache));
+    }
 }
@@ -35,15 +35,15 @@ public class DefaultStandardOutputRedirectorTest {
     @Test
     public void off() {
         standardOutputRedirector.off();
-        assertSame(StandardOutputLogging.DEFAULT_OUT, System.out);
-        assertSame(StandardOutputLogging.DEFAULT_ERR, System.err);
+        assertSame(StandardOutputLogging.DEFAULT_OUT, StandardOutputLogging.getOut());
+        assertSame(StandardOutputLogging.DEFAULT_ERR, StandardOutputLogging.getErr());
     }
 
     @Test
     public void captureStandardOutput() {
         standardOutputRedirector.on(LogLevel.DEBUG);
-        assertSame(StandardOutputLogging.OUT_LOGGING_STREAM.get(), System.out);
-        assertSame(StandardOutputLogging.ERR_LOGGING_STREAM.get(), System.err);
+        assertSame(StandardOutputLogging.OUT_LOGGING_STREAM.get(), StandardOutputLogging.getOut());
+        assertSame(StandardOutputLogging.ERR_LOGGING_STREAM.get(), StandardOutputLogging.getErr());
         assertEquals(StandardOutputLogging.OUT_LOGGING_STREAM.get().getStandardOutputLoggingAdapter().getLevel(), LogLevel.DEBUG);
         assertEquals(StandardOutputLogging.ERR_LOGGING_STREAM.get().getStandardOutputLoggingAdapter().getLevel(), LogLevel.ERROR);
     }
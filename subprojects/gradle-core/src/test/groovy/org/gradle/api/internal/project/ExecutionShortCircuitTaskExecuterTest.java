@@ -17,8 +17,14 @@ package org.gradle.api.internal.project;
 
 import org.gradle.api.execution.TaskExecutionResult;
 import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.internal.changedetection.Hasher;
+import org.gradle.api.internal.changedetection.TaskArtifactStateListener;
 import org.gradle.api.internal.changedetection.TaskArtifactStateRepository;
 import org.gradle.api.internal.changedetection.TaskArtifactState;
+import org.gradle.api.internal.changedetection.TaskOutputCache;
+import org.gradle.api.internal.changedetection.TimingHasher;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.tasks.TaskOutputs;
 import org.gradle.api.internal.tasks.TaskExecuter;
 import org.gradle.api.internal.tasks.TaskState;
 import org.gradle.StartParameter;
@@ -30,6 +36,10 @@ import static org.junit.Assert.*;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.io.File;
+import java.util.Collections;
+import java.util.Set;
+
 @RunWith(JMock.class)
 public class ExecutionShortCircuitTaskExecuterTest {
     private final JUnit4Mockery context = new JUnit4Mockery();
@@ -41,6 +51,9 @@ public class ExecutionShortCircuitTaskExecuterTest {
     private final TaskArtifactState taskArtifactState = context.mock(TaskArtifactState.class);
     private final StartParameter startParameter = new StartParameter();
     private final ExecutionShortCircuitTaskExecuter executer = new ExecutionShortCircuitTaskExecuter(delegate, repository, startParameter);
+    private final TaskOutputCache outputCache = context.mock(TaskOutputCache.class);
+    private final ExecutionShortCircuitTaskExecuter cachingExecuter = new ExecutionShortCircuitTaskExecuter(delegate, repository, startParameter, outputCache);
+    private final Set<File> outputFiles = Collections.singleton(new File("output"));
 
     @Test
     public void skipsTaskWhenOutputsAreUpToDate() {
@@ -124,4 +137,199 @@ public class ExecutionShortCircuitTaskExecuterTest {
         startParameter.setNoOpt(true);
         assertThat(executer.execute(task, taskState), sameInstance(result));
     }
+
+    @Test
+    public void restoresOutputsFromCacheWhenOutputsAreNotUpToDate() {
+        expectOutputFiles();
+        context.checking(new Expectations() {{
+            one(repository).getStateFor(task);
+            will(returnValue(taskArtifactState));
+
+            one(taskArtifactState).isUpToDate();
+            will(returnValue(false));
+
+            one(taskArtifactState).getCacheKey();
+            will(returnValue("key"));
+
+            one(taskArtifactState).invalidate();
+
+            one(outputCache).restore("key", outputFiles);
+            will(returnValue(true));
+
+            one(taskArtifactState).update();
+        }});
+
+        TaskExecutionResult result = cachingExecuter.execute(task, taskState);
+        assertThat(result.getSkipMessage(), equalTo("FROM-CACHE"));
+        assertThat(result.getFailure(), nullValue());
+    }
+
+    @Test
+    public void executesTaskAndStoresOutputsWhenOutputsAreNotCached() {
+        expectOutputFiles();
+        context.checking(new Expectations() {{
+            one(repository).getStateFor(task);
+            will(returnValue(taskArtifactState));
+
+            one(taskArtifactState).isUpToDate();
+            will(returnValue(false));
+
+            one(taskArtifactState).getCacheKey();
+            will(returnValue("key"));
+
+            one(taskArtifactState).invalidate();
+
+            one(outputCache).restore("key", outputFiles);
+            will(returnValue(false));
+
+            one(delegate).execute(task, taskState);
+            will(returnValue(result));
+
+            allowing(result).getFailure();
+            will(returnValue(null));
+
+            one(taskArtifactState).update();
+
+            one(outputCache).store("key", outputFiles);
+        }});
+
+        assertThat(cachingExecuter.execute(task, taskState), sameInstance(result));
+    }
+
+    @Test
+    public void notifiesListenerOfUpToDateCheckAndOutputCacheMiss() {
+        final TaskArtifactStateListener listener = context.mock(TaskArtifactStateListener.class);
+        TimingHasher hasher = new TimingHasher(context.mock(Hasher.class));
+        ExecutionShortCircuitTaskExecuter executer = new ExecutionShortCircuitTaskExecuter(delegate, repository,
+                startParameter, outputCache, listener, hasher);
+
+        expectOutputFiles();
+        context.checking(new Expectations() {{
+            one(repository).getStateFor(task);
+            will(returnValue(taskArtifactState));
+
+            one(taskArtifactState).isUpToDate();
+            will(returnValue(false));
+
+            one(listener).upToDateChecked(with(sameInstance(task)), with(equalTo(false)), with(greaterThanOrEqualTo(0L)));
+
+            one(taskArtifactState).getCacheKey();
+            will(returnValue("key"));
+
+            one(taskArtifactState).invalidate();
+
+            one(outputCache).restore("key", outputFiles);
+            will(returnValue(false));
+
+            one(listener).outputCacheChecked(task, false);
+
+            one(delegate).execute(task, taskState);
+            will(returnValue(result));
+
+            allowing(result).getFailure();
+            will(returnValue(null));
+
+            one(taskArtifactState).update();
+
+            one(outputCache).store("key", outputFiles);
+
+            one(listener).filesHashed(task, 0L);
+        }});
+
+        assertThat(executer.execute(task, taskState), sameInstance(result));
+    }
+
+    @Test
+    public void doesNotStoreOutputsWhenTaskFails() {
+        expectOutputFiles();
+        context.checking(new Expectations() {{
+            one(repository).getStateFor(task);
+            will(returnValue(taskArtifactState));
+
+            one(taskArtifactState).isUpToDate();
+            will(returnValue(false));
+
+            one(taskArtifactState).getCacheKey();
+            will(returnValue("key"));
+
+            one(taskArtifactState).invalidate();
+
+            one(outputCache).restore("key", outputFiles);
+            will(returnValue(false));
+
+            one(delegate).execute(task, taskState);
+            will(returnValue(result));
+
+            allowing(result).getFailure();
+            will(returnValue(new RuntimeException()));
+        }});
+
+        assertThat(cachingExecuter.execute(task, taskState), sameInstance(result));
+    }
+
+    @Test
+    public void executesTaskWhenOutputsCannotBeCached() {
+        context.checking(new Expectations() {{
+            one(repository).getStateFor(task);
+            will(returnValue(taskArtifactState));
+
+            one(taskArtifactState).isUpToDate();
+            will(returnValue(false));
+
+            one(taskArtifactState).getCacheKey();
+            will(returnValue(null));
+
+            one(taskArtifactState).invalidate();
+
+            one(delegate).execute(task, taskState);
+            will(returnValue(result));
+
+            allowing(result).getFailure();
+            will(returnValue(null));
+
+            one(taskArtifactState).update();
+        }});
+
+        assertThat(cachingExecuter.execute(task, taskState), sameInstance(result));
+    }
+
+    @Test
+    public void doesNotRestoreOutputsWhenNoOptFlagIsSet() {
+        expectOutputFiles();
+        context.checking(new Expectations() {{
+            one(repository).getStateFor(task);
+            will(returnValue(taskArtifactState));
+
+            one(taskArtifactState).getCacheKey();
+            will(returnValue("key"));
+
+            one(taskArtifactState).invalidate();
+
+            one(delegate).execute(task, taskState);
+            will(returnValue(result));
+
+            allowing(result).getFailure();
+            will(returnValue(null));
+
+            one(taskArtifactState).update();
+
+            one(outputCache).store("key", outputFiles);
+        }});
+
+        startParameter.setNoOpt(true);
+        assertThat(cachingExecuter.execute(task, taskState), sameInstance(result));
+    }
+
+    private void expectOutputFiles() {
+        final TaskOutputs taskOutputs = context.mock(TaskOutputs.class);
+        final FileCollection outputFileCollection = context.mock(FileCollection.class);
+        context.checking(new Expectations() {{
+            allowing(task).getOutputs();
+            will(returnValue(taskOutputs));
+            allowing(taskOutputs).getFiles();
+            will(returnValue(outputFileCollection));
+            allowing(outputFileCollection).getFiles();
+            will(returnValue(outputFiles));
+        }});
+    }
 }
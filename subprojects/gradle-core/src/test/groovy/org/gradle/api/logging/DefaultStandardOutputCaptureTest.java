@@ -55,8 +55,8 @@ public class DefaultStandardOutputCaptureTest {
         standardOutputCapture = new DefaultStandardOutputCapture();
         StandardOutputState state = StandardOutputLogging.getStateSnapshot();
         standardOutputCapture.start();
-        assertSame(StandardOutputLogging.DEFAULT_OUT, System.out);
-        assertSame(StandardOutputLogging.DEFAULT_ERR, System.err);
+        assertSame(StandardOutputLogging.DEFAULT_OUT, StandardOutputLogging.getOut());
+        assertSame(StandardOutputLogging.DEFAULT_ERR, StandardOutputLogging.getErr());
         standardOutputCapture.stop();
         assertEquals(state, StandardOutputLogging.getStateSnapshot());
     }
@@ -68,14 +68,26 @@ public class DefaultStandardOutputCaptureTest {
         standardOutputCapture = new DefaultStandardOutputCapture(true, LogLevel.DEBUG);
         StandardOutputState oldState = StandardOutputLogging.getStateSnapshot();
         standardOutputCapture.start();
-        assertSame(StandardOutputLogging.OUT_LOGGING_STREAM.get(), System.out);
-        assertSame(StandardOutputLogging.ERR_LOGGING_STREAM.get(), System.err);
+        assertSame(StandardOutputLogging.OUT_LOGGING_STREAM.get(), StandardOutputLogging.getOut());
+        assertSame(StandardOutputLogging.ERR_LOGGING_STREAM.get(), StandardOutputLogging.getErr());
         assertEquals(StandardOutputLogging.getOutAdapter().getLevel(), LogLevel.DEBUG);
         assertEquals(StandardOutputLogging.getErrAdapter().getLevel(), LogLevel.ERROR);
         standardOutputCapture.stop();
         assertEquals(oldState, StandardOutputLogging.getStateSnapshot());
     }
 
+    @Test
+    public void stopRestoresPreviousLevels() {
+        StandardOutputLogging.on(LogLevel.INFO);
+        standardOutputCapture = new DefaultStandardOutputCapture(true, LogLevel.DEBUG);
+        standardOutputCapture.start();
+        assertTrue(standardOutputCapture.isStarted());
+        assertEquals(LogLevel.DEBUG, StandardOutputLogging.getOutAdapter().getLevel());
+        standardOutputCapture.stop();
+        assertFalse(standardOutputCapture.isStarted());
+        assertTrue(StandardOutputLogging.isOn(LogLevel.INFO));
+    }
+
     @Test
     public void equalityAndHashcode() {
         standardOutputCapture = new DefaultStandardOutputCapture(true, LogLevel.DEBUG);
@@ -20,6 +20,8 @@ import static org.junit.Assert.*;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.PrintStream;
+
 /**
  * @author Hans Dockter
  */
@@ -27,7 +29,7 @@ public class StandardOutputLoggingTest {
 
     @Before
     public void setUp() {
-        StandardOutputLogging.off();
+        StandardOutputLogging.reset();
     }
 
     private void setToNonDefaultValues(boolean out, boolean err) {
@@ -37,7 +39,7 @@ public class StandardOutputLoggingTest {
 
     @After
     public void tearDown() {
-        StandardOutputLogging.off();
+        StandardOutputLogging.reset();
     }
 
     @Test
@@ -53,7 +55,7 @@ public class StandardOutputLoggingTest {
         setToNonDefaultValues(true, false);
         StandardOutputLogging.onOut(LogLevel.INFO);
         checkOut(LogLevel.INFO);
-        assertSame(StandardOutputLogging.DEFAULT_ERR, System.err);
+        assertSame(StandardOutputLogging.DEFAULT_ERR, StandardOutputLogging.getErr());
     }
 
     @Test
@@ -61,7 +63,7 @@ public class StandardOutputLoggingTest {
         setToNonDefaultValues(true, false);
         StandardOutputLogging.onOut(LogLevel.LIFECYCLE);
         checkOut(LogLevel.LIFECYCLE);
-        assertSame(StandardOutputLogging.DEFAULT_ERR, System.err);
+        assertSame(StandardOutputLogging.DEFAULT_ERR, StandardOutputLogging.getErr());
     }
 
     @Test
@@ -69,7 +71,7 @@ public class StandardOutputLoggingTest {
         setToNonDefaultValues(true, false);
         StandardOutputLogging.onOut(LogLevel.QUIET);
         checkOut(LogLevel.QUIET);
-        assertSame(StandardOutputLogging.DEFAULT_ERR, System.err);
+        assertSame(StandardOutputLogging.DEFAULT_ERR, StandardOutputLogging.getErr());
     }
 
     @Test
@@ -77,36 +79,36 @@ public class StandardOutputLoggingTest {
         setToNonDefaultValues(false, true);
         StandardOutputLogging.onErr(LogLevel.ERROR);
         checkErr(LogLevel.ERROR);
-        assertEquals(StandardOutputLogging.DEFAULT_OUT, System.out);
+        assertEquals(StandardOutputLogging.DEFAULT_OUT, StandardOutputLogging.getOut());
     }
 
     @Test
     public void off() {
         StandardOutputLogging.off();
-        assertEquals(StandardOutputLogging.DEFAULT_OUT, System.out);
-        assertEquals(StandardOutputLogging.DEFAULT_ERR, System.err);
+        assertEquals(StandardOutputLogging.DEFAULT_OUT, StandardOutputLogging.getOut());
+        assertEquals(StandardOutputLogging.DEFAULT_ERR, StandardOutputLogging.getErr());
     }
 
     @Test
     public void offOut() {
         StandardOutputLogging.on(LogLevel.INFO);
         StandardOutputLogging.offOut();
-        assertEquals(StandardOutputLogging.DEFAULT_OUT, System.out);
-        assertEquals(StandardOutputLogging.ERR_LOGGING_STREAM.get(), System.err);
+        assertEquals(StandardOutputLogging.DEFAULT_OUT, StandardOutputLogging.getOut());
+        assertEquals(StandardOutputLogging.ERR_LOGGING_STREAM.get(), StandardOutputLogging.getErr());
     }
 
     @Test
     public void offErr() {
         StandardOutputLogging.on(LogLevel.INFO);
         StandardOutputLogging.offErr();
-        assertEquals(StandardOutputLogging.OUT_LOGGING_STREAM.get(), System.out);
-        assertEquals(StandardOutputLogging.DEFAULT_ERR, System.err);
+        assertEquals(StandardOutputLogging.OUT_LOGGING_STREAM.get(), StandardOutputLogging.getOut());
+        assertEquals(StandardOutputLogging.DEFAULT_ERR, StandardOutputLogging.getErr());
     }
 
     @Test
     public void init() {
-        assertEquals(StandardOutputLogging.DEFAULT_OUT, System.out);
-        assertEquals(StandardOutputLogging.DEFAULT_ERR, System.err);
+        assertEquals(StandardOutputLogging.DEFAULT_OUT, StandardOutputLogging.getOut());
+        assertEquals(StandardOutputLogging.DEFAULT_ERR, StandardOutputLogging.getErr());
     }
 
     @Test
@@ -117,17 +119,111 @@ public class StandardOutputLoggingTest {
         assertEquals(StandardOutputLogging.ERR_LOGGING_STREAM.get(), state.getErrStream());
         StandardOutputLogging.off();
         StandardOutputLogging.restoreState(state);
-        assertEquals(StandardOutputLogging.OUT_LOGGING_STREAM.get(), System.out);
-        assertEquals(StandardOutputLogging.ERR_LOGGING_STREAM.get(), System.err);
+        assertEquals(StandardOutputLogging.OUT_LOGGING_STREAM.get(), StandardOutputLogging.getOut());
+        assertEquals(StandardOutputLogging.ERR_LOGGING_STREAM.get(), StandardOutputLogging.getErr());
+    }
+
+    @Test
+    public void systemOutAndErrStayRedirectedWhenSwitchedOff() {
+        StandardOutputLogging.on(LogLevel.INFO);
+        PrintStream out = System.out;
+        PrintStream err = System.err;
+        assertNotSame(StandardOutputLogging.DEFAULT_OUT, out);
+        assertNotSame(StandardOutputLogging.DEFAULT_ERR, err);
+
+        StandardOutputLogging.off();
+        assertSame(out, System.out);
+        assertSame(err, System.err);
+        assertSame(StandardOutputLogging.DEFAULT_OUT, StandardOutputLogging.getOut());
+        assertSame(StandardOutputLogging.DEFAULT_ERR, StandardOutputLogging.getErr());
+    }
+
+    @Test
+    public void resetRestoresSystemOutAndErr() {
+        StandardOutputLogging.on(LogLevel.INFO);
+
+        StandardOutputLogging.reset();
+        assertSame(StandardOutputLogging.DEFAULT_OUT, System.out);
+        assertSame(StandardOutputLogging.DEFAULT_ERR, System.err);
+        assertSame(StandardOutputLogging.DEFAULT_OUT, StandardOutputLogging.getOut());
+        assertSame(StandardOutputLogging.DEFAULT_ERR, StandardOutputLogging.getErr());
+    }
+
+    @Test
+    public void threadSwitchingOffDoesNotAffectOtherThreads() throws InterruptedException {
+        StandardOutputLogging.on(LogLevel.INFO);
+        final PrintStream out = System.out;
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                StandardOutputLogging.off();
+            }
+        };
+        thread.start();
+        thread.join();
+
+        assertSame(out, System.out);
+        checkOut(LogLevel.INFO);
+        checkErr(LogLevel.ERROR);
+    }
+
+    @Test
+    public void threadStartedWhileRedirectedWritesToRedirectedStreams() throws InterruptedException {
+        StandardOutputLogging.on(LogLevel.INFO);
+        final PrintStream[] streams = new PrintStream[2];
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                streams[0] = StandardOutputLogging.getOut();
+                streams[1] = StandardOutputLogging.getErr();
+            }
+        };
+        thread.start();
+        thread.join();
+
+        assertSame(StandardOutputLogging.OUT_LOGGING_STREAM.get(), streams[0]);
+        assertSame(StandardOutputLogging.ERR_LOGGING_STREAM.get(), streams[1]);
+    }
+
+    @Test
+    public void threadCanRedirectIndependentlyOfThreadWhichStartedIt() throws InterruptedException {
+        StandardOutputLogging.on(LogLevel.INFO);
+        final PrintStream[] streams = new PrintStream[2];
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                StandardOutputLogging.offOut();
+                streams[0] = StandardOutputLogging.getOut();
+                streams[1] = StandardOutputLogging.getErr();
+            }
+        };
+        thread.start();
+        thread.join();
+
+        assertSame(StandardOutputLogging.DEFAULT_OUT, streams[0]);
+        assertNotSame(StandardOutputLogging.DEFAULT_ERR, streams[1]);
+        checkOut(LogLevel.INFO);
+        checkErr(LogLevel.ERROR);
+    }
+
+    @Test
+    public void isOn() {
+        StandardOutputLogging.on(LogLevel.INFO);
+        assertTrue(StandardOutputLogging.isOn(LogLevel.INFO));
+        assertFalse(StandardOutputLogging.isOn(LogLevel.QUIET));
+        StandardOutputLogging.offErr();
+        assertFalse(StandardOutputLogging.isOn(LogLevel.INFO));
+        StandardOutputLogging.off();
+        assertFalse(StandardOutputLogging.isOn(LogLevel.INFO));
     }
 
     private void checkOut(LogLevel expectedOut) {
-        assertEquals(StandardOutputLogging.OUT_LOGGING_STREAM.get(), System.out);
+        assertEquals(StandardOutputLogging.OUT_LOGGING_STREAM.get(), StandardOutputLogging.getOut());
         assertEquals(StandardOutputLogging.getOutAdapter().getLevel(), expectedOut);
     }
 
     private void checkErr(LogLevel expectedErr) {
-        assertEquals(StandardOutputLogging.ERR_LOGGING_STREAM.get(), System.err);
+        assertEquals(StandardOutputLogging.ERR_LOGGING_STREAM.get(), StandardOutputLogging.getErr());
         assertEquals(StandardOutputLogging.getErrAdapter().getLevel(), expectedErr);
     }
 }
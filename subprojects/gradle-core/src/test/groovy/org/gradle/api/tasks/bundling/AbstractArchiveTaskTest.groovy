@@ -27,7 +27,7 @@ import static org.junit.Assert.*
  */
 abstract class AbstractArchiveTaskTest extends AbstractConventionTaskTest {
 
-    FileResolver resolver = [resolve: {it as File}] as FileResolver
+    FileResolver resolver = [resolve: {it as File}, getDirectorySnapshots: {null}] as FileResolver
     
     abstract AbstractArchiveTask getArchiveTask()
 
@@ -39,6 +39,7 @@ class ZipTest extends AbstractArchiveTaskTest {
     @Test public void testZip() {
         zip = createTask(Zip)
         assertEquals(Zip.ZIP_EXTENSION, zip.extension)
+        assertFalse(zip.incremental)
         checkConstructor()
     }
 }
\ No newline at end of file
@@ -32,6 +32,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.*;
@@ -227,6 +228,182 @@ public class BTreePersistentIndexedCacheTest {
         assertThat(cache.get(new File("File")), equalTo(3));
     }
 
+    @Test
+    public void batchesWritesUntilFlushed() {
+        BTreePersistentIndexedCache<String, Integer> cache = new BTreePersistentIndexedCache<String, Integer>(
+                backingCache, serializer, (short) 4, 100, 1000);
+        TestFile cacheFile = tmpDir.getDir().file("cache.bin");
+        long len = cacheFile.length();
+
+        for (int i = 0; i < 10; i++) {
+            cache.put(String.format("key_%d", i), i);
+        }
+        assertThat(cacheFile.length(), equalTo(len));
+        assertThat(cache.get("key_5"), equalTo(5));
+
+        cache.flush();
+        assertThat(cacheFile.length(), greaterThan(len));
+
+        cache.reset();
+        for (int i = 0; i < 10; i++) {
+            assertThat(cache.get(String.format("key_%d", i)), equalTo(i));
+        }
+        cache.verify();
+    }
+
+    @Test
+    public void flushesWritesWhenMaxDirtyBlocksExceeded() {
+        BTreePersistentIndexedCache<String, Integer> cache = new BTreePersistentIndexedCache<String, Integer>(
+                backingCache, serializer, (short) 4, 100, 5);
+        TestFile cacheFile = tmpDir.getDir().file("cache.bin");
+        long len = cacheFile.length();
+
+        for (int i = 0; i < 10; i++) {
+            cache.put(String.format("key_%d", i), i);
+        }
+        assertThat(cacheFile.length(), greaterThan(len));
+    }
+
+    @Test
+    public void canReadWhileAnotherThreadIsWriting() throws Exception {
+        final BTreePersistentIndexedCache<String, Integer> cache = new BTreePersistentIndexedCache<String, Integer>(
+                backingCache, serializer, (short) 4, 100, 50);
+        for (int i = 0; i < 100; i++) {
+            cache.put(String.format("key_%d", i), i);
+        }
+
+        Thread writer = new Thread() {
+            @Override
+            public void run() {
+                for (int i = 100; i < 500; i++) {
+                    cache.put(String.format("key_%d", i), i);
+                }
+            }
+        };
+        writer.start();
+        for (int j = 0; j < 10; j++) {
+            for (int i = 0; i < 100; i++) {
+                assertThat(cache.get(String.format("key_%d", i)), equalTo(i));
+            }
+        }
+        writer.join();
+
+        cache.reset();
+        for (int i = 0; i < 500; i++) {
+            assertThat(cache.get(String.format("key_%d", i)), equalTo(i));
+        }
+        cache.verify();
+    }
+
+    @Test
+    public void canReadFromSeveralThreadsWhileAnotherThreadIsWriting() throws Exception {
+        final BTreePersistentIndexedCache<String, Integer> cache = new BTreePersistentIndexedCache<String, Integer>(
+                backingCache, serializer, (short) 4, 100, 50);
+        for (int i = 0; i < 100; i++) {
+            cache.put(String.format("key_%d", i), i);
+        }
+
+        final List<Throwable> failures = new CopyOnWriteArrayList<Throwable>();
+        List<Thread> threads = new ArrayList<Thread>();
+        threads.add(new Thread() {
+            @Override
+            public void run() {
+                for (int i = 100; i < 500; i++) {
+                    cache.put(String.format("key_%d", i), i);
+                }
+            }
+        });
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        for (int j = 0; j < 10; j++) {
+                            for (int i = 0; i < 100; i++) {
+                                assertThat(cache.get(String.format("key_%d", i)), equalTo(i));
+                            }
+                        }
+                    } catch (Throwable e) {
+                        failures.add(e);
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(failures.toString(), failures.isEmpty());
+        cache.reset();
+        for (int i = 0; i < 500; i++) {
+            assertThat(cache.get(String.format("key_%d", i)), equalTo(i));
+        }
+        cache.verify();
+    }
+
+    @Test
+    public void persistsEntriesWhenMemoryMapped() {
+        cache = new BTreePersistentIndexedCache<String, Integer>(backingCache, serializer, (short) 4, 100, 0, true);
+
+        checkAdds(3, 2, 11, 5, 7, 1, 10, 8, 9, 4, 6, 0);
+        checkAddsAndRemoves(null, Arrays.asList(12, 13, 14, 15, 16));
+        cache.verify();
+    }
+
+    @Test
+    public void memoryMappedCacheDiscardsCacheFileWrittenByFileBackedStore() {
+        BTreePersistentIndexedCache<String, Integer> fileCache = new BTreePersistentIndexedCache<String, Integer>(
+                backingCache, serializer, (short) 4, 100);
+        fileCache.put("key_1", 1);
+        fileCache.reset();
+
+        cache = new BTreePersistentIndexedCache<String, Integer>(backingCache, serializer, (short) 4, 100, 0, true);
+        assertNull(cache.get("key_1"));
+        cache.put("key_1", 2);
+        assertThat(cache.get("key_1"), equalTo(2));
+        cache.verify();
+    }
+
+    @Test
+    public void memoryMappedCacheAddsBlocksAfterUsedLengthWhenFileWasNotTrimmed() {
+        cache = new BTreePersistentIndexedCache<String, Integer>(backingCache, serializer, (short) 4, 100, 0, true);
+        checkAdds(1, 2, 3, 4, 5);
+        cache.reset();
+
+        // The mapped region of the open cache pads the file, as when trimming fails on close
+        TestFile cacheFile = tmpDir.getDir().file("cache.bin");
+        assertThat(cacheFile.length(), equalTo((long) MappedFileBlockStore.DEFAULT_REGION_SIZE));
+
+        BTreePersistentIndexedCache<String, Integer> reopened = new BTreePersistentIndexedCache<String, Integer>(
+                backingCache, serializer, (short) 4, 100, 0, true);
+        for (int i = 6; i <= 10; i++) {
+            reopened.put(String.format("key_%d", i), i);
+        }
+        reopened.reset();
+
+        assertThat(cacheFile.length(), equalTo((long) MappedFileBlockStore.DEFAULT_REGION_SIZE));
+        for (int i = 1; i <= 10; i++) {
+            assertThat(reopened.get(String.format("key_%d", i)), equalTo(i));
+        }
+        reopened.verify();
+    }
+
+    @Test
+    public void memoryMappedCacheHandlesBadlyFormedCacheFile() throws IOException {
+        TestFile testFile = tmpDir.getDir().file("cache.bin");
+        testFile.write("some junk");
+
+        cache = new BTreePersistentIndexedCache<String, Integer>(backingCache, serializer, (short) 4, 100, 0, true);
+
+        assertNull(cache.get("key_1"));
+        cache.put("key_1", 99);
+        assertThat(cache.get("key_1"), equalTo(99));
+        cache.verify();
+    }
+
     private void checkAdds(Integer... values) {
         checkAdds(Arrays.asList(values));
     }
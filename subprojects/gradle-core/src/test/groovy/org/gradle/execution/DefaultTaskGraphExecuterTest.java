@@ -31,6 +31,7 @@ import org.gradle.util.TestClosure;
 import static org.gradle.util.WrapUtil.*;
 import static org.hamcrest.Matchers.*;
 import org.jmock.Expectations;
+import org.jmock.Sequence;
 import org.jmock.integration.junit4.JMock;
 import org.jmock.integration.junit4.JUnit4Mockery;
 import static org.junit.Assert.*;
@@ -40,8 +41,11 @@ import org.junit.runner.RunWith;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author Hans Dockter
@@ -55,7 +59,7 @@ public class DefaultTaskGraphExecuterTest {
     private final ListenerManager listenerManager = context.mock(ListenerManager.class);
     TaskGraphExecuter taskExecuter;
     ProjectInternal root;
-    List<Task> executedTasks = new ArrayList<Task>();
+    List<Task> executedTasks = Collections.synchronizedList(new ArrayList<Task>());
 
     @Before
     public void setUp() {
@@ -383,6 +387,103 @@ public class DefaultTaskGraphExecuterTest {
         assertThat(taskExecuter.getAllTasks(), equalTo(toList(b, c)));
     }
 
+    @Test
+    public void testExecutesTasksInDependencyOrderWhenParallel() {
+        TaskGraphExecuter parallelExecuter = createParallelExecuter(4);
+        Task a = createTask("a");
+        Task b = createTask("b", a);
+        Task c = createTask("c", b, a);
+        Task d = createTask("d", c);
+
+        parallelExecuter.execute(toList(d));
+
+        assertThat(executedTasks, equalTo(toList(a, b, c, d)));
+    }
+
+    @Test
+    public void testExecutesIndependentTasksConcurrentlyWhenParallel() {
+        TaskGraphExecuter parallelExecuter = createParallelExecuter(2);
+        final CountDownLatch latch = new CountDownLatch(2);
+        Action<Task> waitForOtherTask = new Action<Task>() {
+            public void execute(Task task) {
+                latch.countDown();
+                try {
+                    assertTrue(latch.await(10, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        Task a = createTask("a");
+        a.doLast(waitForOtherTask);
+        Task b = createTask("b");
+        b.doLast(waitForOtherTask);
+        Task c = createTask("c", a, b);
+
+        parallelExecuter.execute(toList(c));
+
+        assertThat(executedTasks.size(), equalTo(3));
+        assertThat(executedTasks.get(2), sameInstance(c));
+    }
+
+    @Test
+    public void testDoesNotExecuteDependentTasksAfterFailureWhenParallel() {
+        TaskGraphExecuter parallelExecuter = createParallelExecuter(4);
+        final RuntimeException failure = new RuntimeException();
+        Task a = createTask("a");
+        a.doLast(new Action<Task>() {
+            public void execute(Task task) {
+                throw failure;
+            }
+        });
+        Task b = createTask("b", a);
+
+        try {
+            parallelExecuter.execute(toList(b));
+            fail();
+        } catch (GradleScriptException e) {
+            assertThat(e.getCause(), sameInstance((Throwable) failure));
+        }
+
+        assertThat(executedTasks, equalTo(toList(a)));
+    }
+
+    @Test
+    public void testNotifiesTaskListenerAsTasksAreExecutedWhenParallel() {
+        final TaskGraphExecuter parallelExecuter = createParallelExecuter(2);
+        final TaskExecutionListener listener = context.mock(TaskExecutionListener.class);
+        final Task a = createTask("a");
+        final Task b = createTask("b", a);
+
+        final Sequence sequence = context.sequence("tasks");
+
+        parallelExecuter.addTaskExecutionListener(listener);
+        parallelExecuter.addTasks(toList(b));
+
+        context.checking(new Expectations() {{
+            one(listener).beforeExecute(a);
+            inSequence(sequence);
+            one(listener).afterExecute(with(equalTo(a)), with(notNullValue(TaskExecutionResult.class)));
+            inSequence(sequence);
+            one(listener).beforeExecute(b);
+            inSequence(sequence);
+            one(listener).afterExecute(with(equalTo(b)), with(notNullValue(TaskExecutionResult.class)));
+            inSequence(sequence);
+        }});
+
+        parallelExecuter.execute();
+    }
+
+    private TaskGraphExecuter createParallelExecuter(int threads) {
+        context.checking(new Expectations(){{
+            one(listenerManager).createAnonymousBroadcaster(TaskExecutionGraphListener.class);
+            will(returnValue(new ListenerBroadcast<TaskExecutionGraphListener>(TaskExecutionGraphListener.class)));
+            one(listenerManager).createAnonymousBroadcaster(TaskExecutionListener.class);
+            will(returnValue(new ListenerBroadcast<TaskExecutionListener>(TaskExecutionListener.class)));
+        }});
+        return new DefaultTaskGraphExecuter(listenerManager, threads);
+    }
+
     private Task createTask(String name, final Task... dependsOn) {
         final TaskInternal task = AbstractTask.injectIntoNewInstance(root, name, new Callable<TaskInternal>() {
             public TaskInternal call() throws Exception {
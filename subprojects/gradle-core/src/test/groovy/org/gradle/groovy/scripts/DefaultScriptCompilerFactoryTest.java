@@ -17,6 +17,7 @@
 package org.gradle.groovy.scripts;
 
 import org.gradle.CacheUsage;
+import org.gradle.api.internal.project.StandardOutputRedirector;
 import org.gradle.integtests.TestFile;
 import org.gradle.cache.CacheRepository;
 import org.gradle.cache.PersistentCache;
@@ -29,6 +30,7 @@ import org.jmock.integration.junit4.JMock;
 import org.jmock.integration.junit4.JUnit4Mockery;
 import org.jmock.lib.legacy.ClassImposteriser;
 import org.junit.After;
+import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.*;
 import org.junit.Before;
 import org.junit.Rule;
@@ -242,4 +244,77 @@ public class DefaultScriptCompilerFactoryTest {
 
         assertSame(expectedScriptRunner, scriptProcessor.createCompiler(source).setTransformer(transformer).compile(expectedScriptBaseClass));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void reusesScriptClassCompiledByAnotherFactory() {
+        final ScriptClassCache scriptClassCache = new ScriptClassCache();
+
+        context.checking(new Expectations(){{
+            allowing(source).getSourceFile();
+            will(returnValue(null));
+
+            one(cacheRepositoryMock).getGlobalCache("scripts/class-name", expectedCacheProperties);
+            will(returnValue(cacheMock));
+
+            allowing(cacheMock).isValid();
+            will(returnValue(true));
+
+            one(scriptCompilationHandlerMock).loadScriptFromDir(source, testClassLoader, expectedScriptCacheDir,
+                    TestScript.class);
+            will(returnValue(new TestScript()));
+
+            exactly(2).of(scriptRunnerFactoryMock).create(with(instanceOf(TestScript.class)));
+            will(returnValue(expectedScriptRunner));
+        }});
+
+        scriptProcessor = new DefaultScriptCompilerFactory(scriptCompilationHandlerMock, CacheUsage.ON,
+                scriptRunnerFactoryMock, cacheRepositoryMock, scriptClassCache);
+        assertSame(expectedScriptRunner, scriptProcessor.createCompiler(source).compile(TestScript.class));
+
+        scriptProcessor = new DefaultScriptCompilerFactory(scriptCompilationHandlerMock, CacheUsage.ON,
+                scriptRunnerFactoryMock, cacheRepositoryMock, scriptClassCache);
+        assertSame(expectedScriptRunner, scriptProcessor.createCompiler(source).compile(TestScript.class));
+    }
+
+    @Test
+    public void doesNotUseScriptClassCacheWhenRebuildingCache() {
+        final ScriptClassCache scriptClassCache = new ScriptClassCache();
+        scriptClassCache.put(source, HashUtil.createHash(TEST_SCRIPT_TEXT), testClassLoader, null,
+                expectedScriptBaseClass, TestScript.class);
+
+        context.checking(new Expectations(){{
+            one(cacheRepositoryMock).getGlobalCache("scripts/class-name", expectedCacheProperties);
+            will(returnValue(cacheMock));
+
+            allowing(cacheMock).isValid();
+            will(returnValue(true));
+
+            one(scriptCompilationHandlerMock).loadScriptFromDir(source, testClassLoader, expectedScriptCacheDir,
+                    expectedScriptBaseClass);
+            will(returnValue(expectedScript));
+
+            one(expectedScript).setScriptSource(source);
+
+            one(scriptRunnerFactoryMock).create(expectedScript);
+            will(returnValue(expectedScriptRunner));
+        }});
+
+        scriptProcessor = new DefaultScriptCompilerFactory(scriptCompilationHandlerMock, CacheUsage.REBUILD,
+                scriptRunnerFactoryMock, cacheRepositoryMock, scriptClassCache);
+        assertSame(expectedScriptRunner, scriptProcessor.createCompiler(source).compile(expectedScriptBaseClass));
+    }
+
+    public static class TestScript extends Script {
+        public StandardOutputRedirector getStandardOutputRedirector() {
+            return null;
+        }
+
+        public ClassLoader getContextClassloader() {
+            return null;
+        }
+
+        public Object run() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.groovy.scripts;
+
+import org.codehaus.groovy.control.CompilationUnit;
+import org.gradle.groovy.scripts.DefaultScriptCompilerFactoryTest.TestScript;
+import org.gradle.integtests.TestFile;
+import org.gradle.util.HashUtil;
+import org.gradle.util.TemporaryFolder;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+
+public class ScriptClassCacheTest {
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+    private final ScriptClassCache cache = new ScriptClassCache(0);
+    private final ClassLoader classLoader = getClass().getClassLoader();
+
+    @Test
+    public void hashesTextOfScript() {
+        ScriptSource source = new StringScriptSource("script", "some text");
+        assertThat(cache.getHash(source), equalTo(HashUtil.createHash("some text")));
+    }
+
+    @Test
+    public void reusesHashOfScriptFileWhoseFileIsUnchanged() {
+        TestFile file = tmpDir.file("build.gradle").write("some text");
+        file.setLastModified(file.lastModified() - 10000);
+        ScriptSource source = new CountingScriptSource(new FileScriptSource("script", file));
+
+        assertThat(cache.getHash(source), equalTo(HashUtil.createHash("some text")));
+        assertThat(cache.getHash(source), equalTo(HashUtil.createHash("some text")));
+        assertThat(((CountingScriptSource) source).reads, equalTo(1));
+    }
+
+    @Test
+    public void rehashesScriptFileWhenFileChanges() {
+        TestFile file = tmpDir.file("build.gradle").write("some text");
+        file.setLastModified(file.lastModified() - 10000);
+        ScriptSource source = new StrictScriptSource(new FileScriptSource("script", file));
+        assertThat(cache.getHash(source), equalTo(HashUtil.createHash("some text")));
+
+        file.write("some other text");
+        assertThat(cache.getHash(source), equalTo(HashUtil.createHash("some other text")));
+    }
+
+    @Test
+    public void doesNotReuseHashOfRecentlyChangedScriptFile() {
+        ScriptClassCache cache = new ScriptClassCache(60000);
+        TestFile file = tmpDir.file("build.gradle").write("some text");
+        CountingScriptSource source = new CountingScriptSource(new FileScriptSource("script", file));
+
+        cache.getHash(source);
+        cache.getHash(source);
+        assertThat(source.reads, equalTo(2));
+    }
+
+    @Test
+    public void reusesClassCompiledWithSameSourceClassLoaderAndTransformer() {
+        ScriptSource source = new StringScriptSource("script", "some text");
+        cache.put(source, "hash", classLoader, null, Script.class, TestScript.class);
+
+        assertThat(cache.get(source, "hash", classLoader, null, Script.class), equalTo((Object) TestScript.class));
+        assertThat(cache.get(source, "other", classLoader, null, Script.class), nullValue());
+        assertThat(cache.get(source, "hash", new ClassLoader() {}, null, Script.class), nullValue());
+        assertThat(cache.get(source, "hash", classLoader, new TestTransformer(), Script.class), nullValue());
+        assertThat(cache.get(new StringScriptSource("script", "other"), "hash", classLoader, null, Script.class),
+                nullValue());
+    }
+
+    @Test
+    public void treatsClassLoaderWithEmptyClassPathAsItsParent() throws Exception {
+        ScriptSource source = new StringScriptSource("script", "some text");
+        cache.put(source, "hash", new URLClassLoader(new URL[0], classLoader), null, Script.class, TestScript.class);
+
+        assertThat(cache.get(source, "hash", classLoader, null, Script.class), equalTo((Object) TestScript.class));
+        assertThat(cache.get(source, "hash", new URLClassLoader(new URL[0], classLoader), null, Script.class),
+                equalTo((Object) TestScript.class));
+        assertThat(cache.get(source, "hash", new URLClassLoader(new URL[]{tmpDir.getDir().toURI().toURL()},
+                classLoader), null, Script.class), nullValue());
+    }
+
+    private static class TestTransformer implements Transformer {
+        public void register(CompilationUnit compilationUnit) {
+        }
+    }
+
+    private static class CountingScriptSource extends StrictScriptSource {
+        private int reads;
+
+        private CountingScriptSource(ScriptSource source) {
+            super(source);
+        }
+
+        @Override
+        public String getText() {
+            reads++;
+            return super.getText();
+        }
+    }
+}
@@ -61,6 +61,10 @@ public class DefaultCommandLine2StartParameterConverterTest {
     private CacheUsage expectedCacheUsage = CacheUsage.ON;
     private boolean expectedSearchUpwards = true;
     private boolean expectedDryRun = false;
+    private int expectedParallelThreadCount = 0;
+    private boolean expectedSnapshotDirectories = false;
+    private boolean expectedOutputCacheEnabled = false;
+    private boolean expectedProfile = false;
     private boolean expectedShowHelp = false;
     private boolean expectedShowVersion = false;
     private StartParameter.ShowStacktrace expectedShowStackTrace = StartParameter.ShowStacktrace.INTERNAL_EXCEPTIONS;
@@ -115,6 +119,10 @@ public class DefaultCommandLine2StartParameterConverterTest {
         assertEquals(expectedGradleUserHome.getAbsoluteFile(), startParameter.getGradleUserHomeDir().getAbsoluteFile());
         assertEquals(expectedLogLevel, startParameter.getLogLevel());
         assertEquals(expectedDryRun, startParameter.isDryRun());
+        assertEquals(expectedParallelThreadCount, startParameter.getParallelThreadCount());
+        assertEquals(expectedSnapshotDirectories, startParameter.isSnapshotDirectories());
+        assertEquals(expectedOutputCacheEnabled, startParameter.isOutputCacheEnabled());
+        assertEquals(expectedProfile, startParameter.isProfile());
         assertEquals(expectedShowHelp, startParameter.isShowHelp());
         assertEquals(expectedShowVersion, startParameter.isShowVersion());
         assertEquals(expectedShowStackTrace, startParameter.getShowStacktrace());
@@ -257,6 +265,35 @@ public class DefaultCommandLine2StartParameterConverterTest {
         checkConversion("-m");
     }
 
+    @Test
+    public void withParallelThreads() {
+        expectedParallelThreadCount = 4;
+        checkConversion("--parallel-threads", "4");
+    }
+
+    @Test(expected = CommandLineArgumentException.class)
+    public void withNonNumericParallelThreadsShouldThrowCommandLineArgumentEx() {
+        checkConversion("--parallel-threads", "many");
+    }
+
+    @Test
+    public void withSnapshotDirectories() {
+        expectedSnapshotDirectories = true;
+        checkConversion("--snapshot-dirs");
+    }
+
+    @Test
+    public void withOutputCache() {
+        expectedOutputCacheEnabled = true;
+        checkConversion("--output-cache");
+    }
+
+    @Test
+    public void withProfile() {
+        expectedProfile = true;
+        checkConversion("--profile");
+    }
+
     @Test
     public void withExcludeTask() {
         expectedExcludedTasks.add("excluded");
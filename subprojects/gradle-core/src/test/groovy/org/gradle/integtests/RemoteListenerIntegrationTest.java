@@ -27,8 +27,15 @@ import org.jmock.Expectations;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static junit.framework.Assert.assertTrue;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
 
 public class RemoteListenerIntegrationTest {
     private final JUnit4Mockery context = new JUnit4Mockery();
@@ -57,6 +64,40 @@ public class RemoteListenerIntegrationTest {
         context.assertIsSatisfied();
     }
 
+    @Test
+    public void receivesMessagesFromMultipleSendersInOrder() throws Throwable {
+        final int messageCount = 500;
+        final CountDownLatch received = new CountDownLatch(2 * messageCount);
+        final List<String> first = Collections.synchronizedList(new ArrayList<String>());
+        final List<String> second = Collections.synchronizedList(new ArrayList<String>());
+        ListenerBroadcast<TestListenerInterface> broadcast = new ListenerBroadcast<TestListenerInterface>(TestListenerInterface.class);
+        broadcast.add(new TestListenerInterface() {
+            public void send(String message, int count) {
+                (message.equals(FIRST_MESSAGE_TEXT) ? first : second).add(message + count);
+                received.countDown();
+            }
+        });
+        RemoteReceiver receiver = new RemoteReceiver(broadcast);
+
+        List<String> expectedFirst = new ArrayList<String>();
+        List<String> expectedSecond = new ArrayList<String>();
+        RemoteSender<TestListenerInterface> firstSender = new RemoteSender<TestListenerInterface>(TestListenerInterface.class, receiver.getBoundPort(), 10);
+        RemoteSender<TestListenerInterface> secondSender = new RemoteSender<TestListenerInterface>(TestListenerInterface.class, receiver.getBoundPort());
+        for (int i = 0; i < messageCount; i++) {
+            firstSender.getSource().send(FIRST_MESSAGE_TEXT, i);
+            expectedFirst.add(FIRST_MESSAGE_TEXT + i);
+            secondSender.getSource().send(SECOND_MESSAGE_TEXT, i);
+            expectedSecond.add(SECOND_MESSAGE_TEXT + i);
+        }
+        firstSender.close();
+        secondSender.close();
+
+        assertTrue(received.await(20, TimeUnit.SECONDS));
+        receiver.close();
+        assertThat(first, equalTo(expectedFirst));
+        assertThat(second, equalTo(expectedSecond));
+    }
+
     public static class RemoteExceptionListener implements RemoteReceiver.ExceptionListener {
         Throwable ex;
 
@@ -69,9 +110,11 @@ public class RemoteListenerIntegrationTest {
 
         public static void main(String[] args) throws IOException {
             int port = Integer.parseInt(args[0]);
-            TestListenerInterface sender = new RemoteSender<TestListenerInterface>(TestListenerInterface.class, port).getSource();
+            RemoteSender<TestListenerInterface> remoteSender = new RemoteSender<TestListenerInterface>(TestListenerInterface.class, port);
+            TestListenerInterface sender = remoteSender.getSource();
             sender.send(FIRST_MESSAGE_TEXT, FIRST_MESSAGE_INT);
             sender.send(SECOND_MESSAGE_TEXT, SECOND_MESSAGE_INT);
+            remoteSender.close();
         }
     }
 
@@ -17,6 +17,8 @@ package org.gradle.listener;
 
 import org.gradle.api.GradleException;
 import org.gradle.api.GradleScriptException;
+import org.gradle.api.logging.LogLevel;
+import org.gradle.api.logging.StandardOutputLogging;
 import org.gradle.groovy.scripts.ScriptSource;
 import org.gradle.groovy.scripts.StringScriptSource;
 import static org.gradle.util.HelperUtil.*;
@@ -215,6 +217,29 @@ public class ListenerBroadcastTest {
         }
     }
 
+    @Test
+    public void redirectsStandardOutputWhileNotifyingListeners() {
+        final boolean[] redirected = new boolean[1];
+        broadcast.add(new TestListener() {
+            public void event1(String param) {
+                redirected[0] = StandardOutputLogging.isOn(LogLevel.QUIET);
+            }
+
+            public void event2(int value, String other) {
+            }
+        });
+
+        StandardOutputLogging.off();
+        try {
+            broadcast.getSource().event1("param");
+            assertTrue(redirected[0]);
+            assertThat(StandardOutputLogging.getOut(), sameInstance(StandardOutputLogging.DEFAULT_OUT));
+            assertThat(StandardOutputLogging.getErr(), sameInstance(StandardOutputLogging.DEFAULT_ERR));
+        } finally {
+            StandardOutputLogging.off();
+        }
+    }
+
     private interface TestListener {
         void event1(String param);
 
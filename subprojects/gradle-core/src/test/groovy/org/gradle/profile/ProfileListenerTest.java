@@ -0,0 +1,145 @@
+/*
+ * Copyright 2010 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.profile;
+
+import org.gradle.BuildResult;
+import org.gradle.api.Project;
+import org.gradle.api.Task;
+import org.gradle.api.execution.TaskExecutionResult;
+import org.gradle.api.initialization.Settings;
+import org.gradle.api.invocation.Gradle;
+import org.gradle.integtests.TestFile;
+import org.gradle.util.TemporaryFolder;
+import org.gradle.util.TimeProvider;
+import org.jmock.Expectations;
+import org.jmock.integration.junit4.JMock;
+import org.jmock.integration.junit4.JUnit4Mockery;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.Iterator;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+@RunWith(JMock.class)
+public class ProfileListenerTest {
+    @Rule
+    public final TemporaryFolder tmpDir = new TemporaryFolder();
+    private final JUnit4Mockery context = new JUnit4Mockery();
+    private final Gradle gradle = context.mock(Gradle.class);
+    private final Project project = context.mock(Project.class);
+    private final Task task = context.mock(Task.class);
+    private final TaskExecutionResult result = context.mock(TaskExecutionResult.class);
+    private long time = 1000;
+    private final ProfileListener listener = new ProfileListener(new TimeProvider() {
+        public long getCurrentTime() {
+            return time;
+        }
+    });
+
+    @Test
+    public void recordsTimingsOfBuild() {
+        context.checking(new Expectations() {{
+            allowing(project).getPath();
+            will(returnValue(":project"));
+            allowing(task).getPath();
+            will(returnValue(":project:task"));
+            allowing(result).getFailure();
+            will(returnValue(null));
+            allowing(result).getSkipMessage();
+            will(returnValue(null));
+        }});
+
+        listener.buildStarted(gradle);
+        time = 1100;
+        listener.settingsEvaluated(context.mock(Settings.class));
+        time = 1200;
+        listener.projectsLoaded(gradle);
+        listener.beforeEvaluate(project);
+        time = 1500;
+        listener.afterEvaluate(project, null);
+        listener.projectsEvaluated(gradle);
+        time = 1600;
+        listener.beforeExecute(task);
+        listener.upToDateChecked(task, false, 30);
+        listener.outputCacheChecked(task, false);
+        listener.filesHashed(task, 20);
+        time = 1900;
+        listener.afterExecute(task, result);
+
+        BuildProfile profile = listener.getProfile();
+        assertThat(profile.getBuildStarted(), equalTo(1000L));
+        assertThat(profile.getSettingsEvaluated(), equalTo(1100L));
+        assertThat(profile.getProjectsLoaded(), equalTo(1200L));
+        assertThat(profile.getProjectsEvaluated(), equalTo(1500L));
+
+        BuildProfile.ProjectProfile projectProfile = profile.getProjects().iterator().next();
+        assertThat(projectProfile.getPath(), equalTo(":project"));
+        assertThat(projectProfile.getConfigurationTime(), equalTo(300L));
+
+        Iterator<BuildProfile.TaskProfile> tasks = profile.getTasks().iterator();
+        BuildProfile.TaskProfile taskProfile = tasks.next();
+        assertFalse(tasks.hasNext());
+        assertThat(taskProfile.getPath(), equalTo(":project:task"));
+        assertThat(taskProfile.getThread(), equalTo(Thread.currentThread().getName()));
+        assertThat(taskProfile.getStarted(), equalTo(1600L));
+        assertThat(taskProfile.getElapsedTime(), equalTo(300L));
+        assertThat(taskProfile.getOutcome(), equalTo("EXECUTED"));
+        assertThat(taskProfile.getUpToDateCheckTime(), equalTo(30L));
+        assertThat(taskProfile.getHashingTime(), equalTo(20L));
+        assertThat(taskProfile.getOutputCacheHit(), equalTo(false));
+        assertThat(profile.getOutputCacheMisses(), equalTo(1));
+        assertThat(profile.getOutputCacheHits(), equalTo(0));
+    }
+
+    @Test
+    public void recordsOutcomeOfSkippedTask() {
+        context.checking(new Expectations() {{
+            allowing(task).getPath();
+            will(returnValue(":task"));
+            allowing(result).getFailure();
+            will(returnValue(null));
+            allowing(result).getSkipMessage();
+            will(returnValue("UP-TO-DATE"));
+        }});
+
+        listener.beforeExecute(task);
+        listener.afterExecute(task, result);
+
+        assertThat(listener.getProfile().getTasks().iterator().next().getOutcome(), equalTo("UP-TO-DATE"));
+    }
+
+    @Test
+    public void writesReportsToBuildDirOfRootProjectWhenBuildFinishes() {
+        final File buildDir = tmpDir.getDir().file("build");
+        context.checking(new Expectations() {{
+            allowing(gradle).getRootProject();
+            will(returnValue(project));
+            allowing(project).getBuildDir();
+            will(returnValue(buildDir));
+        }});
+
+        listener.buildFinished(new BuildResult(gradle, null));
+
+        TestFile reportDir = tmpDir.getDir().file("build/reports/profile");
+        String[] reports = reportDir.list();
+        assertThat(reports.length, equalTo(2));
+        assertThat(reportDir.file(reports[0]).getName(), startsWith("profile-"));
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2010 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.profile;
+
+import org.gradle.integtests.TestFile;
+import org.gradle.util.TemporaryFolder;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+public class ProfileReportRendererTest {
+    @Rule
+    public final TemporaryFolder tmpDir = new TemporaryFolder();
+    private final ProfileReportRenderer renderer = new ProfileReportRenderer();
+    private final BuildProfile profile = new BuildProfile();
+
+    @Before
+    public void setUp() {
+        profile.setBuildStarted(1000);
+        profile.setSettingsEvaluated(1100);
+        profile.setProjectsLoaded(1200);
+        profile.setProjectsEvaluated(1500);
+        profile.setBuildFinished(2000);
+
+        BuildProfile.ProjectProfile project = profile.getProject(":project");
+        project.setConfigurationStarted(1200);
+        project.setConfigurationFinished(1450);
+
+        BuildProfile.TaskProfile task = profile.getTask(":project:<task>");
+        task.setThread("main");
+        task.setStarted(1500);
+        task.setFinished(1800);
+        task.setOutcome("EXECUTED");
+        task.setUpToDateCheckTime(40);
+        task.setHashingTime(25);
+        task.setOutputCacheHit(true);
+    }
+
+    @Test
+    public void writesJsonReport() {
+        TestFile file = tmpDir.getDir().file("profile.json");
+
+        renderer.writeJson(profile, file);
+
+        String json = file.getText();
+        assertThat(json, containsString("\"totalTime\": 1000,"));
+        assertThat(json, containsString("\"configurationTime\": 300,"));
+        assertThat(json, containsString("\"outputCacheHits\": 1,"));
+        assertThat(json, containsString(
+                "{\"path\": \":project\", \"started\": 200, \"configurationTime\": 250}"));
+        assertThat(json, containsString(
+                "{\"path\": \":project:<task>\", \"thread\": \"main\", \"started\": 500, \"elapsedTime\": 300, "
+                        + "\"outcome\": \"EXECUTED\", \"upToDateCheckTime\": 40, \"hashingTime\": 25, "
+                        + "\"outputCacheHit\": true}"));
+    }
+
+    @Test
+    public void writesHtmlReport() {
+        TestFile file = tmpDir.getDir().file("profile.html");
+
+        renderer.writeHtml(profile, file);
+
+        String html = file.getText();
+        assertThat(html, containsString("<td>:project:&lt;task&gt;</td>"));
+        assertThat(html, containsString("left: 50.00%; width: 30.00%"));
+    }
+}
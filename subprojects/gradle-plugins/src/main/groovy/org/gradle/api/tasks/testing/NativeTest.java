@@ -29,6 +29,7 @@ import org.gradle.util.GUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -48,6 +49,9 @@ public class NativeTest extends AbstractTestTask {
     private int maximumNumberOfForks = Integer.MAX_VALUE; // +/- no limit
     private int amountOfForksToStart = 1; // default
     private double lowMemoryThreshold = -1;
+    private boolean reuseForks = false; // refork starts a new JVM
+    private boolean cacheTestResults = false;
+    private boolean rerunCachedTests = false;
 
     public NativeTest() {
         super();
@@ -108,6 +112,7 @@ public class NativeTest extends AbstractTestTask {
         if (reforkReasonConfigs != null) {
             defaultPipelineConfig.setReforkReasonConfigs(reforkReasonConfigs);
         }
+        defaultPipelineConfig.setReuseForks(reuseForks);
 
         final TestOrchestrator orchestrator = new TestOrchestrator(this);
 
@@ -172,6 +177,20 @@ public class NativeTest extends AbstractTestTask {
         reportConfigs.put(reportConfig.getName(), reportConfig);
     }
 
+    /**
+     * Returns the file in which the time taken by each test class is kept between executions of this task.
+     */
+    public File getTestClassDurationsFile() {
+        return new File(getProject().getBuildDir(), String.format("tmp/%s/test.durations", getName()));
+    }
+
+    /**
+     * Returns the file in which the results of the test classes are kept between executions of this task.
+     */
+    public File getTestResultCacheFile() {
+        return new File(getProject().getBuildDir(), String.format("tmp/%s/test.results", getName()));
+    }
+
     public int getMaximumNumberOfForks() {
         return maximumNumberOfForks;
     }
@@ -207,4 +226,39 @@ public class NativeTest extends AbstractTestTask {
 
         this.lowMemoryThreshold = lowMemoryThreshold;
     }
-}
\ No newline at end of file
+
+    public boolean isReuseForks() {
+        return reuseForks;
+    }
+
+    /**
+     * Sets whether a refork keeps the JVM of the fork running, and only replaces the class loader of the test classes.
+     */
+    public void setReuseForks(boolean reuseForks) {
+        this.reuseForks = reuseForks;
+    }
+
+    public boolean isCacheTestResults() {
+        return cacheTestResults;
+    }
+
+    /**
+     * Sets whether test classes which passed are skipped while neither their class files nor the rest of the test
+     * runtime classpath have changed. Skipped test classes are reported as cached.
+     */
+    public void setCacheTestResults(boolean cacheTestResults) {
+        this.cacheTestResults = cacheTestResults;
+    }
+
+    public boolean isRerunCachedTests() {
+        return rerunCachedTests;
+    }
+
+    /**
+     * Sets whether all test classes are executed, including those whose cached result could be used. The results are
+     * still recorded when test results are cached.
+     */
+    public void setRerunCachedTests(boolean rerunCachedTests) {
+        this.rerunCachedTests = rerunCachedTests;
+    }
+}
@@ -28,8 +28,13 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
+ * Detects test classes by reading class files with ASM. Test class files may be processed concurrently. What is found
+ * out about each class file is kept in a {@link ClassFileIndex}, so a class file which has not changed since the
+ * previous build is not read again.
+ *
  * @author Tom Eyckmans
  */
 public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor> implements TestFrameworkDetector {
@@ -40,18 +45,29 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
 
     private final File testClassesDirectory;
     private final FileCollection testClasspath;
+    private final File indexFile;
     private List<File> testClassDirectories;
     private ClassFileExtractionManager classFileExtractionManager;
-    private final Map<File, Boolean> superClasses;
+    private ClassFileIndex classFileIndex;
+    private final Map<String, Boolean> superClasses;
 
     protected TestClassProcessor testClassProcessor;
 
     protected List<String> knownTestCaseClassNames;
 
     protected AbstractTestFrameworkDetector(File testClassesDirectory, FileCollection testClasspath) {
+        this(testClassesDirectory, testClasspath, null);
+    }
+
+    /**
+     * @param indexFile The file to keep the class file index in between builds. May be null, in which case the index
+     * is not kept.
+     */
+    protected AbstractTestFrameworkDetector(File testClassesDirectory, FileCollection testClasspath, File indexFile) {
         this.testClassesDirectory = testClassesDirectory;
         this.testClasspath = testClasspath;
-        this.superClasses = new HashMap<File, Boolean>();
+        this.indexFile = indexFile;
+        this.superClasses = new ConcurrentHashMap<String, Boolean>();
         this.knownTestCaseClassNames = new ArrayList<String>();
         addKnownTestCaseClassNames(TEST_CASE, GROOVY_TEST_CASE);
     }
@@ -62,36 +78,38 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
 
     protected abstract T createClassVisitor();
 
-    protected File getSuperTestClassFile(String superClassName) {
+    /**
+     * Locates and reads the class file of the given super class, in the test class directories or the library jars.
+     *
+     * @return The info of the super class, or null when its class file cannot be found.
+     */
+    protected ClassFileInfo getSuperTestClassInfo(String superClassName) {
         prepareClasspath();
         if (StringUtils.isEmpty(superClassName)) {
             throw new IllegalArgumentException("superClassName is empty!");
         }
 
-        final Iterator<File> testClassDirectoriesIt = testClassDirectories.iterator();
-
-        File superTestClassFile = null;
-        while (superTestClassFile == null && testClassDirectoriesIt.hasNext()) {
-            final File testClassDirectory = testClassDirectoriesIt.next();
-            final File superTestClassFileCandidate = new File(testClassDirectory, superClassName + ".class");
-            if (superTestClassFileCandidate.exists()) {
-                superTestClassFile = superTestClassFileCandidate;
+        for (final File testClassDirectory : testClassDirectories) {
+            final File superTestClassFile = new File(testClassDirectory, superClassName + CLASS_FILE_EXT);
+            if (superTestClassFile.exists()) {
+                return classFileInfo(superTestClassFile);
             }
         }
 
-        if (superTestClassFile != null) {
-            return superTestClassFile;
-        } else { // super test class file not in test class directories
-            return classFileExtractionManager.getLibraryClassFile(superClassName);
+        // super test class file not in test class directories
+        final byte[] superTestClass = classFileExtractionManager.getLibraryClassFile(superClassName);
+        if (superTestClass != null) {
+            return new ClassFileInfo(classVisitor(new ClassReader(superTestClass), superClassName));
         }
+        return null;
     }
 
-    private void prepareClasspath() {
+    private synchronized void prepareClasspath() {
         if (classFileExtractionManager != null) {
             return;
         }
 
-        classFileExtractionManager = new ClassFileExtractionManager();
+        final ClassFileExtractionManager classFileExtractionManager = new ClassFileExtractionManager();
         testClassDirectories = new ArrayList<File>();
 
         testClassDirectories.add(testClassesDirectory);
@@ -104,49 +122,103 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
                 }
             }
         }
+        this.classFileExtractionManager = classFileExtractionManager;
     }
 
-    protected TestClassVisitor classVisitor(final File testClassFile) {
-        final TestClassVisitor classVisitor = createClassVisitor();
+    private synchronized ClassFileIndex getClassFileIndex() {
+        if (classFileIndex == null) {
+            classFileIndex = indexFile == null ? new ClassFileIndex(getClass().getName()) : ClassFileIndex.read(
+                    indexFile, getClass().getName());
+        }
+        return classFileIndex;
+    }
+
+    public void detectionEnded() {
+        synchronized (this) {
+            if (classFileIndex != null && indexFile != null) {
+                classFileIndex.write(indexFile);
+            }
+            classFileIndex = null;
+            if (classFileExtractionManager != null) {
+                classFileExtractionManager.close();
+            }
+        }
+        superClasses.clear();
+    }
+
+    /**
+     * Returns what is known about the given class file, reading the class file when it has changed since the
+     * previous build.
+     */
+    protected ClassFileInfo classFileInfo(final File classFile) {
+        final ClassFileIndex index = getClassFileIndex();
+        ClassFileInfo classInfo = index.find(classFile);
+        if (classInfo == null) {
+            final long length = classFile.length();
+            final long lastModified = classFile.lastModified();
+            classInfo = new ClassFileInfo(classVisitor(classFile));
+            index.add(classFile, length, lastModified, classInfo);
+        }
+        return classInfo;
+    }
 
+    protected TestClassVisitor classVisitor(final File testClassFile) {
+        final ClassReader classReader;
         InputStream classStream = null;
         try {
             classStream = new BufferedInputStream(new FileInputStream(testClassFile));
-            final ClassReader classReader = new ClassReader(classStream);
-            classReader.accept(classVisitor, true);
+            classReader = new ClassReader(classStream);
         } catch (Throwable e) {
             throw new GradleException("failed to read class file " + testClassFile.getAbsolutePath(), e);
         } finally {
             IOUtils.closeQuietly(classStream);
         }
 
+        return classVisitor(classReader, testClassFile.getAbsolutePath());
+    }
+
+    private TestClassVisitor classVisitor(final ClassReader classReader, final String displayName) {
+        final TestClassVisitor classVisitor = createClassVisitor();
+
+        try {
+            classReader.accept(classVisitor, true);
+        } catch (Throwable e) {
+            throw new GradleException("failed to read class file " + displayName, e);
+        }
+
         return classVisitor;
     }
 
-    protected String classVisitorToClassFilename(final TestClassVisitor classVisitor) {
+    protected String classInfoToClassFilename(final ClassFileInfo classInfo) {
         final StrBuilder classFilenameBuilder = new StrBuilder();
 
-        classFilenameBuilder.append(classVisitor.getClassName());
+        classFilenameBuilder.append(classInfo.getClassName());
         classFilenameBuilder.append(CLASS_FILE_EXT);
 
         return classFilenameBuilder.toString();
     }
 
     public boolean processTestClass(File testClassFile) {
-        return processTestClass(testClassFile, false);
+        final ClassFileInfo classInfo = classFileInfo(testClassFile);
+
+        processInnerClasses(classInfo);
+
+        return processTestClass(classInfo, false);
     }
 
-    protected abstract boolean processTestClass(File testClasFile, boolean superClass);
+    protected abstract boolean processTestClass(ClassFileInfo classInfo, boolean superClass);
 
-    protected boolean processSuperClass(File testClassFile) {
+    protected boolean processSuperClass(ClassFileInfo classInfo) {
         boolean isTest = false;
 
-        Boolean isSuperTest = superClasses.get(testClassFile);
+        Boolean isSuperTest = superClasses.get(classInfo.getClassName());
 
         if (isSuperTest == null) {
-            isTest = processTestClass(testClassFile, true);
+            processInnerClasses(classInfo);
 
-            superClasses.put(testClassFile, isTest);
+            isTest = processTestClass(classInfo, true);
+
+            superClasses.put(classInfo.getClassName(), isTest);
         } else {
             isTest = isSuperTest;
         }
@@ -154,14 +226,26 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
         return isTest;
     }
 
+    /**
+     * Processes the public static inner classes of the given class which are in the test classes directory.
+     */
+    private void processInnerClasses(ClassFileInfo classInfo) {
+        for (final String innerClassName : classInfo.getInnerClassNames()) {
+            final File innerTestClassFile = new File(testClassesDirectory, innerClassName + CLASS_FILE_EXT);
+            if (innerTestClassFile.exists()) {
+                processTestClass(innerTestClassFile);
+            }
+        }
+    }
+
     /**
      * In none super class mode a test class is published when the class is a test and it is not abstract. In super
      * class mode it musn't publish the class otherwise it will get published multiple times (for each extending
      * class).
      */
-    protected void publishTestClass(boolean isTest, TestClassVisitor classVisitor, boolean superClass) {
-        if (isTest && !classVisitor.isAbstract() && !superClass) {
-            testClassProcessor.processTestClass(classVisitorToClassFilename(classVisitor));
+    protected void publishTestClass(boolean isTest, ClassFileInfo classInfo, boolean superClass) {
+        if (isTest && !classInfo.isAbstract() && !superClass) {
+            testClassProcessor.processTestClass(classInfoToClassFilename(classInfo));
         }
     }
 
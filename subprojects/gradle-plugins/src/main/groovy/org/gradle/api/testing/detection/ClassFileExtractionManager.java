@@ -15,33 +15,35 @@
  */
 package org.gradle.api.testing.detection;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.text.StrBuilder;
 import org.gradle.api.GradleException;
 import org.gradle.api.artifacts.indexing.JarFilePackageListener;
 import org.gradle.api.artifacts.indexing.JarFilePackageLister;
-import org.gradle.util.JarUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 /**
- * This class manages class file extraction from library jar files.
+ * This class manages reading class files from library jar files. The class files are read directly from the jar
+ * files, which are kept open until {@link #close()} is called.
  *
  * @author Tom Eyckmans
  */
 public class ClassFileExtractionManager {
     private static final Logger LOGGER = LoggerFactory.getLogger(ClassFileExtractionManager.class);
     protected final Map<String, Set<File>> packageJarFilesMappings;
-    protected final Map<String, File> extractedJarClasses;
-    protected final Set<String> unextractableClasses;
+    protected final Map<File, ZipFile> openJarFiles;
 
     public ClassFileExtractionManager() {
         packageJarFilesMappings = new HashMap<String, Set<File>>();
-        extractedJarClasses = new HashMap<String, File>();
-        unextractableClasses = new TreeSet<String>();
+        openJarFiles = new HashMap<File, ZipFile>();
     }
 
     /**
@@ -49,7 +51,7 @@ public class ClassFileExtractionManager {
      *
      * @param libraryJar Jar file to add to the index.
      */
-    public void addLibraryJar(final File libraryJar) {
+    public synchronized void addLibraryJar(final File libraryJar) {
         new JarFilePackageLister().listJarPackages(libraryJar, new JarFilePackageListener() {
             public void receivePackage(String packageName) {
                 Set<File> jarFiles = packageJarFilesMappings.get(packageName);
@@ -64,62 +66,61 @@ public class ClassFileExtractionManager {
     }
 
     /**
-     * Retrieve the file that contains the extracted class file. <p/> This method will extract the class file if it is
-     * not extracted yet. Extracted class files are deleted on exit of the Gradle process. The same class is only
-     * extracted once.
+     * Reads the class file of the given class from the library jars.
      *
-     * @param className Name of the class to extract.
-     * @return File that contains the extracted class file.
+     * @param className Name of the class to read.
+     * @return The content of the class file, or null when the class is not in any of the library jars.
      */
-    public File getLibraryClassFile(final String className) {
-        if (unextractableClasses.contains(className)) {
-            return null;
-        } else {
-            if (!extractedJarClasses.containsKey(className)) {
-                if (!extractClassFile(className)) {
-                    unextractableClasses.add(className);
-                }
-            }
-
-            return extractedJarClasses.get(className);
-        }
-    }
-
-    boolean extractClassFile(final String className) {
-        boolean classFileExtracted = false;
-
-        final File extractedClassFile = tempFile();
+    public synchronized byte[] getLibraryClassFile(final String className) {
         final String classFileName = new StrBuilder().append(className).append(".class").toString();
-        final String classNamePackage = classNamePackage(className);
-        final Set<File> packageJarFiles = packageJarFilesMappings.get(classNamePackage);
-
-        File classFileSourceJar = null;
-
-        if (packageJarFiles != null && !packageJarFiles.isEmpty()) {
-            final Iterator<File> packageJarFilesIt = packageJarFiles.iterator();
-
-            while (!classFileExtracted && packageJarFilesIt.hasNext()) {
-                final File jarFile = packageJarFilesIt.next();
+        final Set<File> packageJarFiles = packageJarFilesMappings.get(classNamePackage(className));
 
+        if (packageJarFiles != null) {
+            for (final File jarFile : packageJarFiles) {
                 try {
-                    classFileExtracted = JarUtil.extractZipEntry(jarFile, classFileName, extractedClassFile);
-
-                    if (classFileExtracted) {
-                        classFileSourceJar = jarFile;
+                    final ZipFile zipFile = openJarFile(jarFile);
+                    final ZipEntry classFileEntry = zipFile.getEntry(classFileName);
+
+                    if (classFileEntry != null) {
+                        LOGGER.debug("reading class {} from {}", className, jarFile.getName());
+
+                        final InputStream classStream = zipFile.getInputStream(classFileEntry);
+                        try {
+                            return IOUtils.toByteArray(classStream);
+                        } finally {
+                            IOUtils.closeQuietly(classStream);
+                        }
                     }
                 } catch (IOException e) {
-                    throw new GradleException("failed to extract class file from jar (" + jarFile + ")", e);
+                    throw new GradleException("failed to read class file from jar (" + jarFile + ")", e);
                 }
             }
+        } // super class not on the classpath - unable to scan parent class
 
-            if (classFileExtracted) {
-                LOGGER.debug("extracted class {} from {}", className, classFileSourceJar.getName());
+        return null;
+    }
 
-                extractedJarClasses.put(className, extractedClassFile);
+    /**
+     * Closes the jar files which have been opened to read class files.
+     */
+    public synchronized void close() {
+        for (final ZipFile zipFile : openJarFiles.values()) {
+            try {
+                zipFile.close();
+            } catch (IOException e) {
+                LOGGER.debug("failed to close jar " + zipFile.getName(), e);
             }
-        } // super class not on the classpath - unable to scan parent class
+        }
+        openJarFiles.clear();
+    }
 
-        return classFileExtracted;
+    private ZipFile openJarFile(final File jarFile) throws IOException {
+        ZipFile zipFile = openJarFiles.get(jarFile);
+        if (zipFile == null) {
+            zipFile = new ZipFile(jarFile);
+            openJarFiles.put(jarFile, zipFile);
+        }
+        return zipFile;
     }
 
     String classNamePackage(final String className) {
@@ -131,16 +132,4 @@ public class ClassFileExtractionManager {
             return className.substring(0, lastSlashIndex + 1);
         }
     }
-
-    File tempFile() {
-        try {
-            final File tempFile = File.createTempFile("jar_extract_", "_tmp");
-
-            tempFile.deleteOnExit();
-
-            return tempFile;
-        } catch (IOException e) {
-            throw new GradleException("failed to create temp file to extract class from jar into", e);
-        }
-    }
 }
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2010 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.testing.detection;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An index of what was found out about each class file scanned by a test framework detector. Each entry records the
+ * length and last modified time of the class file, and is used only while the class file has not changed. The index
+ * is kept between builds, so only the class files which have changed need to be read again.
+ *
+ * <p>The index records what the class file contains, not whether the class is a test, as that also depends on its
+ * super classes.</p>
+ *
+ * <p>The index records when it was created, before any class file was read. A class file modified within the
+ * timestamp resolution of the file system before that time may be modified again without a change to its last
+ * modified time, so its entry is not used.</p>
+ */
+public class ClassFileIndex {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClassFileIndex.class);
+    private static final int VERSION = 2;
+    // Class files modified this close to the index may be modified again without a change to their timestamp
+    private static final long TIMESTAMP_RESOLUTION = 2000;
+    private final String detectorName;
+    private final long timestamp;
+    private final Map<String, Entry> previous;
+    private final Map<String, Entry> current = new ConcurrentHashMap<String, Entry>();
+
+    public ClassFileIndex(String detectorName) {
+        this(detectorName, System.currentTimeMillis(), new HashMap<String, Entry>());
+    }
+
+    private ClassFileIndex(String detectorName, long timestamp, Map<String, Entry> previous) {
+        this.detectorName = detectorName;
+        this.timestamp = timestamp;
+        this.previous = previous;
+    }
+
+    /**
+     * Reads the index from the given file.
+     *
+     * @param detectorName The name of the detector which uses the index. An index written by a different detector is
+     * not used.
+     * @return The index. Is empty when the file does not exist or cannot be read.
+     */
+    public static ClassFileIndex read(File indexFile, String detectorName) {
+        long timestamp = System.currentTimeMillis();
+        Map<String, Entry> entries = new HashMap<String, Entry>();
+        if (indexFile.isFile()) {
+            try {
+                DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(
+                        indexFile)));
+                try {
+                    if (inputStream.readInt() == VERSION && inputStream.readUTF().equals(detectorName)) {
+                        long previousTimestamp = inputStream.readLong();
+                        int count = inputStream.readInt();
+                        for (int i = 0; i < count; i++) {
+                            String path = inputStream.readUTF();
+                            long length = inputStream.readLong();
+                            long lastModified = inputStream.readLong();
+                            ClassFileInfo info = ClassFileInfo.read(inputStream);
+                            if (lastModified + TIMESTAMP_RESOLUTION < previousTimestamp) {
+                                entries.put(path, new Entry(length, lastModified, info));
+                            }
+                        }
+                    }
+                } finally {
+                    inputStream.close();
+                }
+            } catch (IOException e) {
+                LOGGER.debug(String.format("Could not read class file index %s. Ignoring.", indexFile), e);
+                entries.clear();
+            }
+        }
+        return new ClassFileIndex(detectorName, timestamp, entries);
+    }
+
+    /**
+     * Writes the entries of the class files which have been looked up or added since this index was read. Failures
+     * are ignored, as the index can be built again.
+     */
+    public void write(File indexFile) {
+        try {
+            indexFile.getParentFile().mkdirs();
+            DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(
+                    indexFile)));
+            try {
+                outputStream.writeInt(VERSION);
+                outputStream.writeUTF(detectorName);
+                outputStream.writeLong(timestamp);
+                Map<String, Entry> entries = new HashMap<String, Entry>(current);
+                outputStream.writeInt(entries.size());
+                for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                    outputStream.writeUTF(entry.getKey());
+                    outputStream.writeLong(entry.getValue().length);
+                    outputStream.writeLong(entry.getValue().lastModified);
+                    entry.getValue().info.write(outputStream);
+                }
+            } finally {
+                outputStream.close();
+            }
+        } catch (IOException e) {
+            LOGGER.debug(String.format("Could not write class file index %s. Ignoring.", indexFile), e);
+            indexFile.delete();
+        }
+    }
+
+    /**
+     * Locates the entry for the given class file.
+     *
+     * @return The info of the class file, or null when there is no entry for the class file or the class file may have
+     * changed.
+     */
+    public ClassFileInfo find(File classFile) {
+        String path = classFile.getAbsolutePath();
+        Entry entry = current.get(path);
+        if (entry == null) {
+            entry = previous.get(path);
+        }
+        if (entry == null || entry.length != classFile.length() || entry.lastModified != classFile.lastModified()) {
+            return null;
+        }
+        current.put(path, entry);
+        return entry.info;
+    }
+
+    /**
+     * Adds an entry for the given class file, which has just been read.
+     */
+    public void add(File classFile, long length, long lastModified, ClassFileInfo info) {
+        current.put(classFile.getAbsolutePath(), new Entry(length, lastModified, info));
+    }
+
+    private static class Entry {
+        private final long length;
+        private final long lastModified;
+        private final ClassFileInfo info;
+
+        private Entry(long length, long lastModified, ClassFileInfo info) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.info = info;
+        }
+    }
+}
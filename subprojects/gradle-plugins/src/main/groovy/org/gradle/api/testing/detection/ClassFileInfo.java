@@ -0,0 +1,102 @@
+/*
+ * Copyright 2010 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.testing.detection;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What a {@link TestClassVisitor} found out about a class file, kept so that the class file does not need to be read
+ * again.
+ */
+public class ClassFileInfo {
+    private final String className;
+    private final String superClassName;
+    private final boolean test;
+    private final boolean isAbstract;
+    private final List<String> innerClassNames;
+
+    public ClassFileInfo(String className, String superClassName, boolean test, boolean isAbstract,
+                         List<String> innerClassNames) {
+        this.className = className;
+        this.superClassName = superClassName;
+        this.test = test;
+        this.isAbstract = isAbstract;
+        this.innerClassNames = innerClassNames;
+    }
+
+    public ClassFileInfo(TestClassVisitor classVisitor) {
+        this(classVisitor.getClassName(), classVisitor.getSuperClassName(), classVisitor.isTest(),
+                classVisitor.isAbstract(), new ArrayList<String>(classVisitor.getInnerClassNames()));
+    }
+
+    public static ClassFileInfo read(DataInputStream inputStream) throws IOException {
+        String className = inputStream.readUTF();
+        String superClassName = inputStream.readBoolean() ? inputStream.readUTF() : null;
+        boolean test = inputStream.readBoolean();
+        boolean isAbstract = inputStream.readBoolean();
+        int count = inputStream.readInt();
+        List<String> innerClassNames = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            innerClassNames.add(inputStream.readUTF());
+        }
+        return new ClassFileInfo(className, superClassName, test, isAbstract, innerClassNames);
+    }
+
+    public void write(DataOutputStream outputStream) throws IOException {
+        outputStream.writeUTF(className);
+        outputStream.writeBoolean(superClassName != null);
+        if (superClassName != null) {
+            outputStream.writeUTF(superClassName);
+        }
+        outputStream.writeBoolean(test);
+        outputStream.writeBoolean(isAbstract);
+        outputStream.writeInt(innerClassNames.size());
+        for (String innerClassName : innerClassNames) {
+            outputStream.writeUTF(innerClassName);
+        }
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    public String getSuperClassName() {
+        return superClassName;
+    }
+
+    /**
+     * Returns true when the class itself is marked as a test, without looking at its super classes.
+     */
+    public boolean isTest() {
+        return test;
+    }
+
+    public boolean isAbstract() {
+        return isAbstract;
+    }
+
+    /**
+     * Returns the names of the public static inner classes of the class.
+     */
+    public List<String> getInnerClassNames() {
+        return Collections.unmodifiableList(innerClassNames);
+    }
+}
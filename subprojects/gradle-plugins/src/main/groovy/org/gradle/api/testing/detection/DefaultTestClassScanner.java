@@ -16,19 +16,25 @@
 
 package org.gradle.api.testing.detection;
 
+import org.gradle.api.GradleException;
 import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.file.EmptyFileVisitor;
 import org.gradle.api.internal.file.FileSet;
 import org.gradle.api.testing.fabric.TestFrameworkDetector;
+import org.gradle.util.ThreadUtils;
 
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * The default test class scanner depending on the availability of a test framework detecter a detection or filename
- * scan is performed to find test classes.
+ * scan is performed to find test classes. A detection scan processes the test class files on a thread pool, and the
+ * test classes are handed to the test class processor as soon as they are detected.
  *
  * @author Tom Eyckmans
  */
@@ -73,11 +79,35 @@ public class DefaultTestClassScanner implements TestClassScanner {
 
         testFrameworkDetector.setTestClassProcessor(testClassProcessor);
 
-        testClassFileSet.visit(new ClassFileVisitor() {
-            public void visitClassFile(FileVisitDetails fileDetails) {
-                testFrameworkDetector.processTestClass(fileDetails.getFile());
+        final ExecutorService detectionThreadPool = ThreadUtils.newFixedThreadPool(1);
+        final List<Future<?>> detections = new ArrayList<Future<?>>();
+        try {
+            testClassFileSet.visit(new ClassFileVisitor() {
+                public void visitClassFile(final FileVisitDetails fileDetails) {
+                    detections.add(detectionThreadPool.submit(new Runnable() {
+                        public void run() {
+                            testFrameworkDetector.processTestClass(fileDetails.getFile());
+                        }
+                    }));
+                }
+            });
+        } finally {
+            ThreadUtils.shutdown(detectionThreadPool);
+            testFrameworkDetector.detectionEnded();
+        }
+
+        for (final Future<?> detection : detections) {
+            try {
+                detection.get();
+            } catch (InterruptedException e) {
+                throw new GradleException("test class detection interrupted", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new GradleException("test class detection failed", e.getCause());
             }
-        });
+        }
     }
 
     private void filenameScan(final FileSet testClassFileSet) {
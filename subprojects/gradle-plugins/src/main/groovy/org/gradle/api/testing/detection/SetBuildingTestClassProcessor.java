@@ -22,7 +22,7 @@ import java.util.Set;
 /**
  * The Set building test class processor is used when running tests with Ant.
  *
- * All detected test classes are added to a set.
+ * All detected test classes are added to a set. Test classes may be added concurrently.
  *
  * @author Tom Eyckmans
  */
@@ -31,7 +31,7 @@ public class SetBuildingTestClassProcessor implements TestClassProcessor {
     private final Set<String> testClassNames;
 
     public SetBuildingTestClassProcessor() {
-        this.testClassNames = new HashSet<String>();
+        this.testClassNames = Collections.synchronizedSet(new HashSet<String>());
     }
 
     public void processTestClass(final String testClassName) {
@@ -17,8 +17,12 @@
 package org.gradle.api.testing.detection;
 
 import org.gradle.api.testing.fabric.TestFrameworkDetector;
+import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.commons.EmptyVisitor;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Base class for ASM test class scanners.
  *
@@ -28,6 +32,8 @@ public abstract class TestClassVisitor extends EmptyVisitor {
 
     protected final TestFrameworkDetector detector;
 
+    private final List<String> innerClassNames = new ArrayList<String>();
+
     protected TestClassVisitor(TestFrameworkDetector detector) {
         if (detector == null) {
             throw new IllegalArgumentException("detector == null!");
@@ -35,6 +41,30 @@ public abstract class TestClassVisitor extends EmptyVisitor {
         this.detector = detector;
     }
 
+    /**
+     * Visits information about an inner class. Records the public static inner classes of the class, which may be
+     * tests themselves.
+     *
+     * @param name the internal name of an inner class (see {@link org.objectweb.asm.Type#getInternalName()
+     * getInternalName}).
+     * @param outerName the internal name of the class to which the inner class belongs (see {@link
+     * org.objectweb.asm.Type#getInternalName() getInternalName}). May be <tt>null</tt> for not member classes.
+     * @param innerName the (simple) name of the inner class inside its enclosing class. May be <tt>null</tt> for
+     * anonymous inner classes.
+     * @param access the access flags of the inner class as originally declared in the enclosing class.
+     */
+    public void visitInnerClass(String name, String outerName, String innerName, int access) {
+        boolean isStatic = (access & Opcodes.ACC_STATIC) != 0;
+        boolean isPublic = (access & Opcodes.ACC_PUBLIC) != 0;
+        if (outerName != null && innerName != null && isStatic && isPublic) {
+            innerClassNames.add(getClassName() + "$" + innerName);
+        }
+    }
+
+    public List<String> getInnerClassNames() {
+        return innerClassNames;
+    }
+
     public abstract String getClassName();
 
     public abstract boolean isTest();
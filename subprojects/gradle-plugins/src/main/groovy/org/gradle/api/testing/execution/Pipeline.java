@@ -20,11 +20,10 @@ import org.gradle.api.testing.execution.control.refork.ReforkControl;
 import org.gradle.api.testing.execution.control.refork.DefaultReforkControl;
 import org.gradle.api.testing.execution.fork.policies.ForkPolicyInstance;
 import org.gradle.api.testing.fabric.TestClassRunInfo;
+import org.gradle.api.testing.reporting.CachedTestClassReportInfo;
 import org.gradle.api.testing.reporting.Report;
 import org.gradle.util.queues.BlockingQueueItemProducer;
 
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.List;
@@ -37,9 +36,11 @@ public class Pipeline {
     private final PipelinesManager manager;
     private final int id;
     private final NativeTest testTask;
-    private final BlockingQueue<TestClassRunInfo> runInfoQueue;
+    private final TestClassRunInfoQueue runInfoQueue;
     private final BlockingQueueItemProducer<TestClassRunInfo> runInfoQueueProducer;
     private final PipelineConfig config;
+    private final TestClassDurations testClassDurations;
+    private final TestClassResultCache testClassResultCache;
     private ForkPolicyInstance forkPolicyInstance;
     private PipelineDispatcher dispatcher;
     private final ReforkControl reforkControl;
@@ -65,7 +66,10 @@ public class Pipeline {
         this.id = id;
         this.testTask = testTask;
         this.config = config;
-        this.runInfoQueue = new ArrayBlockingQueue<TestClassRunInfo>(1000);
+        this.testClassDurations = manager.getTestClassDurations();
+        this.testClassResultCache = manager.getTestClassResultCache();
+        // longest test classes first, so the forks finish at about the same time
+        this.runInfoQueue = new TestClassRunInfoQueue(testClassDurations);
         this.runInfoQueueProducer = new BlockingQueueItemProducer<TestClassRunInfo>(runInfoQueue, 100L,
                 TimeUnit.MILLISECONDS);
         this.reforkControl = new DefaultReforkControl();
@@ -87,14 +91,34 @@ public class Pipeline {
     }
 
     public void addTestClassRunInfo(final TestClassRunInfo testClassRunInfo) {
-        // TODO save to disk when full
-        runInfoQueueProducer.produce(testClassRunInfo);
+        if (testClassResultCache != null && !testTask.isRerunCachedTests() && testClassResultCache.isUpToDate(
+                testClassRunInfo.getTestClassName())) {
+            runInfoQueue.detected(testClassRunInfo.getTestClassName());
+            final CachedTestClassReportInfo reportInfo = new CachedTestClassReportInfo(this, testClassRunInfo);
+            for (final Report report : reports) {
+                report.addReportInfo(reportInfo);
+            }
+        } else {
+            runInfoQueueProducer.produce(testClassRunInfo);
+        }
     }
 
-    public BlockingQueue<TestClassRunInfo> getRunInfoQueue() {
+    public TestClassRunInfoQueue getRunInfoQueue() {
         return runInfoQueue;
     }
 
+    public TestClassDurations getTestClassDurations() {
+        return testClassDurations;
+    }
+
+    /**
+     * Returns the results of the test classes recorded by previous executions, or null when test results are not
+     * cached.
+     */
+    public TestClassResultCache getTestClassResultCache() {
+        return testClassResultCache;
+    }
+
     public NativeTest getTestTask() {
         return testTask;
     }
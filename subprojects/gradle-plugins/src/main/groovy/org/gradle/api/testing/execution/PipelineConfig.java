@@ -31,11 +31,15 @@ import java.util.ArrayList;
  * @author Tom Eyckmans
  */
 public class PipelineConfig {
+    public static final int DEFAULT_DISPATCH_BATCH_SIZE = 10;
+
     private String name;
     private SplitPolicyConfig splitPolicyConfig;
     private ForkPolicyConfig forkPolicyConfig;
     private ReforkReasonConfigs reforkReasonConfigs;
     private List<ReportConfig> reports;
+    private int dispatchBatchSize = DEFAULT_DISPATCH_BATCH_SIZE;
+    private boolean reuseForks;
 
     public PipelineConfig(String name) {
         this(name, SplitPolicyRegister.getSplitPolicy(SplitPolicyNames.SINGLE).getSplitPolicyConfigInstance(),
@@ -100,4 +104,36 @@ public class PipelineConfig {
     public void setReports(List<ReportConfig> reports) {
         this.reports = reports;
     }
+
+    public int getDispatchBatchSize() {
+        return dispatchBatchSize;
+    }
+
+    /**
+     * Sets the maximum number of test classes which are sent to a fork at a time. A fork executes the test classes of
+     * a batch without waiting for the server, and requests the next batch while it executes the last test class of
+     * the current batch. Batches get smaller as the number of test classes waiting to be executed drops, so that the
+     * last test classes are spread over the forks. A batch size of 1 sends a single test class in response to each
+     * request of a fork.
+     */
+    public void setDispatchBatchSize(int dispatchBatchSize) {
+        if (dispatchBatchSize <= 0) {
+            throw new IllegalArgumentException("dispatchBatchSize <= 0!");
+        }
+
+        this.dispatchBatchSize = dispatchBatchSize;
+    }
+
+    public boolean isReuseForks() {
+        return reuseForks;
+    }
+
+    /**
+     * Sets whether a fork is kept running when it needs to be reforked. When true, a refork replaces only the class
+     * loader which the test classes are loaded in, so the JVM of the fork does not need to be started again. When
+     * false, the fork is stopped and a new fork is started.
+     */
+    public void setReuseForks(boolean reuseForks) {
+        this.reuseForks = reuseForks;
+    }
 }
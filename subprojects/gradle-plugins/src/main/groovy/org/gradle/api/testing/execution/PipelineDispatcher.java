@@ -32,7 +32,6 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -47,7 +46,7 @@ public class PipelineDispatcher {
     private static final Logger LOGGER = LoggerFactory.getLogger(PipelineDispatcher.class);
 
     private final Pipeline pipeline;
-    private final BlockingQueue<TestClassRunInfo> testsToDispatch;
+    private final TestClassRunInfoQueue testsToDispatch;
 
     private final Map<Class<?>, TestControlMessageHandler> messageClassHandlers;
 
@@ -112,8 +111,20 @@ public class PipelineDispatcher {
         return pipeline.isPipelineSplittingEnded();
     }
 
+    /**
+     * Returns true when there are no test classes waiting to be dispatched, and each test class which has been sent to
+     * a fork has been reported back.
+     */
     public boolean isAllTestsExecuted() {
-        return testsToDispatch.isEmpty();
+        if (!testsToDispatch.isEmpty()) {
+            return false;
+        }
+        for (final TestServerClientHandle client : clientHandles.values()) {
+            if (client.hasAssignedTests()) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public void addMessageHandler(List<Class> supportedMessageClasses, TestControlMessageHandler messageHandler) {
@@ -144,6 +155,8 @@ public class PipelineDispatcher {
     }
 
     public void forkStopped(int forkId) {
+        requeueAssignedTests(clientHandles.get(forkId));
+
         runningClientsLock.lock();
 
         TestServerClientHandle client = null;
@@ -159,6 +172,8 @@ public class PipelineDispatcher {
     }
 
     public void forkFailed(int forkId, Throwable cause) {
+        requeueAssignedTests(clientHandles.get(forkId));
+
         runningClientsLock.lock();
 
         TestServerClientHandle client = null;
@@ -174,6 +189,8 @@ public class PipelineDispatcher {
     }
 
     public void forkAborted(int forkId) {
+        requeueAssignedTests(clientHandles.get(forkId));
+
         runningClientsLock.lock();
 
         TestServerClientHandle client = null;
@@ -213,6 +230,68 @@ public class PipelineDispatcher {
         return testsToDispatch.poll(100L, TimeUnit.MILLISECONDS);
     }
 
+    /**
+     * Takes the next batch of test classes to send to a fork. The test classes are taken longest first, and the batch
+     * is filled up to a share of the expected duration of the test classes waiting to be dispatched, based on the
+     * number of running forks. The forks receive shorter batches as the waiting test classes run out, so the forks
+     * finish at about the same time.
+     *
+     * <p>While test classes are still being detected, no test class is handed out when a longer test class executed by
+     * a previous execution has not been detected yet, so that a long test class which is detected late does not run
+     * alone at the end.</p>
+     *
+     * @return The test classes, empty when no test class became available in time.
+     */
+    public List<TestClassRunInfo> nextTests(int maxBatchSize) throws InterruptedException {
+        final List<TestClassRunInfo> nextTests = new ArrayList<TestClassRunInfo>();
+
+        final TestClassDurations durations = pipeline.getTestClassDurations();
+        final TestClassRunInfo nextTest = nextTest();
+        if (nextTest != null && isLongerTestClassUndetected(durations.estimate(nextTest))) {
+            testsToDispatch.offer(nextTest);
+        } else if (nextTest != null) {
+            nextTests.add(nextTest);
+
+            final long waitingDuration = testsToDispatch.getExpectedDuration();
+
+            final int forkCount = Math.max(1, runningClients.size());
+            long batchDuration = durations.estimate(nextTest);
+            final long maxBatchDuration = Math.max(batchDuration, waitingDuration / (2 * forkCount));
+            while (nextTests.size() < maxBatchSize) {
+                final TestClassRunInfo test = testsToDispatch.poll();
+                if (test == null) {
+                    break;
+                }
+                final long duration = durations.estimate(test);
+                if (batchDuration + duration > maxBatchDuration) {
+                    testsToDispatch.offer(test);
+                    break;
+                }
+                nextTests.add(test);
+                batchDuration += duration;
+            }
+        }
+
+        return nextTests;
+    }
+
+    private boolean isLongerTestClassUndetected(long duration) {
+        return !pipeline.isPipelineSplittingEnded() && duration < testsToDispatch.getLongestUndetectedDuration();
+    }
+
+    /**
+     * Puts the test classes which were sent to the given fork, and not reported back, back in the queue of test
+     * classes to dispatch.
+     */
+    private void requeueAssignedTests(TestServerClientHandle client) {
+        if (client != null) {
+            for (final TestClassRunInfo assignedTest : client.getAssignedTests()) {
+                pipeline.addTestClassRunInfo(assignedTest);
+                client.testProcessed(assignedTest);
+            }
+        }
+    }
+
     public boolean areAllClientsStopped() {
         return runningClients.isEmpty();
     }
@@ -24,6 +24,7 @@ import org.gradle.api.testing.execution.fork.policies.ForkPolicyRegister;
 import org.gradle.util.ConditionWaitHandle;
 import org.gradle.util.ThreadUtils;
 
+import java.io.File;
 import java.util.*;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
@@ -47,6 +48,11 @@ public class PipelinesManager {
 
     private final AtomicInteger pipelineIdSequence;
 
+    private File testClassDurationsFile;
+    private TestClassDurations testClassDurations = new TestClassDurations();
+    private File testResultCacheFile;
+    private TestClassResultCache testClassResultCache;
+
     public PipelinesManager(PipelineFactory pipelineFactory, ForkControl forkControl) {
         this.pipelineFactory = pipelineFactory;
         this.forkControl = forkControl;
@@ -63,6 +69,13 @@ public class PipelinesManager {
     }
 
     public void initialize(NativeTest testTask) {
+        testClassDurationsFile = testTask.getTestClassDurationsFile();
+        testClassDurations = TestClassDurations.read(testClassDurationsFile);
+        if (testTask.isCacheTestResults()) {
+            testResultCacheFile = testTask.getTestResultCacheFile();
+            testClassResultCache = TestClassResultCache.read(testResultCacheFile, testTask.getTestClassesDir(),
+                    testTask.getClasspath());
+        }
 
         final Map<String, PipelineConfig> pipelineConfigs = testTask.getPipelineConfigs();
         if (pipelineConfigs.isEmpty()) {
@@ -134,6 +147,28 @@ public class PipelinesManager {
                         // nothing - just return
                     }
                 });
+
+        if (testClassDurationsFile != null) {
+            testClassDurations.write(testClassDurationsFile);
+        }
+        if (testClassResultCache != null) {
+            testClassResultCache.write(testResultCacheFile);
+        }
+    }
+
+    /**
+     * Returns the durations of the test classes, used to order the test classes of each pipeline.
+     */
+    public TestClassDurations getTestClassDurations() {
+        return testClassDurations;
+    }
+
+    /**
+     * Returns the results of the test classes recorded by previous executions, or null when test results are not
+     * cached.
+     */
+    public TestClassResultCache getTestClassResultCache() {
+        return testClassResultCache;
     }
 
     public void stopped(Pipeline pipeline) {
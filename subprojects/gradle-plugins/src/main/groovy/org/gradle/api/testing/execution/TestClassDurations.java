@@ -0,0 +1,171 @@
+/*
+ * Copyright 2010 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.testing.execution;
+
+import org.gradle.api.testing.fabric.TestClassRunInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The time taken to execute each test class, as recorded by previous executions of a test task. The durations are used
+ * to hand out the longest test classes first, so that a long test class does not keep a single fork busy at the end of
+ * the test execution.
+ *
+ * <p>The estimates are based only on the durations read at the start of the test execution, so the order of the test
+ * classes does not change while they are waiting to be dispatched. The durations recorded during the test execution
+ * are used by the next execution.</p>
+ */
+public class TestClassDurations {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TestClassDurations.class);
+    private static final int VERSION = 1;
+    private final Map<String, Long> previous;
+    private final Map<String, Long> recorded = new ConcurrentHashMap<String, Long>();
+    private final long defaultEstimate;
+
+    public TestClassDurations() {
+        this(Collections.<String, Long>emptyMap());
+    }
+
+    private TestClassDurations(Map<String, Long> previous) {
+        this.previous = previous;
+        long total = 0;
+        for (Long duration : previous.values()) {
+            total += duration;
+        }
+        defaultEstimate = previous.isEmpty() ? 1 : Math.max(1, total / previous.size());
+    }
+
+    /**
+     * Reads the durations from the given file.
+     *
+     * @return The durations. Has no durations when the file does not exist or cannot be read.
+     */
+    public static TestClassDurations read(File durationsFile) {
+        if (!durationsFile.isFile()) {
+            return new TestClassDurations();
+        }
+        try {
+            DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(
+                    durationsFile)));
+            try {
+                if (inputStream.readInt() != VERSION) {
+                    return new TestClassDurations();
+                }
+                int count = inputStream.readInt();
+                Map<String, Long> durations = new HashMap<String, Long>();
+                for (int i = 0; i < count; i++) {
+                    durations.put(inputStream.readUTF(), inputStream.readLong());
+                }
+                return new TestClassDurations(durations);
+            } finally {
+                inputStream.close();
+            }
+        } catch (IOException e) {
+            LOGGER.debug(String.format("Could not read test class durations %s. Ignoring.", durationsFile), e);
+            return new TestClassDurations();
+        }
+    }
+
+    /**
+     * Writes the durations to the given file. The durations recorded by this execution replace the previous durations
+     * of the same test classes. Failures are ignored, as the durations only affect the order of the test classes.
+     */
+    public void write(File durationsFile) {
+        Map<String, Long> durations = new HashMap<String, Long>(previous);
+        durations.putAll(recorded);
+        try {
+            durationsFile.getParentFile().mkdirs();
+            DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(
+                    durationsFile)));
+            try {
+                outputStream.writeInt(VERSION);
+                outputStream.writeInt(durations.size());
+                for (Map.Entry<String, Long> entry : durations.entrySet()) {
+                    outputStream.writeUTF(entry.getKey());
+                    outputStream.writeLong(entry.getValue());
+                }
+            } finally {
+                outputStream.close();
+            }
+        } catch (IOException e) {
+            LOGGER.debug(String.format("Could not write test class durations %s. Ignoring.", durationsFile), e);
+            durationsFile.delete();
+        }
+    }
+
+    /**
+     * Returns the expected duration of the given test class, in milliseconds. A test class which has not been executed
+     * before is expected to take the mean duration of the test classes which have.
+     */
+    public long estimate(String testClassName) {
+        Long duration = previous.get(testClassName);
+        return duration == null ? defaultEstimate : Math.max(1, duration);
+    }
+
+    public long estimate(TestClassRunInfo testClassRunInfo) {
+        return estimate(testClassRunInfo.getTestClassName());
+    }
+
+    /**
+     * Records the time taken to execute the given test class.
+     */
+    public void record(String testClassName, long duration) {
+        recorded.put(testClassName, duration);
+    }
+
+    /**
+     * Returns the names of the test classes which have been executed before, longest first.
+     */
+    public List<String> getPreviousTestClassesLongestFirst() {
+        final List<String> testClassNames = new ArrayList<String>(previous.keySet());
+        Collections.sort(testClassNames, new Comparator<String>() {
+            public int compare(String name1, String name2) {
+                long duration1 = estimate(name1);
+                long duration2 = estimate(name2);
+                if (duration1 != duration2) {
+                    return duration1 > duration2 ? -1 : 1;
+                }
+                return name1.compareTo(name2);
+            }
+        });
+        return testClassNames;
+    }
+
+    /**
+     * Returns a comparator which orders test classes by expected duration, longest first, and then by name.
+     */
+    public Comparator<TestClassRunInfo> longestFirst() {
+        return new Comparator<TestClassRunInfo>() {
+            public int compare(TestClassRunInfo info1, TestClassRunInfo info2) {
+                long duration1 = estimate(info1);
+                long duration2 = estimate(info2);
+                if (duration1 != duration2) {
+                    return duration1 > duration2 ? -1 : 1;
+                }
+                return info1.getTestClassName().compareTo(info2.getTestClassName());
+            }
+        };
+    }
+}
@@ -0,0 +1,372 @@
+/*
+ * Copyright 2010 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.testing.execution;
+
+import org.gradle.util.HashUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The results of the test classes of a test task, as recorded by previous executions of the test task. A test class
+ * which passed is not executed again while the classes it uses and the rest of the test runtime classpath have not
+ * changed.
+ *
+ * <p>The cache records a hash of each class file in the test classes directory. A test class is executed again when
+ * its class files change, or when it uses a class of the test classes directory which changed, was added or was
+ * removed, directly or through other classes of the directory. The classes a class uses are read from the constant
+ * pool of its class file. The rest of the test runtime classpath, including the files in the test classes directory
+ * which are not class files, is identified by a single fingerprint of the path, length and last modified time of each
+ * file. A change to any of these files means that all test classes are executed again.</p>
+ */
+public class TestClassResultCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TestClassResultCache.class);
+    private static final int VERSION = 2;
+    private static final Pattern DESCRIPTOR_CLASS_NAME = Pattern.compile("L([^;<]+)[;<]");
+    private final File testClassesDir;
+    private final Map<String, Boolean> previous;
+    private final byte[] fingerprint;
+    private final boolean classpathUnchanged;
+    private final Map<String, byte[]> classHashes;
+    private final Set<String> affectedClasses;
+    private final Map<String, Boolean> recorded = new ConcurrentHashMap<String, Boolean>();
+
+    private TestClassResultCache(File testClassesDir, Iterable<File> classpath, Map<String, Boolean> previous,
+                                 Map<String, byte[]> previousClassHashes, byte[] previousFingerprint) {
+        this.testClassesDir = testClassesDir;
+        this.previous = previous;
+        this.fingerprint = fingerprint(testClassesDir, classpath);
+        this.classpathUnchanged = previousFingerprint != null && Arrays.equals(previousFingerprint, fingerprint);
+        this.classHashes = hashClassFiles(testClassesDir);
+        this.affectedClasses = classpathUnchanged ? findAffectedClasses(previousClassHashes)
+                : Collections.<String>emptySet();
+    }
+
+    /**
+     * Reads the results from the given file, and hashes the class files of the test classes directory.
+     *
+     * @param testClassesDir The directory containing the test classes.
+     * @param classpath The test runtime classpath. May contain the test classes directory.
+     * @return The results. Has no results when the file does not exist or cannot be read.
+     */
+    public static TestClassResultCache read(File cacheFile, File testClassesDir, Iterable<File> classpath) {
+        Map<String, Boolean> results = new HashMap<String, Boolean>();
+        Map<String, byte[]> classHashes = new HashMap<String, byte[]>();
+        if (!cacheFile.isFile()) {
+            return new TestClassResultCache(testClassesDir, classpath, results, classHashes, null);
+        }
+        try {
+            DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)));
+            try {
+                if (inputStream.readInt() != VERSION) {
+                    return new TestClassResultCache(testClassesDir, classpath, results, classHashes, null);
+                }
+                byte[] fingerprint = readHash(inputStream);
+                int classCount = inputStream.readInt();
+                for (int i = 0; i < classCount; i++) {
+                    String className = inputStream.readUTF();
+                    classHashes.put(className, readHash(inputStream));
+                }
+                int resultCount = inputStream.readInt();
+                for (int i = 0; i < resultCount; i++) {
+                    String testClassName = inputStream.readUTF();
+                    results.put(testClassName, inputStream.readBoolean());
+                }
+                return new TestClassResultCache(testClassesDir, classpath, results, classHashes, fingerprint);
+            } finally {
+                inputStream.close();
+            }
+        } catch (IOException e) {
+            LOGGER.debug(String.format("Could not read test class results %s. Ignoring.", cacheFile), e);
+            return new TestClassResultCache(testClassesDir, classpath, new HashMap<String, Boolean>(),
+                    new HashMap<String, byte[]>(), null);
+        }
+    }
+
+    /**
+     * Writes the results to the given file. The results recorded by this execution replace the previous results of the
+     * same test classes. The results are recorded against the class files as they were when the cache was read.
+     * Failures are ignored, as the test classes can be executed again.
+     */
+    public void write(File cacheFile) {
+        Map<String, Boolean> results = new HashMap<String, Boolean>();
+        for (String testClassName : previous.keySet()) {
+            if (classHashes.containsKey(testClassName)) {
+                results.put(testClassName, isUpToDate(testClassName));
+            }
+        }
+        for (Map.Entry<String, Boolean> entry : recorded.entrySet()) {
+            if (classHashes.containsKey(entry.getKey())) {
+                results.put(entry.getKey(), entry.getValue());
+            }
+        }
+        try {
+            cacheFile.getParentFile().mkdirs();
+            DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(
+                    cacheFile)));
+            try {
+                outputStream.writeInt(VERSION);
+                writeHash(outputStream, fingerprint);
+                outputStream.writeInt(classHashes.size());
+                for (Map.Entry<String, byte[]> entry : classHashes.entrySet()) {
+                    outputStream.writeUTF(entry.getKey());
+                    writeHash(outputStream, entry.getValue());
+                }
+                outputStream.writeInt(results.size());
+                for (Map.Entry<String, Boolean> entry : results.entrySet()) {
+                    outputStream.writeUTF(entry.getKey());
+                    outputStream.writeBoolean(entry.getValue());
+                }
+            } finally {
+                outputStream.close();
+            }
+        } catch (IOException e) {
+            LOGGER.debug(String.format("Could not write test class results %s. Ignoring.", cacheFile), e);
+            cacheFile.delete();
+        }
+    }
+
+    /**
+     * Returns true when the given test class passed when it was last executed, and neither the classes it uses nor the
+     * rest of the test runtime classpath have changed since.
+     */
+    public boolean isUpToDate(String testClassName) {
+        Boolean passed = previous.get(testClassName);
+        if (!classpathUnchanged || passed == null || !passed || !classHashes.containsKey(testClassName)) {
+            return false;
+        }
+        String innerClassPrefix = testClassName + "$";
+        for (String affectedClass : affectedClasses) {
+            if (affectedClass.equals(testClassName) || affectedClass.startsWith(innerClassPrefix)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Records the result of executing the given test class.
+     */
+    public void record(String testClassName, boolean passed) {
+        recorded.put(testClassName, passed);
+    }
+
+    private File getClassFile(String className) {
+        return new File(testClassesDir, className.replace('.', '/') + ".class");
+    }
+
+    /**
+     * Returns the classes of the test classes directory whose class files changed, were added or were removed since
+     * the previous execution, along with the classes which use them, directly or through other classes.
+     */
+    private Set<String> findAffectedClasses(Map<String, byte[]> previousClassHashes) {
+        Set<String> affected = new HashSet<String>();
+        for (Map.Entry<String, byte[]> entry : classHashes.entrySet()) {
+            if (!Arrays.equals(entry.getValue(), previousClassHashes.get(entry.getKey()))) {
+                affected.add(entry.getKey());
+            }
+        }
+        for (String className : previousClassHashes.keySet()) {
+            if (!classHashes.containsKey(className)) {
+                affected.add(className);
+            }
+        }
+        if (affected.isEmpty()) {
+            return affected;
+        }
+
+        Map<String, List<String>> users = new HashMap<String, List<String>>();
+        for (String className : classHashes.keySet()) {
+            Set<String> usedClasses = readUsedClasses(getClassFile(className));
+            if (usedClasses == null) {
+                // cannot tell which classes it uses
+                affected.add(className);
+                continue;
+            }
+            for (String usedClass : usedClasses) {
+                if (!usedClass.equals(className) && (classHashes.containsKey(usedClass) || affected.contains(
+                        usedClass))) {
+                    List<String> classUsers = users.get(usedClass);
+                    if (classUsers == null) {
+                        classUsers = new ArrayList<String>();
+                        users.put(usedClass, classUsers);
+                    }
+                    classUsers.add(className);
+                }
+            }
+        }
+
+        LinkedList<String> queue = new LinkedList<String>(affected);
+        while (!queue.isEmpty()) {
+            List<String> classUsers = users.get(queue.removeFirst());
+            if (classUsers != null) {
+                for (String user : classUsers) {
+                    if (affected.add(user)) {
+                        queue.add(user);
+                    }
+                }
+            }
+        }
+        return affected;
+    }
+
+    /**
+     * Returns the hash of each class file in the given directory, by class name.
+     */
+    private static Map<String, byte[]> hashClassFiles(File testClassesDir) {
+        Map<String, byte[]> hashes = new HashMap<String, byte[]>();
+        hashClassFiles(testClassesDir, "", hashes);
+        return hashes;
+    }
+
+    private static void hashClassFiles(File dir, String packagePrefix, Map<String, byte[]> hashes) {
+        for (File file : listFiles(dir)) {
+            if (file.isDirectory()) {
+                hashClassFiles(file, packagePrefix + file.getName() + '.', hashes);
+            } else if (isClassFile(file)) {
+                String name = file.getName();
+                hashes.put(packagePrefix + name.substring(0, name.length() - ".class".length()), HashUtil.createHash(
+                        file));
+            }
+        }
+    }
+
+    /**
+     * Returns the names of the classes which the given class file refers to, or null when the class file cannot be
+     * read. The names are taken from the strings of the constant pool, which hold the class references, the type
+     * descriptors and the string constants, so that classes which are loaded by name are found as well.
+     */
+    private static Set<String> readUsedClasses(File classFile) {
+        try {
+            DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(classFile)));
+            try {
+                if (inputStream.readInt() != 0xCAFEBABE) {
+                    return null;
+                }
+                inputStream.readUnsignedShort();
+                inputStream.readUnsignedShort();
+                Set<String> classNames = new HashSet<String>();
+                int constantPoolCount = inputStream.readUnsignedShort();
+                byte[] skipped = new byte[8];
+                for (int i = 1; i < constantPoolCount; i++) {
+                    int tag = inputStream.readUnsignedByte();
+                    switch (tag) {
+                        case 1:
+                            addClassNames(inputStream.readUTF(), classNames);
+                            break;
+                        case 7: case 8: case 16: case 19: case 20:
+                            inputStream.readFully(skipped, 0, 2);
+                            break;
+                        case 15:
+                            inputStream.readFully(skipped, 0, 3);
+                            break;
+                        case 3: case 4: case 9: case 10: case 11: case 12: case 17: case 18:
+                            inputStream.readFully(skipped, 0, 4);
+                            break;
+                        case 5: case 6:
+                            // takes two entries
+                            inputStream.readFully(skipped, 0, 8);
+                            i++;
+                            break;
+                        default:
+                            return null;
+                    }
+                }
+                return classNames;
+            } finally {
+                inputStream.close();
+            }
+        } catch (IOException e) {
+            LOGGER.debug(String.format("Could not read class file %s.", classFile), e);
+            return null;
+        }
+    }
+
+    private static void addClassNames(String value, Set<String> classNames) {
+        classNames.add(value.replace('/', '.'));
+        if (value.indexOf(';') >= 0) {
+            Matcher matcher = DESCRIPTOR_CLASS_NAME.matcher(value);
+            while (matcher.find()) {
+                classNames.add(matcher.group(1).replace('/', '.'));
+            }
+        }
+    }
+
+    /**
+     * Calculates the fingerprint of the test runtime classpath, leaving out the class files of the test classes
+     * directory.
+     */
+    private static byte[] fingerprint(File testClassesDir, Iterable<File> classpath) {
+        MessageDigest messageDigest = createDigest();
+        for (File file : classpath) {
+            if (!file.equals(testClassesDir)) {
+                fingerprint(messageDigest, file, file.getAbsolutePath(), true);
+            }
+        }
+        fingerprint(messageDigest, testClassesDir, "", false);
+        return messageDigest.digest();
+    }
+
+    private static void fingerprint(MessageDigest messageDigest, File file, String path, boolean includeClassFiles) {
+        if (file.isDirectory()) {
+            for (File child : listFiles(file)) {
+                fingerprint(messageDigest, child, path + '/' + child.getName(), includeClassFiles);
+            }
+        } else if (file.isFile() && (includeClassFiles || !isClassFile(file))) {
+            messageDigest.update(String.format("%s:%s:%s;", path, file.length(), file.lastModified()).getBytes());
+        }
+    }
+
+    private static boolean isClassFile(File file) {
+        return file.isFile() && file.getName().endsWith(".class");
+    }
+
+    private static List<File> listFiles(File dir) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return Collections.emptyList();
+        }
+        List<File> sorted = Arrays.asList(files);
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static byte[] readHash(DataInputStream inputStream) throws IOException {
+        byte[] hash = new byte[inputStream.readInt()];
+        inputStream.readFully(hash);
+        return hash;
+    }
+
+    private static void writeHash(DataOutputStream outputStream, byte[] hash) throws IOException {
+        outputStream.writeInt(hash.length);
+        outputStream.write(hash);
+    }
+}
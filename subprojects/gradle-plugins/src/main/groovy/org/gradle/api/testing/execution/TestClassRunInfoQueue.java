@@ -0,0 +1,162 @@
+/*
+ * Copyright 2010 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.testing.execution;
+
+import org.gradle.api.testing.fabric.TestClassRunInfo;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The test classes waiting to be dispatched to the forks, longest first. The queue keeps the total expected duration
+ * of the waiting test classes up to date as test classes are added and taken, so that it does not have to be summed up
+ * for each batch. Test classes must not be removed through the iterator of the queue, as the total would not be
+ * updated.
+ *
+ * <p>As test classes are detected while they are dispatched, the queue also keeps track of the test classes which
+ * have been executed before and have not been detected yet, so that short test classes can be held back until the
+ * long ones are detected.</p>
+ */
+public class TestClassRunInfoQueue extends PriorityBlockingQueue<TestClassRunInfo> {
+    private final TestClassDurations durations;
+    private final AtomicLong expectedDuration = new AtomicLong();
+    private final List<String> previousTestClasses;
+    private final Set<String> detectedTestClasses = new HashSet<String>();
+    private int undetectedIndex;
+
+    public TestClassRunInfoQueue(TestClassDurations durations) {
+        super(1000, durations.longestFirst());
+        this.durations = durations;
+        this.previousTestClasses = durations.getPreviousTestClassesLongestFirst();
+    }
+
+    /**
+     * Records that the given test class has been detected. Test classes added to the queue are detected as well.
+     */
+    public synchronized void detected(String testClassName) {
+        detectedTestClasses.add(testClassName);
+    }
+
+    /**
+     * Returns the expected duration of the longest test class which has been executed before and has not been detected
+     * yet, in milliseconds, or 0 when there is no such test class.
+     */
+    public synchronized long getLongestUndetectedDuration() {
+        while (undetectedIndex < previousTestClasses.size() && detectedTestClasses.contains(previousTestClasses.get(
+                undetectedIndex))) {
+            undetectedIndex++;
+        }
+        if (undetectedIndex == previousTestClasses.size()) {
+            return 0;
+        }
+        return durations.estimate(previousTestClasses.get(undetectedIndex));
+    }
+
+    /**
+     * Returns the expected duration of all the waiting test classes, in milliseconds.
+     */
+    public long getExpectedDuration() {
+        return expectedDuration.get();
+    }
+
+    @Override
+    public boolean offer(TestClassRunInfo testClassRunInfo) {
+        detected(testClassRunInfo.getTestClassName());
+        final long duration = durations.estimate(testClassRunInfo);
+        // added before the test class is queued, so the total does not drop below zero when it is taken right away
+        expectedDuration.addAndGet(duration);
+        final boolean added = super.offer(testClassRunInfo);
+        if (!added) {
+            expectedDuration.addAndGet(-duration);
+        }
+        return added;
+    }
+
+    @Override
+    public boolean offer(TestClassRunInfo testClassRunInfo, long timeout, TimeUnit unit) {
+        return offer(testClassRunInfo);
+    }
+
+    @Override
+    public void put(TestClassRunInfo testClassRunInfo) {
+        offer(testClassRunInfo);
+    }
+
+    @Override
+    public TestClassRunInfo poll() {
+        return taken(super.poll());
+    }
+
+    @Override
+    public TestClassRunInfo poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return taken(super.poll(timeout, unit));
+    }
+
+    @Override
+    public TestClassRunInfo take() throws InterruptedException {
+        return taken(super.take());
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        final boolean removed = super.remove(o);
+        if (removed) {
+            taken((TestClassRunInfo) o);
+        }
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        while (poll() != null) {
+            // taken
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super TestClassRunInfo> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super TestClassRunInfo> c, int maxElements) {
+        if (c == null) {
+            throw new NullPointerException();
+        }
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        int count = 0;
+        TestClassRunInfo testClassRunInfo;
+        while (count < maxElements && (testClassRunInfo = poll()) != null) {
+            c.add(testClassRunInfo);
+            count++;
+        }
+        return count;
+    }
+
+    private TestClassRunInfo taken(TestClassRunInfo testClassRunInfo) {
+        if (testClassRunInfo != null) {
+            expectedDuration.addAndGet(-durations.estimate(testClassRunInfo));
+        }
+        return testClassRunInfo;
+    }
+}
@@ -25,6 +25,7 @@ import org.gradle.api.testing.execution.control.messages.TestControlMessage;
 import org.gradle.api.testing.execution.control.messages.client.ForkStartedMessage;
 import org.gradle.api.testing.execution.control.messages.client.ForkStoppedMessage;
 import org.gradle.api.testing.execution.control.messages.client.NextActionRequestMessage;
+import org.gradle.api.testing.execution.control.messages.client.TestClassProcessResultMessage;
 import org.gradle.api.testing.execution.control.refork.ReforkContextData;
 import org.gradle.api.testing.fabric.TestClassProcessResult;
 import org.gradle.util.queues.BlockingQueueItemProducer;
@@ -97,10 +98,29 @@ public class DefaultTestControlClient implements TestControlClient {
 
         nextActionRequestMessage.setPreviousProcessedTestResult(previousProcessTestResult);
         
-        if ( !reforkContextData.isEmpty() ) {
+        if ( reforkContextData != null && !reforkContextData.isEmpty() ) {
             nextActionRequestMessage.setReforkDecisionContext(reforkContextData);
         }
 
         ioSession.write(nextActionRequestMessage);
     }
+
+    public void reportTestProcessed(TestClassProcessResult processTestResult, ReforkContextData reforkContextData) {
+        final TestClassProcessResultMessage resultMessage = new TestClassProcessResultMessage(forkId,
+                processTestResult);
+
+        if (reforkContextData != null && !reforkContextData.isEmpty()) {
+            resultMessage.setReforkDecisionContext(reforkContextData);
+        }
+
+        ioSession.write(resultMessage);
+    }
+
+    public void reportReinitialized() {
+        final NextActionRequestMessage nextActionRequestMessage = new NextActionRequestMessage(forkId);
+
+        nextActionRequestMessage.setReinitialized(true);
+
+        ioSession.write(nextActionRequestMessage);
+    }
 }
@@ -29,4 +29,11 @@ public interface TestControlClient {
 
     void requestNextControlMessage(TestClassProcessResult previousProcessTestResult,
                                    ReforkContextData reforkContextData);
+
+    void reportTestProcessed(TestClassProcessResult processTestResult, ReforkContextData reforkContextData);
+
+    /**
+     * Reports that the fork has been initialized again after a refork, and requests the next action.
+     */
+    void reportReinitialized();
 }
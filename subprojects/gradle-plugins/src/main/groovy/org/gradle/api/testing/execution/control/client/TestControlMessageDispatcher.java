@@ -18,6 +18,7 @@ package org.gradle.api.testing.execution.control.client;
 import org.gradle.api.testing.TestFrameworkRegister;
 import org.gradle.api.testing.execution.control.messages.TestControlMessage;
 import org.gradle.api.testing.execution.control.messages.server.ExecuteTestActionMessage;
+import org.gradle.api.testing.execution.control.messages.server.ExecuteTestBatchActionMessage;
 import org.gradle.api.testing.execution.control.messages.server.InitializeActionMessage;
 import org.gradle.api.testing.execution.control.messages.server.StopForkActionMessage;
 import org.gradle.api.testing.execution.control.messages.server.WaitActionMesssage;
@@ -30,6 +31,11 @@ import org.gradle.util.ThreadUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.net.URLClassLoader;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -41,18 +47,24 @@ public class TestControlMessageDispatcher {
     private static final Logger LOGGER = LoggerFactory.getLogger(TestControlMessageDispatcher.class);
 
     private final TestControlClient testControlClient;
-    private final ClassLoader sandboxClassLoader;
+    private volatile ClassLoader sandboxClassLoader;
     private final AtomicBoolean exitReceived;
+    private final Queue<Object> queuedActions;
+    private final AtomicBoolean processingQueuedTests;
+    private final AtomicBoolean nextActionRequested;
 
     private final ExecutorService threadPool;
-    private TestProcessorFactory testProcessorFactory;
-    private DataGatherControl dataGatherControl;
-    private TestProcessResultFactory testProcessResultFactory;
+    private volatile TestProcessorFactory testProcessorFactory;
+    private volatile DataGatherControl dataGatherControl;
+    private volatile TestProcessResultFactory testProcessResultFactory;
 
     public TestControlMessageDispatcher(TestControlClient testControlClient, ClassLoader sandboxClassLoader) {
         this.testControlClient = testControlClient;
         this.sandboxClassLoader = sandboxClassLoader;
         this.exitReceived = new AtomicBoolean(false);
+        this.queuedActions = new ConcurrentLinkedQueue<Object>();
+        this.processingQueuedTests = new AtomicBoolean(false);
+        this.nextActionRequested = new AtomicBoolean(false);
         this.threadPool = Executors.newFixedThreadPool(1); // TODO future - multithreaded test execution.
     }
 
@@ -67,6 +79,11 @@ public class TestControlMessageDispatcher {
                     dataGatherControl, testProcessResultFactory);
 
             threadPool.submit(testProcessorRunnable);
+        } else if (testControlMessage instanceof ExecuteTestBatchActionMessage) {
+            final ExecuteTestBatchActionMessage batchMessage = (ExecuteTestBatchActionMessage) testControlMessage;
+
+            nextActionRequested.set(false);
+            enqueue(batchMessage.getTestClassRunInfos());
         } else if (testControlMessage instanceof WaitActionMesssage) {
             final WaitActionMesssage waitMessage = (WaitActionMesssage) testControlMessage;
 
@@ -81,34 +98,124 @@ public class TestControlMessageDispatcher {
             actionExecuted(null, null);
         } else if (testControlMessage instanceof StopForkActionMessage) {
             exitReceived.set(true);
+            queuedActions.clear();
 
             ThreadUtils.shutdown(threadPool);
         } else if (testControlMessage instanceof InitializeActionMessage) {
             final InitializeActionMessage initMessage = (InitializeActionMessage) testControlMessage;
 
-            final String testFrameworkId = initMessage.getTestFrameworkId();
-            final ReforkReasonConfigs reforkReasonConfigs = initMessage.getReforkItemConfigs();
+            if (testProcessorFactory == null) {
+                initialize(initMessage);
 
-            dataGatherControl = new DefaultDataGatherControl();
+                actionExecuted(null, null);
+            } else {
+                // refork without restarting the JVM, once the test classes which are already queued have executed
+                enqueue(Collections.singletonList(initMessage));
+            }
+        }
 
-            dataGatherControl.initialize(reforkReasonConfigs);
+        return exitReceived.get();
+    }
 
-            final TestFramework testFramework = TestFrameworkRegister.getTestFramework(testFrameworkId);
-            testProcessorFactory = testFramework.getProcessorFactory();
-            testProcessResultFactory = new TestProcessResultFactory();
+    private void enqueue(Collection<?> actions) {
+        queuedActions.addAll(actions);
 
-            testProcessorFactory.initialize(sandboxClassLoader, testProcessResultFactory);
+        if (processingQueuedTests.compareAndSet(false, true)) {
+            threadPool.submit(new Runnable() {
+                public void run() {
+                    processQueuedTests();
+                }
+            });
+        }
+    }
 
-            actionExecuted(null, null);
+    private void reinitialize(InitializeActionMessage initMessage) {
+        sandboxClassLoader = createSandboxClassLoader();
+        initialize(initMessage);
+
+        if (!exitReceived.get()) {
+            nextActionRequested.set(true);
+            testControlClient.reportReinitialized();
         }
+    }
 
-        return exitReceived.get();
+    private void initialize(InitializeActionMessage initMessage) {
+        final String testFrameworkId = initMessage.getTestFrameworkId();
+        final ReforkReasonConfigs reforkReasonConfigs = initMessage.getReforkItemConfigs();
+
+        dataGatherControl = new DefaultDataGatherControl();
+
+        dataGatherControl.initialize(reforkReasonConfigs);
+
+        final TestFramework testFramework = TestFrameworkRegister.getTestFramework(testFrameworkId);
+        testProcessorFactory = testFramework.getProcessorFactory();
+        testProcessResultFactory = new TestProcessResultFactory();
+
+        testProcessorFactory.initialize(sandboxClassLoader, testProcessResultFactory);
+    }
+
+    /**
+     * Creates a class loader for the test classes with the same classpath as the current one, so that no classes or
+     * static state of previously executed test classes are carried over. The classpath can only be read from a
+     * {@link URLClassLoader}, which is what the fork launcher creates. Any other class loader is kept, and an error is
+     * logged, as the test classes then run against the classes and static state left by the previous ones.
+     */
+    private ClassLoader createSandboxClassLoader() {
+        if (sandboxClassLoader instanceof URLClassLoader) {
+            return new URLClassLoader(((URLClassLoader) sandboxClassLoader).getURLs(), sandboxClassLoader.getParent());
+        }
+        LOGGER.error("Cannot create a new class loader for the test classes from {}, as it is not a URLClassLoader. "
+                + "The test classes executed after this refork share the classes and static state of the previous "
+                + "ones.", sandboxClassLoader);
+        return sandboxClassLoader;
     }
 
     public void actionExecuted(TestClassProcessResult previousProcessTestResult,
                                ReforkContextData reforkContextData) {
         if (!exitReceived.get()) {
+            nextActionRequested.set(true);
             testControlClient.requestNextControlMessage(previousProcessTestResult, reforkContextData);
         }
     }
+
+    /**
+     * Reports the result of a test class which was received in a batch.
+     */
+    public void testProcessed(TestClassProcessResult processTestResult, ReforkContextData reforkContextData) {
+        testControlClient.reportTestProcessed(processTestResult, reforkContextData);
+    }
+
+    /**
+     * Executes the queued test classes one after the other. The next batch is requested when the last queued test
+     * class is started, so that it is received while that test class executes.
+     *
+     * <p>An initialize message received after a refork decision is queued behind the test classes already received.
+     * No further test classes are requested while it is queued, so the fork is initialized again as soon as those test
+     * classes have executed, and then requests the next batch.</p>
+     */
+    private void processQueuedTests() {
+        while (true) {
+            final Object action = queuedActions.poll();
+            if (action == null) {
+                processingQueuedTests.set(false);
+                if (queuedActions.isEmpty() || !processingQueuedTests.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+
+            if (action instanceof InitializeActionMessage) {
+                reinitialize((InitializeActionMessage) action);
+                continue;
+            }
+
+            final TestClassRunInfo testInfo = (TestClassRunInfo) action;
+            if (queuedActions.isEmpty() && !exitReceived.get() && nextActionRequested.compareAndSet(false, true)) {
+                testControlClient.requestNextControlMessage(null, null);
+            }
+
+            new TestProcessorRunnable(this, testProcessorFactory.createProcessor(), testInfo, dataGatherControl,
+                    testProcessResultFactory, true).run();
+        }
+    }
 }
@@ -33,10 +33,22 @@ public class TestProcessorRunnable implements Runnable {
     private final TestClassRunInfo testClassRunInfo;
     private final DataGatherControl dataGatherControl;
     private final TestProcessResultFactory testProcessResultFactory;
+    private final boolean batched;
 
     public TestProcessorRunnable(TestControlMessageDispatcher messageDispatcher, TestProcessor testProcessor,
                                  TestClassRunInfo testClassRunInfo, DataGatherControl dataGatherControl,
                                  TestProcessResultFactory testProcessResultFactory) {
+        this(messageDispatcher, testProcessor, testClassRunInfo, dataGatherControl, testProcessResultFactory, false);
+    }
+
+    /**
+     * @param batched true when the test class was received in a batch, in which case its result is reported without
+     * requesting the next action.
+     */
+    public TestProcessorRunnable(TestControlMessageDispatcher messageDispatcher, TestProcessor testProcessor,
+                                 TestClassRunInfo testClassRunInfo, DataGatherControl dataGatherControl,
+                                 TestProcessResultFactory testProcessResultFactory, boolean batched) {
+        this.batched = batched;
         this.messageDispatcher = messageDispatcher;
         this.testProcessor = testProcessor;
         this.testClassRunInfo = testClassRunInfo;
@@ -49,18 +61,24 @@ public class TestProcessorRunnable implements Runnable {
         TestClassProcessResult testProcessResult = null;
 
         // TODO add control listeners
+        final long start = System.currentTimeMillis();
         try {
             testProcessResult = testProcessor.process(testClassRunInfo);
         } catch (Throwable t) {
             testProcessResult = testProcessResultFactory.createEmptyClassResult(testClassRunInfo);
             testProcessResult.setProcessorErrorReason(t);
         }
+        testProcessResult.setDuration(System.currentTimeMillis() - start);
 
 //        System.out.println("[fork] test " + testClassRunInfo.getTestClassName() + " run, gathering refork data");
         final ReforkContextData reforkContextData = dataGatherControl.gatherData(
                 DataGatherMoment.AFTER_TEST_EXECUTION, testProcessResult);
 
 //        System.out.println("[fork] requesting next action");
-        messageDispatcher.actionExecuted(testProcessResult, reforkContextData);
+        if (batched) {
+            messageDispatcher.testProcessed(testProcessResult, reforkContextData);
+        } else {
+            messageDispatcher.actionExecuted(testProcessResult, reforkContextData);
+        }
     }
 }
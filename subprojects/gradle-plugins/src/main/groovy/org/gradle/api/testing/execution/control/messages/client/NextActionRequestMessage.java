@@ -29,6 +29,7 @@ public class NextActionRequestMessage extends AbstractTestClientControlMessage {
 
     private TestClassProcessResult previousProcessedTestResult = null;
     private ReforkContextData reforkContextData = null;
+    private boolean reinitialized;
 
     public NextActionRequestMessage(final int forkId) {
         super(forkId);
@@ -50,13 +51,26 @@ public class NextActionRequestMessage extends AbstractTestClientControlMessage {
         this.reforkContextData = reforkContextData;
     }
 
+    /**
+     * Returns true when the fork has been initialized again after a refork, since it sent its previous message.
+     */
+    public boolean isReinitialized() {
+        return reinitialized;
+    }
+
+    public void setReinitialized(boolean reinitialized) {
+        this.reinitialized = reinitialized;
+    }
+
     private void writeObject(ObjectOutputStream out) throws IOException {
         out.writeObject(previousProcessedTestResult);
         out.writeObject(reforkContextData);
+        out.writeBoolean(reinitialized);
     }
 
     private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
         previousProcessedTestResult = (TestClassProcessResult) in.readObject();
         reforkContextData = (ReforkContextData) in.readObject();
+        reinitialized = in.readBoolean();
     }
 }
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2010 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.testing.execution.control.messages.client;
+
+import org.gradle.api.testing.execution.control.refork.ReforkContextData;
+import org.gradle.api.testing.fabric.TestClassProcessResult;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * Reports the result of a test class which was sent to a fork in a batch. The fork does not wait for a response.
+ */
+public class TestClassProcessResultMessage extends AbstractTestClientControlMessage {
+
+    private TestClassProcessResult processedTestResult;
+    private ReforkContextData reforkContextData;
+
+    public TestClassProcessResultMessage(final int forkId, TestClassProcessResult processedTestResult) {
+        super(forkId);
+        this.processedTestResult = processedTestResult;
+    }
+
+    public TestClassProcessResult getProcessedTestResult() {
+        return processedTestResult;
+    }
+
+    public ReforkContextData getReforkDecisionContext() {
+        return reforkContextData;
+    }
+
+    public void setReforkDecisionContext(ReforkContextData reforkContextData) {
+        this.reforkContextData = reforkContextData;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.writeObject(processedTestResult);
+        out.writeObject(reforkContextData);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        processedTestResult = (TestClassProcessResult) in.readObject();
+        reforkContextData = (ReforkContextData) in.readObject();
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2010 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.testing.execution.control.messages.server;
+
+import org.gradle.api.testing.fabric.TestClassRunInfo;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sends a batch of test classes to a fork. The fork queues the test classes, executes them one after the other and
+ * reports the result of each test class with a {@link org.gradle.api.testing.execution.control.messages.client.TestClassProcessResultMessage}.
+ */
+public class ExecuteTestBatchActionMessage extends AbstractTestServerControlMessage {
+
+    private List<TestClassRunInfo> testClassRunInfos;
+
+    public ExecuteTestBatchActionMessage(int pipelineId, List<TestClassRunInfo> testClassRunInfos) {
+        super(pipelineId);
+        this.testClassRunInfos = testClassRunInfos;
+    }
+
+    public List<TestClassRunInfo> getTestClassRunInfos() {
+        return testClassRunInfos;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.writeInt(testClassRunInfos.size());
+        for (TestClassRunInfo testClassRunInfo : testClassRunInfos) {
+            out.writeObject(testClassRunInfo);
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        final int count = in.readInt();
+        testClassRunInfos = new ArrayList<TestClassRunInfo>(count);
+        for (int i = 0; i < count; i++) {
+            testClassRunInfos.add((TestClassRunInfo) in.readObject());
+        }
+    }
+}
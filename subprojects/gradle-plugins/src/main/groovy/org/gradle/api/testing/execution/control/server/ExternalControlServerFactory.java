@@ -22,6 +22,7 @@ import org.gradle.api.testing.execution.control.messages.TestControlMessageHandl
 import org.gradle.api.testing.execution.control.server.messagehandlers.ForkStartedMessageHandlerFactory;
 import org.gradle.api.testing.execution.control.server.messagehandlers.ForkStoppedMessageHandlerFactory;
 import org.gradle.api.testing.execution.control.server.messagehandlers.NextActionRequestMessageHandlerFactory;
+import org.gradle.api.testing.execution.control.server.messagehandlers.TestClassProcessResultMessageHandlerFactory;
 import org.gradle.api.testing.execution.control.server.transport.ExternalIoAcceptorFactory;
 import org.gradle.api.testing.execution.control.server.transport.IoAcceptorFactory;
 
@@ -39,6 +40,7 @@ public class ExternalControlServerFactory implements ControlServerFactory {
         messageHandlerFactories.add(new ForkStartedMessageHandlerFactory());
         messageHandlerFactories.add(new ForkStoppedMessageHandlerFactory());
         messageHandlerFactories.add(new NextActionRequestMessageHandlerFactory());
+        messageHandlerFactories.add(new TestClassProcessResultMessageHandlerFactory());
     }
 
     public TestControlServer createTestControlServer(Pipeline pipeline, PipelineDispatcher pipelineDispatcher) {
@@ -23,6 +23,11 @@ import org.gradle.api.testing.fabric.TestClassRunInfo;
 import org.slf4j.LoggerFactory;
 import org.slf4j.Logger;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -38,7 +43,9 @@ public class TestServerClientHandle {
 
     private final Lock statusLock;
     private ForkStatus status = ForkStatus.STOPPED;
+    private boolean reinitializing;
     private TestClassRunInfo currentTest;
+    private final Queue<TestClassRunInfo> assignedTests = new ConcurrentLinkedQueue<TestClassRunInfo>();
 
     public TestServerClientHandle(Pipeline pipeline, int forkId, ForkControl forkControl) {
         this.pipeline = pipeline;
@@ -88,6 +95,43 @@ public class TestServerClientHandle {
         }
     }
 
+    /**
+     * Marks that the fork has been asked to initialize itself again, without restarting, after a refork decision.
+     */
+    public void reinitializing() {
+        statusLock.lock();
+        try {
+            if (status != ForkStatus.STARTED) {
+                throw new IllegalArgumentException("can't reinitialize, current status is " + status);
+            }
+
+            reinitializing = true;
+        } finally {
+            statusLock.unlock();
+        }
+    }
+
+    /**
+     * Marks that the fork has initialized itself again.
+     */
+    public void reinitialized() {
+        statusLock.lock();
+        try {
+            reinitializing = false;
+        } finally {
+            statusLock.unlock();
+        }
+    }
+
+    public boolean isReinitializing() {
+        statusLock.lock();
+        try {
+            return reinitializing;
+        } finally {
+            statusLock.unlock();
+        }
+    }
+
     public void restarting() {
         statusLock.lock();
         try {
@@ -110,6 +154,7 @@ public class TestServerClientHandle {
             }
 
             status = ForkStatus.STARTED;
+            reinitializing = false;
             forkControl.setRestarting(pipeline.getId(), forkId, false);
         } finally {
             statusLock.unlock();
@@ -202,18 +247,27 @@ public class TestServerClientHandle {
         }
     }
 
-    public TestClassRunInfo nextTest(PipelineDispatcher pipelineDispatcher) {
+    /**
+     * Returns the next test classes to send to the fork. The test classes are assigned to the fork until they are
+     * reported back using {@link #testProcessed(TestClassRunInfo)}.
+     *
+     * @param maxBatchSize The maximum number of test classes to return.
+     * @return The test classes, empty when no test class is available.
+     */
+    public List<TestClassRunInfo> nextTests(PipelineDispatcher pipelineDispatcher, int maxBatchSize) {
         statusLock.lock();
         try {
-            TestClassRunInfo nextTest = null;
+            List<TestClassRunInfo> nextTests = new ArrayList<TestClassRunInfo>();
 
             switch (status) {
                 case FAILED: // TODO add re-launch failed fork policy, Never, FailFast, Fail after n crashes, ...?
-                    nextTest = currentTest; // retry previous test
+                    if (currentTest != null) {
+                        nextTests.add(currentTest); // retry previous test
+                    }
                     break;
                 case STARTED:
                     try {
-                        nextTest = pipelineDispatcher.nextTest();
+                        nextTests = pipelineDispatcher.nextTests(maxBatchSize);
                     } catch (InterruptedException e) {
                         // ignore
                     }
@@ -221,13 +275,42 @@ public class TestServerClientHandle {
                 // else no test case available
             }
 
+            assignedTests.addAll(nextTests);
+
             if (pipeline.isPipelineSplittingEnded() && pipelineDispatcher.isAllTestsExecuted()) {
                 pipelineDispatcher.stop();
             }
 
-            return nextTest;
+            return nextTests;
         } finally {
             statusLock.unlock();
         }
     }
+
+    /**
+     * Records that the fork has reported back the given test class.
+     */
+    public void testProcessed(TestClassRunInfo testClassRunInfo) {
+        final Iterator<TestClassRunInfo> iterator = assignedTests.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getTestClassName().equals(testClassRunInfo.getTestClassName())) {
+                iterator.remove();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns true when test classes have been sent to the fork which it has not reported back yet.
+     */
+    public boolean hasAssignedTests() {
+        return !assignedTests.isEmpty();
+    }
+
+    /**
+     * Returns the test classes which have been sent to the fork and not reported back yet.
+     */
+    public List<TestClassRunInfo> getAssignedTests() {
+        return new ArrayList<TestClassRunInfo>(assignedTests);
+    }
 }
@@ -15,9 +15,28 @@
  */
 package org.gradle.api.testing.execution.control.server.messagehandlers;
 
+import org.apache.mina.core.session.IoSession;
+import org.gradle.api.tasks.testing.NativeTest;
 import org.gradle.api.testing.execution.Pipeline;
 import org.gradle.api.testing.execution.PipelineDispatcher;
+import org.gradle.api.testing.execution.TestClassResultCache;
 import org.gradle.api.testing.execution.control.messages.TestControlMessageHandler;
+import org.gradle.api.testing.execution.control.messages.server.InitializeActionMessage;
+import org.gradle.api.testing.execution.control.messages.server.StopForkActionMessage;
+import org.gradle.api.testing.execution.control.refork.ReforkContextData;
+import org.gradle.api.testing.execution.control.refork.ReforkControl;
+import org.gradle.api.testing.execution.control.server.TestServerClientHandle;
+import org.gradle.api.testing.execution.fork.ForkStatus;
+import org.gradle.api.testing.fabric.TestClassProcessResult;
+import org.gradle.api.testing.fabric.TestClassRunInfo;
+import org.gradle.api.testing.fabric.TestMethodProcessResult;
+import org.gradle.api.testing.fabric.TestMethodProcessResultState;
+import org.gradle.api.testing.fabric.TestMethodProcessResultStates;
+import org.gradle.api.testing.reporting.Report;
+import org.gradle.api.testing.reporting.TestClassProcessResultReportInfo;
+
+import java.util.List;
+import java.util.Map;
 
 /**
  * @author Tom Eyckmans
@@ -34,4 +53,96 @@ public abstract class AbstractTestServerControlMessageHandler implements TestCon
         this.pipelineDispatcher = pipelineDispatcher;
         this.pipeline = pipelineDispatcher.getPipeline();
     }
+
+    void stopClient(IoSession ioSession, int pipelineId, TestServerClientHandle client) {
+        ioSession.write(new StopForkActionMessage(pipelineId));
+    }
+
+    /**
+     * Reforks the client. When forks are reused, the fork is initialized again, which replaces the class loader of the
+     * test classes, otherwise the fork is stopped and started again.
+     */
+    void restartClient(IoSession ioSession, int pipelineId, TestServerClientHandle client) {
+        if (pipeline.getConfig().isReuseForks()) {
+            client.reinitializing();
+
+            ioSession.write(createInitializeMessage());
+        } else {
+            client.restarting();
+
+            ioSession.write(new StopForkActionMessage(pipelineId));
+        }
+    }
+
+    InitializeActionMessage createInitializeMessage() {
+        final InitializeActionMessage initializeForkMessage = new InitializeActionMessage(pipeline.getId());
+        final NativeTest testTask = pipeline.getTestTask();
+
+        initializeForkMessage.setTestFrameworkId(testTask.getTestFramework().getTestFramework().getId());
+        initializeForkMessage.setReforkItemConfigs(pipeline.getConfig().getReforkReasonConfigs());
+        // TODO add sandbox classpath ?
+
+        return initializeForkMessage;
+    }
+
+    void processTestResult(int forkId, TestServerClientHandle client, TestClassProcessResult processResult) {
+        // TODO submit to thread pool before reporting to different reports.
+        if (processResult != null) {
+            final List<Report> reports = pipeline.getReports();
+            final TestClassProcessResultReportInfo result = new TestClassProcessResultReportInfo(forkId, pipeline,
+                    processResult);
+            for (final Report report : reports) {
+                report.addReportInfo(result);
+            }
+
+            final TestClassRunInfo testClassRunInfo = processResult.getTestClassRunInfo();
+            if (testClassRunInfo != null) {
+                if (processResult.getDuration() >= 0) {
+                    pipeline.getTestClassDurations().record(testClassRunInfo.getTestClassName(),
+                            processResult.getDuration());
+                }
+                final TestClassResultCache testClassResultCache = pipeline.getTestClassResultCache();
+                if (testClassResultCache != null) {
+                    testClassResultCache.record(testClassRunInfo.getTestClassName(), isPassed(processResult));
+                }
+                client.testProcessed(testClassRunInfo);
+            }
+        }
+    }
+
+    private boolean isPassed(TestClassProcessResult processResult) {
+        if (processResult.getExecutionErrorReason() != null || processResult.getProcessorErrorReason() != null) {
+            return false;
+        }
+
+        final Map<TestMethodProcessResultState, TestMethodProcessResultState> stateMapping = pipeline.getTestTask()
+                .getTestFramework().getTestFramework().getMethodProcessResultStateMapping();
+        for (final TestMethodProcessResult methodResult : processResult.getMethodResults()) {
+            final TestMethodProcessResultState state = stateMapping.get(methodResult.getState());
+            if (state == TestMethodProcessResultStates.FAILURE || state == TestMethodProcessResultStates.ERROR) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decides whether the client needs to be reforked. A client which is not started, for example because it is
+     * already restarting, or which has not yet initialized itself again after the previous refork, is not reforked
+     * again.
+     */
+    boolean isReforkNeeded(int forkId, TestServerClientHandle client, ReforkContextData reforkContextData) {
+        boolean reforkNeeded = false;
+
+        final ReforkControl reforkControl = pipeline.getReforkController();
+        if (reforkControl != null && reforkContextData != null && client.getStatus() == ForkStatus.STARTED
+                && !client.isReinitializing()) {
+            reforkContextData.setPipeline(pipeline);
+            reforkContextData.setForkId(forkId);
+
+            reforkNeeded = reforkControl.reforkNeeded(reforkContextData);
+        }
+
+        return reforkNeeded;
+    }
 }
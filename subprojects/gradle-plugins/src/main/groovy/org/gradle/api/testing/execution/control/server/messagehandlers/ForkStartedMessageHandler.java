@@ -18,8 +18,6 @@ package org.gradle.api.testing.execution.control.server.messagehandlers;
 import org.apache.mina.core.session.IoSession;
 import org.gradle.api.testing.execution.PipelineDispatcher;
 import org.gradle.api.testing.execution.control.server.TestServerClientHandle;
-import org.gradle.api.testing.execution.control.messages.server.InitializeActionMessage;
-import org.gradle.api.tasks.testing.NativeTest;
 
 /**
  * @author Tom Eyckmans
@@ -33,13 +31,6 @@ public class ForkStartedMessageHandler extends AbstractTestServerControlMessageH
     public void handle(IoSession ioSession, Object controlMessage, TestServerClientHandle client) {
         client.started();
 
-        final InitializeActionMessage initializeForkMessage = new InitializeActionMessage(pipeline.getId());
-        final NativeTest testTask = pipeline.getTestTask();
-
-        initializeForkMessage.setTestFrameworkId(testTask.getTestFramework().getTestFramework().getId());
-        initializeForkMessage.setReforkItemConfigs(pipeline.getConfig().getReforkReasonConfigs());
-        // TODO add sandbox classpath ?
-
-        ioSession.write(initializeForkMessage);
+        ioSession.write(createInitializeMessage());
     }
 }
@@ -19,15 +19,10 @@ import org.apache.mina.core.session.IoSession;
 import org.gradle.api.testing.execution.PipelineDispatcher;
 import org.gradle.api.testing.execution.control.messages.client.NextActionRequestMessage;
 import org.gradle.api.testing.execution.control.messages.server.ExecuteTestActionMessage;
-import org.gradle.api.testing.execution.control.messages.server.StopForkActionMessage;
+import org.gradle.api.testing.execution.control.messages.server.ExecuteTestBatchActionMessage;
 import org.gradle.api.testing.execution.control.messages.server.WaitActionMesssage;
-import org.gradle.api.testing.execution.control.refork.ReforkContextData;
-import org.gradle.api.testing.execution.control.refork.ReforkControl;
 import org.gradle.api.testing.execution.control.server.TestServerClientHandle;
-import org.gradle.api.testing.fabric.TestClassProcessResult;
 import org.gradle.api.testing.fabric.TestClassRunInfo;
-import org.gradle.api.testing.reporting.Report;
-import org.gradle.api.testing.reporting.TestClassProcessResultReportInfo;
 
 import java.util.List;
 
@@ -35,6 +30,7 @@ import java.util.List;
  * @author Tom Eyckmans
  */
 public class NextActionRequestMessageHandler extends AbstractTestServerControlMessageHandler {
+    static final long WAIT_TIME = 100L;
 
     protected NextActionRequestMessageHandler(PipelineDispatcher pipelineDispatcher) {
         super(pipelineDispatcher);
@@ -45,64 +41,31 @@ public class NextActionRequestMessageHandler extends AbstractTestServerControlMe
         final int forkId = message.getForkId();
         final int pipelineId = pipeline.getId();
 
+        if (message.isReinitialized()) {
+            client.reinitialized();
+        }
+
+        processTestResult(forkId, client, message.getPreviousProcessedTestResult());
+
         if (pipelineDispatcher.isStopping()) {
             stopClient(ioSession, pipelineId, client);
+        } else if (isReforkNeeded(forkId, client, message.getReforkDecisionContext())) {
+            restartClient(ioSession, pipelineId, client);
         } else {
-            final TestClassProcessResult previousProcesTestResult = message.getPreviousProcessedTestResult();
-
-            processPreviousTestResult(forkId, previousProcesTestResult);
-
-            if (isReforkNeeded(message)) {
-                restartClient(ioSession, pipelineId, client);
-            } else {
-                final TestClassRunInfo nextTest = client.nextTest(pipelineDispatcher);
+            final int batchSize = pipeline.getConfig().getDispatchBatchSize();
+            final List<TestClassRunInfo> nextTests = client.nextTests(pipelineDispatcher, batchSize);
 
-                if (nextTest == null) {
-                    ioSession.write(new WaitActionMesssage(pipelineId, 1000));
+            if (!nextTests.isEmpty()) {
+                if (batchSize == 1) {
+                    ioSession.write(new ExecuteTestActionMessage(pipelineId, nextTests.get(0)));
                 } else {
-                    ioSession.write(new ExecuteTestActionMessage(pipelineId, nextTest));
+                    ioSession.write(new ExecuteTestBatchActionMessage(pipelineId, nextTests));
                 }
+            } else if (pipelineDispatcher.isStopping()) {
+                stopClient(ioSession, pipelineId, client);
+            } else {
+                ioSession.write(new WaitActionMesssage(pipelineId, WAIT_TIME));
             }
         }
     }
-
-    void stopClient(IoSession ioSession, int pipelineId, TestServerClientHandle client) {
-        ioSession.write(new StopForkActionMessage(pipelineId));
-    }
-
-    void restartClient(IoSession ioSession, int pipelineId, TestServerClientHandle client) {
-        client.restarting();
-
-        ioSession.write(new StopForkActionMessage(pipelineId));
-    }
-
-    void processPreviousTestResult(int forkId, TestClassProcessResult previousProcessResult) {
-        // TODO submit to thread pool before reporting to different reports.
-        if (previousProcessResult != null) {
-            final List<Report> reports = pipeline.getReports();
-            final TestClassProcessResultReportInfo result = new TestClassProcessResultReportInfo(forkId, pipeline,
-                    previousProcessResult);
-            for (final Report report : reports) {
-                report.addReportInfo(result);
-            }
-        }
-    }
-
-    boolean isReforkNeeded(NextActionRequestMessage message) {
-        boolean reforkNeeded = false;
-
-        final ReforkControl reforkControl = pipeline.getReforkController();
-        if (reforkControl != null) {
-            final ReforkContextData reforkContextData = message.getReforkDecisionContext();
-
-            if (reforkContextData != null) {
-                reforkContextData.setPipeline(pipeline);
-                reforkContextData.setForkId(message.getForkId());
-                
-                reforkNeeded = reforkControl.reforkNeeded(reforkContextData);
-            }
-        }
-
-        return reforkNeeded;
-    }
 }
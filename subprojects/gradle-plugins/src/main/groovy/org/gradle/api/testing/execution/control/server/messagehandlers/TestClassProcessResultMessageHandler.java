@@ -0,0 +1,43 @@
+/*
+ * Copyright 2010 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.testing.execution.control.server.messagehandlers;
+
+import org.apache.mina.core.session.IoSession;
+import org.gradle.api.testing.execution.PipelineDispatcher;
+import org.gradle.api.testing.execution.control.messages.client.TestClassProcessResultMessage;
+import org.gradle.api.testing.execution.control.server.TestServerClientHandle;
+
+/**
+ * Handles the result of a test class which was sent to a fork in a batch. Nothing is sent back to the fork, unless it
+ * needs to be restarted.
+ */
+public class TestClassProcessResultMessageHandler extends AbstractTestServerControlMessageHandler {
+
+    protected TestClassProcessResultMessageHandler(PipelineDispatcher pipelineDispatcher) {
+        super(pipelineDispatcher);
+    }
+
+    public void handle(IoSession ioSession, Object controlMessage, TestServerClientHandle client) {
+        final TestClassProcessResultMessage message = (TestClassProcessResultMessage) controlMessage;
+        final int forkId = message.getForkId();
+
+        processTestResult(forkId, client, message.getProcessedTestResult());
+
+        if (!pipelineDispatcher.isStopping() && isReforkNeeded(forkId, client, message.getReforkDecisionContext())) {
+            restartClient(ioSession, pipeline.getId(), client);
+        }
+    }
+}
@@ -15,9 +15,12 @@
  */
 package org.gradle.api.testing.fabric;
 
+import org.gradle.api.Project;
 import org.gradle.api.tasks.testing.AbstractTestTask;
 import org.gradle.util.exec.ExecHandleBuilder;
 
+import java.io.File;
+
 /**
  * @author Tom Eyckmans
  */
@@ -41,6 +44,13 @@ public abstract class AbstractTestFrameworkInstance<T extends TestFramework> imp
         return testFramework;
     }
 
+    /**
+     * Returns the file in which the detector keeps what it found out about the test class files between builds.
+     */
+    protected File getDetectionIndexFile(Project project, AbstractTestTask testTask) {
+        return new File(project.getBuildDir(), String.format("tmp/%s/testClasses.index", testTask.getName()));
+    }
+
     protected void useDefaultJvm(ExecHandleBuilder forkHandleBuilder) {
         forkHandleBuilder.execCommand("java");
     }
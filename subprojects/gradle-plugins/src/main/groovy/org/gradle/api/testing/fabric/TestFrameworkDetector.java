@@ -29,4 +29,10 @@ public interface TestFrameworkDetector {
     boolean processTestClass(File testClassFile);
 
     File getTestClassesDirectory();
+
+    /**
+     * Called once all test class files have been processed, so the detector can save what it found out about the
+     * class files and release the resources it used.
+     */
+    void detectionEnded();
 }
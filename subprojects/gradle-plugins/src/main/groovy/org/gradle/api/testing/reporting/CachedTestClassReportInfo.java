@@ -0,0 +1,47 @@
+/*
+ * Copyright 2010 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.testing.reporting;
+
+import org.gradle.api.testing.execution.Pipeline;
+import org.gradle.api.testing.fabric.TestClassRunInfo;
+
+/**
+ * Reports a test class which was not executed, because it passed before and has not changed since.
+ */
+public class CachedTestClassReportInfo implements ReportInfo {
+    private final Pipeline pipeline;
+    private final TestClassRunInfo testClassRunInfo;
+
+    public CachedTestClassReportInfo(Pipeline pipeline, TestClassRunInfo testClassRunInfo) {
+        this.pipeline = pipeline;
+        this.testClassRunInfo = testClassRunInfo;
+    }
+
+    /**
+     * Returns -1, as the test class was not executed by a fork.
+     */
+    public int getForkId() {
+        return -1;
+    }
+
+    public Pipeline getPipeline() {
+        return pipeline;
+    }
+
+    public TestClassRunInfo getTestClassRunInfo() {
+        return testClassRunInfo;
+    }
+}
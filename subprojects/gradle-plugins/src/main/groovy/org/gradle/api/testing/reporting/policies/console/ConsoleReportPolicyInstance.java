@@ -16,6 +16,7 @@
 package org.gradle.api.testing.reporting.policies.console;
 
 import org.gradle.api.testing.reporting.policies.ReportPolicyInstance;
+import org.gradle.api.testing.reporting.CachedTestClassReportInfo;
 import org.gradle.api.testing.reporting.ReportInfo;
 import org.gradle.api.testing.reporting.Report;
 import org.gradle.api.testing.reporting.TestClassProcessResultReportInfo;
@@ -165,6 +166,13 @@ public class ConsoleReportPolicyInstance implements ReportPolicyInstance {
                     }
                 }
             }
+        } else if (CachedTestClassReportInfo.class == reportInfo.getClass()) {
+            final CachedTestClassReportInfo cachedInfo = (CachedTestClassReportInfo) reportInfo;
+
+            if (config.getToShowStates().contains(TestMethodProcessResultStates.SUCCESS)) {
+                logger.info("pipeline {} : Test {} : cached", reportInfo.getPipeline().getName(),
+                        cachedInfo.getTestClassRunInfo().getTestClassName());
+            }
         }
         // else unsupported reportInfo -> warning ?
     }
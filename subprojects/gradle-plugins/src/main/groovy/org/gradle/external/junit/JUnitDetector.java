@@ -17,7 +17,7 @@ package org.gradle.external.junit;
 
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.testing.detection.AbstractTestFrameworkDetector;
-import org.gradle.api.testing.detection.TestClassVisitor;
+import org.gradle.api.testing.detection.ClassFileInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -29,29 +29,27 @@ import java.io.File;
 public class JUnitDetector extends AbstractTestFrameworkDetector<JUnitTestClassDetecter> {
     private static final Logger LOGGER = LoggerFactory.getLogger(JUnitDetector.class);
 
-    JUnitDetector(File testClassesDirectory, FileCollection testClasspath) {
-        super(testClassesDirectory, testClasspath);
+    JUnitDetector(File testClassesDirectory, FileCollection testClasspath, File indexFile) {
+        super(testClassesDirectory, testClasspath, indexFile);
     }
 
     protected JUnitTestClassDetecter createClassVisitor() {
         return new JUnitTestClassDetecter(this);
     }
 
-    protected boolean processTestClass(final File testClassFile, boolean superClass) {
-        final TestClassVisitor classVisitor = classVisitor(testClassFile);
-
-        boolean isTest = classVisitor.isTest();
+    protected boolean processTestClass(final ClassFileInfo classInfo, boolean superClass) {
+        boolean isTest = classInfo.isTest();
 
         if (!isTest) { // scan parent class
-            final String superClassName = classVisitor.getSuperClassName();
+            final String superClassName = classInfo.getSuperClassName();
 
             if (isKnownTestCaseClassName(superClassName)) {
                 isTest = true;
             } else {
-                final File superClassFile = getSuperTestClassFile(superClassName);
+                final ClassFileInfo superClassInfo = getSuperTestClassInfo(superClassName);
 
-                if (superClassFile != null) {
-                    isTest = processSuperClass(superClassFile);
+                if (superClassInfo != null) {
+                    isTest = processSuperClass(superClassInfo);
                 } else {
                     LOGGER.debug("test-class-scan : failed to scan parent class {}, could not find the class file",
                             superClassName);
@@ -59,7 +57,7 @@ public class JUnitDetector extends AbstractTestFrameworkDetector<JUnitTestClassD
             }
         }
 
-        publishTestClass(isTest, classVisitor, superClass);
+        publishTestClass(isTest, classInfo, superClass);
 
         return isTest;
     }
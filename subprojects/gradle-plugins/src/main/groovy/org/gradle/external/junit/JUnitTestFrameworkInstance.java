@@ -56,7 +56,8 @@ public class JUnitTestFrameworkInstance extends AbstractTestFrameworkInstance<JU
         forkOptions.setForkMode(ForkMode.ONCE);
         forkOptions.setDir(project.getProjectDir());
 
-        detector = new JUnitDetector(testTask.getTestClassesDir(), testTask.getClasspath());
+        detector = new JUnitDetector(testTask.getTestClassesDir(), testTask.getClasspath(),
+                getDetectionIndexFile(project, testTask));
     }
 
     public void execute(Project project, AbstractTestTask testTask, Collection<String> includes,
@@ -17,7 +17,7 @@ package org.gradle.external.testng;
 
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.testing.detection.AbstractTestFrameworkDetector;
-import org.gradle.api.testing.detection.TestClassVisitor;
+import org.gradle.api.testing.detection.ClassFileInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -29,8 +29,8 @@ import java.io.File;
 class TestNGDetector extends AbstractTestFrameworkDetector<TestNGTestClassDetecter> {
     private static final Logger LOGGER = LoggerFactory.getLogger(TestNGDetector.class);
 
-    TestNGDetector(File testClassesDirectory, FileCollection testClasspath) {
-        super(testClassesDirectory, testClasspath);
+    TestNGDetector(File testClassesDirectory, FileCollection testClasspath, File indexFile) {
+        super(testClassesDirectory, testClasspath, indexFile);
     }
 
     protected TestNGTestClassDetecter createClassVisitor() {
@@ -38,7 +38,7 @@ class TestNGDetector extends AbstractTestFrameworkDetector<TestNGTestClassDetect
     }
 
     /**
-     * Uses a TestClassVisitor to detect whether the class in the testClassFile is a test class.
+     * Uses the info of a class file to detect whether the class is a test class.
      * <p/>
      * If the class is not a test, this function will go up the inheritance tree to check if a
      * parent class is a test class. First the package of the parent class is checked, if it is a java.lang or groovy.lang
@@ -46,29 +46,27 @@ class TestNGDetector extends AbstractTestFrameworkDetector<TestNGTestClassDetect
      * <p/>
      * When a parent class is a test class all the extending classes are marked as test classes.
      *
-     * @param testClassFile
+     * @param classInfo
      * @param superClass
      * @return
      */
-    protected boolean processTestClass(final File testClassFile, boolean superClass) {
-        final TestClassVisitor classVisitor = classVisitor(testClassFile);
-
-        boolean isTest = classVisitor.isTest();
+    protected boolean processTestClass(final ClassFileInfo classInfo, boolean superClass) {
+        boolean isTest = classInfo.isTest();
 
         if (!isTest) {
-            final String superClassName = classVisitor.getSuperClassName();
+            final String superClassName = classInfo.getSuperClassName();
 
-            final File superClassFile = getSuperTestClassFile(superClassName);
+            final ClassFileInfo superClassInfo = getSuperTestClassInfo(superClassName);
 
-            if (superClassFile != null) {
-                isTest = processSuperClass(superClassFile);
+            if (superClassInfo != null) {
+                isTest = processSuperClass(superClassInfo);
             } else {
                 LOGGER.debug("test-class-scan : failed to scan parent class {}, could not find the class file",
                         superClassName);
             }
         }
 
-        publishTestClass(isTest, classVisitor, superClass);
+        publishTestClass(isTest, classInfo, superClass);
 
         return isTest;
     }
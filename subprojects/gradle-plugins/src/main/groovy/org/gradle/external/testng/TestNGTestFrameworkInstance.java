@@ -47,7 +47,8 @@ public class TestNGTestFrameworkInstance extends AbstractTestFrameworkInstance<T
 
         options.setAnnotationsOnSourceCompatibility(JavaVersion.toVersion(project.property("sourceCompatibility")));
 
-        detector = new TestNGDetector(testTask.getTestClassesDir(), testTask.getClasspath());
+        detector = new TestNGDetector(testTask.getTestClassesDir(), testTask.getClasspath(),
+                getDetectionIndexFile(project, testTask));
     }
 
     public void execute(Project project, AbstractTestTask testTask, Collection<String> includes,
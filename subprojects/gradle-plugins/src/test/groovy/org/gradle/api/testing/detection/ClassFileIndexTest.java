@@ -0,0 +1,128 @@
+/*
+ * Copyright 2010 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.testing.detection;
+
+import org.gradle.integtests.TestFile;
+import org.gradle.util.TemporaryFolder;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class ClassFileIndexTest {
+    @Rule
+    public final TemporaryFolder tmpDir = new TemporaryFolder();
+    private File indexFile;
+
+    @Before
+    public void setUp() {
+        indexFile = new File(tmpDir.getDir(), "build/testClasses.index");
+    }
+
+    @Test
+    public void findsInfoOfClassFileAddedByPreviousBuild() {
+        TestFile classFile = classFile("classes/org/gradle/SomeTest.class");
+        ClassFileIndex index = ClassFileIndex.read(indexFile, "detector");
+        assertNull(index.find(classFile));
+
+        index.add(classFile, classFile.length(), classFile.lastModified(), new ClassFileInfo("org/gradle/SomeTest",
+                "org/gradle/BaseTest", true, false, Arrays.asList("org/gradle/SomeTest$Inner")));
+        index.write(indexFile);
+
+        ClassFileInfo info = ClassFileIndex.read(indexFile, "detector").find(classFile);
+        assertEquals("org/gradle/SomeTest", info.getClassName());
+        assertEquals("org/gradle/BaseTest", info.getSuperClassName());
+        assertTrue(info.isTest());
+        assertFalse(info.isAbstract());
+        assertEquals(Arrays.asList("org/gradle/SomeTest$Inner"), info.getInnerClassNames());
+    }
+
+    @Test
+    public void doesNotFindInfoOfClassFileWhichHasChanged() {
+        TestFile classFile = tmpDir.file("classes/org/gradle/SomeTest.class").write("content");
+        ClassFileIndex index = ClassFileIndex.read(indexFile, "detector");
+        index.add(classFile, classFile.length(), classFile.lastModified(), info("org/gradle/SomeTest"));
+        index.write(indexFile);
+
+        classFile.write("changed content");
+
+        assertNull(ClassFileIndex.read(indexFile, "detector").find(classFile));
+    }
+
+    @Test
+    public void doesNotFindInfoOfClassFileModifiedJustBeforeIndexWasCreated() {
+        TestFile classFile = tmpDir.file("classes/org/gradle/SomeTest.class").write("content");
+        classFile.setLastModified(System.currentTimeMillis() - 500);
+        ClassFileIndex index = ClassFileIndex.read(indexFile, "detector");
+        index.add(classFile, classFile.length(), classFile.lastModified(), info("org/gradle/SomeTest"));
+        index.write(indexFile);
+
+        assertNull(ClassFileIndex.read(indexFile, "detector").find(classFile));
+    }
+
+    @Test
+    public void doesNotUseIndexWrittenByAnotherDetector() {
+        TestFile classFile = tmpDir.file("classes/org/gradle/SomeTest.class").write("content");
+        ClassFileIndex index = ClassFileIndex.read(indexFile, "detector");
+        index.add(classFile, classFile.length(), classFile.lastModified(), info("org/gradle/SomeTest"));
+        index.write(indexFile);
+
+        assertNull(ClassFileIndex.read(indexFile, "other").find(classFile));
+    }
+
+    @Test
+    public void writesOnlyClassFilesWhichHaveBeenUsed() {
+        TestFile usedClassFile = classFile("classes/org/gradle/SomeTest.class");
+        TestFile removedClassFile = classFile("classes/org/gradle/RemovedTest.class");
+        ClassFileIndex index = ClassFileIndex.read(indexFile, "detector");
+        index.add(usedClassFile, usedClassFile.length(), usedClassFile.lastModified(), info("org/gradle/SomeTest"));
+        index.add(removedClassFile, removedClassFile.length(), removedClassFile.lastModified(), info(
+                "org/gradle/RemovedTest"));
+        index.write(indexFile);
+
+        index = ClassFileIndex.read(indexFile, "detector");
+        assertNotNull(index.find(usedClassFile));
+        index.write(indexFile);
+
+        index = ClassFileIndex.read(indexFile, "detector");
+        assertNotNull(index.find(usedClassFile));
+        assertNull(index.find(removedClassFile));
+    }
+
+    @Test
+    public void ignoresIndexWhichCannotBeRead() {
+        TestFile classFile = tmpDir.file("classes/org/gradle/SomeTest.class").write("content");
+        tmpDir.file("build/testClasses.index").write("broken");
+
+        assertNull(ClassFileIndex.read(indexFile, "detector").find(classFile));
+    }
+
+    private TestFile classFile(String path) {
+        TestFile classFile = tmpDir.file(path).write("content");
+        // Class files modified just before the index is created are not reused
+        classFile.setLastModified(System.currentTimeMillis() - 10000);
+        return classFile;
+    }
+
+    private ClassFileInfo info(String className) {
+        return new ClassFileInfo(className, "java/lang/Object", false, false, new ArrayList<String>());
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright 2010 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.testing.execution;
+
+import org.gradle.api.testing.execution.control.server.TestServerClientHandle;
+import org.gradle.api.testing.execution.control.server.TestServerClientHandleFactory;
+import org.gradle.api.testing.execution.fork.ForkControl;
+import org.gradle.api.testing.fabric.DefaultTestClassRunInfo;
+import org.gradle.api.testing.fabric.TestClassRunInfo;
+import org.gradle.util.TemporaryFolder;
+import org.jmock.Expectations;
+import org.jmock.api.Invocation;
+import org.jmock.integration.junit4.JUnit4Mockery;
+import org.jmock.lib.action.CustomAction;
+import org.jmock.lib.legacy.ClassImposteriser;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PipelineDispatcherTest {
+    @Rule
+    public final TemporaryFolder tmpDir = new TemporaryFolder();
+    private final JUnit4Mockery context = new JUnit4Mockery();
+    private Pipeline pipeline;
+    private ForkControl forkControl;
+    private TestServerClientHandleFactory clientHandleFactory;
+    private TestClassDurations durations = new TestClassDurations();
+    private TestClassRunInfoQueue queue = new TestClassRunInfoQueue(durations);
+    private boolean splittingEnded;
+    private PipelineDispatcher dispatcher;
+
+    @Before
+    public void setUp() {
+        context.setImposteriser(ClassImposteriser.INSTANCE);
+        pipeline = context.mock(Pipeline.class);
+        forkControl = context.mock(ForkControl.class);
+        clientHandleFactory = context.mock(TestServerClientHandleFactory.class);
+
+        context.checking(new Expectations() {{
+            allowing(pipeline).getId();
+            will(returnValue(1));
+            allowing(pipeline).getRunInfoQueue();
+            will(new CustomAction("get queue") {
+                public Object invoke(Invocation invocation) throws Throwable {
+                    return queue;
+                }
+            });
+            allowing(pipeline).getTestClassDurations();
+            will(new CustomAction("get durations") {
+                public Object invoke(Invocation invocation) throws Throwable {
+                    return durations;
+                }
+            });
+            allowing(pipeline).isPipelineSplittingEnded();
+            will(new CustomAction("is splitting ended") {
+                public Object invoke(Invocation invocation) throws Throwable {
+                    return splittingEnded;
+                }
+            });
+            allowing(pipeline).addTestClassRunInfo(with(any(TestClassRunInfo.class)));
+            will(new CustomAction("queue test class") {
+                public Object invoke(Invocation invocation) throws Throwable {
+                    queue.add((TestClassRunInfo) invocation.getParameter(0));
+                    return null;
+                }
+            });
+        }});
+
+        dispatcher = new PipelineDispatcher(pipeline, clientHandleFactory);
+    }
+
+    @Test
+    public void nextTestsIsEmptyWhenNoTestClassIsWaiting() throws InterruptedException {
+        assertTrue(dispatcher.nextTests(10).isEmpty());
+    }
+
+    @Test
+    public void nextTestsFillsBatchUpToHalfOfTheWaitingTestClasses() throws InterruptedException {
+        queueTests(10);
+
+        assertEquals(4, dispatcher.nextTests(10).size());
+        assertEquals(2, dispatcher.nextTests(10).size());
+        assertEquals(1, dispatcher.nextTests(10).size());
+        assertEquals(1, dispatcher.nextTests(10).size());
+        assertEquals(1, dispatcher.nextTests(10).size());
+        assertEquals(1, dispatcher.nextTests(10).size());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void nextTestsSplitsWaitingTestClassesOverRunningForks() throws InterruptedException {
+        startFork(1);
+        startFork(2);
+        queueTests(10);
+
+        assertEquals(2, dispatcher.nextTests(10).size());
+    }
+
+    @Test
+    public void nextTestsReturnsAtMostMaxBatchSizeTestClasses() throws InterruptedException {
+        queueTests(10);
+
+        List<TestClassRunInfo> batch = dispatcher.nextTests(2);
+
+        assertEquals(2, batch.size());
+        assertEquals("org.gradle.Test0", batch.get(0).getTestClassName());
+        assertEquals("org.gradle.Test1", batch.get(1).getTestClassName());
+        assertEquals(8, queue.size());
+    }
+
+    @Test
+    public void holdsBackShorterTestClassesUntilLongerTestClassIsDetected() throws InterruptedException {
+        usePreviousDurations();
+        queueTests(3);
+
+        assertTrue(dispatcher.nextTests(10).isEmpty());
+        assertEquals(3, queue.size());
+
+        queue.add(new DefaultTestClassRunInfo("org.gradle.LongTest"));
+        List<TestClassRunInfo> batch = dispatcher.nextTests(10);
+
+        assertEquals(1, batch.size());
+        assertEquals("org.gradle.LongTest", batch.get(0).getTestClassName());
+        assertEquals(3, queue.size());
+    }
+
+    @Test
+    public void handsOutShorterTestClassesWhenLongerTestClassIsNotDetected() throws InterruptedException {
+        usePreviousDurations();
+        queueTests(3);
+        splittingEnded = true;
+
+        assertFalse(dispatcher.nextTests(10).isEmpty());
+    }
+
+    @Test
+    public void allTestsAreNotExecutedWhileBatchesAreOutstanding() {
+        TestServerClientHandle client = startFork(1);
+        queueTests(3);
+        assertFalse(dispatcher.isAllTestsExecuted());
+
+        List<TestClassRunInfo> batch = assignAll(client);
+        assertEquals(3, batch.size());
+        assertTrue(queue.isEmpty());
+        assertTrue(client.hasAssignedTests());
+        assertFalse(dispatcher.isAllTestsExecuted());
+
+        for (TestClassRunInfo test : batch) {
+            client.testProcessed(test);
+        }
+        assertFalse(client.hasAssignedTests());
+        assertTrue(dispatcher.isAllTestsExecuted());
+    }
+
+    @Test
+    public void requeuesUnreportedTestClassesWhenForkStops() {
+        final TestServerClientHandle client = startFork(1);
+        queueTests(3);
+        List<TestClassRunInfo> batch = assignAll(client);
+        client.testProcessed(batch.get(0));
+
+        context.checking(new Expectations() {{
+            one(forkControl).requestForkStart(1, 1);
+        }});
+
+        client.stopping();
+        dispatcher.forkStopped(1);
+
+        assertRequeued(client, batch.subList(1, batch.size()));
+    }
+
+    @Test
+    public void requeuesUnreportedTestClassesWhenForkFails() {
+        final TestServerClientHandle client = startFork(1);
+        queueTests(3);
+        List<TestClassRunInfo> batch = assignAll(client);
+
+        context.checking(new Expectations() {{
+            one(forkControl).requestForkStart(1, 1);
+        }});
+
+        dispatcher.forkFailed(1, new RuntimeException("broken"));
+
+        assertRequeued(client, batch);
+    }
+
+    @Test
+    public void requeuesUnreportedTestClassesWhenForkIsAborted() {
+        final TestServerClientHandle client = startFork(1);
+        queueTests(3);
+        List<TestClassRunInfo> batch = assignAll(client);
+
+        dispatcher.forkAborted(1);
+
+        assertRequeued(client, batch);
+    }
+
+    private void assertRequeued(TestServerClientHandle client, List<TestClassRunInfo> expected) {
+        assertFalse(client.hasAssignedTests());
+        assertFalse(dispatcher.isAllTestsExecuted());
+
+        List<String> requeued = new ArrayList<String>();
+        for (TestClassRunInfo test : queue) {
+            requeued.add(test.getTestClassName());
+        }
+        assertEquals(expected.size(), requeued.size());
+        for (TestClassRunInfo test : expected) {
+            assertTrue(requeued.contains(test.getTestClassName()));
+        }
+    }
+
+    private List<TestClassRunInfo> assignAll(TestServerClientHandle client) {
+        List<TestClassRunInfo> assigned = new ArrayList<TestClassRunInfo>();
+        while (!queue.isEmpty()) {
+            assigned.addAll(client.nextTests(dispatcher, 10));
+        }
+        return assigned;
+    }
+
+    private TestServerClientHandle startFork(final int forkId) {
+        final TestServerClientHandle client = new TestServerClientHandle(pipeline, forkId, forkControl);
+
+        context.checking(new Expectations() {{
+            one(clientHandleFactory).createTestServerClientHandle(pipeline, forkId);
+            will(returnValue(client));
+            one(forkControl).setRestarting(1, forkId, false);
+        }});
+
+        dispatcher.forkAttach(forkId);
+        dispatcher.forkStarting(forkId);
+        client.started();
+        return client;
+    }
+
+    private void usePreviousDurations() {
+        File file = tmpDir.file("test.durations");
+        TestClassDurations previous = TestClassDurations.read(file);
+        previous.record("org.gradle.LongTest", 240000L);
+        for (int i = 0; i < 3; i++) {
+            previous.record("org.gradle.Test" + i, 1000L);
+        }
+        previous.write(file);
+
+        durations = TestClassDurations.read(file);
+        queue = new TestClassRunInfoQueue(durations);
+        dispatcher = new PipelineDispatcher(pipeline, clientHandleFactory);
+    }
+
+    private void queueTests(int count) {
+        for (int i = 0; i < count; i++) {
+            queue.add(new DefaultTestClassRunInfo("org.gradle.Test" + i));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2010 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.testing.execution;
+
+import org.gradle.api.testing.fabric.DefaultTestClassRunInfo;
+import org.gradle.api.testing.fabric.TestClassRunInfo;
+import org.gradle.util.TemporaryFolder;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TestClassDurationsTest {
+    @Rule
+    public final TemporaryFolder tmpDir = new TemporaryFolder();
+
+    @Test
+    public void hasNoDurationsWhenFileDoesNotExist() {
+        TestClassDurations durations = TestClassDurations.read(new File(tmpDir.getDir(), "missing"));
+
+        assertEquals(1L, durations.estimate("org.gradle.SomeTest"));
+    }
+
+    @Test
+    public void estimatesDurationsRecordedByPreviousExecution() {
+        File file = tmpDir.file("sub/test.durations");
+        TestClassDurations durations = TestClassDurations.read(file);
+        durations.record("org.gradle.ShortTest", 100L);
+        durations.record("org.gradle.LongTest", 500L);
+        durations.write(file);
+
+        assertEquals(1L, durations.estimate("org.gradle.LongTest"));
+
+        TestClassDurations previous = TestClassDurations.read(file);
+        assertEquals(100L, previous.estimate("org.gradle.ShortTest"));
+        assertEquals(500L, previous.estimate("org.gradle.LongTest"));
+        assertEquals(300L, previous.estimate("org.gradle.UnknownTest"));
+    }
+
+    @Test
+    public void keepsDurationsOfTestClassesNotExecutedAgain() {
+        File file = tmpDir.file("test.durations");
+        TestClassDurations durations = TestClassDurations.read(file);
+        durations.record("org.gradle.ShortTest", 100L);
+        durations.record("org.gradle.LongTest", 500L);
+        durations.write(file);
+
+        durations = TestClassDurations.read(file);
+        durations.record("org.gradle.ShortTest", 200L);
+        durations.write(file);
+
+        TestClassDurations previous = TestClassDurations.read(file);
+        assertEquals(200L, previous.estimate("org.gradle.ShortTest"));
+        assertEquals(500L, previous.estimate("org.gradle.LongTest"));
+    }
+
+    @Test
+    public void ignoresFileWhichCannotBeRead() {
+        File file = tmpDir.file("test.durations").write("broken");
+
+        assertEquals(1L, TestClassDurations.read(file).estimate("org.gradle.SomeTest"));
+    }
+
+    @Test
+    public void ordersTestClassesLongestFirst() {
+        File file = tmpDir.file("test.durations");
+        TestClassDurations durations = TestClassDurations.read(file);
+        durations.record("org.gradle.ShortTest", 100L);
+        durations.record("org.gradle.LongTest", 500L);
+        durations.record("org.gradle.OtherShortTest", 100L);
+        durations.write(file);
+
+        TestClassRunInfo shortTest = new DefaultTestClassRunInfo("org.gradle.ShortTest");
+        TestClassRunInfo longTest = new DefaultTestClassRunInfo("org.gradle.LongTest");
+        TestClassRunInfo otherShortTest = new DefaultTestClassRunInfo("org.gradle.OtherShortTest");
+        TestClassRunInfo unknownTest = new DefaultTestClassRunInfo("org.gradle.UnknownTest");
+        List<TestClassRunInfo> tests = new ArrayList<TestClassRunInfo>();
+        tests.add(shortTest);
+        tests.add(unknownTest);
+        tests.add(otherShortTest);
+        tests.add(longTest);
+
+        Collections.sort(tests, TestClassDurations.read(file).longestFirst());
+
+        assertSame(longTest, tests.get(0));
+        assertSame(unknownTest, tests.get(1));
+        assertSame(otherShortTest, tests.get(2));
+        assertSame(shortTest, tests.get(3));
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright 2010 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.testing.execution;
+
+import org.gradle.integtests.TestFile;
+import org.gradle.util.TemporaryFolder;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TestClassResultCacheTest {
+    @Rule
+    public final TemporaryFolder tmpDir = new TemporaryFolder();
+    private File cacheFile;
+    private TestFile classesDir;
+    private TestFile libFile;
+    private List<File> classpath;
+
+    @Before
+    public void setUp() {
+        cacheFile = new File(tmpDir.getDir(), "cache/test.results");
+        classesDir = tmpDir.dir("classes");
+        writeClass("org/gradle/SomeTest", "some test", "org/gradle/SomeTest$Inner", "Lorg/gradle/Helper;");
+        writeClass("org/gradle/SomeTest$Inner", "inner", "org/gradle/SomeTest");
+        writeClass("org/gradle/OtherTest", "other test");
+        writeClass("org/gradle/Helper", "helper");
+        classesDir.file("org/gradle/test.properties").write("some resource");
+        libFile = tmpDir.file("lib/some.jar").write("lib");
+        classpath = Arrays.<File>asList(classesDir, libFile);
+    }
+
+    @Test
+    public void hasNoResultsWhenFileDoesNotExist() {
+        TestClassResultCache cache = read();
+
+        assertFalse(cache.isUpToDate("org.gradle.SomeTest"));
+    }
+
+    @Test
+    public void testClassWhichPassedIsUpToDate() {
+        executeAll();
+
+        assertTrue(read().isUpToDate("org.gradle.SomeTest"));
+        assertTrue(read().isUpToDate("org.gradle.OtherTest"));
+    }
+
+    @Test
+    public void testClassWhichFailedIsNotUpToDate() {
+        TestClassResultCache cache = read();
+        cache.record("org.gradle.SomeTest", false);
+        cache.record("org.gradle.OtherTest", true);
+        cache.write(cacheFile);
+
+        assertFalse(read().isUpToDate("org.gradle.SomeTest"));
+        assertTrue(read().isUpToDate("org.gradle.OtherTest"));
+    }
+
+    @Test
+    public void testClassIsNotUpToDateWhenItsClassFileChanges() {
+        executeAll();
+
+        writeClass("org/gradle/SomeTest", "changed", "org/gradle/SomeTest$Inner", "Lorg/gradle/Helper;");
+
+        assertFalse(read().isUpToDate("org.gradle.SomeTest"));
+        assertTrue(read().isUpToDate("org.gradle.OtherTest"));
+    }
+
+    @Test
+    public void testClassIsNotUpToDateWhenItsInnerClassChanges() {
+        executeAll();
+
+        writeClass("org/gradle/SomeTest$Inner", "changed inner", "org/gradle/SomeTest");
+
+        assertFalse(read().isUpToDate("org.gradle.SomeTest"));
+        assertTrue(read().isUpToDate("org.gradle.OtherTest"));
+    }
+
+    @Test
+    public void testClassIsNotUpToDateWhenClassItUsesChanges() {
+        executeAll();
+
+        writeClass("org/gradle/Helper", "changed helper");
+
+        assertFalse(read().isUpToDate("org.gradle.SomeTest"));
+        assertTrue(read().isUpToDate("org.gradle.OtherTest"));
+    }
+
+    @Test
+    public void testClassIsNotUpToDateWhenClassItUsesIsRemoved() {
+        executeAll();
+
+        classesDir.file("org/gradle/Helper.class").delete();
+
+        assertFalse(read().isUpToDate("org.gradle.SomeTest"));
+        assertTrue(read().isUpToDate("org.gradle.OtherTest"));
+    }
+
+    @Test
+    public void testClassIsNotUpToDateWhenClassItUsesThroughOtherClassesChanges() {
+        writeClass("org/gradle/Helper", "helper", "org/gradle/util/Util");
+        writeClass("org/gradle/util/Util", "util");
+        executeAll();
+
+        writeClass("org/gradle/util/Util", "changed util");
+
+        assertFalse(read().isUpToDate("org.gradle.SomeTest"));
+        assertTrue(read().isUpToDate("org.gradle.OtherTest"));
+    }
+
+    @Test
+    public void testClassIsNotUpToDateWhenClassItLoadsByNameChanges() {
+        writeClass("org/gradle/OtherTest", "other test", "org.gradle.Helper");
+        executeAll();
+
+        writeClass("org/gradle/Helper", "changed helper");
+
+        assertFalse(read().isUpToDate("org.gradle.OtherTest"));
+    }
+
+    @Test
+    public void testClassIsNotUpToDateWhenTestClassItExtendsChanges() {
+        writeClass("org/gradle/BaseTest", "base test");
+        writeClass("org/gradle/DerivedTest", "derived test", "org/gradle/BaseTest");
+        TestClassResultCache cache = read();
+        cache.record("org.gradle.BaseTest", true);
+        cache.record("org.gradle.DerivedTest", true);
+        cache.record("org.gradle.OtherTest", true);
+        cache.write(cacheFile);
+
+        writeClass("org/gradle/BaseTest", "changed base test");
+
+        assertFalse(read().isUpToDate("org.gradle.BaseTest"));
+        assertFalse(read().isUpToDate("org.gradle.DerivedTest"));
+        assertTrue(read().isUpToDate("org.gradle.OtherTest"));
+    }
+
+    @Test
+    public void otherTestClassesAreUpToDateWhenTestClassIsAdded() {
+        executeAll();
+
+        writeClass("org/gradle/NewTest", "new test", "org/gradle/Helper");
+
+        TestClassResultCache cache = read();
+        assertTrue(cache.isUpToDate("org.gradle.SomeTest"));
+        assertTrue(cache.isUpToDate("org.gradle.OtherTest"));
+        assertFalse(cache.isUpToDate("org.gradle.NewTest"));
+
+        cache.record("org.gradle.NewTest", true);
+        cache.write(cacheFile);
+
+        assertTrue(read().isUpToDate("org.gradle.SomeTest"));
+        assertTrue(read().isUpToDate("org.gradle.OtherTest"));
+        assertTrue(read().isUpToDate("org.gradle.NewTest"));
+    }
+
+    @Test
+    public void testClassWhichCannotBeReadIsNotUpToDateWhenAnyClassChanges() {
+        classesDir.file("org/gradle/OtherTest.class").write("not a class file");
+        executeAll();
+        assertTrue(read().isUpToDate("org.gradle.OtherTest"));
+
+        writeClass("org/gradle/Helper", "changed helper");
+
+        assertFalse(read().isUpToDate("org.gradle.OtherTest"));
+    }
+
+    @Test
+    public void noTestClassIsUpToDateWhenClasspathChanges() {
+        executeAll();
+
+        libFile.write("changed lib");
+
+        assertFalse(read().isUpToDate("org.gradle.SomeTest"));
+        assertFalse(read().isUpToDate("org.gradle.OtherTest"));
+    }
+
+    @Test
+    public void noTestClassIsUpToDateWhenResourceInTestClassesDirChanges() {
+        executeAll();
+
+        classesDir.file("org/gradle/test.properties").write("changed resource");
+
+        assertFalse(read().isUpToDate("org.gradle.SomeTest"));
+        assertFalse(read().isUpToDate("org.gradle.OtherTest"));
+    }
+
+    @Test
+    public void keepsResultsOfTestClassesNotExecutedAgain() {
+        executeAll();
+
+        TestClassResultCache cache = read();
+        cache.record("org.gradle.SomeTest", true);
+        cache.write(cacheFile);
+
+        assertTrue(read().isUpToDate("org.gradle.SomeTest"));
+        assertTrue(read().isUpToDate("org.gradle.OtherTest"));
+    }
+
+    @Test
+    public void forgetsResultsOfTestClassesNotExecutedAgainAfterClassTheyUseChanges() {
+        executeAll();
+        writeClass("org/gradle/Helper", "changed helper");
+
+        TestClassResultCache cache = read();
+        cache.record("org.gradle.OtherTest", true);
+        cache.write(cacheFile);
+
+        assertFalse(read().isUpToDate("org.gradle.SomeTest"));
+        assertTrue(read().isUpToDate("org.gradle.OtherTest"));
+    }
+
+    @Test
+    public void ignoresFileWhichCannotBeRead() {
+        tmpDir.file("cache/test.results").write("broken");
+
+        assertFalse(read().isUpToDate("org.gradle.SomeTest"));
+    }
+
+    private void executeAll() {
+        TestClassResultCache cache = read();
+        cache.record("org.gradle.SomeTest", true);
+        cache.record("org.gradle.OtherTest", true);
+        cache.write(cacheFile);
+    }
+
+    private TestClassResultCache read() {
+        return TestClassResultCache.read(cacheFile, classesDir, classpath);
+    }
+
+    /**
+     * Writes a class file whose constant pool holds the given content and references. Only the constant pool is
+     * written, as nothing after it is read.
+     */
+    private void writeClass(String className, String content, String... references) {
+        TestFile classFile = classesDir.file(className + ".class");
+        classFile.getParentFile().mkdirs();
+        try {
+            DataOutputStream outputStream = new DataOutputStream(new FileOutputStream(classFile));
+            try {
+                outputStream.writeInt(0xCAFEBABE);
+                outputStream.writeShort(0);
+                outputStream.writeShort(49);
+                outputStream.writeShort(references.length + 6);
+                outputStream.writeByte(1);
+                outputStream.writeUTF(className);
+                outputStream.writeByte(7);
+                outputStream.writeShort(1);
+                outputStream.writeByte(5);
+                outputStream.writeLong(content.length());
+                outputStream.writeByte(1);
+                outputStream.writeUTF(content);
+                for (String reference : references) {
+                    outputStream.writeByte(1);
+                    outputStream.writeUTF(reference);
+                }
+            } finally {
+                outputStream.close();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
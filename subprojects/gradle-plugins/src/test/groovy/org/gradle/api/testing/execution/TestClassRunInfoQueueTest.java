@@ -0,0 +1,107 @@
+/*
+ * Copyright 2010 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.testing.execution;
+
+import org.gradle.api.testing.fabric.DefaultTestClassRunInfo;
+import org.gradle.api.testing.fabric.TestClassRunInfo;
+import org.gradle.util.TemporaryFolder;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TestClassRunInfoQueueTest {
+    @Rule
+    public final TemporaryFolder tmpDir = new TemporaryFolder();
+    private TestClassRunInfoQueue queue;
+
+    @Before
+    public void setUp() {
+        File file = tmpDir.file("test.durations");
+        TestClassDurations durations = TestClassDurations.read(file);
+        durations.record("org.gradle.ShortTest", 100L);
+        durations.record("org.gradle.LongTest", 500L);
+        durations.write(file);
+
+        queue = new TestClassRunInfoQueue(TestClassDurations.read(file));
+    }
+
+    @Test
+    public void takesLongestTestClassFirst() {
+        queue.add(new DefaultTestClassRunInfo("org.gradle.ShortTest"));
+        queue.add(new DefaultTestClassRunInfo("org.gradle.LongTest"));
+
+        assertEquals("org.gradle.LongTest", queue.poll().getTestClassName());
+        assertEquals("org.gradle.ShortTest", queue.poll().getTestClassName());
+    }
+
+    @Test
+    public void keepsTotalExpectedDurationOfWaitingTestClasses() throws InterruptedException {
+        assertEquals(0L, queue.getExpectedDuration());
+
+        queue.add(new DefaultTestClassRunInfo("org.gradle.ShortTest"));
+        queue.offer(new DefaultTestClassRunInfo("org.gradle.LongTest"), 100L, TimeUnit.MILLISECONDS);
+        queue.put(new DefaultTestClassRunInfo("org.gradle.UnknownTest"));
+        assertEquals(900L, queue.getExpectedDuration());
+
+        queue.poll();
+        assertEquals(400L, queue.getExpectedDuration());
+        queue.poll(100L, TimeUnit.MILLISECONDS);
+        assertEquals(100L, queue.getExpectedDuration());
+        queue.take();
+        assertEquals(0L, queue.getExpectedDuration());
+        assertNull(queue.poll());
+        assertEquals(0L, queue.getExpectedDuration());
+    }
+
+    @Test
+    public void tracksLongestPreviouslyExecutedTestClassWhichIsNotDetectedYet() {
+        assertEquals(500L, queue.getLongestUndetectedDuration());
+
+        queue.add(new DefaultTestClassRunInfo("org.gradle.ShortTest"));
+        queue.add(new DefaultTestClassRunInfo("org.gradle.UnknownTest"));
+        assertEquals(500L, queue.getLongestUndetectedDuration());
+
+        queue.detected("org.gradle.LongTest");
+        assertEquals(0L, queue.getLongestUndetectedDuration());
+    }
+
+    @Test
+    public void updatesTotalWhenTestClassesAreRemoved() {
+        TestClassRunInfo shortTest = new DefaultTestClassRunInfo("org.gradle.ShortTest");
+        queue.add(shortTest);
+        queue.add(new DefaultTestClassRunInfo("org.gradle.LongTest"));
+        queue.add(new DefaultTestClassRunInfo("org.gradle.UnknownTest"));
+
+        assertTrue(queue.remove(shortTest));
+        assertEquals(800L, queue.getExpectedDuration());
+
+        List<TestClassRunInfo> drained = new ArrayList<TestClassRunInfo>();
+        assertEquals(1, queue.drainTo(drained, 1));
+        assertEquals("org.gradle.LongTest", drained.get(0).getTestClassName());
+        assertEquals(300L, queue.getExpectedDuration());
+
+        queue.clear();
+        assertTrue(queue.isEmpty());
+        assertEquals(0L, queue.getExpectedDuration());
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2010 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.testing.execution.control.client;
+
+import org.gradle.api.tasks.testing.AbstractTestTask;
+import org.gradle.api.testing.TestFrameworkRegister;
+import org.gradle.api.testing.execution.control.messages.server.ExecuteTestBatchActionMessage;
+import org.gradle.api.testing.execution.control.messages.server.InitializeActionMessage;
+import org.gradle.api.testing.execution.control.messages.server.StopForkActionMessage;
+import org.gradle.api.testing.execution.control.refork.ReforkContextData;
+import org.gradle.api.testing.execution.control.refork.ReforkReasonConfigs;
+import org.gradle.api.testing.fabric.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * The test classes of a batch are executed on the thread pool of the dispatcher, so this test uses hand written stubs
+ * which record what happens in order, rather than mocks.
+ */
+public class TestControlMessageDispatcherTest {
+    private static final String TEST_FRAMEWORK_ID = "dispatcher-test";
+
+    private final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+    private final CountDownLatch firstTestStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseFirstTest = new CountDownLatch(1);
+    private volatile CountDownLatch testsProcessed;
+    private volatile boolean blockFirstTest;
+    private final List<ClassLoader> sandboxClassLoaders = Collections.synchronizedList(new ArrayList<ClassLoader>());
+    private final URLClassLoader sandboxClassLoader = new URLClassLoader(new URL[0], getClass().getClassLoader());
+    private TestControlMessageDispatcher dispatcher;
+
+    @Before
+    public void setUp() {
+        TestFrameworkRegister.registerTestFramework(new StubTestFramework());
+    }
+
+    @After
+    public void tearDown() {
+        releaseFirstTest.countDown();
+        if (dispatcher != null) {
+            dispatcher.dispatch(new StopForkActionMessage(1));
+        }
+    }
+
+    @Test
+    public void executesBatchInOrderAndRequestsNextBatchWhenLastTestClassStarts() throws InterruptedException {
+        startDispatcher(sandboxClassLoader);
+        testsProcessed = new CountDownLatch(3);
+
+        dispatcher.dispatch(batch("Test1", "Test2", "Test3"));
+
+        assertTrue(testsProcessed.await(10, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("initialize", "request", "run Test1", "processed Test1", "run Test2",
+                "processed Test2", "request", "run Test3", "processed Test3"), events);
+    }
+
+    @Test
+    public void executesTestClassesQueuedWhileProcessingPreviousBatch() throws InterruptedException {
+        startDispatcher(sandboxClassLoader);
+        testsProcessed = new CountDownLatch(2);
+        blockFirstTest = true;
+
+        dispatcher.dispatch(batch("Test1"));
+        assertTrue(firstTestStarted.await(10, TimeUnit.SECONDS));
+        dispatcher.dispatch(batch("Test2"));
+        releaseFirstTest.countDown();
+
+        assertTrue(testsProcessed.await(10, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("initialize", "request", "request", "run Test1", "processed Test1", "request",
+                "run Test2", "processed Test2"), events);
+    }
+
+    @Test
+    public void reinitializesWithNewClassLoaderOnlyAfterQueuedTestClassesHaveExecuted() throws InterruptedException {
+        startDispatcher(sandboxClassLoader);
+        testsProcessed = new CountDownLatch(2);
+        blockFirstTest = true;
+
+        dispatcher.dispatch(batch("Test1", "Test2"));
+        assertTrue(firstTestStarted.await(10, TimeUnit.SECONDS));
+        dispatcher.dispatch(initializeMessage());
+        assertEquals(1, sandboxClassLoaders.size());
+        releaseFirstTest.countDown();
+
+        assertTrue(testsProcessed.await(10, TimeUnit.SECONDS));
+        waitFor("reinitialized", 1);
+        assertEquals(Arrays.asList("initialize", "request", "run Test1", "processed Test1", "run Test2",
+                "processed Test2", "initialize", "reinitialized"), events);
+
+        assertSame(sandboxClassLoader, sandboxClassLoaders.get(0));
+        ClassLoader newClassLoader = sandboxClassLoaders.get(1);
+        assertNotSame(sandboxClassLoader, newClassLoader);
+        assertTrue(newClassLoader instanceof URLClassLoader);
+        assertSame(sandboxClassLoader.getParent(), newClassLoader.getParent());
+    }
+
+    @Test
+    public void keepsClassLoaderWhichIsNotAUrlClassLoaderWhenReinitialized() throws InterruptedException {
+        ClassLoader classLoader = new ClassLoader(getClass().getClassLoader()) {
+        };
+        startDispatcher(classLoader);
+
+        dispatcher.dispatch(initializeMessage());
+
+        waitFor("reinitialized", 1);
+        assertEquals(2, sandboxClassLoaders.size());
+        assertSame(classLoader, sandboxClassLoaders.get(1));
+    }
+
+    @Test
+    public void requestsNoMoreTestClassesUntilReinitializedWhileBatchesKeepArriving() throws InterruptedException {
+        startDispatcher(sandboxClassLoader);
+        testsProcessed = new CountDownLatch(4);
+        blockFirstTest = true;
+
+        dispatcher.dispatch(batch("Test1", "Test2"));
+        assertTrue(firstTestStarted.await(10, TimeUnit.SECONDS));
+        dispatcher.dispatch(initializeMessage());
+        dispatcher.dispatch(batch("Test3"));
+        dispatcher.dispatch(batch("Test4"));
+        releaseFirstTest.countDown();
+
+        assertTrue(testsProcessed.await(10, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("initialize", "request", "run Test1", "processed Test1", "run Test2",
+                "processed Test2", "initialize", "reinitialized", "run Test3", "processed Test3", "run Test4",
+                "processed Test4"), events);
+        assertEquals(2, sandboxClassLoaders.size());
+    }
+
+    private void startDispatcher(ClassLoader classLoader) {
+        dispatcher = new TestControlMessageDispatcher(new RecordingTestControlClient(), classLoader);
+        dispatcher.dispatch(initializeMessage());
+    }
+
+    private InitializeActionMessage initializeMessage() {
+        InitializeActionMessage initializeMessage = new InitializeActionMessage(1);
+        initializeMessage.setTestFrameworkId(TEST_FRAMEWORK_ID);
+        initializeMessage.setReforkItemConfigs(new ReforkReasonConfigs());
+        return initializeMessage;
+    }
+
+    private void waitFor(String event, int count) throws InterruptedException {
+        long timeout = System.currentTimeMillis() + 10000L;
+        while (Collections.frequency(events, event) < count && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10L);
+        }
+        assertEquals(count, Collections.frequency(events, event));
+    }
+
+    private ExecuteTestBatchActionMessage batch(String... testClassNames) {
+        List<TestClassRunInfo> tests = new ArrayList<TestClassRunInfo>();
+        for (String testClassName : testClassNames) {
+            tests.add(new DefaultTestClassRunInfo(testClassName));
+        }
+        return new ExecuteTestBatchActionMessage(1, tests);
+    }
+
+    private class RecordingTestControlClient implements TestControlClient {
+        public void reportStarted() {
+        }
+
+        public void reportStopped() {
+        }
+
+        public void requestNextControlMessage(TestClassProcessResult previousProcessTestResult,
+                                              ReforkContextData reforkContextData) {
+            events.add("request");
+        }
+
+        public void reportTestProcessed(TestClassProcessResult processTestResult,
+                                        ReforkContextData reforkContextData) {
+            events.add("processed " + processTestResult.getTestClassRunInfo().getTestClassName());
+            testsProcessed.countDown();
+        }
+
+        public void reportReinitialized() {
+            events.add("reinitialized");
+        }
+    }
+
+    private class StubTestFramework implements TestFramework {
+        public String getId() {
+            return TEST_FRAMEWORK_ID;
+        }
+
+        public String getName() {
+            return TEST_FRAMEWORK_ID;
+        }
+
+        public TestFrameworkInstance getInstance(AbstractTestTask testTask) {
+            throw new UnsupportedOperationException();
+        }
+
+        public TestProcessorFactory getProcessorFactory() {
+            return new TestProcessorFactory() {
+                public void initialize(ClassLoader sandboxClassLoader,
+                                       TestProcessResultFactory testProcessResultFactory) {
+                    events.add("initialize");
+                    sandboxClassLoaders.add(sandboxClassLoader);
+                }
+
+                public TestProcessor createProcessor() {
+                    return new TestProcessor() {
+                        public TestClassProcessResult process(TestClassRunInfo testClassRunInfo) {
+                            events.add("run " + testClassRunInfo.getTestClassName());
+                            if (blockFirstTest && testClassRunInfo.getTestClassName().equals("Test1")) {
+                                firstTestStarted.countDown();
+                                try {
+                                    releaseFirstTest.await();
+                                } catch (InterruptedException e) {
+                                    throw new RuntimeException(e);
+                                }
+                            }
+                            return new TestClassProcessResult(testClassRunInfo);
+                        }
+                    };
+                }
+            };
+        }
+
+        public Map<TestMethodProcessResultState, TestMethodProcessResultState> getMethodProcessResultStateMapping() {
+            return Collections.emptyMap();
+        }
+    }
+}
@@ -40,6 +40,7 @@ public class NextActionRequestMessageTest extends AbstractTestClientControlMessa
 
         message.setReforkDecisionContext(reforkContextData);
         message.setPreviousProcessedTestResult(previousProcessedTestResult);
+        message.setReinitialized(true);
 
         return message;
     }
@@ -49,5 +50,6 @@ public class NextActionRequestMessageTest extends AbstractTestClientControlMessa
         // TODO expand
         assertEquals(originalMessage.getReforkDecisionContext().isEmpty(), deserializedMessage.getReforkDecisionContext().isEmpty());
         assertEquals(originalMessage.getPreviousProcessedTestResult().getTestClassRunInfo(), deserializedMessage.getPreviousProcessedTestResult().getTestClassRunInfo());
+        assertEquals(originalMessage.isReinitialized(), deserializedMessage.isReinitialized());
     }
 }
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2010 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.testing.execution.control.messages.client;
+
+import org.gradle.api.testing.execution.control.refork.DefaultReforkContextData;
+import org.gradle.api.testing.fabric.DefaultTestClassRunInfo;
+import org.gradle.api.testing.fabric.TestClassProcessResult;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestClassProcessResultMessageTest extends AbstractTestClientControlMessageTest<TestClassProcessResultMessage> {
+
+    @Override
+    protected TestClassProcessResultMessage createMessageObject(int forkId) {
+        final TestClassProcessResult result = new TestClassProcessResult(new DefaultTestClassRunInfo(
+                "org.gradle.dummy.TestClassName"));
+        result.setDuration(1234L);
+        final TestClassProcessResultMessage message = new TestClassProcessResultMessage(forkId, result);
+
+        message.setReforkDecisionContext(new DefaultReforkContextData());
+
+        return message;
+    }
+
+    @Override
+    protected void assertTestClientControlMessage(TestClassProcessResultMessage originalMessage, TestClassProcessResultMessage deserializedMessage) {
+        assertEquals(originalMessage.getReforkDecisionContext().isEmpty(), deserializedMessage.getReforkDecisionContext().isEmpty());
+        assertEquals(originalMessage.getProcessedTestResult().getTestClassRunInfo().getTestClassName(),
+                deserializedMessage.getProcessedTestResult().getTestClassRunInfo().getTestClassName());
+        assertEquals(originalMessage.getProcessedTestResult().getDuration(),
+                deserializedMessage.getProcessedTestResult().getDuration());
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2010 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.testing.execution.control.messages.server;
+
+import org.gradle.api.testing.fabric.DefaultTestClassRunInfo;
+import org.gradle.api.testing.fabric.TestClassRunInfo;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+public class ExecuteTestBatchActionMessageTest extends AbstractTestServerControlMessageTest<ExecuteTestBatchActionMessage> {
+
+    protected ExecuteTestBatchActionMessage createMessageObject(int pipelineId) {
+        return new ExecuteTestBatchActionMessage(pipelineId, Arrays.<TestClassRunInfo>asList(
+                new DefaultTestClassRunInfo("org.gradle.dummy.FirstTestClassName"),
+                new DefaultTestClassRunInfo("org.gradle.dummy.SecondTestClassName")));
+    }
+
+    protected void assertTestServerControlMessage(ExecuteTestBatchActionMessage originalMessage, ExecuteTestBatchActionMessage deserializedMessage) {
+        assertEquals(2, deserializedMessage.getTestClassRunInfos().size());
+        for (int i = 0; i < 2; i++) {
+            assertEquals(originalMessage.getTestClassRunInfos().get(i).getTestClassName(),
+                    deserializedMessage.getTestClassRunInfos().get(i).getTestClassName());
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2010 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.testing.execution.control.server.messagehandlers;
+
+import org.apache.mina.core.session.IoSession;
+import org.gradle.api.testing.execution.Pipeline;
+import org.gradle.api.testing.execution.PipelineConfig;
+import org.gradle.api.testing.execution.PipelineDispatcher;
+import org.gradle.api.testing.execution.TestClassDurations;
+import org.gradle.api.testing.execution.control.messages.client.NextActionRequestMessage;
+import org.gradle.api.testing.execution.control.messages.server.ExecuteTestActionMessage;
+import org.gradle.api.testing.execution.control.messages.server.ExecuteTestBatchActionMessage;
+import org.gradle.api.testing.execution.control.messages.server.StopForkActionMessage;
+import org.gradle.api.testing.execution.control.messages.server.WaitActionMesssage;
+import org.gradle.api.testing.execution.control.server.TestServerClientHandle;
+import org.gradle.api.testing.fabric.DefaultTestClassRunInfo;
+import org.gradle.api.testing.fabric.TestClassProcessResult;
+import org.gradle.api.testing.fabric.TestClassRunInfo;
+import org.gradle.api.testing.reporting.Report;
+import org.jmock.Expectations;
+import org.jmock.api.Invocation;
+import org.jmock.integration.junit4.JUnit4Mockery;
+import org.jmock.lib.action.CustomAction;
+import org.jmock.lib.legacy.ClassImposteriser;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class NextActionRequestMessageHandlerTest {
+    private final JUnit4Mockery context = new JUnit4Mockery();
+    private PipelineDispatcher dispatcher;
+    private Pipeline pipeline;
+    private TestServerClientHandle client;
+    private IoSession ioSession;
+    private final PipelineConfig config = new PipelineConfig("default");
+    private final TestClassDurations durations = new TestClassDurations();
+    private final List<Object> written = new ArrayList<Object>();
+    private NextActionRequestMessageHandler handler;
+
+    @Before
+    public void setUp() {
+        context.setImposteriser(ClassImposteriser.INSTANCE);
+        dispatcher = context.mock(PipelineDispatcher.class);
+        pipeline = context.mock(Pipeline.class);
+        client = context.mock(TestServerClientHandle.class);
+        ioSession = context.mock(IoSession.class);
+
+        context.checking(new Expectations() {{
+            allowing(dispatcher).getPipeline();
+            will(returnValue(pipeline));
+            allowing(pipeline).getId();
+            will(returnValue(1));
+            allowing(pipeline).getConfig();
+            will(returnValue(config));
+            allowing(pipeline).getReforkController();
+            will(returnValue(null));
+            allowing(ioSession).write(with(any(Object.class)));
+            will(new CustomAction("write message") {
+                public Object invoke(Invocation invocation) throws Throwable {
+                    written.add(invocation.getParameter(0));
+                    return null;
+                }
+            });
+        }});
+
+        handler = new NextActionRequestMessageHandler(dispatcher);
+    }
+
+    @Test
+    public void sendsBatchOfTestClassesToFork() {
+        final List<TestClassRunInfo> tests = Arrays.<TestClassRunInfo>asList(new DefaultTestClassRunInfo(
+                "org.gradle.Test1"), new DefaultTestClassRunInfo("org.gradle.Test2"));
+
+        context.checking(new Expectations() {{
+            allowing(dispatcher).isStopping();
+            will(returnValue(false));
+            one(client).nextTests(dispatcher, PipelineConfig.DEFAULT_DISPATCH_BATCH_SIZE);
+            will(returnValue(tests));
+        }});
+
+        handler.handle(ioSession, new NextActionRequestMessage(2), client);
+
+        assertEquals(1, written.size());
+        ExecuteTestBatchActionMessage message = (ExecuteTestBatchActionMessage) written.get(0);
+        assertEquals(tests, message.getTestClassRunInfos());
+    }
+
+    @Test
+    public void sendsSingleTestClassWhenBatchSizeIsOne() {
+        final TestClassRunInfo test = new DefaultTestClassRunInfo("org.gradle.Test1");
+        config.setDispatchBatchSize(1);
+
+        context.checking(new Expectations() {{
+            allowing(dispatcher).isStopping();
+            will(returnValue(false));
+            one(client).nextTests(dispatcher, 1);
+            will(returnValue(Collections.singletonList(test)));
+        }});
+
+        handler.handle(ioSession, new NextActionRequestMessage(2), client);
+
+        assertEquals(1, written.size());
+        assertSame(test, ((ExecuteTestActionMessage) written.get(0)).getTestClassRunInfo());
+    }
+
+    @Test
+    public void sendsWaitWhenNoTestClassIsAvailable() {
+        context.checking(new Expectations() {{
+            allowing(dispatcher).isStopping();
+            will(returnValue(false));
+            one(client).nextTests(dispatcher, PipelineConfig.DEFAULT_DISPATCH_BATCH_SIZE);
+            will(returnValue(Collections.emptyList()));
+        }});
+
+        handler.handle(ioSession, new NextActionRequestMessage(2), client);
+
+        assertEquals(1, written.size());
+        assertEquals(NextActionRequestMessageHandler.WAIT_TIME, ((WaitActionMesssage) written.get(0)).getTimeToWait());
+    }
+
+    @Test
+    public void stopsForkWhenPipelineIsStopping() {
+        context.checking(new Expectations() {{
+            allowing(dispatcher).isStopping();
+            will(returnValue(true));
+        }});
+
+        handler.handle(ioSession, new NextActionRequestMessage(2), client);
+
+        assertEquals(1, written.size());
+        assertTrue(written.get(0) instanceof StopForkActionMessage);
+    }
+
+    @Test
+    public void marksForkAsReinitializedWhenItReportsSo() {
+        NextActionRequestMessage message = new NextActionRequestMessage(2);
+        message.setReinitialized(true);
+
+        context.checking(new Expectations() {{
+            one(client).reinitialized();
+            allowing(dispatcher).isStopping();
+            will(returnValue(true));
+        }});
+
+        handler.handle(ioSession, message, client);
+
+        assertEquals(1, written.size());
+        assertTrue(written.get(0) instanceof StopForkActionMessage);
+    }
+
+    @Test
+    public void reportsPreviousResultBeforeTakingNextTestClasses() {
+        final TestClassRunInfo test = new DefaultTestClassRunInfo("org.gradle.Test1");
+        final TestClassProcessResult result = new TestClassProcessResult(test);
+        result.setDuration(200L);
+        NextActionRequestMessage message = new NextActionRequestMessage(2);
+        message.setPreviousProcessedTestResult(result);
+
+        context.checking(new Expectations() {{
+            allowing(pipeline).getReports();
+            will(returnValue(Collections.<Report>emptyList()));
+            allowing(pipeline).getTestClassDurations();
+            will(returnValue(durations));
+            allowing(pipeline).getTestClassResultCache();
+            will(returnValue(null));
+            allowing(dispatcher).isStopping();
+            will(returnValue(true));
+            one(client).testProcessed(test);
+        }});
+
+        handler.handle(ioSession, message, client);
+
+        assertEquals(1, written.size());
+        assertTrue(written.get(0) instanceof StopForkActionMessage);
+    }
+}
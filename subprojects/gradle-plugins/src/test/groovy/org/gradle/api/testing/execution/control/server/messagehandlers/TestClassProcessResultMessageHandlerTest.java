@@ -0,0 +1,197 @@
+/*
+ * Copyright 2010 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.testing.execution.control.server.messagehandlers;
+
+import org.apache.mina.core.session.IoSession;
+import org.gradle.api.tasks.testing.NativeTest;
+import org.gradle.api.testing.execution.Pipeline;
+import org.gradle.api.testing.execution.PipelineConfig;
+import org.gradle.api.testing.execution.PipelineDispatcher;
+import org.gradle.api.testing.execution.TestClassDurations;
+import org.gradle.api.testing.execution.control.messages.client.TestClassProcessResultMessage;
+import org.gradle.api.testing.execution.control.messages.server.InitializeActionMessage;
+import org.gradle.api.testing.execution.control.messages.server.StopForkActionMessage;
+import org.gradle.api.testing.execution.control.refork.ReforkContextData;
+import org.gradle.api.testing.execution.control.refork.ReforkControl;
+import org.gradle.api.testing.execution.control.server.TestServerClientHandle;
+import org.gradle.api.testing.execution.fork.ForkStatus;
+import org.gradle.api.testing.fabric.DefaultTestClassRunInfo;
+import org.gradle.api.testing.fabric.TestClassProcessResult;
+import org.gradle.api.testing.fabric.TestClassRunInfo;
+import org.gradle.api.testing.fabric.TestFramework;
+import org.gradle.api.testing.fabric.TestFrameworkInstance;
+import org.gradle.api.testing.reporting.Report;
+import org.gradle.api.testing.reporting.ReportInfo;
+import org.jmock.Expectations;
+import org.jmock.integration.junit4.JUnit4Mockery;
+import org.jmock.lib.legacy.ClassImposteriser;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.*;
+
+public class TestClassProcessResultMessageHandlerTest {
+    private final JUnit4Mockery context = new JUnit4Mockery();
+    private PipelineDispatcher dispatcher;
+    private Pipeline pipeline;
+    private TestServerClientHandle client;
+    private IoSession ioSession;
+    private Report report;
+    private ReforkControl reforkControl;
+    private final PipelineConfig config = new PipelineConfig("default");
+    private final TestClassDurations durations = new TestClassDurations();
+    private final TestClassRunInfo test = new DefaultTestClassRunInfo("org.gradle.Test1");
+    private TestClassProcessResultMessageHandler handler;
+
+    @Before
+    public void setUp() {
+        context.setImposteriser(ClassImposteriser.INSTANCE);
+        dispatcher = context.mock(PipelineDispatcher.class);
+        pipeline = context.mock(Pipeline.class);
+        client = context.mock(TestServerClientHandle.class);
+        ioSession = context.mock(IoSession.class);
+        report = context.mock(Report.class);
+        reforkControl = context.mock(ReforkControl.class);
+
+        context.checking(new Expectations() {{
+            allowing(dispatcher).getPipeline();
+            will(returnValue(pipeline));
+            allowing(pipeline).getId();
+            will(returnValue(1));
+            allowing(pipeline).getConfig();
+            will(returnValue(config));
+            allowing(pipeline).getReports();
+            will(returnValue(Collections.singletonList(report)));
+            allowing(pipeline).getTestClassDurations();
+            will(returnValue(durations));
+            allowing(pipeline).getTestClassResultCache();
+            will(returnValue(null));
+            allowing(pipeline).getReforkController();
+            will(returnValue(reforkControl));
+            allowing(dispatcher).isStopping();
+            will(returnValue(false));
+        }});
+
+        handler = new TestClassProcessResultMessageHandler(dispatcher);
+    }
+
+    @Test
+    public void reportsResultAndSendsNothingToFork() {
+        TestClassProcessResult result = new TestClassProcessResult(test);
+        result.setDuration(200L);
+
+        context.checking(new Expectations() {{
+            one(report).addReportInfo(with(any(ReportInfo.class)));
+            one(client).testProcessed(test);
+        }});
+
+        handler.handle(ioSession, new TestClassProcessResultMessage(2, result), client);
+    }
+
+    @Test
+    public void initializesForkAgainWhenReforkIsNeededAndForksAreReused() {
+        config.setReuseForks(true);
+        final TestClassProcessResultMessage message = reforkMessage();
+        final NativeTest testTask = context.mock(NativeTest.class);
+        final TestFrameworkInstance testFrameworkInstance = context.mock(TestFrameworkInstance.class);
+        final TestFramework testFramework = context.mock(TestFramework.class);
+
+        context.checking(new Expectations() {{
+            allowing(pipeline).getTestTask();
+            will(returnValue(testTask));
+            allowing(testTask).getTestFramework();
+            will(returnValue(testFrameworkInstance));
+            allowing(testFrameworkInstance).getTestFramework();
+            will(returnValue(testFramework));
+            allowing(testFramework).getId();
+            will(returnValue("junit"));
+            one(client).reinitializing();
+            one(ioSession).write(with(instanceOf(InitializeActionMessage.class)));
+        }});
+
+        handler.handle(ioSession, message, client);
+    }
+
+    @Test
+    public void stopsForkWhenReforkIsNeededAndForksAreNotReused() {
+        final TestClassProcessResultMessage message = reforkMessage();
+
+        context.checking(new Expectations() {{
+            one(client).restarting();
+            one(ioSession).write(with(instanceOf(StopForkActionMessage.class)));
+        }});
+
+        handler.handle(ioSession, message, client);
+    }
+
+    @Test
+    public void doesNotReforkAgainWhileForkIsReinitializing() {
+        config.setReuseForks(true);
+        final ReforkContextData reforkContextData = context.mock(ReforkContextData.class);
+        TestClassProcessResultMessage message = new TestClassProcessResultMessage(2, new TestClassProcessResult(test));
+        message.setReforkDecisionContext(reforkContextData);
+
+        context.checking(new Expectations() {{
+            one(report).addReportInfo(with(any(ReportInfo.class)));
+            one(client).testProcessed(test);
+            allowing(client).getStatus();
+            will(returnValue(ForkStatus.STARTED));
+            allowing(client).isReinitializing();
+            will(returnValue(true));
+        }});
+
+        handler.handle(ioSession, message, client);
+    }
+
+    @Test
+    public void doesNotReforkAgainWhileForkIsRestarting() {
+        final ReforkContextData reforkContextData = context.mock(ReforkContextData.class);
+        TestClassProcessResultMessage message = new TestClassProcessResultMessage(2, new TestClassProcessResult(test));
+        message.setReforkDecisionContext(reforkContextData);
+
+        context.checking(new Expectations() {{
+            one(report).addReportInfo(with(any(ReportInfo.class)));
+            one(client).testProcessed(test);
+            allowing(client).getStatus();
+            will(returnValue(ForkStatus.RESTARTING));
+        }});
+
+        handler.handle(ioSession, message, client);
+    }
+
+    private TestClassProcessResultMessage reforkMessage() {
+        final ReforkContextData reforkContextData = context.mock(ReforkContextData.class);
+        TestClassProcessResultMessage message = new TestClassProcessResultMessage(2, new TestClassProcessResult(test));
+        message.setReforkDecisionContext(reforkContextData);
+
+        context.checking(new Expectations() {{
+            allowing(report).addReportInfo(with(any(ReportInfo.class)));
+            allowing(client).testProcessed(test);
+            allowing(client).getStatus();
+            will(returnValue(ForkStatus.STARTED));
+            allowing(client).isReinitializing();
+            will(returnValue(false));
+            one(reforkContextData).setPipeline(pipeline);
+            one(reforkContextData).setForkId(2);
+            one(reforkControl).reforkNeeded(reforkContextData);
+            will(returnValue(true));
+        }});
+
+        return message;
+    }
+}
@@ -70,6 +70,8 @@ public class JUnitTestFrameworkInstanceTest extends AbstractTestFrameworkInstanc
             one(jUnitForkOptionsMock).setDir(projectDir);
             one(testMock).getTestClassesDir();will(returnValue(testClassesDir));
             one(testMock).getClasspath();will(returnValue(classpathMock));
+            one(projectMock).getBuildDir();will(returnValue(new File("build")));
+            one(testMock).getName();will(returnValue("test"));
             one(classpathMock).getAsFileTree();will(returnValue(classpathAsFileTreeMock));
             one(classpathAsFileTreeMock).visit(with(aNonNull(FileVisitor.class)));
         }});